@@ -0,0 +1,23 @@
+#!/bin/sh
+# Builds the sources, starts the HTTP API on a free port against the data files
+# in the current directory, and drives it with ApiLoadTest.
+#
+#   scripts/api-loadtest.sh [clients] [seconds] [path...]
+#
+# Only GET endpoints are exercised, so the data files are left unchanged.
+set -e
+CLIENTS=${1:-32}
+SECONDS_TO_RUN=${2:-10}
+[ $# -gt 0 ] && shift
+[ $# -gt 0 ] && shift
+PATHS=${*:-"/items/M0001 /items /statistics"}
+PORT=${PORT:-18080}
+OUT=$(mktemp -d)
+
+CP=$(ls lib/junit-platform-console-standalone-*.jar | head -n 1)
+javac -d "$OUT" -cp "$CP" $(find src/main/java src/test/java -name '*.java')
+java -cp "$OUT" main.java.api.ApiServer "$PORT" &
+SERVER=$!
+trap 'kill $SERVER 2>/dev/null; rm -rf "$OUT"' EXIT
+sleep 1
+java -cp "$OUT" test.java.ApiLoadTest "http://localhost:$PORT" "$CLIENTS" "$SECONDS_TO_RUN" $PATHS
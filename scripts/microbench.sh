@@ -0,0 +1,12 @@
+#!/bin/sh
+# Builds the sources, test sources included, and runs the per-call benchmarks
+# of PrimitiveBenchmarks.
+#
+#   scripts/microbench.sh [--quick] [filter regex]
+set -e
+OUT=$(mktemp -d)
+trap 'rm -rf "$OUT"' EXIT
+
+CP=$(ls lib/junit-platform-console-standalone-*.jar | head -n 1)
+javac -d "$OUT" -cp "$CP" $(find src/main/java src/test/java -name '*.java')
+java -cp "$OUT" test.java.PrimitiveBenchmarks "$@"
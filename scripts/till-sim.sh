@@ -0,0 +1,11 @@
+#!/bin/sh
+# Builds the sources and runs TillSimulator against a scratch copy of the data
+# files in the current directory (or the one given), so they are left unchanged.
+#
+#   scripts/till-sim.sh [tills] [seconds] [data directory] [seed]
+set -e
+OUT=$(mktemp -d)
+trap 'rm -rf "$OUT"' EXIT
+
+javac -d "$OUT" $(find src/main/java -name '*.java')
+java -cp "$OUT" main.java.session.TillSimulator "$@"
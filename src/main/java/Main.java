@@ -11,12 +11,31 @@
  */
 package main.java;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.checkpoint.Checkpoint;
 import main.java.controller.LoginController;
 import main.java.controller.MainController;
+import main.java.events.ChangeLog;
 
 public class Main {
     
     public static void main(String[] args) {
+        // Warm the shared caches from the last checkpoint instead of parsing every file
+        BranchContext context = BranchContext.of(Branch.DEFAULT);
+        File checkpoint = Checkpoint.defaultFile(Branch.DEFAULT);
+        try {
+            Checkpoint.restore(context, checkpoint);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        ScheduledExecutorService checkpoints = Checkpoint.schedule(context, checkpoint, Checkpoint.intervalMinutes());
+        ChangeLog.attachIfEnabled(context);
+
         // Handle authentication
         LoginController loginController = new LoginController();
         if (!loginController.validateLogin()) {
@@ -26,6 +45,14 @@ public class Main {
         // Start main application
         MainController mainController = new MainController();
         mainController.run();
+
+        checkpoints.shutdown();
+        context.getChanges().close();
+        try {
+            Checkpoint.write(context, checkpoint);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 }
 
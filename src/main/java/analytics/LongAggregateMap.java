@@ -0,0 +1,105 @@
+package main.java.analytics;
+
+/**
+ * Open-addressing hash map from a non-zero long key to three primitive counters
+ * (quantity, amount in sen, occurrences). Avoids boxing on the per-line hot path.
+ */
+final class LongAggregateMap {
+    private static final long EMPTY = 0L;
+
+    private long[] keys;
+    private long[] quantity;
+    private long[] amount;
+    private long[] count;
+    private int size;
+    private int mask;
+
+    LongAggregateMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    void add(long key, long qty, long sen) {
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                grow();
+                slot = slot(key);
+            }
+        }
+        quantity[slot] += qty;
+        amount[slot] += sen;
+        count[slot]++;
+    }
+
+    /** Adds every entry of another map into this one. */
+    void merge(LongAggregateMap other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                int slot = slot(other.keys[i]);
+                if (keys[slot] == EMPTY) {
+                    keys[slot] = other.keys[i];
+                    if (++size * 2 > keys.length) {
+                        grow();
+                        slot = slot(other.keys[i]);
+                    }
+                }
+                quantity[slot] += other.quantity[i];
+                amount[slot] += other.amount[i];
+                count[slot] += other.count[i];
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Visits every entry; order is unspecified. */
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.visit(keys[i], quantity[i], amount[i], count[i]);
+            }
+        }
+    }
+
+    interface Visitor {
+        void visit(long key, long quantity, long amount, long count);
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        quantity = new long[capacity];
+        amount = new long[capacity];
+        count = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldQuantity = quantity;
+        long[] oldAmount = amount;
+        long[] oldCount = count;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                quantity[slot] = oldQuantity[i];
+                amount[slot] = oldAmount[i];
+                count[slot] = oldCount[i];
+            }
+        }
+    }
+}
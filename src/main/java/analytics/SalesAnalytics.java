@@ -0,0 +1,417 @@
+package main.java.analytics;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import main.java.archive.Archive;
+import main.java.archive.ArchiveSegment;
+import main.java.branch.Branch;
+import main.java.config.FilePaths;
+import main.java.repository.OrderPartitions;
+import main.java.util.Money;
+import main.java.util.RecordChecksum;
+
+/**
+ * Single-pass sales aggregation over the order file and, for a branch, its
+ * sealed monthly partitions and archived months.
+ *
+ * The file is split into newline-aligned byte ranges that are memory-mapped and
+ * parsed in parallel, each worker filling its own primitive-keyed maps (item code
+ * packed into a long, day as yyyymmdd). Partial results are merged at the end, so
+ * no locking happens while lines are being read. Lines that {@code OrderRepository}
+ * could not parse are counted and skipped instead of aborting the whole report.
+ */
+public class SalesAnalytics {
+    private static final long MIN_PARTITION_BYTES = 1L << 20;
+    private static final long MAX_PARTITION_BYTES = 1L << 30;
+    private static final long INVALID = SalesTally.INVALID;
+
+    private final File orderFile;
+    private final OrderPartitions partitions;
+    private final Archive archive;
+    private final int parallelism;
+
+    public SalesAnalytics() {
+        this(Branch.DEFAULT);
+    }
+
+    public SalesAnalytics(Branch branch) {
+        this(branch, Runtime.getRuntime().availableProcessors());
+    }
+
+    public SalesAnalytics(Branch branch, int parallelism) {
+        this(branch.file(FilePaths.ORDER), new OrderPartitions(branch),
+                new Archive(branch.file(FilePaths.ARCHIVE), "orders"), parallelism);
+    }
+
+    /** Analyses a single order file. */
+    public SalesAnalytics(File orderFile, int parallelism) {
+        this(orderFile, null, null, parallelism);
+    }
+
+    private SalesAnalytics(File orderFile, OrderPartitions partitions, Archive archive, int parallelism) {
+        this.orderFile = orderFile;
+        this.partitions = partitions;
+        this.archive = archive;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Streams the archived blocks, the sealed partitions and the order file once
+     * each and aggregates per item code, item type and day. An order an
+     * interrupted seal or archiving run left in two of them is counted once, from
+     * the archive before a partition and a partition before the order file, as
+     * {@code OrderRepository.findAll} reads it.
+     * @return report; empty when there are no orders
+     */
+    public SalesReport analyze() throws IOException {
+        SalesTally total = new SalesTally();
+        EarlierCopies archived = null;
+        if (archive != null) {
+            archived = new EarlierCopies(number -> archive.find(number) != null);
+            for (ArchiveSegment segment : archive.segments()) {
+                for (int i = 0; i < segment.getBlockCount(); i++) {
+                    total.merge(aggregate(ByteBuffer.wrap(segment.block(i)), null));
+                }
+                if (segment.getBlockCount() > 0) {
+                    archived.add(segment.getFirstKey(), segment.getLastKey());
+                }
+            }
+        }
+        EarlierCopies sealed = null;
+        if (partitions != null) {
+            sealed = new EarlierCopies(number -> partitions.find(number) != null);
+            for (OrderPartitions.Partition p : partitions.list()) {
+                sealed.add(p.getFirstNumber(), p.getLastNumber());
+            }
+            for (File file : partitions.files()) {
+                if (file.exists()) {
+                    total.merge(analyze(file, archived));
+                }
+            }
+        }
+        if (orderFile.exists()) {
+            total.merge(analyze(orderFile, sealed));
+        }
+        return total.toReport();
+    }
+
+    private SalesTally analyze(File file, EarlierCopies earlier) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = partition(channel, size);
+            if (bounds.length == 2) {
+                return aggregate(channel, bounds[0], bounds[1], earlier);
+            }
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, bounds.length - 1));
+            try {
+                List<Callable<SalesTally>> tasks = new ArrayList<>();
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    long start = bounds[i];
+                    long end = bounds[i + 1];
+                    tasks.add(() -> aggregate(channel, start, end, earlier));
+                }
+                SalesTally total = new SalesTally();
+                for (Future<SalesTally> future : pool.invokeAll(tasks)) {
+                    total.merge(future.get());
+                }
+                return total;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Sales analysis interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Sales analysis failed", e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /** Splits the file into ranges that each start at the beginning of a line. */
+    private long[] partition(FileChannel channel, long size) throws IOException {
+        int parts = (int) Math.max(1, Math.min(parallelism, size / MIN_PARTITION_BYTES));
+        parts = (int) Math.max(parts, (size + MAX_PARTITION_BYTES - 1) / MAX_PARTITION_BYTES);
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (int i = 1; i < parts; i++) {
+            long pos = Math.max(size * i / parts, bounds.get(bounds.size() - 1));
+            boolean found = false;
+            while (!found && pos < size) {
+                probe.clear();
+                int n = channel.read(probe, pos);
+                if (n <= 0) {
+                    break;
+                }
+                for (int j = 0; j < n; j++) {
+                    if (probe.get(j) == '\n') {
+                        pos += j + 1;
+                        found = true;
+                        break;
+                    }
+                }
+                if (!found) {
+                    pos += n;
+                }
+            }
+            if (pos < size && pos > bounds.get(bounds.size() - 1)) {
+                bounds.add(pos);
+            }
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    private SalesTally aggregate(FileChannel channel, long start, long end, EarlierCopies earlier)
+            throws IOException {
+        if (end <= start) {
+            return new SalesTally();
+        }
+        return aggregate(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), earlier);
+    }
+
+    /** @param earlier orders already counted from another source, or null */
+    private SalesTally aggregate(ByteBuffer buf, EarlierCopies earlier) throws IOException {
+        SalesTally partial = new SalesTally();
+        LineParser parser = new LineParser(partial, earlier);
+        int limit = buf.limit();
+        int lineStart = 0;
+        for (int i = 0; i < limit; i++) {
+            if (buf.get(i) == '\n') {
+                parser.parse(buf, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < limit) {
+            parser.parse(buf, lineStart, limit);
+        }
+        return partial;
+    }
+
+    /**
+     * Order numbers counted from an earlier source. A number inside one of the
+     * source's ranges is looked up there; a scan that does not overlap any range
+     * never leaves the byte compare.
+     */
+    private static final class EarlierCopies {
+        interface Lookup {
+            boolean contains(String orderNumber) throws IOException;
+        }
+
+        private final Lookup lookup;
+        private final List<byte[]> first = new ArrayList<>();
+        private final List<byte[]> last = new ArrayList<>();
+
+        EarlierCopies(Lookup lookup) {
+            this.lookup = lookup;
+        }
+
+        void add(String firstNumber, String lastNumber) {
+            first.add(firstNumber.getBytes(StandardCharsets.UTF_8));
+            last.add(lastNumber.getBytes(StandardCharsets.UTF_8));
+        }
+
+        boolean contains(ByteBuffer buf, int start, int end) throws IOException {
+            for (int i = 0; i < first.size(); i++) {
+                if (compare(first.get(i), buf, start, end) <= 0 && compare(last.get(i), buf, start, end) >= 0) {
+                    return lookup.contains(SalesTally.decode(buf, start, end));
+                }
+            }
+            return false;
+        }
+
+        /** Compares order numbers by length, then byte by byte, like {@code OrderPartitions.compareNumbers}. */
+        private static int compare(byte[] number, ByteBuffer buf, int start, int end) {
+            if (number.length != end - start) {
+                return Integer.compare(number.length, end - start);
+            }
+            for (int i = 0; i < number.length; i++) {
+                int c = Integer.compare(number[i] & 0xFF, buf.get(start + i) & 0xFF);
+                if (c != 0) {
+                    return c;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /** The ASCII bytes of a buffer as characters, so {@link Money#parse} can read them in place. */
+    private static final class ByteChars implements CharSequence {
+        ByteBuffer buf;
+
+        @Override
+        public int length() {
+            return buf.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buf.get(index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return SalesTally.decode(buf, start, end);
+        }
+
+        @Override
+        public String toString() {
+            return SalesTally.decode(buf, 0, buf.limit());
+        }
+    }
+
+    /**
+     * Byte-level parser for one order line, following the field layout read by
+     * {@code OrderRepository.parse}: number, date, (code, qty, subtotal)*, total.
+     * A line is validated completely before anything is added to the accumulator.
+     */
+    private static final class LineParser {
+        private final SalesTally partial;
+        private final EarlierCopies earlier;
+        private int[] fieldStart = new int[32];
+        private int[] fieldEnd = new int[32];
+        private long[] lineQty = new long[8];
+        private long[] lineSen = new long[8];
+        private final ByteChars chars = new ByteChars();
+
+        LineParser(SalesTally partial, EarlierCopies earlier) {
+            this.partial = partial;
+            this.earlier = earlier;
+        }
+
+        void parse(ByteBuffer buf, int start, int end) throws IOException {
+            if (end > start && buf.get(end - 1) == '\r') {
+                end--;
+            }
+            if (end <= start) {
+                return;
+            }
+            chars.buf = buf;
+            end = RecordChecksum.verify(buf, start, end);
+            if (end < 0) {
+                partial.skipped++;
+                return;
+            }
+            int fields = split(buf, start, end);
+            // String.split drops trailing empty fields; do the same
+            while (fields > 0 && fieldEnd[fields - 1] == fieldStart[fields - 1]) {
+                fields--;
+            }
+            if (fields < 5) {
+                partial.skipped++;
+                return;
+            }
+            int lines = 0;
+            for (int i = 2; i < fields - 1; i += 3) {
+                if (i + 2 >= fields) {
+                    break;
+                }
+                long qty = parseLong(buf, fieldStart[i + 1], fieldEnd[i + 1]);
+                long sen = parseSen(fieldStart[i + 2], fieldEnd[i + 2]);
+                if (qty == INVALID || sen == INVALID) {
+                    partial.skipped++;
+                    return;
+                }
+                ensureLineCapacity(lines + 1);
+                lineQty[lines] = qty;
+                lineSen[lines] = sen;
+                lines++;
+            }
+            long total = parseSen(fieldStart[fields - 1], fieldEnd[fields - 1]);
+            if (total == INVALID) {
+                partial.skipped++;
+                return;
+            }
+            if (earlier != null && earlier.contains(buf, fieldStart[0], fieldEnd[0])) {
+                return;
+            }
+
+            long orderQty = 0;
+            for (int l = 0; l < lines; l++) {
+                int code = 2 + l * 3;
+                partial.addLine(buf, fieldStart[code], fieldEnd[code], null, lineQty[l], lineSen[l]);
+                orderQty += lineQty[l];
+            }
+            partial.addOrder(SalesTally.parseDay(buf, fieldStart[1], fieldEnd[1]), orderQty, total);
+        }
+
+        /** @return the amount in sen, or {@link #INVALID} when the field is not one */
+        private long parseSen(int start, int end) {
+            try {
+                return Money.parse(chars, start, end);
+            } catch (NumberFormatException | ArithmeticException e) {
+                return INVALID;
+            }
+        }
+
+        private int split(ByteBuffer buf, int start, int end) {
+            int fields = 0;
+            int fieldBegin = start;
+            for (int i = start; i < end; i++) {
+                if (buf.get(i) == '|' && i + 1 < end && buf.get(i + 1) == '|') {
+                    fields = addField(fields, fieldBegin, i);
+                    i++;
+                    fieldBegin = i + 1;
+                }
+            }
+            return addField(fields, fieldBegin, end);
+        }
+
+        private int addField(int fields, int start, int end) {
+            if (fields == fieldStart.length) {
+                fieldStart = Arrays.copyOf(fieldStart, fields * 2);
+                fieldEnd = Arrays.copyOf(fieldEnd, fields * 2);
+            }
+            fieldStart[fields] = start;
+            fieldEnd[fields] = end;
+            return fields + 1;
+        }
+
+        private void ensureLineCapacity(int needed) {
+            if (needed > lineQty.length) {
+                int n = lineQty.length * 2;
+                lineQty = Arrays.copyOf(lineQty, n);
+                lineSen = Arrays.copyOf(lineSen, n);
+            }
+        }
+    }
+
+    static long parseLong(ByteBuffer buf, int start, int end) {
+        if (start >= end) {
+            return INVALID;
+        }
+        boolean negative = buf.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i >= end) {
+            return INVALID;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) {
+                return INVALID;
+            }
+            value = value * 10 + d;
+        }
+        return negative ? -value : value;
+    }
+}
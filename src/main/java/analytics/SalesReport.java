@@ -0,0 +1,131 @@
+package main.java.analytics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import main.java.model.OrderRecord;
+
+/**
+ * Result of one pass of {@link SalesAnalytics} over the order file.
+ * Amounts are kept in sen so sums are exact; {@link Row#getAmount()} converts for display.
+ */
+public class SalesReport {
+
+    /** One aggregated bucket: an item code, a day or an item type. */
+    public static class Row {
+        private final String label;
+        private final long quantity;
+        private final long amountSen;
+        private final long count;
+
+        public Row(String label, long quantity, long amountSen, long count) {
+            this.label = label;
+            this.quantity = quantity;
+            this.amountSen = amountSen;
+            this.count = count;
+        }
+
+        public String getLabel() { return label; }
+        public long getQuantity() { return quantity; }
+        public long getAmountSen() { return amountSen; }
+        public double getAmount() { return amountSen / 100.0; }
+        public long getCount() { return count; }
+    }
+
+    private final List<Row> items;
+    private final List<Row> days;
+    private final List<Row> types;
+    private final long orderCount;
+    private final long revenueSen;
+    private final long skippedLines;
+
+    public SalesReport(List<Row> items, List<Row> days, List<Row> types,
+                       long orderCount, long revenueSen, long skippedLines) {
+        this.items = items;
+        this.days = days;
+        this.types = types;
+        this.orderCount = orderCount;
+        this.revenueSen = revenueSen;
+        this.skippedLines = skippedLines;
+    }
+
+    /** Aggregates orders already read from a store, e.g. {@code OrderStore.findAll()}. */
+    public static SalesReport of(Iterable<OrderRecord> orders) {
+        SalesTally tally = new SalesTally();
+        for (OrderRecord order : orders) {
+            tally.add(order);
+        }
+        return tally.toReport();
+    }
+
+    public long getOrderCount() { return orderCount; }
+    public long getRevenueSen() { return revenueSen; }
+    public double getRevenue() { return revenueSen / 100.0; }
+    public long getSkippedLines() { return skippedLines; }
+
+    /** Per-type totals in {@code ItemRecord.Type} order. */
+    public List<Row> getTypes() { return types; }
+
+    /** Every item bucket, unsorted. */
+    public List<Row> getItems() { return items; }
+
+    /** Every day bucket, unsorted. */
+    public List<Row> getDays() { return days; }
+
+    public List<Row> topItemsByQuantity(int n) {
+        return top(items, n, Comparator.comparingLong(Row::getQuantity));
+    }
+
+    public List<Row> topItemsByRevenue(int n) {
+        return top(items, n, Comparator.comparingLong(Row::getAmountSen));
+    }
+
+    public List<Row> topDaysByRevenue(int n) {
+        return top(days, n, Comparator.comparingLong(Row::getAmountSen));
+    }
+
+    /** Looks up the bucket for one label (item code or yyyy-MM-dd day), or null. */
+    public Row findItem(String code) {
+        return find(items, code);
+    }
+
+    public Row findDay(String day) {
+        return find(days, day);
+    }
+
+    private static Row find(List<Row> rows, String label) {
+        for (Row row : rows) {
+            if (row.getLabel().equals(label)) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the n largest rows by the given measure, ties broken by label,
+     * without sorting the whole list.
+     */
+    private static List<Row> top(List<Row> rows, int n, Comparator<Row> measure) {
+        if (n <= 0) {
+            return new ArrayList<>();
+        }
+        Comparator<Row> order = measure.reversed().thenComparing(Row::getLabel);
+        List<Row> best = new ArrayList<>(Math.min(n, rows.size()) + 1);
+        for (Row row : rows) {
+            if (best.size() == n && order.compare(row, best.get(n - 1)) >= 0) {
+                continue;
+            }
+            int pos = best.size();
+            while (pos > 0 && order.compare(row, best.get(pos - 1)) < 0) {
+                pos--;
+            }
+            best.add(pos, row);
+            if (best.size() > n) {
+                best.remove(n);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,175 @@
+package main.java.analytics;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import main.java.config.ItemCodePrefix;
+import main.java.model.ItemRecord;
+import main.java.model.OrderLine;
+import main.java.model.OrderRecord;
+
+/**
+ * Running totals per item code, item type and day. {@link SalesAnalytics} keeps
+ * one per worker and merges them; {@link #add(OrderRecord)} feeds one from
+ * records an order store has already parsed.
+ */
+final class SalesTally {
+    static final long INVALID = Long.MIN_VALUE;
+    private static final int TYPE_COUNT = ItemRecord.Type.values().length;
+    private static final byte MEDICINE = (byte) ItemCodePrefix.MEDICINE.charAt(0);
+    private static final byte SUPPLEMENT = (byte) ItemCodePrefix.SUPPLEMENT.charAt(0);
+
+    final LongAggregateMap items = new LongAggregateMap(256);
+    final LongAggregateMap days = new LongAggregateMap(64);
+    final Map<String, long[]> longCodes = new HashMap<>();
+    final long[] typeQuantity = new long[TYPE_COUNT];
+    final long[] typeAmount = new long[TYPE_COUNT];
+    final long[] typeCount = new long[TYPE_COUNT];
+    long orders;
+    long revenue;
+    long skipped;
+
+    /** Adds an order, as read by any {@code OrderStore}. */
+    void add(OrderRecord order) {
+        long orderQty = 0;
+        for (OrderLine line : order.getLines()) {
+            byte[] code = line.getItemCode().getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buf = ByteBuffer.wrap(code);
+            addLine(buf, 0, code.length, line.getItemCode(), line.getQuantity(), line.getSubtotalSen());
+            orderQty += line.getQuantity();
+        }
+        byte[] date = order.getDate().getBytes(StandardCharsets.UTF_8);
+        addOrder(parseDay(ByteBuffer.wrap(date), 0, date.length), orderQty, order.getTotalSen());
+    }
+
+    /**
+     * Adds one order line whose item code is {@code buf[start, end)}; {@code longCode}
+     * is the code as text when it is already decoded, otherwise null.
+     */
+    void addLine(ByteBuffer buf, int start, int end, String longCode, long qty, long sen) {
+        int codeLen = end - start;
+        if (codeLen > 0 && codeLen <= 8) {
+            items.add(packCode(buf, start, end), qty, sen);
+        } else {
+            long[] v = longCodes.computeIfAbsent(longCode != null ? longCode : decode(buf, start, end),
+                    k -> new long[3]);
+            v[0] += qty;
+            v[1] += sen;
+            v[2]++;
+        }
+        int type = codeLen > 0 ? typeOf(buf.get(start)) : -1;
+        if (type >= 0) {
+            typeQuantity[type] += qty;
+            typeAmount[type] += sen;
+            typeCount[type]++;
+        }
+    }
+
+    /** Counts an order whose lines were added; {@code day} is yyyymmdd or {@link #INVALID}. */
+    void addOrder(long day, long orderQty, long total) {
+        if (day != INVALID) {
+            days.add(day, orderQty, total);
+        }
+        orders++;
+        revenue += total;
+    }
+
+    void merge(SalesTally other) {
+        items.merge(other.items);
+        days.merge(other.days);
+        for (Map.Entry<String, long[]> e : other.longCodes.entrySet()) {
+            long[] mine = longCodes.computeIfAbsent(e.getKey(), k -> new long[3]);
+            for (int i = 0; i < 3; i++) {
+                mine[i] += e.getValue()[i];
+            }
+        }
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            typeQuantity[i] += other.typeQuantity[i];
+            typeAmount[i] += other.typeAmount[i];
+            typeCount[i] += other.typeCount[i];
+        }
+        orders += other.orders;
+        revenue += other.revenue;
+        skipped += other.skipped;
+    }
+
+    SalesReport toReport() {
+        List<SalesReport.Row> itemRows = new ArrayList<>(items.size() + longCodes.size());
+        items.forEach((key, qty, sen, n) -> itemRows.add(new SalesReport.Row(unpackCode(key), qty, sen, n)));
+        for (Map.Entry<String, long[]> e : longCodes.entrySet()) {
+            long[] v = e.getValue();
+            itemRows.add(new SalesReport.Row(e.getKey(), v[0], v[1], v[2]));
+        }
+        List<SalesReport.Row> dayRows = new ArrayList<>(days.size());
+        days.forEach((key, qty, sen, n) -> dayRows.add(new SalesReport.Row(formatDay(key), qty, sen, n)));
+        List<SalesReport.Row> typeRows = new ArrayList<>(TYPE_COUNT);
+        for (ItemRecord.Type type : ItemRecord.Type.values()) {
+            int t = type.ordinal();
+            typeRows.add(new SalesReport.Row(type.name(), typeQuantity[t], typeAmount[t], typeCount[t]));
+        }
+        return new SalesReport(itemRows, dayRows, typeRows, orders, revenue, skipped);
+    }
+
+    private static int typeOf(byte prefix) {
+        if (prefix == MEDICINE) return ItemRecord.Type.MEDICINE.ordinal();
+        if (prefix == SUPPLEMENT) return ItemRecord.Type.SUPPLEMENT.ordinal();
+        return -1;
+    }
+
+    /** Packs up to eight ASCII bytes big-endian, so the packed values keep the codes' order. */
+    static long packCode(ByteBuffer buf, int start, int end) {
+        long key = 0;
+        for (int i = start; i < start + 8; i++) {
+            key = (key << 8) | (i < end ? (buf.get(i) & 0xFF) : 0);
+        }
+        return key;
+    }
+
+    static String unpackCode(long key) {
+        byte[] bytes = new byte[8];
+        int n = 0;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            byte b = (byte) (key >>> shift);
+            if (b == 0) {
+                break;
+            }
+            bytes[n++] = b;
+        }
+        return new String(bytes, 0, n, StandardCharsets.UTF_8);
+    }
+
+    /** Reads the yyyy-MM-dd prefix of an order date as the integer yyyymmdd. */
+    static long parseDay(ByteBuffer buf, int start, int end) {
+        if (end - start < 10 || buf.get(start + 4) != '-' || buf.get(start + 7) != '-') {
+            return INVALID;
+        }
+        long day = 0;
+        for (int i = start; i < start + 10; i++) {
+            if (i == start + 4 || i == start + 7) {
+                continue;
+            }
+            int d = buf.get(i) - '0';
+            if (d < 0 || d > 9) {
+                return INVALID;
+            }
+            day = day * 10 + d;
+        }
+        return day == 0 ? INVALID : day;
+    }
+
+    static String formatDay(long day) {
+        return String.format("%04d-%02d-%02d", day / 10000, (day / 100) % 100, day % 100);
+    }
+
+    static String decode(ByteBuffer buf, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buf.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
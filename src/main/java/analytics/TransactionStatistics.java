@@ -0,0 +1,66 @@
+package main.java.analytics;
+
+import java.util.List;
+
+import main.java.model.TransactionRecord;
+import main.java.util.Money;
+
+/** Counts and revenue per payment method, summed in sen. */
+public class TransactionStatistics {
+    private static final int METHODS = TransactionRecord.Method.values().length;
+
+    private final long[] counts = new long[METHODS];
+    private final long[] totals = new long[METHODS];
+    private long count;
+    private long revenue;
+
+    public static TransactionStatistics of(List<TransactionRecord> records) {
+        TransactionStatistics stats = new TransactionStatistics();
+        for (TransactionRecord r : records) {
+            stats.add(r);
+        }
+        return stats;
+    }
+
+    /**
+     * Rebuilds statistics from stored per-method totals, e.g. a checkpoint.
+     * @param counts      transactions per method, indexed by {@code Method.ordinal()}
+     * @param revenueSen  revenue per method in sen, same indexing
+     */
+    public static TransactionStatistics ofTotals(long[] counts, long[] revenueSen) {
+        if (counts.length != METHODS || revenueSen.length != METHODS) {
+            throw new IllegalArgumentException("Expected " + METHODS + " payment methods");
+        }
+        TransactionStatistics stats = new TransactionStatistics();
+        for (int m = 0; m < METHODS; m++) {
+            stats.counts[m] = counts[m];
+            stats.totals[m] = revenueSen[m];
+            stats.count += counts[m];
+            stats.revenue += revenueSen[m];
+        }
+        return stats;
+    }
+
+    public void add(TransactionRecord r) {
+        int m = r.getMethod().ordinal();
+        counts[m]++;
+        totals[m] += r.getFinalPriceSen();
+        count++;
+        revenue += r.getFinalPriceSen();
+    }
+
+    public TransactionStatistics copy() {
+        return ofTotals(counts, totals);
+    }
+
+    public long getCount() { return count; }
+    public long getRevenueSen() { return revenue; }
+
+    /** Mean final price in ringgit, or 0 when there are no transactions. */
+    public double getAverage() {
+        return count == 0 ? 0.0 : Money.toDouble(revenue) / count;
+    }
+
+    public long getCount(TransactionRecord.Method method) { return counts[method.ordinal()]; }
+    public long getRevenueSen(TransactionRecord.Method method) { return totals[method.ordinal()]; }
+}
@@ -0,0 +1,404 @@
+package main.java.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import main.java.analytics.TransactionStatistics;
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.config.FilePaths;
+import main.java.config.OrderConstants;
+import main.java.controller.Validation;
+import main.java.model.ItemRecord;
+import main.java.model.OrderLine;
+import main.java.model.OrderRecord;
+import main.java.model.TransactionRecord;
+import main.java.pricing.PriceQuote;
+import main.java.pricing.PricingEngine;
+import main.java.service.OrderService;
+import main.java.service.PaymentService;
+import main.java.util.VirtualThreads;
+
+/**
+ * Local HTTP/JSON API over one branch's data, for the web shop and other
+ * integrations that cannot drive the console.
+ *
+ * <pre>
+ * GET  /items                   all items
+ * GET  /items/{code}            one item
+ * POST /orders                  {"orderNumber":"O0100","lines":[{"itemCode":"M0001","quantity":2}]}
+ * GET  /orders/{number}         one order with its price quote
+ * POST /orders/{number}/payment {"method":"CASH","payAmount":25.00}
+ *                               {"method":"BANK","bankName":"...","account":"..."}
+ *                               {"method":"EWALLET","name":"...","phone":"..."}
+ * GET  /statistics              payment totals per method
+ * </pre>
+ * Amounts are JSON numbers in ringgit with two decimals. Errors come back as
+ * {@code {"error":"..."}} with a 4xx or 5xx status.
+ *
+ * Every request runs on its own thread (virtual where available). Orders and
+ * payments go through the same {@link OrderService} and {@link PaymentService}
+ * as the console, sharing one read-write lock, so a request never sees a data
+ * file half-rewritten by another. An order holds its lines in the branch's
+ * stock reservations while it is placed, so it is refused with 409 rather than
+ * sell units a till is holding.
+ */
+public class ApiServer {
+    private static final int DEFAULT_PORT = 8080;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final OrderService orders;
+    private final PaymentService payments;
+
+    public ApiServer(Branch branch, InetSocketAddress address) throws IOException {
+        this(BranchContext.of(branch), address);
+    }
+
+    /** Serves a branch through the same repositories and lock as the other users of {@code context}. */
+    public ApiServer(BranchContext context, InetSocketAddress address) throws IOException {
+        PricingEngine pricing = PricingEngine.load(context.getBranch().file(FilePaths.PRICING));
+        this.orders = new OrderService(context.getItems(), context.getOrders(), context.getLock(),
+                context.getReservations());
+        this.payments = new PaymentService(context.getTransactions(), pricing, context.getLock());
+        // small JSON replies otherwise sit behind Nagle's algorithm and the client's delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.server = HttpServer.create(address, 0);
+        this.executor = VirtualThreads.newPerTaskExecutor("api");
+        server.setExecutor(executor);
+        server.createContext("/items", this::handleItems);
+        server.createContext("/orders", this::handleOrders);
+        server.createContext("/statistics", this::handleStatistics);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /** Stops accepting requests and waits up to a second for running ones. */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        ApiServer api = new ApiServer(Branch.DEFAULT, new InetSocketAddress(port));
+        api.start();
+        System.out.println("API listening on http://localhost:" + api.getPort() + "/ ("
+                + (VirtualThreads.available() ? "virtual" : "platform") + " threads)");
+    }
+
+    /** A request that cannot be served, answered with the given status. */
+    private static final class ApiException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Route {
+        String handle(HttpExchange exchange, String[] path) throws Exception;
+    }
+
+    private void handleItems(HttpExchange exchange) {
+        serve(exchange, (ex, path) -> {
+            requireMethod(ex, "GET");
+            if (path.length == 1) {
+                Json.Writer w = new Json.Writer().beginArray(null);
+                for (ItemRecord item : orders.findItems()) {
+                    writeItem(w.beginObject(), item).endObject();
+                }
+                return w.endArray().toString();
+            }
+            if (path.length == 2) {
+                ItemRecord item = orders.findItem(path[1]);
+                if (item == null) {
+                    throw new ApiException(404, String.format(OrderConstants.DISPLAY_ITEM_NOT_FOUND_FORMAT, path[1]));
+                }
+                return writeItem(new Json.Writer().beginObject(), item).endObject().toString();
+            }
+            throw new ApiException(404, "No such resource");
+        });
+    }
+
+    private void handleOrders(HttpExchange exchange) {
+        serve(exchange, (ex, path) -> {
+            if (path.length == 1) {
+                requireMethod(ex, "POST");
+                return createOrder(ex, readObject(ex));
+            }
+            if (path.length == 2) {
+                requireMethod(ex, "GET");
+                OrderRecord order = findOrder(path[1]);
+                return writeOrder(new Json.Writer().beginObject(), order, payments.quote(order)).endObject().toString();
+            }
+            if (path.length == 3 && path[2].equals("payment")) {
+                requireMethod(ex, "POST");
+                return pay(findOrder(path[1]), readObject(ex));
+            }
+            throw new ApiException(404, "No such resource");
+        });
+    }
+
+    private void handleStatistics(HttpExchange exchange) {
+        serve(exchange, (ex, path) -> {
+            requireMethod(ex, "GET");
+            TransactionStatistics stats = payments.statistics();
+            Json.Writer w = new Json.Writer().beginObject()
+                    .field("transactions", stats.getCount())
+                    .money("revenue", stats.getRevenueSen())
+                    .field("average", Math.round(stats.getAverage() * 100.0) / 100.0)
+                    .beginObject("methods");
+            for (TransactionRecord.Method m : TransactionRecord.Method.values()) {
+                w.beginObject(m.name())
+                        .field("transactions", stats.getCount(m))
+                        .money("revenue", stats.getRevenueSen(m))
+                        .endObject();
+            }
+            return w.endObject().endObject().toString();
+        });
+    }
+
+    private String createOrder(HttpExchange exchange, Map<String, Object> body) throws Exception {
+        String number = string(body, "orderNumber");
+        if (!Validation.isOrderNumber(number)) {
+            throw new ApiException(400, OrderConstants.MSG_INVALID_ORDER_NUMBER_FORMAT.trim());
+        }
+        Object rawLines = body.get("lines");
+        if (!(rawLines instanceof List) || ((List<?>) rawLines).isEmpty()) {
+            throw new ApiException(400, OrderConstants.MSG_NO_ITEMS_ADDED.trim());
+        }
+        List<OrderLine> lines = new ArrayList<>();
+        // web orders hold their lines like a till does, so they never sell stock a till is holding
+        String holder = "api-" + UUID.randomUUID();
+        OrderRecord order;
+        try {
+            for (Object raw : (List<?>) rawLines) {
+                if (!(raw instanceof Map)) {
+                    throw new ApiException(400, "Each line must be an object");
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, Object> line = (Map<String, Object>) raw;
+                String code = string(line, "itemCode");
+                if (!Validation.isItemCode(code)) {
+                    throw new ApiException(400, OrderConstants.MSG_INVALID_ITEM_CODE_FORMAT.trim());
+                }
+                int quantity;
+                try {
+                    quantity = ((Json.Number) line.get("quantity")).toInt();
+                } catch (ClassCastException | NullPointerException | NumberFormatException e) {
+                    throw new ApiException(400, OrderConstants.MSG_INVALID_QUANTITY_FORMAT.trim());
+                }
+                if (quantity <= OrderConstants.MIN_QUANTITY) {
+                    throw new ApiException(400, OrderConstants.MSG_QUANTITY_MUST_BE_POSITIVE);
+                }
+                ItemRecord item = orders.findItem(code.trim());
+                if (item == null) {
+                    throw new ApiException(400, String.format(OrderConstants.DISPLAY_ITEM_NOT_FOUND_FORMAT, code));
+                }
+                if (!orders.reserve(holder, item.getCode(), quantity)) {
+                    item = orders.findItem(item.getCode());
+                    throw new ApiException(409, String.format(OrderConstants.DISPLAY_NOT_ENOUGH_STOCK_FORMAT,
+                            item == null ? 0 : orders.available(item), code.trim()));
+                }
+                lines.add(orders.priceLine(item, quantity));
+            }
+            try {
+                order = orders.placeOrder(number, lines, holder);
+            } catch (IllegalStateException e) {
+                throw new ApiException(409, e.getMessage());
+            }
+            if (order == null) {
+                throw new ApiException(500, OrderConstants.MSG_FAILED_TO_SAVE_ORDER.trim());
+            }
+        } finally {
+            orders.release(holder);
+        }
+        exchange.getResponseHeaders().set("Location", "/orders/" + order.getOrderNumber());
+        return writeOrder(new Json.Writer().beginObject(), order, payments.quote(order)).endObject().toString();
+    }
+
+    private String pay(OrderRecord order, Map<String, Object> body) throws Exception {
+        TransactionRecord.Method method;
+        try {
+            method = TransactionRecord.Method.valueOf(string(body, "method").trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "method must be CASH, BANK or EWALLET");
+        }
+        TransactionRecord record;
+        try {
+            switch (method) {
+                case CASH:
+                    Object amount = body.get("payAmount");
+                    if (!(amount instanceof Json.Number)) {
+                        throw new ApiException(400, "payAmount is required");
+                    }
+                    record = payments.payCash(order, ((Json.Number) amount).toSen());
+                    break;
+                case BANK:
+                    record = payments.pay(order, method, string(body, "bankName"), string(body, "account"));
+                    break;
+                default:
+                    record = payments.pay(order, method, string(body, "name"), string(body, "phone"));
+                    break;
+            }
+        } catch (IllegalStateException e) {
+            throw new ApiException(409, e.getMessage());
+        }
+        if (record == null) {
+            throw new ApiException(500, "Failed to save payment (file missing?).");
+        }
+        return new Json.Writer().beginObject()
+                .field("orderNumber", record.getOrderNumber())
+                .field("method", record.getMethod().name())
+                .money("total", record.getTotalPriceSen())
+                .field("discountPercent", record.getDiscountPercent())
+                .money("discount", record.getDiscountAmountSen())
+                .field("taxPercent", record.getTaxPercent())
+                .money("final", record.getFinalPriceSen())
+                .field("field1", record.getField1())
+                .field("field2", record.getField2())
+                .endObject().toString();
+    }
+
+    private OrderRecord findOrder(String number) throws Exception {
+        OrderRecord order = orders.findOrder(number);
+        if (order == null) {
+            throw new ApiException(404, OrderConstants.MSG_ORDER_NOT_FOUND.trim());
+        }
+        return order;
+    }
+
+    private static Json.Writer writeItem(Json.Writer w, ItemRecord item) {
+        w.field("code", item.getCode())
+                .field("description", item.getDescription())
+                .money("price", item.getPriceSen())
+                .field("quantity", item.getQuantity())
+                .field("type", item.getType().name());
+        if (item.getType() == ItemRecord.Type.MEDICINE) {
+            w.field("forDisease", item.getExtra1()).field("amountDayTake", item.getExtra2());
+        } else {
+            w.field("function", item.getExtra1()).field("expireDate", item.getExtra2());
+        }
+        return w;
+    }
+
+    private static Json.Writer writeOrder(Json.Writer w, OrderRecord order, PriceQuote quote) {
+        w.field("orderNumber", order.getOrderNumber())
+                .field("date", order.getDate())
+                .beginArray("lines");
+        for (OrderLine line : order.getLines()) {
+            w.beginObject()
+                    .field("itemCode", line.getItemCode())
+                    .field("quantity", line.getQuantity())
+                    .money("subtotal", line.getSubtotalSen())
+                    .endObject();
+        }
+        return w.endArray()
+                .money("total", order.getTotalSen())
+                .beginObject("quote")
+                .field("discountPercent", quote.getDiscountPercent())
+                .money("discount", quote.getDiscountSen())
+                .field("taxPercent", quote.getTaxPercent())
+                .money("tax", quote.getTaxSen())
+                .money("final", quote.getFinalSen())
+                .endObject();
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) throws ApiException {
+        if (!exchange.getRequestMethod().equalsIgnoreCase(method)) {
+            exchange.getResponseHeaders().set("Allow", method);
+            throw new ApiException(405, "Use " + method);
+        }
+    }
+
+    private static String string(Map<String, Object> body, String name) throws ApiException {
+        Object value = body.get(name);
+        if (!(value instanceof String) || ((String) value).isBlank()) {
+            throw new ApiException(400, name + " is required");
+        }
+        return (String) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readObject(HttpExchange exchange) throws ApiException, IOException {
+        String text;
+        try (InputStream in = exchange.getRequestBody()) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        try {
+            Object value = Json.parse(text);
+            if (value instanceof Map) {
+                return (Map<String, Object>) value;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, e.getMessage());
+        }
+        throw new ApiException(400, "Request body must be a JSON object");
+    }
+
+    /** Runs a route and writes its JSON, mapping failures to status codes. */
+    private static void serve(HttpExchange exchange, Route route) {
+        int status;
+        String body;
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String[] parts = path.replaceAll("^/+|/+$", "").split("/+");
+            body = route.handle(exchange, parts);
+            status = exchange.getRequestMethod().equalsIgnoreCase("POST") ? 201 : 200;
+        } catch (ApiException e) {
+            status = e.status;
+            body = error(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            status = 500;
+            body = error("Internal error");
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(status, bytes.length);
+            out.write(bytes);
+        } catch (IOException e) {
+            // client went away; nothing left to tell it
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String error(String message) {
+        return new Json.Writer().beginObject().field("error", message).endObject().toString();
+    }
+}
@@ -0,0 +1,318 @@
+package main.java.api;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import main.java.util.Money;
+
+/**
+ * The little JSON the API needs: a streaming writer for responses and a parser
+ * for request bodies into maps, lists, strings, numbers, booleans and null.
+ * Numbers are kept as their source text so amounts can go straight to
+ * {@link Money#parse(CharSequence)} without passing through a double.
+ */
+final class Json {
+    private Json() {}
+
+    /** A parsed JSON number, still in its original text form. */
+    static final class Number {
+        final String text;
+
+        Number(String text) {
+            this.text = text;
+        }
+
+        long toSen() {
+            return Money.parse(text);
+        }
+
+        int toInt() {
+            return Integer.parseInt(text);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /** Appends values to a buffer, inserting commas between members. */
+    static final class Writer {
+        private final StringBuilder sb = new StringBuilder(256);
+        private boolean first = true;
+
+        Writer beginObject() {
+            separate();
+            sb.append('{');
+            first = true;
+            return this;
+        }
+
+        Writer endObject() {
+            sb.append('}');
+            first = false;
+            return this;
+        }
+
+        Writer beginArray(String name) {
+            name(name);
+            sb.append('[');
+            first = true;
+            return this;
+        }
+
+        Writer endArray() {
+            sb.append(']');
+            first = false;
+            return this;
+        }
+
+        Writer field(String name, String value) {
+            name(name);
+            if (value == null) {
+                sb.append("null");
+            } else {
+                string(value);
+            }
+            first = false;
+            return this;
+        }
+
+        Writer field(String name, long value) {
+            name(name);
+            sb.append(value);
+            first = false;
+            return this;
+        }
+
+        Writer field(String name, double value) {
+            name(name);
+            sb.append(value);
+            first = false;
+            return this;
+        }
+
+        /** Writes an amount in sen as a JSON number with two decimals. */
+        Writer money(String name, long sen) {
+            name(name);
+            Money.append(sb, sen);
+            first = false;
+            return this;
+        }
+
+        Writer beginObject(String name) {
+            name(name);
+            sb.append('{');
+            first = true;
+            return this;
+        }
+
+        private void name(String name) {
+            separate();
+            if (name != null) {
+                string(name);
+                sb.append(':');
+            }
+        }
+
+        private void separate() {
+            if (!first) {
+                sb.append(',');
+            }
+        }
+
+        private void string(String s) {
+            sb.append('"');
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '"': sb.append("\\\""); break;
+                    case '\\': sb.append("\\\\"); break;
+                    case '\n': sb.append("\\n"); break;
+                    case '\r': sb.append("\\r"); break;
+                    case '\t': sb.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            sb.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            sb.append(c);
+                        }
+                }
+            }
+            sb.append('"');
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Parses one JSON value.
+     * @throws IllegalArgumentException when the text is not valid JSON
+     */
+    static Object parse(String text) {
+        Parser p = new Parser(text);
+        Object value = p.value();
+        p.skipWhitespace();
+        if (p.pos != text.length()) {
+            throw p.error("trailing characters");
+        }
+        return value;
+    }
+
+    private static final class Parser {
+        private final String s;
+        private int pos;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        Object value() {
+            skipWhitespace();
+            if (pos >= s.length()) {
+                throw error("unexpected end");
+            }
+            char c = s.charAt(pos);
+            switch (c) {
+                case '{': return object();
+                case '[': return array();
+                case '"': return string();
+                case 't': return literal("true", Boolean.TRUE);
+                case 'f': return literal("false", Boolean.FALSE);
+                case 'n': return literal("null", null);
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        return number();
+                    }
+                    throw error("unexpected '" + c + "'");
+            }
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return map;
+            }
+            while (true) {
+                skipWhitespace();
+                if (peek() != '"') {
+                    throw error("expected a member name");
+                }
+                String name = string();
+                skipWhitespace();
+                expect(':');
+                map.put(name, value());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect('}');
+                    return map;
+                }
+            }
+        }
+
+        private List<Object> array() {
+            List<Object> list = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return list;
+            }
+            while (true) {
+                list.add(value());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    return list;
+                }
+            }
+        }
+
+        private String string() {
+            StringBuilder sb = new StringBuilder();
+            pos++;
+            while (pos < s.length()) {
+                char c = s.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= s.length()) {
+                    break;
+                }
+                char e = s.charAt(pos++);
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > s.length()) {
+                            throw error("bad unicode escape");
+                        }
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: sb.append(e);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        private Number number() {
+            int start = pos;
+            if (peek() == '-') {
+                pos++;
+            }
+            while (pos < s.length() && "0123456789.eE+-".indexOf(s.charAt(pos)) >= 0) {
+                pos++;
+            }
+            return new Number(s.substring(start, pos));
+        }
+
+        private Object literal(String word, Object value) {
+            if (!s.startsWith(word, pos)) {
+                throw error("unexpected token");
+            }
+            pos += word.length();
+            return value;
+        }
+
+        private char peek() {
+            return pos < s.length() ? s.charAt(pos) : '\0';
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                throw error("expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        void skipWhitespace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid JSON at " + pos + ": " + message);
+        }
+    }
+}
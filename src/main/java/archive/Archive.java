@@ -0,0 +1,173 @@
+package main.java.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import main.java.repository.FileStamp;
+
+/**
+ * The archived months of one data file, a compressed {@link ArchiveSegment} per
+ * month named {@code <name>-yyyy-MM.seg}.
+ *
+ * Only the segments' indexes are kept in memory, so a lookup touches the disk for
+ * nothing but the one block that can hold its key. The list of segments is read
+ * again whenever the directory has changed.
+ */
+public class Archive {
+    private static final String SUFFIX = ".seg";
+
+    private final File dir;
+    private final String name;
+    private final Map<String, ArchiveSegment> segments = new TreeMap<>();
+    private FileStamp dirStamp = FileStamp.MISSING;
+
+    /**
+     * @param dir  directory shared by the archives of a branch
+     * @param name prefix of this archive's segment files
+     */
+    public Archive(File dir, String name) {
+        this.dir = dir;
+        this.name = name;
+    }
+
+    /** Archived months, yyyy-MM, oldest first. */
+    public synchronized List<String> months() throws IOException {
+        refresh();
+        return new ArrayList<>(segments.keySet());
+    }
+
+    /** Segments, oldest month first. */
+    public synchronized List<ArchiveSegment> segments() throws IOException {
+        refresh();
+        return new ArrayList<>(segments.values());
+    }
+
+    /** The archived line with the given key, or null. */
+    public synchronized String find(String key) throws IOException {
+        refresh();
+        for (ArchiveSegment segment : segments.values()) {
+            if (segment.mayContain(key)) {
+                String line = segment.find(key);
+                if (line != null) {
+                    return line;
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Every archived line, oldest month first and in key order within a month. */
+    public synchronized List<String> readAll() throws IOException {
+        refresh();
+        List<String> lines = new ArrayList<>();
+        for (ArchiveSegment segment : segments.values()) {
+            lines.addAll(segment.readAll());
+        }
+        return lines;
+    }
+
+    /** Lines of the months from one to the other, both yyyy-MM and inclusive. */
+    public synchronized List<String> readBetween(String fromMonth, String toMonth) throws IOException {
+        refresh();
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, ArchiveSegment> e : segments.entrySet()) {
+            if (e.getKey().compareTo(fromMonth) >= 0 && e.getKey().compareTo(toMonth) <= 0) {
+                lines.addAll(e.getValue().readAll());
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Adds lines to a month's segment, creating it if needed. A line whose key is
+     * already archived for that month is dropped, so repeating an interrupted run
+     * is harmless.
+     * @return the month's segment as written
+     */
+    public synchronized ArchiveSegment add(String month, List<String> lines) throws IOException {
+        refresh();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        ArchiveSegment existing = segments.get(month);
+        List<String> merged = existing == null ? new ArrayList<>() : existing.readAll();
+        Set<String> keys = new HashSet<>();
+        for (String line : merged) {
+            keys.add(ArchiveSegment.keyOf(line));
+        }
+        for (String line : lines) {
+            if (keys.add(ArchiveSegment.keyOf(line))) {
+                merged.add(line);
+            }
+        }
+        ArchiveSegment segment = ArchiveSegment.write(file(month), merged);
+        segments.put(month, segment);
+        dirStamp = FileStamp.of(dir);
+        return segment;
+    }
+
+    /**
+     * Replaces or removes an archived line by rewriting its month's segment.
+     * @param line new line, or null to remove it
+     * @return the line as it was, or null when the key is not archived
+     */
+    public synchronized String replace(String key, String line) throws IOException {
+        refresh();
+        for (Map.Entry<String, ArchiveSegment> e : segments.entrySet()) {
+            ArchiveSegment segment = e.getValue();
+            if (!segment.mayContain(key) || segment.find(key) == null) {
+                continue;
+            }
+            List<String> lines = new ArrayList<>(segment.getLineCount());
+            String before = null;
+            for (String archived : segment.readAll()) {
+                if (before == null && ArchiveSegment.keyOf(archived).equals(key)) {
+                    before = archived;
+                    if (line != null) lines.add(line);
+                    continue;
+                }
+                lines.add(archived);
+            }
+            if (lines.isEmpty()) {
+                Files.delete(segment.getFile().toPath());
+                segments.remove(e.getKey());
+            } else {
+                segments.put(e.getKey(), ArchiveSegment.write(segment.getFile(), lines));
+            }
+            dirStamp = FileStamp.of(dir);
+            return before;
+        }
+        return null;
+    }
+
+    private File file(String month) {
+        return new File(dir, name + "-" + month + SUFFIX);
+    }
+
+    /** Re-lists the directory and re-reads the segment indexes when it has changed. */
+    private void refresh() throws IOException {
+        FileStamp stamp = FileStamp.of(dir);
+        if (stamp.equals(dirStamp)) {
+            return;
+        }
+        Map<String, ArchiveSegment> found = new TreeMap<>();
+        File[] files = dir.listFiles((d, n) -> n.startsWith(name + "-") && n.endsWith(SUFFIX));
+        if (files != null) {
+            for (File f : files) {
+                String n = f.getName();
+                String month = n.substring(name.length() + 1, n.length() - SUFFIX.length());
+                found.put(month, ArchiveSegment.open(f));
+            }
+        }
+        segments.clear();
+        segments.putAll(found);
+        dirStamp = stamp;
+    }
+}
@@ -0,0 +1,288 @@
+package main.java.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One immutable file of archived lines, sorted by key and deflated in blocks.
+ *
+ * Layout: a header, the compressed blocks, then an index with one entry per block
+ * (file offset, compressed and raw length, line count, CRC32C of the raw bytes, first
+ * and last key), and a trailer pointing at the index. Each block holds whole lines,
+ * up to {@link #BLOCK_BYTES} of them uncompressed. A key's line is found by a binary
+ * search over the index and one block inflated, however large the segment.
+ *
+ * The key of a line is its first field, the order number in both the order and the
+ * transaction files.
+ */
+public final class ArchiveSegment {
+    public static final int BLOCK_BYTES = 64 * 1024;
+
+    /** Order numbers by length, then character by character, so O10000 follows O9999. */
+    public static final Comparator<String> KEY_ORDER =
+            Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+
+    private static final int MAGIC = 0x50534547; // "PSEG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 6;
+    private static final int TRAILER_BYTES = 12;
+    private static final String DELIMITER = "||";
+
+    /** Where one block sits and what it holds. */
+    private static final class Block {
+        final long offset;
+        final int compressedLength;
+        final int rawLength;
+        final int lines;
+        final int crc;
+        final String firstKey;
+        final String lastKey;
+
+        Block(long offset, int compressedLength, int rawLength, int lines, int crc, String firstKey, String lastKey) {
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.rawLength = rawLength;
+            this.lines = lines;
+            this.crc = crc;
+            this.firstKey = firstKey;
+            this.lastKey = lastKey;
+        }
+    }
+
+    private final File file;
+    private final List<Block> blocks;
+    private final long length;
+
+    private ArchiveSegment(File file, List<Block> blocks, long length) {
+        this.file = file;
+        this.blocks = blocks;
+        this.length = length;
+    }
+
+    public File getFile() { return file; }
+    public int getBlockCount() { return blocks.size(); }
+    /** Size of the segment file. */
+    public long getLength() { return length; }
+
+    public int getLineCount() {
+        int lines = 0;
+        for (Block b : blocks) lines += b.lines;
+        return lines;
+    }
+
+    /** Bytes the lines take uncompressed, line breaks included. */
+    public long getRawBytes() {
+        long raw = 0;
+        for (Block b : blocks) raw += b.rawLength;
+        return raw;
+    }
+
+    public String getFirstKey() { return blocks.isEmpty() ? null : blocks.get(0).firstKey; }
+    public String getLastKey() { return blocks.isEmpty() ? null : blocks.get(blocks.size() - 1).lastKey; }
+
+    /** True when the key falls inside the segment's key range. */
+    public boolean mayContain(String key) {
+        return !blocks.isEmpty() && KEY_ORDER.compare(getFirstKey(), key) <= 0
+                && KEY_ORDER.compare(key, getLastKey()) <= 0;
+    }
+
+    /**
+     * Writes lines as a new segment, replacing any file already there in one atomic
+     * rename. The lines are sorted by key first.
+     */
+    public static ArchiveSegment write(File file, List<String> lines) throws IOException {
+        List<String> sorted = new ArrayList<>(lines);
+        sorted.sort((a, b) -> KEY_ORDER.compare(keyOf(a), keyOf(b)));
+
+        File tmp = new File(file.getPath() + ".tmp");
+        List<Block> blocks = new ArrayList<>();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (RandomAccessFile out = new RandomAccessFile(tmp, "rw")) {
+            out.setLength(0);
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            ByteArrayOutputStream raw = new ByteArrayOutputStream(BLOCK_BYTES);
+            byte[] compressed = new byte[BLOCK_BYTES + BLOCK_BYTES / 8 + 64];
+            int start = 0;
+            for (int i = 0; i <= sorted.size(); i++) {
+                byte[] line = i < sorted.size() ? (sorted.get(i) + "\n").getBytes(StandardCharsets.UTF_8) : null;
+                // a line longer than a block gets a block of its own
+                if (raw.size() > 0 && (line == null || raw.size() + line.length > BLOCK_BYTES)) {
+                    byte[] bytes = raw.toByteArray();
+                    deflater.reset();
+                    deflater.setInput(bytes);
+                    deflater.finish();
+                    if (compressed.length < bytes.length + bytes.length / 8 + 64) {
+                        compressed = new byte[bytes.length + bytes.length / 8 + 64];
+                    }
+                    int n = 0;
+                    while (!deflater.finished()) {
+                        n += deflater.deflate(compressed, n, compressed.length - n);
+                    }
+                    CRC32C crc = new CRC32C();
+                    crc.update(bytes);
+                    blocks.add(new Block(out.getFilePointer(), n, bytes.length, i - start, (int) crc.getValue(),
+                            keyOf(sorted.get(start)), keyOf(sorted.get(i - 1))));
+                    out.write(compressed, 0, n);
+                    raw.reset();
+                    start = i;
+                }
+                if (line != null) {
+                    raw.write(line);
+                }
+            }
+
+            long indexOffset = out.getFilePointer();
+            ByteArrayOutputStream index = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(index);
+            data.writeInt(blocks.size());
+            for (Block b : blocks) {
+                data.writeLong(b.offset);
+                data.writeInt(b.compressedLength);
+                data.writeInt(b.rawLength);
+                data.writeInt(b.lines);
+                data.writeInt(b.crc);
+                data.writeUTF(b.firstKey);
+                data.writeUTF(b.lastKey);
+            }
+            out.write(index.toByteArray());
+            out.writeLong(indexOffset);
+            out.writeInt(MAGIC);
+        } finally {
+            deflater.end();
+        }
+        try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new ArchiveSegment(file, blocks, file.length());
+    }
+
+    /** Reads a segment's index; the blocks stay on disk until asked for. */
+    public static ArchiveSegment open(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            long length = in.length();
+            if (length < HEADER_BYTES + TRAILER_BYTES || in.readInt() != MAGIC || in.readShort() != VERSION) {
+                throw new IOException("Not an archive segment: " + file);
+            }
+            in.seek(length - TRAILER_BYTES);
+            long indexOffset = in.readLong();
+            if (in.readInt() != MAGIC || indexOffset < HEADER_BYTES || indexOffset > length - TRAILER_BYTES) {
+                throw new IOException("Archive segment has no index: " + file);
+            }
+            // one read for the whole index rather than one per field
+            byte[] index = new byte[(int) (length - TRAILER_BYTES - indexOffset)];
+            in.seek(indexOffset);
+            in.readFully(index);
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(index));
+            int count = data.readInt();
+            List<Block> blocks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                blocks.add(new Block(data.readLong(), data.readInt(), data.readInt(), data.readInt(), data.readInt(),
+                        data.readUTF(), data.readUTF()));
+            }
+            return new ArchiveSegment(file, blocks, length);
+        }
+    }
+
+    /** The line with the given key, inflating at most one block; null when absent. */
+    public String find(String key) throws IOException {
+        int lo = 0;
+        int hi = blocks.size() - 1;
+        // first block whose last key is not before the key
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (KEY_ORDER.compare(blocks.get(mid).lastKey, key) < 0) lo = mid + 1; else hi = mid;
+        }
+        if (blocks.isEmpty() || KEY_ORDER.compare(blocks.get(lo).firstKey, key) > 0) {
+            return null;
+        }
+        for (String line : lines(lo)) {
+            if (keyOf(line).equals(key)) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    /** Every line, in key order. */
+    public List<String> readAll() throws IOException {
+        List<String> all = new ArrayList<>(getLineCount());
+        for (int i = 0; i < blocks.size(); i++) {
+            all.addAll(lines(i));
+        }
+        return all;
+    }
+
+    /** One block's lines, each ending in a line feed, uncompressed and checked. */
+    public byte[] block(int index) throws IOException {
+        Block b = blocks.get(index);
+        byte[] compressed = new byte[b.compressedLength];
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            in.seek(b.offset);
+            in.readFully(compressed);
+        }
+        byte[] raw = new byte[b.rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                int read = inflater.inflate(raw, n, raw.length - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != raw.length) {
+                throw new IOException("Archive block " + index + " of " + file + " is truncated");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Archive block " + index + " of " + file + " is damaged", e);
+        } finally {
+            inflater.end();
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(raw);
+        if ((int) crc.getValue() != b.crc) {
+            throw new IOException("Archive block " + index + " of " + file + " fails its checksum");
+        }
+        return raw;
+    }
+
+    private List<String> lines(int index) throws IOException {
+        byte[] raw = block(index);
+        List<String> lines = new ArrayList<>(blocks.get(index).lines);
+        int start = 0;
+        for (int i = 0; i < raw.length; i++) {
+            if (raw[i] == '\n') {
+                lines.add(new String(raw, start, i - start, StandardCharsets.UTF_8));
+                start = i + 1;
+            }
+        }
+        return lines;
+    }
+
+    /** The first field of an archived line. */
+    public static String keyOf(String line) {
+        int end = line.indexOf(DELIMITER);
+        return end < 0 ? line : line.substring(0, end);
+    }
+}
@@ -0,0 +1,103 @@
+package main.java.archive;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.config.FilePaths;
+
+/**
+ * Moves closed periods of a branch's orders and payments into the compressed
+ * archive. Orders are archived by the month they were placed in and payments
+ * follow their orders, since a payment line carries no date of its own.
+ *
+ *   java main.java.archive.Archiver [data directory] [first month kept, yyyy-MM]
+ *
+ * By default the last {@link #DEFAULT_KEPT_MONTHS} months stay uncompressed.
+ */
+public final class Archiver {
+    public static final int DEFAULT_KEPT_MONTHS = 12;
+
+    private Archiver() {}
+
+    /** What one run moved, and what the archive holds afterwards. */
+    public static final class Result {
+        private final int months;
+        private final int orders;
+        private final int payments;
+        private final long rawBytes;
+        private final long archivedBytes;
+        private final long nanos;
+
+        Result(int months, int orders, int payments, long rawBytes, long archivedBytes, long nanos) {
+            this.months = months;
+            this.orders = orders;
+            this.payments = payments;
+            this.rawBytes = rawBytes;
+            this.archivedBytes = archivedBytes;
+            this.nanos = nanos;
+        }
+
+        public int getMonths() { return months; }
+        public int getOrders() { return orders; }
+        public int getPayments() { return payments; }
+        /** Size of every archived line uncompressed. */
+        public long getRawBytes() { return rawBytes; }
+        /** Size of the archive's segment files. */
+        public long getArchivedBytes() { return archivedBytes; }
+        public long getNanos() { return nanos; }
+
+        @Override
+        public String toString() {
+            return String.format("Archived %d months: %d orders, %d payments in %.1f ms; archive holds %d bytes "
+                            + "of lines in %d bytes (%.1f%%)", months, orders, payments, nanos / 1e6, rawBytes,
+                    archivedBytes, rawBytes == 0 ? 0.0 : archivedBytes * 100.0 / rawBytes);
+        }
+    }
+
+    /**
+     * Archives every month before {@code cutoff}, holding the branch's write lock so
+     * no order is placed halfway through. An interrupted run is finished by running
+     * it again.
+     */
+    public static Result archiveBefore(BranchContext context, YearMonth cutoff) throws IOException {
+        long start = System.nanoTime();
+        Lock lock = context.getLock().writeLock();
+        lock.lock();
+        int orders = 0;
+        int payments;
+        Map<String, Set<String>> archived;
+        try {
+            archived = context.getOrders().archiveBefore(cutoff);
+            for (Set<String> numbers : archived.values()) {
+                orders += numbers.size();
+            }
+            payments = context.getTransactions().archive(archived);
+        } finally {
+            lock.unlock();
+        }
+
+        long raw = 0;
+        long stored = 0;
+        File dir = context.getBranch().file(FilePaths.ARCHIVE);
+        for (String name : new String[] {"orders", "transactions"}) {
+            for (ArchiveSegment segment : new Archive(dir, name).segments()) {
+                raw += segment.getRawBytes();
+                stored += segment.getLength();
+            }
+        }
+        return new Result(archived.size(), orders, payments, raw, stored, System.nanoTime() - start);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Branch branch = args.length > 0 ? new Branch("main", new File(args[0])) : Branch.DEFAULT;
+        YearMonth cutoff = args.length > 1 ? YearMonth.parse(args[1])
+                : YearMonth.now().minusMonths(DEFAULT_KEPT_MONTHS - 1);
+        System.out.println(archiveBefore(new BranchContext(branch), cutoff));
+    }
+}
@@ -0,0 +1,45 @@
+package main.java.branch;
+
+import java.io.File;
+
+/**
+ * One pharmacy branch and the directory holding its data files.
+ *
+ * Every repository resolves its file names through a branch, so two branches
+ * never share a file. The default branch keeps the old behaviour of reading
+ * {@code staff.txt}, {@code Item.txt} etc. from the working directory, unless
+ * {@code -Dpharmacy.dataDir=<dir>} points it elsewhere.
+ */
+public final class Branch {
+    public static final Branch DEFAULT = new Branch("main", dataDirProperty());
+
+    private final String name;
+    private final File dataDir;
+
+    /**
+     * @param name    label used in reports
+     * @param dataDir directory holding the branch's files, or null for the working directory
+     */
+    public Branch(String name, File dataDir) {
+        this.name = name;
+        this.dataDir = dataDir;
+    }
+
+    public String getName() { return name; }
+    public File getDataDir() { return dataDir; }
+
+    /** Resolves one of the {@code FilePaths} names inside this branch's directory. */
+    public File file(String fileName) {
+        return dataDir == null ? new File(fileName) : new File(dataDir, fileName);
+    }
+
+    private static File dataDirProperty() {
+        String dir = System.getProperty("pharmacy.dataDir");
+        return dir == null || dir.isBlank() ? null : new File(dir);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,86 @@
+package main.java.branch;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import main.java.config.StockConstants;
+import main.java.events.ChangeBus;
+import main.java.inventory.StockReservations;
+import main.java.storage.ItemStore;
+import main.java.storage.OrderStore;
+import main.java.storage.StaffStore;
+import main.java.storage.StorageEngine;
+import main.java.storage.TransactionStore;
+import main.java.util.Lazy;
+
+/**
+ * The repositories of a single branch. Each branch gets its own instances, so
+ * their caches and indexes never see another branch's files.
+ *
+ * One context can be shared by every session of a branch. The repositories
+ * serialise their own file access; the lock covers the steps that write more
+ * than one file, such as placing an order and reducing the stock it takes.
+ *
+ * Repositories are created the first time they are asked for, so a session that
+ * never opens, say, the staff menu never builds a staff repository.
+ * {@link #of(Branch)} hands out one context per branch (name and data directory)
+ * for the whole process; the constructor makes a private one.
+ *
+ * Every change the repositories make is published on the context's
+ * {@link ChangeBus}, in the order it reached the files.
+ *
+ * The context also holds the branch's {@link StockReservations}, so tills
+ * entering orders at the same time see each other's unsaved lines.
+ *
+ * The stores come from a {@link StorageEngine}: the one configured with
+ * {@code -Dpharmacy.storage}, the text files unless set otherwise.
+ */
+public class BranchContext {
+    private static final Map<List<Object>, BranchContext> SHARED = new ConcurrentHashMap<>();
+
+    private final Branch branch;
+    private final StorageEngine storage;
+    private final ChangeBus changes = new ChangeBus();
+    private final Lazy<ItemStore> items;
+    private final Lazy<OrderStore> orders;
+    private final Lazy<TransactionStore> transactions;
+    private final Lazy<StaffStore> staff;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final StockReservations reservations =
+            new StockReservations(Duration.ofMinutes(StockConstants.RESERVATION_TTL_MINUTES));
+
+    public BranchContext(Branch branch) {
+        this(branch, StorageEngines.configured());
+    }
+
+    /** A private context whose stores are opened by the given engine. */
+    public BranchContext(Branch branch, StorageEngine storage) {
+        this.branch = branch;
+        this.storage = storage;
+        this.items = Lazy.of(() -> storage.openItems(branch, changes));
+        this.orders = Lazy.of(() -> storage.openOrders(branch, changes));
+        this.transactions = Lazy.of(() -> storage.openTransactions(branch, changes));
+        this.staff = Lazy.of(() -> storage.openStaff(branch, changes));
+    }
+
+    /** The process-wide context for the branch. */
+    public static BranchContext of(Branch branch) {
+        Path dir = branch.file("").getAbsoluteFile().toPath().normalize();
+        return SHARED.computeIfAbsent(List.of(branch.getName(), dir), key -> new BranchContext(branch));
+    }
+
+    public Branch getBranch() { return branch; }
+    public StorageEngine getStorage() { return storage; }
+    public ItemStore getItems() { return items.get(); }
+    public OrderStore getOrders() { return orders.get(); }
+    public TransactionStore getTransactions() { return transactions.get(); }
+    public StaffStore getStaff() { return staff.get(); }
+    public ReadWriteLock getLock() { return lock; }
+    public ChangeBus getChanges() { return changes; }
+    public StockReservations getReservations() { return reservations; }
+}
@@ -0,0 +1,78 @@
+package main.java.branch;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import main.java.config.FilePaths;
+
+/**
+ * The branches served by this process, in configuration order.
+ *
+ * Branches are listed in {@code branches.txt} as {@code name||data directory}
+ * lines; relative directories are taken from the working directory. Blank lines
+ * and lines starting with {@code #} are ignored. Without the file the process
+ * serves {@link Branch#DEFAULT} only.
+ */
+public class BranchDirectory {
+    private final Map<String, BranchContext> branches = new LinkedHashMap<>();
+
+    public BranchDirectory(List<Branch> branches) {
+        for (Branch branch : branches) {
+            if (this.branches.containsKey(branch.getName())) {
+                throw new IllegalArgumentException("Duplicate branch name: " + branch.getName());
+            }
+            this.branches.put(branch.getName(), BranchContext.of(branch));
+        }
+    }
+
+    /** Reads {@code branches.txt} from the working directory. */
+    public static BranchDirectory load() throws IOException {
+        return load(new File(FilePaths.BRANCHES));
+    }
+
+    public static BranchDirectory load(File config) throws IOException {
+        List<Branch> list = new ArrayList<>();
+        if (!config.exists()) {
+            list.add(Branch.DEFAULT);
+            return new BranchDirectory(list);
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(config))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\\|\\|");
+                if (parts.length < 2 || parts[0].isBlank() || parts[1].isBlank()) {
+                    throw new IOException("Invalid branch line in " + config + ": " + line);
+                }
+                list.add(new Branch(parts[0].trim(), new File(parts[1].trim())));
+            }
+        }
+        if (list.isEmpty()) {
+            list.add(Branch.DEFAULT);
+        }
+        return new BranchDirectory(list);
+    }
+
+    public List<BranchContext> all() {
+        return Collections.unmodifiableList(new ArrayList<>(branches.values()));
+    }
+
+    /** @return the branch's repositories, or null when no branch has that name */
+    public BranchContext get(String name) {
+        return branches.get(name);
+    }
+
+    public int size() {
+        return branches.size();
+    }
+}
@@ -0,0 +1,145 @@
+package main.java.branch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import main.java.analytics.SalesReport;
+import main.java.model.ItemRecord;
+
+/**
+ * Read-only queries over every branch at once.
+ *
+ * Branches share no files, so each branch is read on its own thread and the
+ * per-branch answers are merged afterwards in directory order. A branch whose
+ * files are missing simply contributes nothing.
+ */
+public class CrossBranchQuery {
+
+    /** Reads one branch. */
+    @FunctionalInterface
+    public interface BranchTask<T> {
+        T run(BranchContext branch) throws IOException;
+    }
+
+    /** Stock of one item at one branch. */
+    public static class StockLevel {
+        private final String branch;
+        private final ItemRecord item;
+
+        public StockLevel(String branch, ItemRecord item) {
+            this.branch = branch;
+            this.item = item;
+        }
+
+        public String getBranch() { return branch; }
+        public ItemRecord getItem() { return item; }
+        public int getQuantity() { return item.getQuantity(); }
+    }
+
+    private final BranchDirectory directory;
+    private final int parallelism;
+
+    public CrossBranchQuery(BranchDirectory directory) {
+        this(directory, Runtime.getRuntime().availableProcessors());
+    }
+
+    public CrossBranchQuery(BranchDirectory directory, int parallelism) {
+        this.directory = directory;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Looks an item code up at every branch.
+     * @return one entry per branch that stocks the item, in directory order
+     */
+    public List<StockLevel> findStock(String code) throws IOException {
+        List<StockLevel> levels = new ArrayList<>();
+        for (StockLevel level : fanOut(b -> {
+            ItemRecord item = b.getItems().findByCode(code);
+            return item == null ? null : new StockLevel(b.getBranch().getName(), item);
+        })) {
+            if (level != null) {
+                levels.add(level);
+            }
+        }
+        return levels;
+    }
+
+    /** Sum of an item's quantity over all branches. */
+    public long totalStock(String code) throws IOException {
+        long total = 0;
+        for (StockLevel level : findStock(code)) {
+            total += level.getQuantity();
+        }
+        return total;
+    }
+
+    /**
+     * Order revenue per branch. Each row is labelled with the branch name and carries
+     * the units sold, the revenue in sen and the number of orders.
+     */
+    public List<SalesReport.Row> revenueByBranch() throws IOException {
+        return fanOut(b -> {
+            SalesReport report = b.getStorage().analyzeSales(b.getBranch(), b.getOrders(), 1);
+            long quantity = 0;
+            for (SalesReport.Row type : report.getTypes()) {
+                quantity += type.getQuantity();
+            }
+            return new SalesReport.Row(b.getBranch().getName(), quantity, report.getRevenueSen(),
+                    report.getOrderCount());
+        });
+    }
+
+    /** Adds the per-branch rows into one chain-wide row. */
+    public static SalesReport.Row total(List<SalesReport.Row> rows) {
+        long quantity = 0;
+        long amountSen = 0;
+        long count = 0;
+        for (SalesReport.Row row : rows) {
+            quantity += row.getQuantity();
+            amountSen += row.getAmountSen();
+            count += row.getCount();
+        }
+        return new SalesReport.Row("All", quantity, amountSen, count);
+    }
+
+    /**
+     * Runs a task against every branch in parallel.
+     * @return the results in directory order
+     */
+    public <T> List<T> fanOut(BranchTask<T> task) throws IOException {
+        List<BranchContext> branches = directory.all();
+        List<T> results = new ArrayList<>(branches.size());
+        if (branches.size() == 1) {
+            results.add(task.run(branches.get(0)));
+            return results;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, branches.size()));
+        try {
+            List<Callable<T>> tasks = new ArrayList<>();
+            for (BranchContext branch : branches) {
+                tasks.add(() -> task.run(branch));
+            }
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Branch query interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Branch query failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
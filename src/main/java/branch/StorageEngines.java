@@ -0,0 +1,56 @@
+package main.java.branch;
+
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import main.java.repository.TextFileEngine;
+import main.java.storage.StorageEngine;
+
+/**
+ * The storage engines available to the process: the built-in text-file engine,
+ * engines listed as {@code ServiceLoader} providers of {@link StorageEngine} on
+ * the class path, and any registered in code, e.g. by a benchmark.
+ */
+public final class StorageEngines {
+    /** System property naming the engine branches open their stores with. */
+    public static final String PROPERTY = "pharmacy.storage";
+    public static final String DEFAULT = TextFileEngine.NAME;
+
+    private static final Map<String, StorageEngine> ENGINES = new ConcurrentHashMap<>();
+
+    static {
+        register(new TextFileEngine());
+        for (StorageEngine engine : ServiceLoader.load(StorageEngine.class)) {
+            ENGINES.putIfAbsent(engine.getName(), engine);
+        }
+    }
+
+    private StorageEngines() {}
+
+    /** Makes an engine available under its name, replacing any engine of the same name. */
+    public static void register(StorageEngine engine) {
+        ENGINES.put(engine.getName(), engine);
+    }
+
+    /** @throws IllegalArgumentException when no engine has the name */
+    public static StorageEngine get(String name) {
+        StorageEngine engine = ENGINES.get(name);
+        if (engine == null) {
+            throw new IllegalArgumentException("Unknown storage engine \"" + name + "\"; available: " + names());
+        }
+        return engine;
+    }
+
+    /** The engine named by {@value #PROPERTY}, or the text-file engine when it is not set. */
+    public static StorageEngine configured() {
+        String name = System.getProperty(PROPERTY);
+        return get(name == null || name.isBlank() ? DEFAULT : name.trim());
+    }
+
+    public static Set<String> names() {
+        return new TreeSet<>(ENGINES.keySet());
+    }
+}
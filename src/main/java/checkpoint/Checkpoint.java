@@ -0,0 +1,426 @@
+package main.java.checkpoint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.zip.CRC32C;
+
+import main.java.analytics.TransactionStatistics;
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.config.FilePaths;
+import main.java.model.Address;
+import main.java.model.ItemRecord;
+import main.java.model.Name;
+import main.java.model.OrderLine;
+import main.java.model.OrderRecord;
+import main.java.model.Staff;
+import main.java.model.TransactionRecord;
+import main.java.repository.FileStamp;
+import main.java.repository.TextFileEngine;
+import main.java.storage.Primeable;
+
+/**
+ * Binary snapshot of a branch's items, staff, orders and transaction totals, so
+ * a restart can fill the repositories' in-memory caches without parsing every
+ * text file with {@code String.split}.
+ *
+ * <pre>
+ * int magic, short version
+ * per section: byte tag, mark (long length, long modified, string fileKey, int guard),
+ *              int payload length, payload
+ * byte 0, int CRC32C of everything before it
+ * </pre>
+ * Strings are an unsigned short byte count followed by UTF-8 (0xFFFF for null).
+ * Each section records the {@link FileMark} of its text file. On restore, items and
+ * staff are used only when their file is unchanged; orders and transactions are
+ * also used when lines were only appended, and just those lines are parsed. The
+ * text files stay the source of truth: a missing, damaged or stale checkpoint
+ * only means the caches load from text as before.
+ *
+ * Checkpoints belong to the text-file storage engine; a context using any other
+ * engine neither writes nor restores one.
+ */
+public final class Checkpoint {
+    public static final long DEFAULT_INTERVAL_MINUTES = 5;
+
+    private static final int MAGIC = 0x50484B50; // "PHKP"
+    private static final short VERSION = 2;
+    private static final int END = 0;
+    private static final int ITEMS = 1;
+    private static final int STAFF = 2;
+    private static final int ORDERS = 3;
+    private static final int TRANSACTIONS = 4;
+    private static final int NULL_STRING = 0xFFFF;
+
+    private Checkpoint() {}
+
+    /** What a restore managed to use. */
+    public static final class Result {
+        private final int sections;
+        private final int replayed;
+        private final long nanos;
+
+        Result(int sections, int replayed, long nanos) {
+            this.sections = sections;
+            this.replayed = replayed;
+            this.nanos = nanos;
+        }
+
+        /** Sections whose data went into the caches, out of four. */
+        public int getSections() { return sections; }
+        /** Orders and transactions parsed from text because they were appended after the checkpoint. */
+        public int getReplayed() { return replayed; }
+        public long getNanos() { return nanos; }
+
+        @Override
+        public String toString() {
+            return String.format("Checkpoint: %d sections restored, %d records replayed in %.1f ms",
+                    sections, replayed, nanos / 1e6);
+        }
+    }
+
+    public static File defaultFile(Branch branch) {
+        return branch.file(FilePaths.CHECKPOINT);
+    }
+
+    /** Minutes between scheduled checkpoints, {@code -Dpharmacy.checkpointMinutes} or the default. */
+    public static long intervalMinutes() {
+        return Math.max(1, Long.getLong("pharmacy.checkpointMinutes", DEFAULT_INTERVAL_MINUTES));
+    }
+
+    /**
+     * Writes a checkpoint, replacing the previous one atomically. A section whose
+     * file changes while it is being read is left out and will load from text.
+     */
+    public static void write(BranchContext context, File target) throws IOException {
+        if (!(context.getStorage() instanceof TextFileEngine)) {
+            return;
+        }
+        Branch branch = context.getBranch();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        // no order is half placed while the sections are read
+        Lock lock = context.getLock().readLock();
+        lock.lock();
+        try {
+            section(out, ITEMS, branch.file(FilePaths.ITEM), body -> writeItems(body, context.getItems().findAll()));
+            section(out, STAFF, branch.file(FilePaths.STAFF), body -> writeStaff(body, context.getStaff().findAll()));
+            section(out, ORDERS, branch.file(FilePaths.ORDER), body -> writeOrders(body, context.getOrders().findOpen()));
+            section(out, TRANSACTIONS, branch.file(FilePaths.TRANSACTION),
+                    body -> writeStatistics(body, context.getTransactions().statistics()));
+        } finally {
+            lock.unlock();
+        }
+        out.writeByte(END);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.toByteArray(), 0, bytes.size());
+        out.writeInt((int) crc.getValue());
+
+        File tmp = new File(target.getPath() + ".tmp");
+        Files.write(tmp.toPath(), bytes.toByteArray());
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a checkpoint into the context's repositories, replaying lines appended
+     * to the order and transaction files since it was taken. A missing or damaged
+     * checkpoint restores nothing.
+     */
+    public static Result restore(BranchContext context, File source) throws IOException {
+        long start = System.nanoTime();
+        if (!source.isFile() || !(context.getStorage() instanceof TextFileEngine)) {
+            return new Result(0, 0, System.nanoTime() - start);
+        }
+        ByteBuffer buf = readFully(source);
+        if (!intact(buf)) {
+            return new Result(0, 0, System.nanoTime() - start);
+        }
+        Branch branch = context.getBranch();
+        int sections = 0;
+        int replayed = 0;
+        try {
+            int tag;
+            while ((tag = buf.get()) != END) {
+                FileMark mark = new FileMark(new FileStamp(buf.getLong(), buf.getLong()), readString(buf), buf.getInt());
+                int end = buf.getInt();
+                end += buf.position();
+                switch (tag) {
+                    case ITEMS:
+                        if (mark.unchanged(branch.file(FilePaths.ITEM))
+                                && prime(context.getItems(), readItems(buf), mark) >= 0) {
+                            sections++;
+                        }
+                        break;
+                    case STAFF:
+                        if (mark.unchanged(branch.file(FilePaths.STAFF))
+                                && prime(context.getStaff(), readStaff(buf), mark) >= 0) {
+                            sections++;
+                        }
+                        break;
+                    case ORDERS:
+                        if (mark.appendedTo(branch.file(FilePaths.ORDER))) {
+                            int n = prime(context.getOrders(), readOrders(buf), mark);
+                            if (n >= 0) {
+                                replayed += n;
+                                sections++;
+                            }
+                        }
+                        break;
+                    case TRANSACTIONS:
+                        if (mark.appendedTo(branch.file(FilePaths.TRANSACTION))) {
+                            int n = prime(context.getTransactions(), readStatistics(buf), mark);
+                            if (n >= 0) {
+                                replayed += n;
+                                sections++;
+                            }
+                        }
+                        break;
+                    default:
+                        // a section from a newer version; skip it
+                }
+                buf.position(end);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // intact but not in the layout this version writes
+        }
+        return new Result(sections, replayed, System.nanoTime() - start);
+    }
+
+    /**
+     * Hands a section to its store if the store can be primed with it.
+     * @return what the store's {@link Primeable#prime} returned, or -1 when it cannot be primed
+     */
+    @SuppressWarnings("unchecked")
+    private static <S> int prime(Object store, S snapshot, FileMark mark) throws IOException {
+        if (!(store instanceof Primeable)) {
+            return -1;
+        }
+        return ((Primeable<S>) store).prime(snapshot, mark.stamp.getLength(), mark.stamp.getModified());
+    }
+
+    /** Writes a checkpoint every {@code minutes} on a daemon thread until the returned executor is shut down. */
+    public static ScheduledExecutorService schedule(BranchContext context, File target, long minutes) {
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread t = new Thread(task, "checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                write(context, target);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, minutes, minutes, TimeUnit.MINUTES);
+        return timer;
+    }
+
+    private interface Payload {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static void section(DataOutputStream out, int tag, File file, Payload payload) throws IOException {
+        FileMark mark = FileMark.of(file);
+        if (mark.stamp.equals(FileStamp.MISSING)) {
+            return;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(16 * 1024);
+        payload.write(new DataOutputStream(body));
+        if (!mark.unchanged(file)) {
+            return;
+        }
+        out.writeByte(tag);
+        out.writeLong(mark.stamp.getLength());
+        out.writeLong(mark.stamp.getModified());
+        writeString(out, mark.fileKey);
+        out.writeInt(mark.guard);
+        out.writeInt(body.size());
+        body.writeTo(out);
+    }
+
+    private static void writeItems(DataOutputStream out, List<ItemRecord> items) throws IOException {
+        out.writeInt(items.size());
+        for (ItemRecord r : items) {
+            writeString(out, r.getCode());
+            writeString(out, r.getDescription());
+            out.writeDouble(r.getPrice());
+            out.writeInt(r.getQuantity());
+            out.writeByte(r.getType().ordinal());
+            writeString(out, r.getExtra1());
+            out.writeInt(r.getExtra2());
+            out.writeLong(r.getVersion());
+        }
+    }
+
+    private static List<ItemRecord> readItems(ByteBuffer buf) {
+        ItemRecord.Type[] types = ItemRecord.Type.values();
+        int n = buf.getInt();
+        List<ItemRecord> items = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String code = readString(buf);
+            String description = readString(buf);
+            double price = buf.getDouble();
+            int quantity = buf.getInt();
+            ItemRecord.Type type = types[buf.get()];
+            String extra1 = readString(buf);
+            int extra2 = buf.getInt();
+            items.add(new ItemRecord(code, description, price, quantity, type, extra1, extra2, buf.getLong()));
+        }
+        return items;
+    }
+
+    private static void writeStaff(DataOutputStream out, List<Staff> staff) throws IOException {
+        out.writeInt(staff.size());
+        for (Staff s : staff) {
+            writeString(out, s.getStaffId());
+            writeString(out, s.getpassword());
+            writeString(out, s.getname().getFirstName());
+            writeString(out, s.getname().getLastName());
+            writeString(out, s.getphoneNo());
+            writeString(out, s.getStaffPosition());
+            writeString(out, s.getaddress().getstreet());
+            writeString(out, s.getaddress().getpostcode());
+            writeString(out, s.getaddress().getregion());
+            writeString(out, s.getaddress().getstate());
+        }
+    }
+
+    private static List<Staff> readStaff(ByteBuffer buf) {
+        int n = buf.getInt();
+        List<Staff> staff = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String id = readString(buf);
+            String password = readString(buf);
+            Name name = new Name(readString(buf), readString(buf));
+            String phone = readString(buf);
+            String position = readString(buf);
+            Address address = new Address(readString(buf), readString(buf), readString(buf), readString(buf));
+            staff.add(new Staff(id, password, name, phone, position, address));
+        }
+        return staff;
+    }
+
+    private static void writeOrders(DataOutputStream out, List<OrderRecord> orders) throws IOException {
+        out.writeInt(orders.size());
+        for (OrderRecord r : orders) {
+            writeString(out, r.getOrderNumber());
+            writeString(out, r.getDate());
+            out.writeLong(r.getTotalSen());
+            out.writeInt(r.getLines().size());
+            for (OrderLine line : r.getLines()) {
+                writeString(out, line.getItemCode());
+                out.writeInt(line.getQuantity());
+                out.writeLong(line.getSubtotalSen());
+            }
+        }
+    }
+
+    private static List<OrderRecord> readOrders(ByteBuffer buf) {
+        int n = buf.getInt();
+        List<OrderRecord> orders = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String number = readString(buf);
+            String date = readString(buf);
+            long total = buf.getLong();
+            int lineCount = buf.getInt();
+            List<OrderLine> lines = new ArrayList<>(lineCount);
+            for (int j = 0; j < lineCount; j++) {
+                lines.add(OrderLine.ofSen(readString(buf), buf.getInt(), buf.getLong()));
+            }
+            orders.add(OrderRecord.ofSen(number, date, lines, total));
+        }
+        return orders;
+    }
+
+    private static void writeStatistics(DataOutputStream out, TransactionStatistics stats) throws IOException {
+        TransactionRecord.Method[] methods = TransactionRecord.Method.values();
+        out.writeByte(methods.length);
+        for (TransactionRecord.Method m : methods) {
+            out.writeLong(stats.getCount(m));
+            out.writeLong(stats.getRevenueSen(m));
+        }
+    }
+
+    private static TransactionStatistics readStatistics(ByteBuffer buf) {
+        int n = buf.get();
+        long[] counts = new long[n];
+        long[] revenue = new long[n];
+        for (int m = 0; m < n; m++) {
+            counts[m] = buf.getLong();
+            revenue[m] = buf.getLong();
+        }
+        return TransactionStatistics.ofTotals(counts, revenue);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeShort(NULL_STRING);
+            return;
+        }
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length >= NULL_STRING) {
+            throw new IOException("Field too long for a checkpoint: " + utf8.length + " bytes");
+        }
+        out.writeShort(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int length = buf.getShort() & 0xFFFF;
+        if (length == NULL_STRING) {
+            return null;
+        }
+        int pos = buf.position();
+        String s = new String(buf.array(), buf.arrayOffset() + pos, length, StandardCharsets.UTF_8);
+        buf.position(pos + length);
+        return s;
+    }
+
+    private static ByteBuffer readFully(File source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Checkpoint too large: " + source);
+            }
+            ByteBuffer buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining() && channel.read(buf) >= 0) {
+                // one bulk read normally fills it
+            }
+            buf.flip();
+            return buf;
+        }
+    }
+
+    /** Checks the header and the trailing CRC, leaving the buffer positioned at the first section. */
+    private static boolean intact(ByteBuffer buf) {
+        if (buf.remaining() < 11 || buf.getInt(0) != MAGIC || buf.getShort(4) != VERSION) {
+            return false;
+        }
+        int body = buf.limit() - 4;
+        CRC32C crc = new CRC32C();
+        crc.update(buf.array(), buf.arrayOffset(), body);
+        if ((int) crc.getValue() != buf.getInt(body)) {
+            return false;
+        }
+        buf.limit(body);
+        buf.position(6);
+        return true;
+    }
+}
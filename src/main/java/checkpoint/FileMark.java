@@ -0,0 +1,76 @@
+package main.java.checkpoint;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32C;
+
+import main.java.repository.FileStamp;
+
+/**
+ * Where a data file stood when a checkpoint was taken: its stamp, the identity
+ * of the file on disk and a checksum of the bytes just before its end.
+ *
+ * The repositories append new orders and transactions in place but rewrite the
+ * whole file (a new file renamed over the old one) for updates and deletes. So a
+ * file that is still the same file on disk, is at least as long and still ends
+ * its old length with the same bytes has only been appended to, and only the
+ * tail past the old length needs replaying.
+ */
+final class FileMark {
+    static final int GUARD_BYTES = 4096;
+
+    final FileStamp stamp;
+    final String fileKey;
+    final int guard;
+
+    FileMark(FileStamp stamp, String fileKey, int guard) {
+        this.stamp = stamp;
+        this.fileKey = fileKey;
+        this.guard = guard;
+    }
+
+    static FileMark of(File file) throws IOException {
+        FileStamp stamp = FileStamp.of(file);
+        if (stamp.equals(FileStamp.MISSING)) {
+            return new FileMark(stamp, "", 0);
+        }
+        return new FileMark(stamp, fileKey(file), guard(file, stamp.getLength()));
+    }
+
+    /** True when the file has not changed at all. */
+    boolean unchanged(File file) {
+        return stamp.equals(FileStamp.of(file));
+    }
+
+    /** True when the file has only had lines appended since this mark. */
+    boolean appendedTo(File file) throws IOException {
+        if (unchanged(file)) {
+            return true;
+        }
+        if (fileKey.isEmpty() || !file.exists() || file.length() < stamp.getLength()) {
+            return false;
+        }
+        return fileKey.equals(fileKey(file)) && guard == guard(file, stamp.getLength());
+    }
+
+    /** Device and inode where the platform has them; empty otherwise, which disables tail replay. */
+    private static String fileKey(File file) throws IOException {
+        Object key = Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+        return key == null ? "" : key.toString();
+    }
+
+    private static int guard(File file, long length) throws IOException {
+        int n = (int) Math.min(GUARD_BYTES, length);
+        byte[] bytes = new byte[n];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(length - n);
+            raf.readFully(bytes);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,42 @@
+package main.java.config;
+
+public enum AnalyticsMenuOption {
+    TOP_BY_QUANTITY(1, "Top sellers by quantity"),
+    TOP_BY_REVENUE(2, "Top sellers by revenue"),
+    REVENUE_BY_DAY(3, "Best days by revenue"),
+    SALES_BY_TYPE(4, "Sales by item type"),
+    LOW_STOCK(5, "Low stock report"),
+    EXPIRING(6, "Expiring supplements"),
+    BRANCH_STOCK(7, "Stock across branches"),
+    BRANCH_REVENUE(8, "Revenue by branch"),
+    BACK(9, "Back");
+
+    private final int value;
+    private final String description;
+
+    AnalyticsMenuOption(int value, String description) {
+        this.value = value;
+        this.description = description;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getDisplayText() {
+        return value + ". " + description;
+    }
+
+    public static AnalyticsMenuOption fromValue(int value) {
+        for (AnalyticsMenuOption option : AnalyticsMenuOption.values()) {
+            if (option.value == value) {
+                return option;
+            }
+        }
+        return null;
+    }
+}
@@ -7,6 +7,23 @@ public final class FilePaths {
     public static final String STAFF_TMP = "NewStaff.txt";
     public static final String ITEM = "Item.txt";
     public static final String ORDER = "Order.txt";
+    public static final String ORDER_INDEX = "Order.txt.idx";
+    // Sealed months of orders and their manifest, see OrderPartitions
+    public static final String ORDER_PARTITIONS = "orders";
+    // Compressed segments of old orders and payments, see Archive
+    public static final String ARCHIVE = "archive";
     public static final String TRANSACTION = "Transaction.txt";
+
+    // One "name||data directory" line per branch; absent means a single branch in the working directory
+    public static final String BRANCHES = "branches.txt";
+
+    // Discount tiers, tax rates and promotions, see PricingEngine
+    public static final String PRICING = "pricing.txt";
+
+    // Binary snapshot of the repositories' caches, see Checkpoint
+    public static final String CHECKPOINT = "snapshot.ckpt";
+
+    // Audit trail of repository changes, see ChangeLog
+    public static final String CHANGE_LOG = "changes.log";
 }
 
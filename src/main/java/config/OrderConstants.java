@@ -71,6 +71,8 @@ public final class OrderConstants {
     public static final String DISPLAY_UPDATE_INSTRUCTIONS = "\nEnter new order lines (this will replace existing lines):";
     public static final String DISPLAY_ITEM_INFO_FORMAT = "Item: %s - %s (Price: RM%s, Stock: %d)";
     public static final String DISPLAY_ITEM_NOT_FOUND_FORMAT = "Item not found: %s";
+    public static final String DISPLAY_NOT_ENOUGH_STOCK_FORMAT = "Only %d of %s available.";
+    public static final String MSG_HOLD_LAPSED_FORMAT = "The stock held for %s has been released; enter the order again.";
     public static final String MSG_QUANTITY_MUST_BE_POSITIVE = "Quantity must be positive.";
     public static final String MSG_INVALID_ORDER_NUMBER_FORMAT = "\nInvalid order number format. Must be O followed by digits (e.g., O0001).";
     public static final String MSG_ORDER_NUMBER_REQUIRED = "\nOrder number cannot be empty.";
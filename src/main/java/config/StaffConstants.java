@@ -36,13 +36,16 @@ public final class StaffConstants {
     public static final String MSG_FAILED_TO_ADD = "\nFailed to add staff.";
     public static final String MSG_STAFF_NOT_FOUND = "\nStaff not found.";
     public static final String MSG_FAILED_TO_SEARCH = "\nFailed to search staff.";
+    public static final String MSG_INVALID_SEARCH =
+            "\nSearch fields are name, first, last, phone, position, region and state.";
     public static final String MSG_STAFF_MODIFIED_SUCCESS = "\nStaff modified successfully.";
     public static final String MSG_FAILED_TO_MODIFY = "\nFailed to modify staff.";
     public static final String MSG_STAFF_DELETED_SUCCESS = "\nStaff deleted successfully.";
     public static final String MSG_FAILED_TO_DELETE = "\nFailed to delete staff.";
 
     // UI Prompts
-    public static final String PROMPT_STAFF_ID_SEARCH = "Enter Staff ID to search (Sxxxx): ";
+    public static final String PROMPT_STAFF_SEARCH =
+            "Enter Staff ID (Sxxxx), or search terms such as 'jo, position=pharmacist, state=selangor': ";
     public static final String PROMPT_STAFF_ID_MODIFY = "Enter Staff ID to modify (Sxxxx): ";
     public static final String PROMPT_STAFF_ID_DELETE = "Enter Staff ID to delete (Sxxxx): ";
     public static final String PROMPT_STAFF_ID_NEW = "Enter Staff ID (Sxxxx): ";
@@ -0,0 +1,28 @@
+package main.java.config;
+
+public final class StockConstants {
+    private StockConstants() {}
+
+    // Items at or below this quantity are reported for reordering
+    public static final int DEFAULT_REORDER_LEVEL = 10;
+
+    // Times a stock change is read and retried when other tills keep changing the item first
+    public static final int MAX_STOCK_UPDATE_ATTEMPTS = 16;
+    public static final String MSG_STOCK_CONTENDED_FORMAT = "Stock of %s kept changing; gave up after %d attempts.";
+
+    // Stock held for an order being entered is released after this long without a new line
+    public static final long RESERVATION_TTL_MINUTES = 15;
+
+    // UI Messages
+    public static final String MSG_LOW_STOCK_FORMAT = "*Low stock: %s - %s has %d left (reorder level %d).";
+    public static final String MSG_NO_LOW_STOCK = "All items are above their reorder level.";
+    public static final String DISPLAY_LOW_STOCK_HEADER = "\nItems at or below reorder level";
+
+    // Supplements expiring within this many days are listed by the expiry report
+    public static final int DEFAULT_EXPIRY_WINDOW_DAYS = 30;
+
+    public static final String MSG_EXPIRED_FORMAT = "*Warning: %s - %s expired on %s.";
+    public static final String MSG_FEFO_FORMAT = "*Tip: sell %s first, same product expiring earlier on %s (%d in stock).";
+    public static final String MSG_NO_EXPIRING = "No supplements expire in this period.";
+    public static final String DISPLAY_EXPIRING_HEADER_FORMAT = "\nSupplements expiring within %d days";
+}
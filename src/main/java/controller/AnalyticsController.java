@@ -0,0 +1,149 @@
+package main.java.controller;
+
+import java.io.IOException;
+import java.util.List;
+import main.java.analytics.SalesReport;
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.branch.BranchDirectory;
+import main.java.branch.CrossBranchQuery;
+import main.java.config.AnalyticsMenuOption;
+import main.java.config.StockConstants;
+import main.java.storage.ItemStore;
+import main.java.storage.OrderStore;
+import main.java.storage.StorageEngine;
+import main.java.view.AnalyticsView;
+import main.java.view.Terminal;
+
+public class AnalyticsController {
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final Branch branch;
+    private final StorageEngine storage;
+    private final OrderStore orderRepository;
+    private final ItemStore itemRepository;
+    private final AnalyticsView view;
+    private CrossBranchQuery branchQuery;
+
+    public AnalyticsController() {
+        this(Terminal.system(), BranchContext.of(Branch.DEFAULT));
+    }
+
+    public AnalyticsController(Terminal terminal, BranchContext context) {
+        this.branch = context.getBranch();
+        this.storage = context.getStorage();
+        this.orderRepository = context.getOrders();
+        this.itemRepository = context.getItems();
+        this.view = new AnalyticsView(terminal);
+    }
+
+    public void run() {
+        boolean back = false;
+        while (!back) {
+            AnalyticsMenuOption option = AnalyticsMenuOption.fromValue(view.menu());
+            if (option == null) {
+                view.info("\nInvalid input.");
+                continue;
+            }
+            if (option == AnalyticsMenuOption.BACK) {
+                back = true;
+                continue;
+            }
+            if (option == AnalyticsMenuOption.LOW_STOCK) {
+                handleLowStock();
+                continue;
+            }
+            if (option == AnalyticsMenuOption.EXPIRING) {
+                handleExpiring();
+                continue;
+            }
+            if (option == AnalyticsMenuOption.BRANCH_STOCK) {
+                handleBranchStock();
+                continue;
+            }
+            if (option == AnalyticsMenuOption.BRANCH_REVENUE) {
+                handleBranchRevenue();
+                continue;
+            }
+            int limit = option == AnalyticsMenuOption.SALES_BY_TYPE ? 0 : view.promptLimit(DEFAULT_LIMIT);
+            try {
+                long start = System.nanoTime();
+                SalesReport report = storage.analyzeSales(branch, orderRepository,
+                        Runtime.getRuntime().availableProcessors());
+                long elapsed = (System.nanoTime() - start) / 1_000_000;
+                switch (option) {
+                    case TOP_BY_QUANTITY:
+                        view.showTable("Top Sellers by Quantity", "Item", report.topItemsByQuantity(limit));
+                        break;
+                    case TOP_BY_REVENUE:
+                        view.showTable("Top Sellers by Revenue", "Item", report.topItemsByRevenue(limit));
+                        break;
+                    case REVENUE_BY_DAY:
+                        view.showTable("Best Days by Revenue", "Day", report.topDaysByRevenue(limit));
+                        break;
+                    case SALES_BY_TYPE:
+                        view.showTable("Sales by Item Type", "Type", report.getTypes());
+                        break;
+                    default:
+                        break;
+                }
+                view.showSummary(report, elapsed);
+            } catch (Exception e) {
+                e.printStackTrace();
+                view.info("\nFailed to analyse sales.");
+            }
+        }
+    }
+
+    private void handleLowStock() {
+        try {
+            view.showLowStock(itemRepository.findBelowReorderLevel());
+        } catch (Exception e) {
+            e.printStackTrace();
+            view.info("\nFailed to load stock levels.");
+        }
+    }
+
+    private void handleExpiring() {
+        int days = view.promptDays(StockConstants.DEFAULT_EXPIRY_WINDOW_DAYS);
+        try {
+            view.showExpiring(days, itemRepository.findExpiringWithin(days));
+        } catch (Exception e) {
+            e.printStackTrace();
+            view.info("\nFailed to load expiry dates.");
+        }
+    }
+
+    private void handleBranchStock() {
+        String code = view.promptText("Enter item code: ");
+        try {
+            view.showBranchStock(code, branches().findStock(code));
+        } catch (Exception e) {
+            e.printStackTrace();
+            view.info("\nFailed to query branches.");
+        }
+    }
+
+    private void handleBranchRevenue() {
+        try {
+            long start = System.nanoTime();
+            List<SalesReport.Row> rows = branches().revenueByBranch();
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            view.showTable("Revenue by Branch", "Branch", rows);
+            SalesReport.Row total = CrossBranchQuery.total(rows);
+            view.info(String.format("Branches: %d  Orders: %d  Revenue: RM%.2f  (%d ms)",
+                    rows.size(), total.getCount(), total.getAmount(), elapsed));
+        } catch (Exception e) {
+            e.printStackTrace();
+            view.info("\nFailed to query branches.");
+        }
+    }
+
+    /** Reads branches.txt on first use. */
+    private CrossBranchQuery branches() throws IOException {
+        if (branchQuery == null) {
+            branchQuery = new CrossBranchQuery(BranchDirectory.load());
+        }
+        return branchQuery;
+    }
+}
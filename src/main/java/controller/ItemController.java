@@ -1,17 +1,29 @@
 package main.java.controller;
 
+import java.util.List;
+
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
 import main.java.config.ItemMenuOption;
+import main.java.inventory.ItemSearchIndex;
 import main.java.model.ItemRecord;
-import main.java.repository.ItemRepository;
+import main.java.storage.ItemStore;
 import main.java.view.ItemView;
+import main.java.view.Terminal;
 
 public class ItemController {
-    private final ItemRepository repository;
+    private static final int SEARCH_RESULTS = 10;
+
+    private final ItemStore repository;
     private final ItemView view;
 
     public ItemController() {
-        this.repository = new ItemRepository();
-        this.view = new ItemView();
+        this(Terminal.system(), BranchContext.of(Branch.DEFAULT).getItems());
+    }
+
+    public ItemController(Terminal terminal, ItemStore repository) {
+        this.repository = repository;
+        this.view = new ItemView(terminal);
     }
 
     public void run() {
@@ -60,14 +72,25 @@ public class ItemController {
 
     private void handleSearch() {
         try {
-            view.info("\n1 = All, 2 = By Code");
-            String code = view.promptCode("Enter Item Code (or leave empty for all): ");
+            view.info("\nSearch by item code, or by name or use (typos are fine)");
+            String code = view.promptCode("Enter Item Code or description (or leave empty for all): ");
             if (code.trim().isEmpty()) {
                 view.showList(repository.findAll());
             } else {
                 ItemRecord r = repository.findByCode(code.trim());
-                if (r != null) view.show(r);
-                else view.info("\nItem not found.");
+                if (r != null) {
+                    view.show(r);
+                    return;
+                }
+                List<ItemSearchIndex.Match> matches = repository.search(code, SEARCH_RESULTS);
+                if (matches.isEmpty()) {
+                    view.info("\nItem not found.");
+                    return;
+                }
+                view.info("\nClosest matches:");
+                for (ItemSearchIndex.Match m : matches) {
+                    view.show(m.getItem());
+                }
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -102,7 +125,12 @@ public class ItemController {
                 view.info("\nFailed to update item. The new Item Code '" + newCode + "' already exists.");
                 return;
             }
-            boolean ok = repository.update(oldCode, updated);
+            // only if no till sold or restocked it while it was being edited
+            boolean ok = repository.update(oldCode, current.getVersion(), updated);
+            if (!ok && repository.findByCode(oldCode) != null) {
+                view.info("\nItem was changed by another till while you edited it. Please try again.");
+                return;
+            }
             view.info(ok ? "\nItem updated." : "\nFailed to update item.");
         } catch (Exception e) {
             e.printStackTrace();
@@ -1,17 +1,24 @@
 package main.java.controller;
 import java.io.IOException;
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
 import main.java.model.Staff;
-import main.java.repository.StaffRepository;
+import main.java.storage.StaffStore;
 import main.java.view.LoginView;
+import main.java.view.Terminal;
 
 public class LoginController {
-    private final StaffRepository repository;
+    private final StaffStore repository;
     private final LoginView view;
     private static final int MAX_ATTEMPTS = 3;
 
     public LoginController() {
-        this.repository = new StaffRepository();
-        this.view = new LoginView();
+        this(Terminal.system(), BranchContext.of(Branch.DEFAULT).getStaff());
+    }
+
+    public LoginController(Terminal terminal, StaffStore repository) {
+        this.repository = repository;
+        this.view = new LoginView(terminal);
     }
 
     public boolean validateLogin() {
@@ -1,12 +1,36 @@
 package main.java.controller;
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.util.Lazy;
 import main.java.view.MainMenuView;
+import main.java.view.Terminal;
 
 public class MainController {
-    private final MainMenuView mainMenuView = new MainMenuView();
-    private final StaffController staffController = new StaffController();
-    private final ItemController itemController = new ItemController();
-    private final TransactionController transactionController = new TransactionController();
-    private final OrderController orderController = new OrderController(transactionController);
+    private final MainMenuView mainMenuView;
+    private final Lazy<StaffController> staffController;
+    private final Lazy<ItemController> itemController;
+    private final Lazy<TransactionController> transactionController;
+    private final Lazy<OrderController> orderController;
+    private final Lazy<AnalyticsController> analyticsController;
+
+    public MainController() {
+        this(Terminal.system(), BranchContext.of(Branch.DEFAULT));
+    }
+
+    /**
+     * One till's session: its own views on {@code terminal}, the branch's shared repositories.
+     * Each menu's controller is built the first time the menu is opened.
+     */
+    public MainController(Terminal terminal, BranchContext context) {
+        this.mainMenuView = new MainMenuView(terminal);
+        this.staffController = Lazy.of(() -> new StaffController(terminal, context.getStaff()));
+        this.itemController = Lazy.of(() -> new ItemController(terminal, context.getItems()));
+        this.transactionController = Lazy.of(() -> new TransactionController(terminal, context));
+        this.orderController = Lazy.of(() -> new OrderController(terminal, context.getItems(), context.getOrders(),
+                context.getLock(), context.getReservations(), transactionController.get()));
+        this.analyticsController = Lazy.of(() ->
+                new AnalyticsController(terminal, context));
+    }
 
     public void run() {
         boolean exit = false;
@@ -14,22 +38,25 @@ public class MainController {
             int selection = mainMenuView.menu();
             switch (selection) {
                 case 1:
-                    staffController.run();
+                    staffController.get().run();
                     break;
                 case 2:
-                    itemController.run();
+                    itemController.get().run();
                     break;
                 case 3:
-                    orderController.run();
+                    orderController.get().run();
                     break;
                 case 4:
-                    transactionController.run();
+                    transactionController.get().run();
                     break;
                 case 5:
                     exit = true;
                     break;
+                case 6:
+                    analyticsController.get().run();
+                    break;
                 default:
-                    System.out.println("\nInvalid input.");
+                    mainMenuView.showInvalidInput();
             }
         }
     }
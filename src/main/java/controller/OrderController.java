@@ -1,38 +1,92 @@
 package main.java.controller;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
 import main.java.config.OrderConstants;
 import main.java.config.OrderMenuOption;
+import main.java.inventory.ExpiryIndex;
+import main.java.inventory.StockAlertListener;
+import main.java.inventory.StockReservations;
 import main.java.model.ItemRecord;
 import main.java.model.OrderLine;
 import main.java.model.OrderRecord;
-import main.java.repository.ItemRepository;
-import main.java.repository.OrderRepository;
+import main.java.service.OrderService;
+import main.java.storage.ItemStore;
+import main.java.storage.OrderStore;
 import main.java.view.OrderView;
+import main.java.view.Terminal;
 
 public class OrderController {
-    private final OrderRepository orderRepository;
-    private final ItemRepository itemRepository;
+    private final OrderStore orderRepository;
+    private final ItemStore itemRepository;
     private final OrderView view;
+    private final OrderService orderService;
     private final TransactionController transactionController;
 
     public OrderController(TransactionController transactionController) {
-        this.orderRepository = new OrderRepository();
-        this.itemRepository = new ItemRepository();
-        this.view = new OrderView();
+        this(Terminal.system(), BranchContext.of(Branch.DEFAULT), transactionController);
+    }
+
+    private OrderController(Terminal terminal, BranchContext context, TransactionController transactionController) {
+        this(terminal, context.getItems(), context.getOrders(), context.getLock(), context.getReservations(),
+                transactionController);
+    }
+
+    /**
+     * @param lock shared by every till placing orders against the same repositories,
+     *             so an order and its stock reduction are written as one step
+     */
+    public OrderController(Terminal terminal, ItemStore itemRepository, OrderStore orderRepository,
+                           ReadWriteLock lock, TransactionController transactionController) {
+        this(terminal, itemRepository, orderRepository, new OrderService(itemRepository, orderRepository, lock),
+                transactionController);
+    }
+
+    /** @param reservations shared by every till, so each sees the lines the others are entering */
+    public OrderController(Terminal terminal, ItemStore itemRepository, OrderStore orderRepository,
+                           ReadWriteLock lock, StockReservations reservations,
+                           TransactionController transactionController) {
+        this(terminal, itemRepository, orderRepository,
+                new OrderService(itemRepository, orderRepository, lock, reservations), transactionController);
+    }
+
+    private OrderController(Terminal terminal, ItemStore itemRepository, OrderStore orderRepository,
+                            OrderService orderService, TransactionController transactionController) {
+        this.orderRepository = orderRepository;
+        this.itemRepository = itemRepository;
+        this.view = new OrderView(terminal);
+        this.orderService = orderService;
         this.transactionController = transactionController;
     }
 
     public void run() {
+        // the repository may be shared with other tills; only report what this till's own changes cause
+        Thread till = Thread.currentThread();
+        StockAlertListener alerts = (item, level) -> {
+            if (Thread.currentThread() == till) {
+                view.showLowStock(item, level);
+            }
+        };
+        itemRepository.addStockListener(alerts);
+        try {
+            runMenu();
+        } finally {
+            itemRepository.removeStockListener(alerts);
+        }
+    }
+
+    private void runMenu() {
         boolean back = false;
         while (!back) {
             int sel = view.menu();
             OrderMenuOption selectedOption = OrderMenuOption.fromValue(sel);
             if (selectedOption == null) {
-                System.out.println("Invalid input.");
+                view.info("Invalid input.");
                 continue;
             }
 
@@ -60,43 +114,38 @@ public class OrderController {
 
     private void handleAdd() {
         String orderNumber = view.promptOrderNumber(OrderConstants.PROMPT_ORDER_NUMBER_ADD);
+        String holder = UUID.randomUUID().toString();
         try {
             // Additional validation: check if order number already exists
             if (orderRepository.findByNumber(orderNumber) != null) {
                 view.info(OrderConstants.MSG_ORDER_NUMBER_EXISTS);
                 return;
             }
-            List<OrderLine> lines = promptOrderLines();
+            List<OrderLine> lines = promptOrderLines(holder);
             if (lines.isEmpty()) {
                 view.info(OrderConstants.MSG_NO_ITEMS_ADDED);
                 return;
             }
-            double total = lines.stream().mapToDouble(OrderLine::getSubtotal).sum();
-            String date = LocalDateTime.now().format(DateTimeFormatter.ofPattern(OrderConstants.DATE_FORMAT_PATTERN));
-            OrderRecord record = new OrderRecord(orderNumber, date, lines, total);
-            boolean ok = orderRepository.add(record);
-            if (!ok) {
+            OrderRecord record = orderService.placeOrder(orderNumber, lines, holder);
+            if (record == null) {
                 view.info(OrderConstants.MSG_FAILED_TO_SAVE_ORDER);
                 return;
             }
-            // reduce inventory
-            for (OrderLine l : lines) {
-                ItemRecord item = itemRepository.findByCode(l.getItemCode());
-                if (item != null) {
-                    ItemRecord updated = new ItemRecord(item.getCode(), item.getDescription(), item.getPrice(),
-                            item.getQuantity() - l.getQuantity(), item.getType(), item.getExtra1(), item.getExtra2());
-                    itemRepository.update(item.getCode(), updated);
-                }
-            }
             view.info(OrderConstants.MSG_ORDER_ADDED);
             transactionController.payForOrder(record);
+        } catch (IllegalStateException e) {
+            view.info("\n" + e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             view.info(OrderConstants.MSG_FAILED_TO_ADD_ORDER);
+        } finally {
+            // a saved order has already turned its holds into the sale
+            orderService.release(holder);
         }
     }
 
-    private List<OrderLine> promptOrderLines() throws Exception {
+    /** Prompts for lines, holding the stock of each under {@code holder} as it is entered. */
+    private List<OrderLine> promptOrderLines(String holder) throws Exception {
         List<OrderLine> lines = new ArrayList<>();
         boolean more = true;
         while (more) {
@@ -110,20 +159,45 @@ public class OrderController {
                 continue;
             }
 
-            view.showItemInfo(item);
+            view.showItemInfo(item, orderService.available(item));
+            showExpiryHints(item);
             int qty = view.promptQuantity();
             if (qty <= OrderConstants.MIN_QUANTITY) {
                 view.showInvalidQuantity();
                 continue;
             }
+            if (!orderService.reserve(holder, code, qty)) {
+                item = orderService.findItem(code);
+                if (item == null) {
+                    view.showItemNotFound(code);
+                } else {
+                    view.showNotEnoughStock(item, orderService.available(item));
+                }
+                continue;
+            }
 
-            double subtotal = item.getPrice() * qty;
-            lines.add(new OrderLine(code, qty, subtotal));
+            lines.add(orderService.priceLine(item, qty));
             more = view.promptAddAnother();
         }
         return lines;
     }
 
+    /** Warns about an expired supplement and points at an earlier-expiring batch to sell first. */
+    private void showExpiryHints(ItemRecord item) throws Exception {
+        if (item.getType() != ItemRecord.Type.SUPPLEMENT) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate expiry = ExpiryIndex.decode(item.getExtra2());
+        if (expiry != null && expiry.isBefore(today)) {
+            view.showExpired(item, expiry);
+        }
+        ExpiryIndex.Entry earlier = itemRepository.suggestFefo(item, today);
+        if (earlier != null) {
+            view.showFefoSuggestion(earlier.getItem(), earlier.getExpiry());
+        }
+    }
+
     private void handleSearch() {
         try {
             String code = view.promptOrderNumberForSearch(OrderConstants.PROMPT_ORDER_NUMBER_SEARCH);
@@ -154,6 +228,7 @@ public class OrderController {
 
     private void handleUpdate() {
         String orderNumber = view.promptOrderNumber(OrderConstants.PROMPT_ORDER_NUMBER_UPDATE);
+        String holder = UUID.randomUUID().toString();
         try {
             OrderRecord current = orderRepository.findByNumber(orderNumber);
             if (current == null) {
@@ -163,66 +238,33 @@ public class OrderController {
 
             // Restore inventory from old order lines
             for (OrderLine oldLine : current.getLines()) {
-                ItemRecord item = itemRepository.findByCode(oldLine.getItemCode());
-                if (item != null) {
-                    ItemRecord restored = new ItemRecord(
-                            item.getCode(),
-                            item.getDescription(),
-                            item.getPrice(),
-                            item.getQuantity() + oldLine.getQuantity(),
-                            item.getType(),
-                            item.getExtra1(),
-                            item.getExtra2());
-                    itemRepository.update(item.getCode(), restored);
-                }
+                orderService.adjustStock(oldLine.getItemCode(), oldLine.getQuantity());
             }
 
             // Show update prompt and get new lines
             view.showUpdatePrompt(current);
-            List<OrderLine> newLines = promptOrderLines();
+            List<OrderLine> newLines = promptOrderLines(holder);
 
             if (newLines.isEmpty()) {
                 // User cancelled, restore the inventory back
                 view.showUpdateCancelled();
                 for (OrderLine oldLine : current.getLines()) {
-                    ItemRecord item = itemRepository.findByCode(oldLine.getItemCode());
-                    if (item != null) {
-                        ItemRecord restored = new ItemRecord(
-                                item.getCode(),
-                                item.getDescription(),
-                                item.getPrice(),
-                                item.getQuantity() - oldLine.getQuantity(),
-                                item.getType(),
-                                item.getExtra1(),
-                                item.getExtra2());
-                        itemRepository.update(item.getCode(), restored);
-                    }
+                    orderService.adjustStock(oldLine.getItemCode(), -oldLine.getQuantity());
                 }
                 return;
             }
 
             // Calculate total and create updated order record
-            double newTotal = newLines.stream().mapToDouble(OrderLine::getSubtotal).sum();
+            long newTotal = OrderRecord.sumSen(newLines);
             String newDate = current.getDate(); // Keep the original date
-            OrderRecord updated = new OrderRecord(current.getOrderNumber(), newDate, newLines, newTotal);
+            OrderRecord updated = OrderRecord.ofSen(current.getOrderNumber(), newDate, newLines, newTotal);
 
             // Update the order in repository
             boolean ok = orderRepository.update(orderNumber, updated);
             if (!ok) {
                 // If update failed, restore inventory back
                 for (OrderLine oldLine : current.getLines()) {
-                    ItemRecord item = itemRepository.findByCode(oldLine.getItemCode());
-                    if (item != null) {
-                        ItemRecord restored = new ItemRecord(
-                                item.getCode(),
-                                item.getDescription(),
-                                item.getPrice(),
-                                item.getQuantity() - oldLine.getQuantity(),
-                                item.getType(),
-                                item.getExtra1(),
-                                item.getExtra2());
-                        itemRepository.update(item.getCode(), restored);
-                    }
+                    orderService.adjustStock(oldLine.getItemCode(), -oldLine.getQuantity());
                 }
                 view.info(OrderConstants.MSG_FAILED_TO_UPDATE_ORDER);
                 return;
@@ -230,24 +272,15 @@ public class OrderController {
 
             // Reduce inventory for new order lines
             for (OrderLine newLine : updated.getLines()) {
-                ItemRecord item = itemRepository.findByCode(newLine.getItemCode());
-                if (item != null) {
-                    ItemRecord updatedItem = new ItemRecord(
-                            item.getCode(),
-                            item.getDescription(),
-                            item.getPrice(),
-                            item.getQuantity() - newLine.getQuantity(),
-                            item.getType(),
-                            item.getExtra1(),
-                            item.getExtra2());
-                    itemRepository.update(item.getCode(), updatedItem);
-                }
+                orderService.adjustStock(newLine.getItemCode(), -newLine.getQuantity());
             }
 
             view.info(OrderConstants.MSG_ORDER_UPDATED_SUCCESS);
         } catch (Exception e) {
             e.printStackTrace();
             view.info(OrderConstants.MSG_FAILED_TO_UPDATE_ORDER);
+        } finally {
+            orderService.release(holder);
         }
     }
 
@@ -1,18 +1,29 @@
 package main.java.controller;
+import java.util.List;
+
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
 import main.java.model.Staff;
-import main.java.repository.StaffRepository;
+import main.java.storage.StaffQuery;
+import main.java.storage.StaffStore;
 import main.java.view.StaffView;
+import main.java.view.Terminal;
 import main.java.config.StaffConstants;
 import main.java.config.StaffMenuOption;
 
 public class StaffController {
-    private final StaffRepository repository;
+    private final StaffStore repository;
     private final StaffView view;
 
-    /** Creates a staff controller with its own repository and view. */
+    /** Creates a staff controller on the console over the default branch's shared repository. */
     public StaffController() {
-        this.repository = new StaffRepository();
-        this.view = new StaffView();
+        this(Terminal.system(), BranchContext.of(Branch.DEFAULT).getStaff());
+    }
+
+    /** Creates a staff controller on the given terminal over a shared repository. */
+    public StaffController(Terminal terminal, StaffStore repository) {
+        this.repository = repository;
+        this.view = new StaffView(terminal);
     }
 
     /**
@@ -69,15 +80,31 @@ public class StaffController {
         }
     }
 
-    /** Looks up a staff record by ID and displays the result. */
+    /** Looks up a staff record by ID, or searches the directory by name, phone, position or address. */
     private void handleSearch() {
-        String id = view.promptStaffId(StaffConstants.PROMPT_STAFF_ID_SEARCH);
+        String input = view.promptSearch();
         try {
-            Staff staff = repository.findById(id);
-            if (staff != null) {
-                view.showStaff(staff);
-            } else {
+            if (Validation.isStaffId(input)) {
+                Staff staff = repository.findById(input);
+                if (staff != null) {
+                    view.showStaff(staff);
+                } else {
+                    view.info(StaffConstants.MSG_STAFF_NOT_FOUND);
+                }
+                return;
+            }
+            StaffQuery query;
+            try {
+                query = StaffQuery.parse(input);
+            } catch (IllegalArgumentException e) {
+                view.info(StaffConstants.MSG_INVALID_SEARCH);
+                return;
+            }
+            List<Staff> found = repository.search(query);
+            if (found.isEmpty()) {
                 view.info(StaffConstants.MSG_STAFF_NOT_FOUND);
+            } else {
+                view.showList(found);
             }
         } catch (Exception e) {
             e.printStackTrace();
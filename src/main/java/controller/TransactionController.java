@@ -1,57 +1,112 @@
 package main.java.controller;
+import java.io.File;
+import java.util.concurrent.locks.ReadWriteLock;
+import main.java.analytics.TransactionStatistics;
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.config.FilePaths;
+import main.java.jfr.PaymentEvent;
 import main.java.model.TransactionRecord;
 import main.java.model.OrderRecord;
-import main.java.repository.TransactionRepository;
-import main.java.repository.OrderRepository;
+import main.java.pricing.PriceQuote;
+import main.java.pricing.PricingEngine;
+import main.java.service.PaymentService;
+import main.java.storage.TransactionStore;
+import main.java.util.Money;
+import main.java.view.Terminal;
 import main.java.view.TransactionView;
 
 public class TransactionController {
-    private final TransactionRepository repository;
+    private final TransactionStore repository;
     private final TransactionView view;
+    private final PaymentService payments;
     public TransactionController() {
-        this.repository = new TransactionRepository();
-        this.view = new TransactionView();
-        new OrderRepository();
+        this(Terminal.system(), BranchContext.of(Branch.DEFAULT));
     }
 
-    public void payForOrder(OrderRecord order) {
-        double total = order.getTotal();
-        double discountPct = calcDiscount(total);
-        double discountAmt = total * (discountPct / 100.0);
-        double taxPct = 6.0;
-        double finalPrice = (total - discountAmt) * ((taxPct + 100.0) / 100.0);
+    /** Prices with the branch's own pricing rules. */
+    public TransactionController(Terminal terminal, BranchContext context) {
+        this(terminal, context.getTransactions(), context.getLock(), context.getBranch().file(FilePaths.PRICING));
+    }
 
-        view.showSummary(order.getOrderNumber(), total, discountPct, discountAmt, taxPct, finalPrice);
-        TransactionRecord.Method method = view.promptMethod();
-        TransactionRecord record = null;
+    /** Prices with the default branch's pricing rules. */
+    public TransactionController(Terminal terminal, TransactionStore repository, ReadWriteLock lock) {
+        this(terminal, repository, lock, Branch.DEFAULT.file(FilePaths.PRICING));
+    }
+
+    private TransactionController(Terminal terminal, TransactionStore repository, ReadWriteLock lock,
+                                  File pricingFile) {
+        this.repository = repository;
+        this.view = new TransactionView(terminal);
+        this.payments = new PaymentService(repository, loadPricing(pricingFile), lock);
+    }
 
-        switch (method) {
-            case CASH:
-                double pay = view.promptCash(finalPrice);
-                double change = pay - finalPrice;
-                record = new TransactionRecord(order.getOrderNumber(), total, discountPct, discountAmt, taxPct, finalPrice, method,
-                        String.format("%.2f", pay), String.format("%.2f", change));
-                break;
-            case BANK:
-                String bank = view.promptBankName();
-                String account = view.promptAccount();
-                record = new TransactionRecord(order.getOrderNumber(), total, discountPct, discountAmt, taxPct, finalPrice, method,
-                        bank, account);
-                break;
-            case EWALLET:
-                String name = view.promptName();
-                String phone = view.promptPhone();
-                record = new TransactionRecord(order.getOrderNumber(), total, discountPct, discountAmt, taxPct, finalPrice, method,
-                        name, phone);
-                break;
+    private PricingEngine loadPricing(File pricingFile) {
+        try {
+            return PricingEngine.load(pricingFile);
+        } catch (Exception e) {
+            e.printStackTrace();
+            view.info("\nFailed to load pricing rules, using the built-in rates.");
+            return PricingEngine.defaults();
         }
+    }
+
+    public void payForOrder(OrderRecord order) {
+        PaymentEvent event = new PaymentEvent();
+        // all amounts in sen so the stored prices are exact
+        long pricingStart = System.nanoTime();
+        PriceQuote quote = payments.quote(order);
+        long pricingNanos = System.nanoTime() - pricingStart;
+        long finalPrice = quote.getFinalSen();
+
+        view.showSummary(order.getOrderNumber(), Money.toDouble(quote.getTotalSen()), quote.getDiscountPercent(),
+                Money.toDouble(quote.getDiscountSen()), quote.getTaxPercent(), Money.toDouble(finalPrice));
+        long promptStart = System.nanoTime();
+        TransactionRecord.Method method = view.promptMethod();
 
+        TransactionRecord record = null;
+        long promptNanos = -1;
         try {
-            boolean ok = repository.add(record);
-            view.info(ok ? "\nPayment saved." : "\nFailed to save payment (file missing?).");
+            long pay = 0;
+            String field1 = null;
+            String field2 = null;
+            switch (method) {
+                case CASH:
+                    pay = Money.ofDouble(view.promptCash(Money.toDouble(finalPrice)));
+                    break;
+                case BANK:
+                    field1 = view.promptBankName();
+                    field2 = view.promptAccount();
+                    break;
+                case EWALLET:
+                    field1 = view.promptName();
+                    field2 = view.promptPhone();
+                    break;
+            }
+            promptNanos = System.nanoTime() - promptStart;
+            event.begin();
+            record = method == TransactionRecord.Method.CASH ? payments.payCash(order, pay)
+                    : payments.pay(order, method, field1, field2);
+            view.info(record != null ? "\nPayment saved." : "\nFailed to save payment (file missing?).");
+        } catch (IllegalStateException e) {
+            view.info("\n" + e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             view.info("\nFailed to save payment.");
+        } finally {
+            // only a payment that got as far as saving is recorded
+            if (promptNanos >= 0) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.setOrderNumber(order.getOrderNumber());
+                    event.setMethod(method.name());
+                    event.setAmountSen(finalPrice);
+                    event.setPricingNanos(pricingNanos);
+                    event.setPromptNanos(promptNanos);
+                    event.setSaved(record != null);
+                    event.commit();
+                }
+            }
         }
     }
 
@@ -107,45 +162,17 @@ public class TransactionController {
 
     private void handleStatistics() {
         try {
-            java.util.List<TransactionRecord> allTransactions = repository.findAll();
-            int totalTransactions = allTransactions.size();
-            double totalRevenue = 0.0;
-            int cashCount = 0, bankCount = 0, ewalletCount = 0;
-            double cashTotal = 0.0, bankTotal = 0.0, ewalletTotal = 0.0;
-
-            for (TransactionRecord record : allTransactions) {
-                double finalPrice = record.getFinalPrice();
-                totalRevenue += finalPrice;
-
-                switch (record.getMethod()) {
-                    case CASH:
-                        cashCount++;
-                        cashTotal += finalPrice;
-                        break;
-                    case BANK:
-                        bankCount++;
-                        bankTotal += finalPrice;
-                        break;
-                    case EWALLET:
-                        ewalletCount++;
-                        ewalletTotal += finalPrice;
-                        break;
-                }
-            }
-
-            double averageTransaction = totalTransactions > 0 ? totalRevenue / totalTransactions : 0.0;
-            view.showStatistics(totalTransactions, totalRevenue, averageTransaction, 
-                               cashCount, cashTotal, bankCount, bankTotal, 
-                               ewalletCount, ewalletTotal);
+            TransactionStatistics stats = payments.statistics();
+            view.showStatistics((int) stats.getCount(), Money.toDouble(stats.getRevenueSen()), stats.getAverage(),
+                               (int) stats.getCount(TransactionRecord.Method.CASH),
+                               Money.toDouble(stats.getRevenueSen(TransactionRecord.Method.CASH)),
+                               (int) stats.getCount(TransactionRecord.Method.BANK),
+                               Money.toDouble(stats.getRevenueSen(TransactionRecord.Method.BANK)),
+                               (int) stats.getCount(TransactionRecord.Method.EWALLET),
+                               Money.toDouble(stats.getRevenueSen(TransactionRecord.Method.EWALLET)));
         } catch (Exception e) {
             e.printStackTrace();
             view.info("\nFailed to retrieve transaction statistics.");
         }
     }
-
-    private double calcDiscount(double total) {
-        if (total >= 150.0) return 10.0;
-        if (total >= 100.0) return 5.0;
-        return 0.0;
-    }
 }
@@ -0,0 +1,231 @@
+package main.java.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Carries repository changes to subscribers without the repositories waiting for
+ * them.
+ *
+ * A publisher adds its event to a lock-free queue, then moves whatever is queued
+ * into a fixed ring of slots, numbering each event as it goes in and marking its
+ * slot published. Only one thread moves events at a time; any other returns at
+ * once and leaves its event to that one. Every subscription has its own thread
+ * and cursor and takes whatever run of published events is waiting, up to
+ * {@link #MAX_BATCH}, in one call.
+ *
+ * Nobody waits for a slow subscriber. When the slowest one is a whole ring
+ * behind, events stay queued, in order, and the subscriber moves them into the
+ * ring itself as it frees slots. Repositories publish while holding their lock,
+ * so a listener may read them without deadlocking; the price is a queue that
+ * grows for as long as a listener cannot keep up.
+ *
+ * With no subscriptions {@link #publish} returns at once, so a repository nobody
+ * listens to pays nothing for its bus.
+ */
+public class ChangeBus implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int MAX_BATCH = 256;
+
+    private final ChangeEvent<?>[] ring;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final Queue<ChangeEvent<?>> pending = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock filling = new ReentrantLock();
+    /** Sequence the next event moved into the ring gets; written only while holding {@link #filling}. */
+    private volatile long next;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public ChangeBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /** @param capacity slots in the ring, rounded up to a power of two */
+    public ChangeBus(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        ring = new ChangeEvent<?>[size];
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        mask = size - 1;
+    }
+
+    public int getCapacity() { return ring.length; }
+
+    /**
+     * Publishes one change; never blocks. Callers publish after the change is on
+     * disk and while still holding the lock that ordered it, so each repository's
+     * events are in the same order as its file.
+     */
+    public <T> void publish(Class<T> type, ChangeEvent.Kind kind, String key, T before, T after) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        pending.add(new ChangeEvent<>(System.currentTimeMillis(), type, kind, key, before, after));
+        fill();
+    }
+
+    /**
+     * Moves queued events into free slots. A thread that finds another one doing
+     * it leaves; that one checks the queue again after letting go, so nothing
+     * queued meanwhile is stranded.
+     */
+    private void fill() {
+        while (!pending.isEmpty() && slotFree()) {
+            if (!filling.tryLock()) {
+                return;
+            }
+            try {
+                ChangeEvent<?> event;
+                while (slotFree() && (event = pending.poll()) != null) {
+                    long sequence = next;
+                    int slot = (int) sequence & mask;
+                    event.setSequence(sequence);
+                    ring[slot] = event;
+                    published.set(slot, sequence);
+                    next = sequence + 1;
+                }
+            } finally {
+                filling.unlock();
+            }
+            for (Subscription s : subscriptions) {
+                if (s.idle) {
+                    LockSupport.unpark(s.thread);
+                }
+            }
+        }
+    }
+
+    /** True when every subscriber has read what the next slot held one lap ago. */
+    private boolean slotFree() {
+        return next - ring.length < slowest();
+    }
+
+    private long slowest() {
+        long min = Long.MAX_VALUE;
+        for (Subscription s : subscriptions) {
+            min = Math.min(min, s.cursor);
+        }
+        return min;
+    }
+
+    /** Subscribes to changes of one record type, starting with the next one published. */
+    public <T> Subscription subscribe(String name, Class<T> type, ChangeListener<T> listener) {
+        return start(name, type, listener);
+    }
+
+    /** Subscribes to changes of every type. */
+    public Subscription subscribeAll(String name, ChangeListener<Object> listener) {
+        return start(name, null, listener);
+    }
+
+    private Subscription start(String name, Class<?> type, ChangeListener<?> listener) {
+        Subscription s = new Subscription(name, type, listener);
+        synchronized (subscriptions) {
+            // not before the first unclaimed sequence, so publishers never wait on events it will skip
+            s.cursor = next;
+            subscriptions.add(s);
+        }
+        s.thread.start();
+        return s;
+    }
+
+    /** Stops every subscription once it has delivered what was already published. */
+    @Override
+    public void close() {
+        for (Subscription s : subscriptions) {
+            s.close();
+        }
+    }
+
+    /** One subscriber's thread and read position. */
+    public final class Subscription implements AutoCloseable {
+        private final Class<?> type;
+        private final ChangeListener<Object> listener;
+        private final Thread thread;
+        private volatile long cursor;
+        private volatile boolean idle;
+        private volatile boolean running = true;
+
+        @SuppressWarnings("unchecked")
+        private Subscription(String name, Class<?> type, ChangeListener<?> listener) {
+            this.type = type;
+            this.listener = (ChangeListener<Object>) listener;
+            this.thread = new Thread(this::drain, "changes-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        /** Sequence of the next event this subscriber will read. */
+        public long getCursor() { return cursor; }
+
+        private void drain() {
+            List<ChangeEvent<Object>> batch = new ArrayList<>(MAX_BATCH);
+            long position = cursor;
+            while (true) {
+                if (!pending.isEmpty()) {
+                    fill();
+                }
+                int n = 0;
+                while (n < MAX_BATCH && published.get((int) (position + n) & mask) == position + n) {
+                    @SuppressWarnings("unchecked")
+                    ChangeEvent<Object> event = (ChangeEvent<Object>) ring[(int) (position + n) & mask];
+                    if (type == null || type == event.getType()) {
+                        batch.add(event);
+                    }
+                    n++;
+                }
+                if (n == 0) {
+                    if (!running) {
+                        return;
+                    }
+                    idle = true;
+                    // publishers check idle after marking a slot, so either they unpark us or we see the slot
+                    if (published.get((int) position & mask) != position) {
+                        LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(10));
+                    }
+                    idle = false;
+                    continue;
+                }
+                if (!batch.isEmpty()) {
+                    try {
+                        listener.onChanges(batch);
+                    } catch (RuntimeException e) {
+                        System.err.println(thread.getName() + ": " + e);
+                    }
+                    batch.clear();
+                }
+                position += n;
+                cursor = position;
+            }
+        }
+
+        /** Delivers what is already published, then stops the thread. */
+        @Override
+        public void close() {
+            running = false;
+            LockSupport.unpark(thread);
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join(TimeUnit.SECONDS.toMillis(5));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            subscriptions.remove(this);
+        }
+    }
+}
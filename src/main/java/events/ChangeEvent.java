@@ -0,0 +1,46 @@
+package main.java.events;
+
+/**
+ * One change made through a repository: the record before and after it, keyed
+ * by the record's identifier (item code, order number, staff ID). An insert has
+ * no before, a delete no after.
+ *
+ * @param <T> record type, e.g. {@code ItemRecord}
+ */
+public final class ChangeEvent<T> {
+    public enum Kind { INSERT, UPDATE, DELETE }
+
+    private long sequence = -1;
+    private final long timeMillis;
+    private final Class<T> type;
+    private final Kind kind;
+    private final String key;
+    private final T before;
+    private final T after;
+
+    ChangeEvent(long timeMillis, Class<T> type, Kind kind, String key, T before, T after) {
+        this.timeMillis = timeMillis;
+        this.type = type;
+        this.kind = kind;
+        this.key = key;
+        this.before = before;
+        this.after = after;
+    }
+
+    /** Position on the bus; consecutive and increasing in publication order. */
+    public long getSequence() { return sequence; }
+
+    /** Set by the bus as the event goes into its ring, before any subscriber can see it. */
+    void setSequence(long sequence) { this.sequence = sequence; }
+    public long getTimeMillis() { return timeMillis; }
+    public Class<T> getType() { return type; }
+    public Kind getKind() { return kind; }
+    public String getKey() { return key; }
+    public T getBefore() { return before; }
+    public T getAfter() { return after; }
+
+    @Override
+    public String toString() {
+        return sequence + " " + kind + " " + type.getSimpleName() + " " + key;
+    }
+}
@@ -0,0 +1,18 @@
+package main.java.events;
+
+import java.util.List;
+
+/**
+ * Receives batches of changes on the subscription's own thread, in publication
+ * order.
+ *
+ * The listener runs with no repository lock held and publishers never wait for
+ * it, so it may read the repositories that feed its bus. While it is busy, new
+ * events queue on the bus, so a listener that is slow for long should hand the
+ * work to another thread rather than make the queue grow.
+ */
+@FunctionalInterface
+public interface ChangeListener<T> {
+    /** @param batch one or more consecutive events; only valid during the call */
+    void onChanges(List<ChangeEvent<T>> batch);
+}
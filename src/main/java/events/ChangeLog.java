@@ -0,0 +1,49 @@
+package main.java.events;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+import main.java.branch.BranchContext;
+import main.java.config.FilePaths;
+
+/**
+ * Audit trail of every change made through a branch's repositories, one
+ * "sequence||time||type||kind||key" line per change. Each batch from the bus is
+ * a single append, so a burst of order lines costs one file write.
+ *
+ * Off unless {@code -Dpharmacy.changeLog=true}.
+ */
+public class ChangeLog implements ChangeListener<Object> {
+    private final File file;
+
+    public ChangeLog(File file) {
+        this.file = file;
+    }
+
+    /** Subscribes a change log for the branch when enabled; returns null otherwise. */
+    public static ChangeBus.Subscription attachIfEnabled(BranchContext context) {
+        if (!Boolean.getBoolean("pharmacy.changeLog")) {
+            return null;
+        }
+        ChangeLog log = new ChangeLog(context.getBranch().file(FilePaths.CHANGE_LOG));
+        return context.getChanges().subscribeAll("log-" + context.getBranch().getName(), log);
+    }
+
+    @Override
+    public void onChanges(List<ChangeEvent<Object>> batch) {
+        StringBuilder sb = new StringBuilder(batch.size() * 48);
+        for (ChangeEvent<Object> e : batch) {
+            sb.append(e.getSequence()).append("||").append(e.getTimeMillis()).append("||")
+                    .append(e.getType().getSimpleName()).append("||").append(e.getKind()).append("||")
+                    .append(e.getKey()).append(System.lineSeparator());
+        }
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file, true))) {
+            writer.print(sb);
+        } catch (IOException e) {
+            System.err.println("Change log: " + e.getMessage());
+        }
+    }
+}
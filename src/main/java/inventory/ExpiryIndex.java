@@ -0,0 +1,169 @@
+package main.java.inventory;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import main.java.model.ItemRecord;
+
+/**
+ * In-memory index of supplements ordered by expiry date.
+ *
+ * {@code ItemRecord.getExtra2()} holds a supplement's expiry either as yyyyMMdd
+ * (what the item prompt asks for) or as the older six-digit yyMMdd found in
+ * existing data, e.g. {@code 230525} for 25 May 2023. Values that decode to
+ * neither are left out of the index.
+ */
+public class ExpiryIndex {
+
+    /** A supplement together with its decoded expiry date. */
+    public static class Entry implements Comparable<Entry> {
+        private final ItemRecord item;
+        private final LocalDate expiry;
+        private final long day;
+        private final String code;
+
+        Entry(ItemRecord item, LocalDate expiry) {
+            this(item, expiry, expiry.toEpochDay(), item.getCode());
+        }
+
+        private Entry(ItemRecord item, LocalDate expiry, long day, String code) {
+            this.item = item;
+            this.expiry = expiry;
+            this.day = day;
+            this.code = code;
+        }
+
+        public ItemRecord getItem() { return item; }
+        public LocalDate getExpiry() { return expiry; }
+
+        @Override
+        public int compareTo(Entry o) {
+            int cmp = Long.compare(day, o.day);
+            return cmp != 0 ? cmp : code.compareTo(o.code);
+        }
+    }
+
+    private final TreeSet<Entry> byExpiry = new TreeSet<>();
+    private final Map<String, Entry> byCode = new HashMap<>();
+    private final Map<String, TreeSet<Entry>> byProduct = new HashMap<>();
+
+    /**
+     * Decodes an expiry stored in {@code extra2}.
+     * @param raw yyyyMMdd or yyMMdd
+     * @return the date, or null when the value is not a valid date
+     */
+    public static LocalDate decode(int raw) {
+        int year;
+        if (raw >= 10000101 && raw <= 99991231) {
+            year = raw / 10000;
+        } else if (raw >= 101 && raw <= 991231) {
+            year = 2000 + raw / 10000;
+        } else {
+            return null;
+        }
+        try {
+            return LocalDate.of(year, (raw / 100) % 100, raw % 100);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    public synchronized void reset(List<ItemRecord> all) {
+        byExpiry.clear();
+        byCode.clear();
+        byProduct.clear();
+        for (ItemRecord item : all) {
+            if (!byCode.containsKey(item.getCode())) {
+                insert(item);
+            }
+        }
+    }
+
+    /** Inserts, moves or drops an item depending on its type and expiry. */
+    public synchronized void update(ItemRecord item) {
+        remove(item.getCode());
+        insert(item);
+    }
+
+    public synchronized void remove(String code) {
+        Entry old = byCode.remove(code);
+        if (old != null) {
+            byExpiry.remove(old);
+            TreeSet<Entry> product = byProduct.get(productKey(old.item));
+            product.remove(old);
+            if (product.isEmpty()) {
+                byProduct.remove(productKey(old.item));
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return byExpiry.size();
+    }
+
+    /** Supplements expiring between two dates inclusive, earliest first. */
+    public synchronized List<Entry> between(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return new ArrayList<>();
+        }
+        Entry low = new Entry(null, from, from.toEpochDay(), "");
+        Entry high = new Entry(null, to, to.toEpochDay() + 1, "");
+        return new ArrayList<>(byExpiry.subSet(low, true, high, false));
+    }
+
+    /** Supplements whose expiry date is before the given day, earliest first. */
+    public synchronized List<Entry> expiredBefore(LocalDate day) {
+        Entry bound = new Entry(null, day, day.toEpochDay(), "");
+        return new ArrayList<>(byExpiry.headSet(bound, false));
+    }
+
+    /**
+     * First-expired-first-out suggestion for a supplement being sold: another
+     * in-stock, unexpired item of the same product (same description) that
+     * expires earlier than the chosen one. When the chosen item has already expired,
+     * the earliest unexpired in-stock item of the product is suggested instead.
+     * @return the earliest such entry, or null when the chosen item is already the right pick
+     */
+    public synchronized Entry suggestEarlier(ItemRecord chosen, LocalDate today) {
+        Entry current = byCode.get(chosen.getCode());
+        if (current == null) {
+            return null;
+        }
+        NavigableSet<Entry> product = byProduct.get(productKey(chosen));
+        Entry firstUsable = new Entry(null, today, today.toEpochDay(), "");
+        // an expired pick is replaced by the earliest usable one, otherwise only earlier ones qualify
+        NavigableSet<Entry> candidates = current.compareTo(firstUsable) < 0
+                ? product.tailSet(firstUsable, true)
+                : product.subSet(firstUsable, true, current, false);
+        for (Entry candidate : candidates) {
+            if (candidate.item.getQuantity() > 0) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void insert(ItemRecord item) {
+        if (item.getType() != ItemRecord.Type.SUPPLEMENT) {
+            return;
+        }
+        LocalDate expiry = decode(item.getExtra2());
+        if (expiry == null) {
+            return;
+        }
+        Entry entry = new Entry(item, expiry);
+        byCode.put(item.getCode(), entry);
+        byExpiry.add(entry);
+        byProduct.computeIfAbsent(productKey(item), k -> new TreeSet<>()).add(entry);
+    }
+
+    private static String productKey(ItemRecord item) {
+        return item.getDescription().trim().toLowerCase();
+    }
+}
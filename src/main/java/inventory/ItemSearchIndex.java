@@ -0,0 +1,410 @@
+package main.java.inventory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import main.java.model.ItemRecord;
+
+/**
+ * Fuzzy search over what an item is called and what it is for
+ * ({@code getDescription()} and {@code getExtra1()}), so "paracetmol" or
+ * "cough syrp" still find the right item.
+ *
+ * Every item's text is lower-cased, reduced to letters, digits and single spaces
+ * and broken into overlapping three-character grams. Each gram keeps a sorted
+ * list of the items containing it. One typo can spoil at most three of a
+ * query's grams, so an item within {@code k} edits shares at least
+ * {@code grams - 3k} of them; only the items reaching that count have their
+ * edit distance to the query worked out.
+ *
+ * Items get increasing ids, so appending keeps the lists sorted. A changed
+ * item is added again under a new id and its old id is only marked dead; once
+ * half the ids are dead the live items are renumbered and the lists swept.
+ * Stock and price changes leave the text alone and keep their id.
+ */
+public class ItemSearchIndex {
+    /** Candidates, best gram overlap first, that are checked for edit distance. */
+    static final int RERANK = 256;
+    /** Longest query looked at, which keeps a query's grams countable in a byte. */
+    static final int MAX_QUERY = 64;
+
+    private static final Postings NONE = new Postings();
+
+    /** An item and how many edits the query is from the closest part of its text. */
+    public static class Match {
+        private final ItemRecord item;
+        private final int distance;
+
+        Match(ItemRecord item, int distance) {
+            this.item = item;
+            this.distance = distance;
+        }
+
+        public ItemRecord getItem() { return item; }
+        public int getDistance() { return distance; }
+    }
+
+    /** Ascending ids of the items containing one gram, removed items included until the next compaction. */
+    private static class Postings {
+        int[] ids = new int[4];
+        int size;
+
+        void append(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+
+    // gram -> postings, open addressing on the packed gram
+    private long[] gramKeys = new long[1024];
+    private Postings[] gramLists = new Postings[1024];
+    private int gramCount;
+
+    private final Map<String, Integer> idByCode = new HashMap<>();
+    private ItemRecord[] items = new ItemRecord[64];
+    private char[][] texts = new char[64][];
+    private int nextId;
+    private int live;
+    // per-query scratch: grams shared per id (a byte keeps the array cache-sized), ids seen, one DP row
+    private byte[] counts = new byte[64];
+    private int[] touched = new int[64];
+    private int[] row = new int[16];
+
+    public synchronized void reset(List<ItemRecord> all) {
+        gramKeys = new long[1024];
+        gramLists = new Postings[1024];
+        gramCount = 0;
+        idByCode.clear();
+        int capacity = Math.max(64, all.size());
+        items = new ItemRecord[capacity];
+        texts = new char[capacity][];
+        counts = new byte[capacity];
+        nextId = 0;
+        live = 0;
+        for (ItemRecord r : all) {
+            if (!idByCode.containsKey(r.getCode())) {
+                insert(r);
+            }
+        }
+    }
+
+    public synchronized void update(ItemRecord r) {
+        Integer id = idByCode.get(r.getCode());
+        if (id != null && Arrays.equals(texts[id], text(r).toCharArray())) {
+            // a stock or price change: same grams, keep the id
+            items[id] = r;
+            return;
+        }
+        delete(r.getCode());
+        insert(r);
+        compactIfSparse();
+    }
+
+    public synchronized void remove(String code) {
+        delete(code);
+        compactIfSparse();
+    }
+
+    public synchronized int size() {
+        return live;
+    }
+
+    /**
+     * Items whose description or use is close to the query, closest first; ties
+     * go to the lower item code.
+     * @param limit most matches to return
+     */
+    public synchronized List<Match> search(String query, int limit) {
+        String q = normalize(query);
+        if (q.length() > MAX_QUERY) {
+            q = q.substring(0, MAX_QUERY).trim();
+        }
+        String grammed = q.length() < 3 ? " " + q : q;
+        if (q.isEmpty() || grammed.length() < 3 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        long[] grams = grams(grammed);
+        int maxEdits = maxEdits(q.length());
+        int need = Math.max(1, grams.length - 3 * maxEdits);
+
+        Postings[] lists = new Postings[grams.length];
+        for (int g = 0; g < grams.length; g++) {
+            Postings p = lookup(grams[g]);
+            lists[g] = p == null ? NONE : p;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(p -> p.size));
+
+        // an item sharing `need` grams is in at least one of the shortest (grams - need + 1) lists
+        int seeds = grams.length - need + 1;
+        int[] touched = this.touched;
+        int touchedCount = 0;
+        for (int g = 0; g < seeds; g++) {
+            Postings p = lists[g];
+            for (int i = 0; i < p.size; i++) {
+                int id = p.ids[i];
+                if (counts[id]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = this.touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = id;
+                }
+            }
+        }
+        // the longer lists only add to items already seen: probe short candidate sets, sweep otherwise
+        for (int g = seeds; g < lists.length; g++) {
+            Postings p = lists[g];
+            if ((long) touchedCount * 32 < p.size) {
+                for (int t = 0; t < touchedCount; t++) {
+                    if (p.contains(touched[t])) {
+                        counts[touched[t]]++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < p.size; i++) {
+                    if (counts[p.ids[i]] > 0) {
+                        counts[p.ids[i]]++;
+                    }
+                }
+            }
+        }
+
+        // keep the RERANK best overlaps without sorting every candidate
+        int[] histogram = new int[grams.length + 1];
+        for (int t = 0; t < touchedCount; t++) {
+            int id = touched[t];
+            if (items[id] != null && counts[id] >= need) {
+                histogram[counts[id]]++;
+            }
+        }
+        int cutoff = grams.length;
+        int above = 0;
+        while (cutoff > need && above + histogram[cutoff] < RERANK) {
+            above += histogram[cutoff--];
+        }
+        int[] chosen = new int[Math.min(RERANK, above + histogram[cutoff])];
+        int chosenCount = 0;
+        int atCutoff = chosen.length - above;
+        for (int t = 0; t < touchedCount; t++) {
+            int id = touched[t];
+            int count = counts[id];
+            counts[id] = 0;
+            if (items[id] == null || count < cutoff) {
+                continue;
+            }
+            if (count > cutoff) {
+                chosen[chosenCount++] = id;
+            } else if (atCutoff > 0) {
+                chosen[chosenCount++] = id;
+                atCutoff--;
+            }
+        }
+
+        char[] pattern = q.toCharArray();
+        List<Match> matches = new ArrayList<>();
+        for (int c = 0; c < chosenCount; c++) {
+            int id = chosen[c];
+            int distance = substringDistance(pattern, texts[id]);
+            if (distance <= maxEdits) {
+                matches.add(new Match(items[id], distance));
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::getDistance)
+                .thenComparing(m -> m.getItem().getCode()));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    private void insert(ItemRecord r) {
+        if (nextId == items.length) {
+            int capacity = items.length * 2;
+            items = Arrays.copyOf(items, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        int id = nextId++;
+        String text = text(r);
+        items[id] = r;
+        texts[id] = text.toCharArray();
+        idByCode.put(r.getCode(), id);
+        live++;
+        for (long gram : grams(" " + text + " ")) {
+            postingsFor(gram).append(id);
+        }
+    }
+
+    /** Forgets an item; its ids stay in the postings, skipped by searches, until the next compaction. */
+    private void delete(String code) {
+        Integer id = idByCode.remove(code);
+        if (id == null) {
+            return;
+        }
+        items[id] = null;
+        texts[id] = null;
+        live--;
+    }
+
+    /** Renumbers the live items once removed ones hold half the ids, dropping the dead ids from every list. */
+    private void compactIfSparse() {
+        if (nextId <= 1024 || live >= nextId / 2) {
+            return;
+        }
+        int[] renumbered = new int[nextId];
+        int n = 0;
+        for (int id = 0; id < nextId; id++) {
+            if (items[id] == null) {
+                renumbered[id] = -1;
+                continue;
+            }
+            renumbered[id] = n;
+            items[n] = items[id];
+            texts[n] = texts[id];
+            idByCode.put(items[n].getCode(), n);
+            n++;
+        }
+        Arrays.fill(items, n, nextId, null);
+        Arrays.fill(texts, n, nextId, null);
+        nextId = n;
+        // ids keep their order, so each list stays sorted
+        for (Postings p : gramLists) {
+            if (p == null) {
+                continue;
+            }
+            int kept = 0;
+            for (int i = 0; i < p.size; i++) {
+                int id = renumbered[p.ids[i]];
+                if (id >= 0) {
+                    p.ids[kept++] = id;
+                }
+            }
+            p.size = kept;
+        }
+    }
+
+    private Postings lookup(long gram) {
+        int mask = gramKeys.length - 1;
+        for (int i = slot(gram, mask); gramLists[i] != null; i = (i + 1) & mask) {
+            if (gramKeys[i] == gram) {
+                return gramLists[i];
+            }
+        }
+        return null;
+    }
+
+    private Postings postingsFor(long gram) {
+        Postings p = lookup(gram);
+        if (p != null) {
+            return p;
+        }
+        if ((gramCount + 1) * 2 > gramKeys.length) {
+            long[] keys = gramKeys;
+            Postings[] lists = gramLists;
+            gramKeys = new long[keys.length * 2];
+            gramLists = new Postings[keys.length * 2];
+            for (int i = 0; i < keys.length; i++) {
+                if (lists[i] != null) {
+                    place(keys[i], lists[i]);
+                }
+            }
+        }
+        p = new Postings();
+        place(gram, p);
+        gramCount++;
+        return p;
+    }
+
+    private void place(long gram, Postings p) {
+        int mask = gramKeys.length - 1;
+        int i = slot(gram, mask);
+        while (gramLists[i] != null) {
+            i = (i + 1) & mask;
+        }
+        gramKeys[i] = gram;
+        gramLists[i] = p;
+    }
+
+    private static int slot(long gram, int mask) {
+        return (int) ((gram * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+
+    private static String text(ItemRecord r) {
+        return normalize(r.getDescription() + " " + r.getExtra1());
+    }
+
+    /** Edits a query of this many characters may be away from a match. */
+    static int maxEdits(int length) {
+        if (length <= 3) return 0;
+        if (length <= 8) return 1;
+        if (length <= 16) return 2;
+        return 3;
+    }
+
+    /** Lower case, letters and digits only, words separated by one space. */
+    static String normalize(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean space = true;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int end = sb.length();
+        return space && end > 0 ? sb.substring(0, end - 1) : sb.toString();
+    }
+
+    /** Distinct three-character grams, each packed into a long, in ascending order. */
+    static long[] grams(String s) {
+        int n = Math.max(0, s.length() - 2);
+        long[] grams = new long[n];
+        for (int i = 0; i < n; i++) {
+            grams[i] = (long) s.charAt(i) << 32 | (long) s.charAt(i + 1) << 16 | s.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (distinct == 0 || grams[i] != grams[distinct - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return distinct == n ? grams : Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Fewest edits turning the pattern into some substring of the text
+     * (Sellers' variant of Levenshtein: a match may start anywhere).
+     */
+    private int substringDistance(char[] pattern, char[] text) {
+        int m = pattern.length;
+        if (row.length <= m) {
+            row = new int[m + 1];
+        }
+        for (int i = 0; i <= m; i++) {
+            row[i] = i;
+        }
+        int best = m;
+        for (char t : text) {
+            int diagonal = 0; // row[0] stays 0: the match may start at any column
+            for (int i = 1; i <= m; i++) {
+                int above = row[i];
+                int cost = pattern[i - 1] == t ? 0 : 1;
+                row[i] = Math.min(Math.min(above + 1, row[i - 1] + 1), diagonal + cost);
+                diagonal = above;
+            }
+            best = Math.min(best, row[m]);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,225 @@
+package main.java.inventory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import main.java.model.ItemRecord;
+
+/**
+ * Indexed min-heap of items ordered by headroom (quantity minus reorder level).
+ *
+ * Every stock change is applied with {@link #update(ItemRecord)} in O(log n), and the
+ * heap property lets {@link #belowReorderLevel()} visit only the items that are at or
+ * under their level instead of scanning the whole catalogue. Listeners are told when
+ * an update moves an item from above its level to at or below it.
+ */
+public class StockAlertIndex {
+
+    /** Snapshot of one item's stock position. */
+    public static class Entry {
+        private final ItemRecord item;
+        private final int reorderLevel;
+
+        Entry(ItemRecord item, int reorderLevel) {
+            this.item = item;
+            this.reorderLevel = reorderLevel;
+        }
+
+        public ItemRecord getItem() { return item; }
+        public int getReorderLevel() { return reorderLevel; }
+        public int getHeadroom() { return item.getQuantity() - reorderLevel; }
+    }
+
+    private final int defaultReorderLevel;
+    private final Map<String, Integer> reorderLevels = new HashMap<>();
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final List<StockAlertListener> listeners = new CopyOnWriteArrayList<>();
+    private ItemRecord[] items = new ItemRecord[16];
+    private int[] headroom = new int[16];
+    private int size;
+
+    public StockAlertIndex(int defaultReorderLevel) {
+        this.defaultReorderLevel = defaultReorderLevel;
+    }
+
+    public void addListener(StockAlertListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(StockAlertListener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized int getReorderLevel(String code) {
+        return reorderLevels.getOrDefault(code, defaultReorderLevel);
+    }
+
+    /** Overrides the reorder level of one item and repositions it in the heap. */
+    public synchronized void setReorderLevel(String code, int level) {
+        reorderLevels.put(code, level);
+        Integer pos = positions.get(code);
+        if (pos != null) {
+            ItemRecord item = items[pos];
+            set(pos, item, item.getQuantity() - level);
+            fix(pos);
+        }
+    }
+
+    /** Replaces the whole index without firing events, e.g. after loading the item file. */
+    public synchronized void reset(List<ItemRecord> all) {
+        positions.clear();
+        size = 0;
+        if (items.length < all.size()) {
+            items = new ItemRecord[all.size()];
+            headroom = new int[all.size()];
+        } else {
+            Arrays.fill(items, null);
+        }
+        for (ItemRecord item : all) {
+            if (positions.containsKey(item.getCode())) {
+                continue;
+            }
+            set(size, item, item.getQuantity() - getReorderLevel(item.getCode()));
+            size++;
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Inserts or updates one item. Fires {@link StockAlertListener#onLowStock} when
+     * the item was above its reorder level (or new) and now is at or below it.
+     */
+    public void update(ItemRecord item) {
+        int level;
+        boolean crossed;
+        synchronized (this) {
+            level = getReorderLevel(item.getCode());
+            int newHeadroom = item.getQuantity() - level;
+            Integer pos = positions.get(item.getCode());
+            if (pos == null) {
+                ensureCapacity(size + 1);
+                set(size, item, newHeadroom);
+                siftUp(size++);
+                crossed = newHeadroom <= 0;
+            } else {
+                crossed = headroom[pos] > 0 && newHeadroom <= 0;
+                set(pos, item, newHeadroom);
+                fix(pos);
+            }
+        }
+        if (crossed) {
+            for (StockAlertListener listener : listeners) {
+                listener.onLowStock(item, level);
+            }
+        }
+    }
+
+    public synchronized void remove(String code) {
+        Integer pos = positions.remove(code);
+        if (pos == null) {
+            return;
+        }
+        int last = --size;
+        if (pos != last) {
+            set(pos, items[last], headroom[last]);
+            fix(pos);
+        }
+        items[last] = null;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Item with the least headroom, or null when empty. */
+    public synchronized Entry lowest() {
+        return size == 0 ? null : entry(0);
+    }
+
+    /**
+     * Items at or below their reorder level, lowest headroom first. Only the part
+     * of the heap above the threshold boundary is visited.
+     */
+    public synchronized List<Entry> belowReorderLevel() {
+        List<Entry> result = new ArrayList<>();
+        collect(0, result);
+        result.sort((a, b) -> a.getHeadroom() != b.getHeadroom()
+                ? Integer.compare(a.getHeadroom(), b.getHeadroom())
+                : a.getItem().getCode().compareTo(b.getItem().getCode()));
+        return result;
+    }
+
+    private void collect(int pos, List<Entry> out) {
+        if (pos >= size || headroom[pos] > 0) {
+            return;
+        }
+        out.add(entry(pos));
+        collect(2 * pos + 1, out);
+        collect(2 * pos + 2, out);
+    }
+
+    private Entry entry(int pos) {
+        return new Entry(items[pos], items[pos].getQuantity() - headroom[pos]);
+    }
+
+    private void set(int pos, ItemRecord item, int room) {
+        items[pos] = item;
+        headroom[pos] = room;
+        positions.put(item.getCode(), pos);
+    }
+
+    private void fix(int pos) {
+        if (pos > 0 && headroom[pos] < headroom[(pos - 1) / 2]) {
+            siftUp(pos);
+        } else {
+            siftDown(pos);
+        }
+    }
+
+    private void siftUp(int pos) {
+        while (pos > 0) {
+            int parent = (pos - 1) / 2;
+            if (headroom[parent] <= headroom[pos]) {
+                break;
+            }
+            swap(pos, parent);
+            pos = parent;
+        }
+    }
+
+    private void siftDown(int pos) {
+        while (true) {
+            int left = 2 * pos + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && headroom[left + 1] < headroom[left] ? left + 1 : left;
+            if (headroom[pos] <= headroom[smallest]) {
+                return;
+            }
+            swap(pos, smallest);
+            pos = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        ItemRecord item = items[a];
+        int room = headroom[a];
+        set(a, items[b], headroom[b]);
+        set(b, item, room);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > items.length) {
+            int n = Math.max(needed, items.length * 2);
+            items = Arrays.copyOf(items, n);
+            headroom = Arrays.copyOf(headroom, n);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package main.java.inventory;
+
+import main.java.model.ItemRecord;
+
+/** Callback fired when a stock change takes an item down to or below its reorder level. */
+@FunctionalInterface
+public interface StockAlertListener {
+    /**
+     * @param item the item after the change
+     * @param reorderLevel the level that was crossed
+     */
+    void onLowStock(ItemRecord item, int reorderLevel);
+}
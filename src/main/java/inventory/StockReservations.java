@@ -0,0 +1,130 @@
+package main.java.inventory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import main.java.model.ItemRecord;
+
+/**
+ * Stock held by order lines that are being entered but are not saved yet.
+ *
+ * A till reserves each line as it is entered, under a holder key of its own.
+ * Saving the order takes the quantities out of stock and releases the holds, and
+ * cancelling just releases them. Holds a till abandons lapse once the time to
+ * live has passed since the holder's latest reservation.
+ *
+ * Reserved totals are kept per item code, so what is left to sell is the item's
+ * quantity less one map lookup. Every holder gets the same time to live, so the
+ * expiry queue stays in time order and lapsed holders are dropped from its head.
+ * Nothing here is written to disk: after a restart every hold is gone, which is
+ * what a restarted till expects.
+ */
+public class StockReservations {
+
+    /** One holder's reserved quantities by item code. */
+    private static final class Holder {
+        final Map<String, Integer> lines = new HashMap<>();
+        long expiresAt;
+    }
+
+    private static final class Expiry {
+        final long at;
+        final String holder;
+
+        Expiry(long at, String holder) {
+            this.at = at;
+            this.holder = holder;
+        }
+    }
+
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final Map<String, Integer> reserved = new HashMap<>();
+    private final Map<String, Holder> holders = new HashMap<>();
+    private final ArrayDeque<Expiry> expiries = new ArrayDeque<>();
+
+    public StockReservations(Duration ttl) {
+        this(ttl, () -> System.nanoTime() / 1_000_000L);
+    }
+
+    /** @param clock milliseconds from any fixed point, only ever compared with itself */
+    public StockReservations(Duration ttl, LongSupplier clock) {
+        this.ttlMillis = ttl.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Holds {@code quantity} of an item for a holder, if that much of it is neither
+     * sold nor held already, and renews the holder's other holds.
+     * @param item the item as read under the lock that orders sales, for its
+     *        quantity on hand; an older copy may still count units a saved
+     *        order has taken, whose holds are already gone
+     * @return false, holding nothing, when not enough is available
+     */
+    public synchronized boolean reserve(String holder, ItemRecord item, int quantity) {
+        long now = clock.getAsLong();
+        expire(now);
+        if (quantity > item.getQuantity() - reserved(item.getCode())) {
+            return false;
+        }
+        Holder h = holders.computeIfAbsent(holder, k -> new Holder());
+        h.lines.merge(item.getCode(), quantity, Integer::sum);
+        reserved.merge(item.getCode(), quantity, Integer::sum);
+        h.expiresAt = now + ttlMillis;
+        expiries.addLast(new Expiry(h.expiresAt, holder));
+        return true;
+    }
+
+    /**
+     * The item's quantity less everything held, including the caller's own holds;
+     * a till that wants its own lines counted back adds them from {@link #held}.
+     */
+    public synchronized int available(ItemRecord item) {
+        expire(clock.getAsLong());
+        return item.getQuantity() - reserved(item.getCode());
+    }
+
+    /** Quantity of an item held across all holders. */
+    public synchronized int reserved(String code) {
+        Integer total = reserved.get(code);
+        return total == null ? 0 : total;
+    }
+
+    /** What one holder holds, by item code. */
+    public synchronized Map<String, Integer> held(String holder) {
+        expire(clock.getAsLong());
+        Holder h = holders.get(holder);
+        return h == null ? Collections.emptyMap() : new HashMap<>(h.lines);
+    }
+
+    /** Drops every hold of a holder, whether its order was saved or cancelled. */
+    public synchronized void release(String holder) {
+        Holder h = holders.remove(holder);
+        if (h == null) {
+            return;
+        }
+        for (Map.Entry<String, Integer> line : h.lines.entrySet()) {
+            int left = reserved.get(line.getKey()) - line.getValue();
+            if (left == 0) {
+                reserved.remove(line.getKey());
+            } else {
+                reserved.put(line.getKey(), left);
+            }
+        }
+    }
+
+    private void expire(long now) {
+        while (!expiries.isEmpty() && expiries.peekFirst().at <= now) {
+            Expiry e = expiries.pollFirst();
+            Holder h = holders.get(e.holder);
+            // a holder that reserved again since has a later entry further back
+            if (h != null && h.expiresAt <= now) {
+                release(e.holder);
+            }
+        }
+    }
+}
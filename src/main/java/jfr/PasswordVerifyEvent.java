@@ -0,0 +1,29 @@
+package main.java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for one password check, with the format of the stored
+ * password it was checked against. Neither password is recorded.
+ */
+@Name("pharmacy.PasswordVerify")
+@Label("Password Verify")
+@Category({"Pharmacy", "Security"})
+@Description("A password checked against a stored salted hash, legacy hash or plain text")
+@StackTrace(false)
+public final class PasswordVerifyEvent extends Event {
+    @Label("Stored Format")
+    @Description("salted, marked, hex, plain or none")
+    private String format;
+
+    @Label("Matched")
+    private boolean matched;
+
+    public void setFormat(String format) { this.format = format; }
+    public void setMatched(boolean matched) { this.matched = matched; }
+}
@@ -0,0 +1,51 @@
+package main.java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Flight Recorder event for paying for an order at the till. The duration is
+ * the time taken to save the transaction, which also shows up as a nested
+ * {@link RepositoryEvent}; pricing the order and the cashier's answers to the
+ * payment prompts come before it and are recorded in fields of their own, so a
+ * slow typist never looks like a slow save.
+ */
+@Name("pharmacy.Payment")
+@Label("Payment")
+@Category({"Pharmacy", "Till"})
+@Description("An order priced, paid for and saved")
+@StackTrace(false)
+public final class PaymentEvent extends Event {
+    @Label("Order Number")
+    private String orderNumber;
+
+    @Label("Method")
+    private String method;
+
+    @Label("Amount (sen)")
+    private long amountSen;
+
+    @Label("Pricing Time")
+    @Timespan
+    private long pricingNanos;
+
+    @Label("Prompt Time")
+    @Description("Time spent waiting for the payment method and details to be entered")
+    @Timespan
+    private long promptNanos;
+
+    @Label("Saved")
+    private boolean saved;
+
+    public void setOrderNumber(String orderNumber) { this.orderNumber = orderNumber; }
+    public void setMethod(String method) { this.method = method; }
+    public void setAmountSen(long amountSen) { this.amountSen = amountSen; }
+    public void setPricingNanos(long pricingNanos) { this.pricingNanos = pricingNanos; }
+    public void setPromptNanos(long promptNanos) { this.promptNanos = promptNanos; }
+    public void setSaved(boolean saved) { this.saved = saved; }
+}
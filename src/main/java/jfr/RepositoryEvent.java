@@ -0,0 +1,111 @@
+package main.java.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for one call of a repository method, with the record
+ * key it was given and how much of the data file it read and wrote.
+ *
+ * Rows and bytes are counted by the repositories' readers and writers on the
+ * thread running the call. A call made inside another one (an add that first
+ * looks the key up, an update that reloads the indexes) is recorded as its own
+ * event and its counts are added to the outer call's as well.
+ *
+ * Nothing is counted while the event is disabled, which is the default outside
+ * a recording; see {@code scripts/pharmacy.jfc}.
+ */
+@Name("pharmacy.Repository")
+@Label("Repository Operation")
+@Category({"Pharmacy", "Storage"})
+@Description("A repository method call with the rows and bytes of the data file it touched")
+@StackTrace(false)
+public final class RepositoryEvent extends Event {
+    /** Returned while the event is disabled; also asked whether it is, as that is per event type. */
+    private static final RepositoryEvent DISABLED = new RepositoryEvent();
+    private static final ThreadLocal<RepositoryEvent> CURRENT = new ThreadLocal<>();
+
+    @Label("Repository")
+    private Class<?> repository;
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Key")
+    @Description("Item code, order number or staff ID the call was given, if any")
+    private String key;
+
+    @Label("Rows Scanned")
+    @Description("Lines read from the data file")
+    private long rowsScanned;
+
+    @Label("Rows Written")
+    private long rowsWritten;
+
+    @Label("Bytes Read")
+    @DataAmount
+    private long bytesRead;
+
+    @Label("Bytes Written")
+    @DataAmount
+    private long bytesWritten;
+
+    private transient RepositoryEvent outer;
+
+    /**
+     * Starts timing a repository call on this thread. Every call must be paired
+     * with {@link #finish()} in a finally block.
+     * @param key record key the call was given, or null
+     */
+    public static RepositoryEvent start(Class<?> repository, String operation, String key) {
+        if (!DISABLED.isEnabled()) {
+            return DISABLED;
+        }
+        RepositoryEvent event = new RepositoryEvent();
+        event.repository = repository;
+        event.operation = operation;
+        event.key = key;
+        event.outer = CURRENT.get();
+        CURRENT.set(event);
+        event.begin();
+        return event;
+    }
+
+    /** Stops timing and records the call if it took at least the configured threshold. */
+    public void finish() {
+        if (this == DISABLED) {
+            return;
+        }
+        CURRENT.set(outer);
+        if (outer != null) {
+            outer.rowsScanned += rowsScanned;
+            outer.rowsWritten += rowsWritten;
+            outer.bytesRead += bytesRead;
+            outer.bytesWritten += bytesWritten;
+        }
+        commit();
+    }
+
+    /** Counts a line read by the current repository call, if one is being recorded. */
+    public static void lineRead(int bytes) {
+        RepositoryEvent event = CURRENT.get();
+        if (event != null) {
+            event.rowsScanned++;
+            event.bytesRead += bytes;
+        }
+    }
+
+    /** Counts a line written by the current repository call, if one is being recorded. */
+    public static void lineWritten(int bytes) {
+        RepositoryEvent event = CURRENT.get();
+        if (event != null) {
+            event.rowsWritten++;
+            event.bytesWritten += bytes;
+        }
+    }
+}
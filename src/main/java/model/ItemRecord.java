@@ -1,4 +1,6 @@
 package main.java.model;
+import main.java.util.Money;
+
 public class ItemRecord {
     public enum Type { MEDICINE, SUPPLEMENT }
 
@@ -9,8 +11,14 @@ public class ItemRecord {
     private final Type type;
     private final String extra1; // ForDisease or Function
     private final int extra2;    // amountDayTake or expireDate
+    private final long version;  // bumped by the repository on every write
 
     public ItemRecord(String code, String description, double price, int quantity, Type type, String extra1, int extra2) {
+        this(code, description, price, quantity, type, extra1, extra2, 0L);
+    }
+
+    public ItemRecord(String code, String description, double price, int quantity, Type type, String extra1, int extra2,
+                      long version) {
         this.code = code;
         this.description = description;
         this.price = price;
@@ -18,14 +26,27 @@ public class ItemRecord {
         this.type = type;
         this.extra1 = extra1;
         this.extra2 = extra2;
+        this.version = version;
     }
 
     public String getCode() { return code; }
     public String getDescription() { return description; }
     public double getPrice() { return price; }
+    public long getPriceSen() { return Money.ofDouble(price); }
     public int getQuantity() { return quantity; }
     public Type getType() { return type; }
     public String getExtra1() { return extra1; }
     public int getExtra2() { return extra2; }
+    public long getVersion() { return version; }
+
+    /** The same item, at the same version, with a different quantity. */
+    public ItemRecord withQuantity(int quantity) {
+        return new ItemRecord(code, description, price, quantity, type, extra1, extra2, version);
+    }
+
+    /** The same item stamped with another version. */
+    public ItemRecord withVersion(long version) {
+        return new ItemRecord(code, description, price, quantity, type, extra1, extra2, version);
+    }
 }
 
@@ -1,13 +1,25 @@
 package main.java.model;
+import main.java.util.Money;
+
 public class OrderLine {
     private final String itemCode;
     private final int quantity;
-    private final double subtotal;
+    private final long subtotalSen;
 
     public OrderLine(String itemCode, int quantity, double subtotal) {
+        this(itemCode, quantity, Money.ofDouble(subtotal));
+    }
+
+    // private so callers outside never confuse a sen amount with ringgit
+    private OrderLine(String itemCode, int quantity, long subtotalSen) {
         this.itemCode = itemCode;
         this.quantity = quantity;
-        this.subtotal = subtotal;
+        this.subtotalSen = subtotalSen;
+    }
+
+    /** Creates a line from a subtotal already in sen, see {@link Money}. */
+    public static OrderLine ofSen(String itemCode, int quantity, long subtotalSen) {
+        return new OrderLine(itemCode, quantity, subtotalSen);
     }
 
     public String getItemCode() {
@@ -19,7 +31,11 @@ public class OrderLine {
     }
 
     public double getSubtotal() {
-        return subtotal;
+        return Money.toDouble(subtotalSen);
+    }
+
+    public long getSubtotalSen() {
+        return subtotalSen;
     }
 }
 
@@ -1,17 +1,37 @@
 package main.java.model;
 import java.util.List;
+import main.java.util.Money;
 
 public class OrderRecord {
     private final String orderNumber;
     private final String date;
     private final List<OrderLine> lines;
-    private final double total;
+    private final long totalSen;
 
     public OrderRecord(String orderNumber, String date, List<OrderLine> lines, double total) {
+        this(orderNumber, date, lines, Money.ofDouble(total));
+    }
+
+    // private so callers outside never confuse a sen amount with ringgit
+    private OrderRecord(String orderNumber, String date, List<OrderLine> lines, long totalSen) {
         this.orderNumber = orderNumber;
         this.date = date;
         this.lines = lines;
-        this.total = total;
+        this.totalSen = totalSen;
+    }
+
+    /** Creates a record from a total already in sen, see {@link Money}. */
+    public static OrderRecord ofSen(String orderNumber, String date, List<OrderLine> lines, long totalSen) {
+        return new OrderRecord(orderNumber, date, lines, totalSen);
+    }
+
+    /** Sum of the lines' subtotals in sen. */
+    public static long sumSen(List<OrderLine> lines) {
+        long total = Money.ZERO;
+        for (OrderLine line : lines) {
+            total = Math.addExact(total, line.getSubtotalSen());
+        }
+        return total;
     }
 
     public String getOrderNumber() {
@@ -27,7 +47,11 @@ public class OrderRecord {
     }
 
     public double getTotal() {
-        return total;
+        return Money.toDouble(totalSen);
+    }
+
+    public long getTotalSen() {
+        return totalSen;
     }
 }
 
@@ -1,37 +1,56 @@
 package main.java.model;
+import main.java.util.Money;
 
 public class TransactionRecord {
     public enum Method { CASH, BANK, EWALLET }
 
     private final String orderNumber;
-    private final double totalPrice;
+    private final long totalPriceSen;
     private final double discountPercent;
-    private final double discountAmount;
+    private final long discountAmountSen;
     private final double taxPercent;
-    private final double finalPrice;
+    private final long finalPriceSen;
     private final Method method;
     private final String field1; // cash: payAmount / bank: bankName / ewallet: name
     private final String field2; // cash: change / bank: account / ewallet: phone
 
     public TransactionRecord(String orderNumber, double totalPrice, double discountPercent, double discountAmount,
                              double taxPercent, double finalPrice, Method method, String field1, String field2) {
+        this(orderNumber, Money.ofDouble(totalPrice), discountPercent, Money.ofDouble(discountAmount), taxPercent,
+                Money.ofDouble(finalPrice), method, field1, field2);
+    }
+
+    // private so callers outside never confuse a sen amount with ringgit
+    private TransactionRecord(String orderNumber, long totalPriceSen, double discountPercent, long discountAmountSen,
+                              double taxPercent, long finalPriceSen, Method method, String field1, String field2) {
         this.orderNumber = orderNumber;
-        this.totalPrice = totalPrice;
+        this.totalPriceSen = totalPriceSen;
         this.discountPercent = discountPercent;
-        this.discountAmount = discountAmount;
+        this.discountAmountSen = discountAmountSen;
         this.taxPercent = taxPercent;
-        this.finalPrice = finalPrice;
+        this.finalPriceSen = finalPriceSen;
         this.method = method;
         this.field1 = field1;
         this.field2 = field2;
     }
 
+    /** Creates a record from prices already in sen, see {@link Money}. Percentages stay plain percents. */
+    public static TransactionRecord ofSen(String orderNumber, long totalPriceSen, double discountPercent,
+                                          long discountAmountSen, double taxPercent, long finalPriceSen,
+                                          Method method, String field1, String field2) {
+        return new TransactionRecord(orderNumber, totalPriceSen, discountPercent, discountAmountSen, taxPercent,
+                finalPriceSen, method, field1, field2);
+    }
+
     public String getOrderNumber() { return orderNumber; }
-    public double getTotalPrice() { return totalPrice; }
+    public double getTotalPrice() { return Money.toDouble(totalPriceSen); }
     public double getDiscountPercent() { return discountPercent; }
-    public double getDiscountAmount() { return discountAmount; }
+    public double getDiscountAmount() { return Money.toDouble(discountAmountSen); }
     public double getTaxPercent() { return taxPercent; }
-    public double getFinalPrice() { return finalPrice; }
+    public double getFinalPrice() { return Money.toDouble(finalPriceSen); }
+    public long getTotalPriceSen() { return totalPriceSen; }
+    public long getDiscountAmountSen() { return discountAmountSen; }
+    public long getFinalPriceSen() { return finalPriceSen; }
     public Method getMethod() { return method; }
     public String getField1() { return field1; }
     public String getField2() { return field2; }
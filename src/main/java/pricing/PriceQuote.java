@@ -0,0 +1,61 @@
+package main.java.pricing;
+
+import main.java.util.Money;
+
+/**
+ * What an order costs under the current pricing rules. Amounts are in sen,
+ * see {@link Money}; rates are in basis points.
+ */
+public class PriceQuote {
+    private final String orderNumber;
+    private final long totalSen;
+    private final long promotionSen;
+    private final long discountBp;
+    private final long discountSen;
+    private final long taxBp;
+    private final long taxSen;
+    private final long finalSen;
+
+    PriceQuote(String orderNumber, long totalSen, long promotionSen, long discountBp, long discountSen,
+               long taxBp, long taxSen, long finalSen) {
+        this.orderNumber = orderNumber;
+        this.totalSen = totalSen;
+        this.promotionSen = promotionSen;
+        this.discountBp = discountBp;
+        this.discountSen = discountSen;
+        this.taxBp = taxBp;
+        this.taxSen = taxSen;
+        this.finalSen = finalSen;
+    }
+
+    public String getOrderNumber() { return orderNumber; }
+
+    /** The order total before promotions and discounts. */
+    public long getTotalSen() { return totalSen; }
+
+    /** Taken off by item promotions. */
+    public long getPromotionSen() { return promotionSen; }
+
+    /** Taken off by the discount tier. */
+    public long getTierDiscountSen() { return discountSen; }
+
+    /** Promotions and tier discount together, i.e. what a transaction records as its discount. */
+    public long getDiscountSen() { return promotionSen + discountSen; }
+
+    public long getNetSen() { return totalSen - getDiscountSen(); }
+    public long getTaxSen() { return taxSen; }
+    public long getFinalSen() { return finalSen; }
+
+    /** Tier discount rate, e.g. {@code 10.0}. */
+    public double getDiscountPercent() {
+        return discountBp / (double) Money.ONE_PERCENT;
+    }
+
+    /**
+     * Tax rate, e.g. {@code 6.0}. When lines of different types are taxed at
+     * different rates this is the blended rate over the discounted amount.
+     */
+    public double getTaxPercent() {
+        return taxBp / (double) Money.ONE_PERCENT;
+    }
+}
@@ -0,0 +1,335 @@
+package main.java.pricing;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import main.java.branch.Branch;
+import main.java.config.FilePaths;
+import main.java.config.ItemCodePrefix;
+import main.java.model.ItemRecord;
+import main.java.model.OrderLine;
+import main.java.model.OrderRecord;
+import main.java.util.Money;
+
+/**
+ * Prices orders from a rule table instead of hard-coded rates.
+ *
+ * The rules come from {@code pricing.txt}, one {@code ||}-delimited rule per line:
+ * <pre>
+ * DISCOUNT||150.00||10                  orders of at least RM150 get 10% off
+ * TAX||MEDICINE||6                      per item type; DEFAULT covers amounts not tied to a line
+ * PROMO||S0005||20||2025-01-01||2025-01-31  20% off an item for orders dated in that range
+ * </pre>
+ * Blank lines and lines starting with {@code #} are ignored. When the file is absent
+ * the built-in rules apply: 10% from RM150, 5% from RM100 and 6% tax on everything.
+ *
+ * Loading compiles the tiers into a sorted threshold array searched with a binary
+ * search, and the tax rates into an array indexed by item type, so pricing an order
+ * is a handful of array lookups and integer operations.
+ */
+public class PricingEngine {
+    private static final int TYPE_COUNT = ItemRecord.Type.values().length;
+    private static final long DEFAULT_TAX_BP = 6 * Money.ONE_PERCENT;
+
+    private final long[] thresholdSen;
+    private final long[] discountBp;
+    private final long[] taxBp;
+    private final long defaultTaxBp;
+    private final Map<String, Promotion[]> promotions;
+
+    /** Percent off one item for orders dated within a day range (yyyyMMdd, inclusive). */
+    private static final class Promotion {
+        final long bp;
+        final int fromDay;
+        final int toDay;
+
+        Promotion(long bp, int fromDay, int toDay) {
+            this.bp = bp;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+        }
+    }
+
+    private PricingEngine(long[] thresholdSen, long[] discountBp, long[] taxBp, long defaultTaxBp,
+                          Map<String, Promotion[]> promotions) {
+        this.thresholdSen = thresholdSen;
+        this.discountBp = discountBp;
+        this.taxBp = taxBp;
+        this.defaultTaxBp = defaultTaxBp;
+        this.promotions = promotions;
+    }
+
+    /** The built-in rules the till used before pricing became configurable. */
+    public static PricingEngine defaults() {
+        long[] tax = new long[TYPE_COUNT];
+        Arrays.fill(tax, DEFAULT_TAX_BP);
+        return new PricingEngine(new long[] {10000, 15000},
+                new long[] {5 * Money.ONE_PERCENT, 10 * Money.ONE_PERCENT}, tax, DEFAULT_TAX_BP, new HashMap<>());
+    }
+
+    /** Reads {@code pricing.txt} from the default branch. */
+    public static PricingEngine load() throws IOException {
+        return load(Branch.DEFAULT.file(FilePaths.PRICING));
+    }
+
+    /**
+     * Compiles a rule file. Kinds of rule the file leaves out keep their built-in values.
+     * @throws IOException when the file cannot be read or a rule is malformed
+     */
+    public static PricingEngine load(File config) throws IOException {
+        if (!config.exists()) {
+            return defaults();
+        }
+        List<long[]> tiers = new ArrayList<>();
+        long[] tax = null;
+        long defaultTax = -1;
+        Map<String, List<Promotion>> promos = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(config))) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] p = line.split("\\|\\|");
+                try {
+                    switch (p[0].trim().toUpperCase()) {
+                        case "DISCOUNT":
+                            expectFields(p, 3);
+                            tiers.add(new long[] {Money.parse(p[1].trim()), percent(p[2])});
+                            break;
+                        case "TAX":
+                            expectFields(p, 3);
+                            String type = p[1].trim().toUpperCase();
+                            if (type.equals("DEFAULT")) {
+                                defaultTax = percent(p[2]);
+                            } else {
+                                if (tax == null) {
+                                    tax = new long[TYPE_COUNT];
+                                    Arrays.fill(tax, -1);
+                                }
+                                tax[ItemRecord.Type.valueOf(type).ordinal()] = percent(p[2]);
+                            }
+                            break;
+                        case "PROMO":
+                            expectFields(p, 5);
+                            int from = day(p[3]);
+                            int to = day(p[4]);
+                            if (to < from) {
+                                throw new IllegalArgumentException("promotion ends before it starts");
+                            }
+                            promos.computeIfAbsent(p[1].trim(), k -> new ArrayList<>())
+                                    .add(new Promotion(percent(p[2]), from, to));
+                            break;
+                        default:
+                            throw new IllegalArgumentException("unknown rule " + p[0]);
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Invalid pricing rule at " + config + ":" + lineNo + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return compile(tiers, tax, defaultTax, promos);
+    }
+
+    private static PricingEngine compile(List<long[]> tiers, long[] tax, long defaultTax,
+                                         Map<String, List<Promotion>> promos) throws IOException {
+        PricingEngine builtIn = defaults();
+        long[] thresholds = builtIn.thresholdSen;
+        long[] rates = builtIn.discountBp;
+        if (!tiers.isEmpty()) {
+            tiers.sort((a, b) -> Long.compare(a[0], b[0]));
+            thresholds = new long[tiers.size()];
+            rates = new long[tiers.size()];
+            for (int i = 0; i < thresholds.length; i++) {
+                thresholds[i] = tiers.get(i)[0];
+                rates[i] = tiers.get(i)[1];
+                if (i > 0 && thresholds[i] == thresholds[i - 1]) {
+                    throw new IOException("Duplicate discount tier at " + Money.format(thresholds[i]));
+                }
+            }
+        }
+        if (defaultTax < 0) {
+            defaultTax = DEFAULT_TAX_BP;
+        }
+        long[] taxRates = new long[TYPE_COUNT];
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            taxRates[i] = tax == null || tax[i] < 0 ? defaultTax : tax[i];
+        }
+        Map<String, Promotion[]> promotions = new HashMap<>();
+        for (Map.Entry<String, List<Promotion>> e : promos.entrySet()) {
+            promotions.put(e.getKey(), e.getValue().toArray(new Promotion[0]));
+        }
+        return new PricingEngine(thresholds, rates, taxRates, defaultTax, promotions);
+    }
+
+    /** Discount rate in basis points for an order total; the highest tier reached wins. */
+    public long discountBasisPoints(long totalSen) {
+        int i = Arrays.binarySearch(thresholdSen, totalSen);
+        if (i < 0) {
+            i = -i - 2; // the tier below the insertion point
+        }
+        return i < 0 ? 0 : discountBp[i];
+    }
+
+    public long taxBasisPoints(ItemRecord.Type type) {
+        return taxBp[type.ordinal()];
+    }
+
+    /**
+     * Prices one order: item promotions first, then the discount tier reached by
+     * what is left, then tax on the discounted lines at their item type's rate.
+     * Lines taxed at the same rate are added up and rounded once, so an order
+     * whose types share one rate is taxed exactly as a single amount would be.
+     */
+    public PriceQuote price(OrderRecord order) {
+        int day = day(order.getDate(), 0);
+        long promotion = 0;
+        long[] typeBase = new long[TYPE_COUNT];
+        for (OrderLine line : order.getLines()) {
+            long amount = line.getSubtotalSen();
+            long off = promotionBasisPoints(line.getItemCode(), day);
+            if (off != 0) {
+                long cut = Money.percentOf(amount, off);
+                promotion += cut;
+                amount -= cut;
+            }
+            int type = typeOf(line.getItemCode());
+            if (type >= 0) {
+                typeBase[type] += amount;
+            }
+        }
+        long total = order.getTotalSen() - promotion;
+        long bp = discountBasisPoints(total);
+        long discount = Money.percentOf(total, bp);
+        long net = total - discount;
+
+        // discounted amount per distinct tax rate, the last slot being spare for the default rate
+        long[] rateBp = new long[TYPE_COUNT + 1];
+        long[] rateBase = new long[TYPE_COUNT + 1];
+        int rateCount = 0;
+        for (int t = 0; t < TYPE_COUNT; t++) {
+            if (typeBase[t] != 0) {
+                int r = slot(rateBp, rateCount, taxBp[t]);
+                rateCount = Math.max(rateCount, r + 1);
+                rateBase[r] += typeBase[t];
+            }
+        }
+        long taxedNet = 0;
+        for (int r = 0; r < rateCount; r++) {
+            rateBase[r] -= Money.percentOf(rateBase[r], bp);
+            taxedNet += rateBase[r];
+        }
+        // whatever the lines do not account for, e.g. an order saved without lines
+        long rest = net - taxedNet;
+        if (rest != 0 || rateCount == 0) {
+            int r = slot(rateBp, rateCount, defaultTaxBp);
+            rateCount = Math.max(rateCount, r + 1);
+            rateBase[r] += rest;
+        }
+        long tax = 0;
+        for (int r = 0; r < rateCount; r++) {
+            tax += Money.percentOf(rateBase[r], rateBp[r]);
+        }
+        long taxRate = rateCount == 1 || net == 0 ? rateBp[0] : Math.round(tax * 100.0 * Money.ONE_PERCENT / net);
+        return new PriceQuote(order.getOrderNumber(), order.getTotalSen(), promotion, bp, discount,
+                taxRate, tax, net + tax);
+    }
+
+    /** Prices a batch of orders, e.g. when replaying or repricing history. */
+    public List<PriceQuote> price(List<OrderRecord> orders) {
+        List<PriceQuote> quotes = new ArrayList<>(orders.size());
+        for (OrderRecord order : orders) {
+            quotes.add(price(order));
+        }
+        return quotes;
+    }
+
+    /** Index of a rate among the first {@code count} in the array, adding it at the end if new. */
+    private static int slot(long[] rates, int count, long rate) {
+        for (int i = 0; i < count; i++) {
+            if (rates[i] == rate) {
+                return i;
+            }
+        }
+        rates[count] = rate;
+        return count;
+    }
+
+    private long promotionBasisPoints(String code, int day) {
+        if (promotions.isEmpty()) {
+            return 0;
+        }
+        Promotion[] list = promotions.get(code);
+        if (list == null) {
+            return 0;
+        }
+        long best = 0;
+        for (Promotion p : list) {
+            if (day >= p.fromDay && day <= p.toDay && p.bp > best) {
+                best = p.bp;
+            }
+        }
+        return best;
+    }
+
+    private static int typeOf(String code) {
+        if (code.startsWith(ItemCodePrefix.MEDICINE)) {
+            return ItemRecord.Type.MEDICINE.ordinal();
+        }
+        if (code.startsWith(ItemCodePrefix.SUPPLEMENT)) {
+            return ItemRecord.Type.SUPPLEMENT.ordinal();
+        }
+        return -1;
+    }
+
+    private static void expectFields(String[] p, int n) {
+        if (p.length < n) {
+            throw new IllegalArgumentException("expected " + n + " fields");
+        }
+    }
+
+    private static long percent(String text) {
+        double value = Double.parseDouble(text.trim());
+        if (value < 0 || value > 100) {
+            throw new IllegalArgumentException("percentage out of range: " + text.trim());
+        }
+        return Money.basisPoints(value);
+    }
+
+    private static int day(String text) {
+        int day = day(text.trim(), -1);
+        if (day < 0) {
+            throw new IllegalArgumentException("expected yyyy-MM-dd: " + text.trim());
+        }
+        return day;
+    }
+
+    /** Reads the yyyy-MM-dd prefix of a date as yyyyMMdd without allocating. */
+    private static int day(String date, int fallback) {
+        if (date == null || date.length() < 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return fallback;
+        }
+        int value = 0;
+        for (int i = 0; i < 10; i++) {
+            if (i == 4 || i == 7) {
+                continue;
+            }
+            int d = date.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return fallback;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,55 @@
+package main.java.repository;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Length and modification time of a data file at a point in time.
+ * Derived structures (indexes, caches) record the stamp of the file they were
+ * built from and compare it with the current one to detect outside edits.
+ */
+public final class FileStamp {
+    public static final FileStamp MISSING = new FileStamp(-1L, 0L);
+
+    private final long length;
+    private final long modified;
+
+    public FileStamp(long length, long modified) {
+        this.length = length;
+        this.modified = modified;
+    }
+
+    /**
+     * Reads the current stamp of a file.
+     * @param file file to inspect
+     * @return stamp of the file, or {@link #MISSING} when it does not exist
+     */
+    public static FileStamp of(File file) {
+        if (!file.exists()) {
+            return MISSING;
+        }
+        try {
+            long modified = Files.getLastModifiedTime(file.toPath()).to(TimeUnit.NANOSECONDS);
+            return new FileStamp(file.length(), modified);
+        } catch (IOException e) {
+            return new FileStamp(file.length(), file.lastModified());
+        }
+    }
+
+    public long getLength() { return length; }
+    public long getModified() { return modified; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FileStamp)) return false;
+        FileStamp other = (FileStamp) o;
+        return length == other.length && modified == other.modified;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(length) * 31 + Long.hashCode(modified);
+    }
+}
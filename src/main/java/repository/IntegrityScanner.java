@@ -0,0 +1,408 @@
+package main.java.repository;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import main.java.branch.Branch;
+import main.java.config.FilePaths;
+import main.java.util.RecordChecksum;
+
+/**
+ * Checks every line of a branch's four data files on all cores.
+ *
+ * Each file is cut into newline-aligned ranges that are memory-mapped and checked
+ * in parallel: the line's checksum when it has one, then whether the repository
+ * that owns the file can read it. Lines without a checksum that read fine are
+ * counted as legacy.
+ *
+ * In salvage mode the bad lines are appended to {@code <file>.quarantine}, with
+ * where they were and what was wrong, and the file is rewritten without them, so
+ * later scans read only clean records. The quarantine is on disk before the data
+ * file is replaced, and a file that changed while it was being checked is left
+ * alone. Run salvage with the tills stopped:
+ *
+ *   java main.java.repository.IntegrityScanner [data directory] [--salvage]
+ */
+public class IntegrityScanner {
+    public static final String QUARANTINE_EXTENSION = ".quarantine";
+    static final long MIN_RANGE_BYTES = 1L << 20;
+    static final int MAX_SAMPLES = 100;
+
+    public enum Problem { CHECKSUM, MALFORMED }
+
+    /** The data files and the parser of the repository that owns each. */
+    private enum DataFile {
+        ITEMS(FilePaths.ITEM, ItemRepository::parse),
+        STAFF(FilePaths.STAFF, StaffRepository::parseStaffLine),
+        ORDERS(FilePaths.ORDER, OrderRepository::parse),
+        TRANSACTIONS(FilePaths.TRANSACTION, TransactionRepository::parse);
+
+        final String name;
+        final Function<String, Object> parser;
+
+        DataFile(String name, Function<String, Object> parser) {
+            this.name = name;
+            this.parser = parser;
+        }
+    }
+
+    /** A line that failed, by the byte offset it starts at. */
+    public static final class BadRecord {
+        private final long offset;
+        private final Problem problem;
+        private final String line;
+
+        BadRecord(long offset, Problem problem, String line) {
+            this.offset = offset;
+            this.problem = problem;
+            this.line = line;
+        }
+
+        public long getOffset() { return offset; }
+        public Problem getProblem() { return problem; }
+        public String getLine() { return line; }
+    }
+
+    /** Outcome for one file. */
+    public static final class FileReport {
+        private final String name;
+        private final long bytes;
+        private long lines;
+        private long checked;
+        private long legacy;
+        private final List<BadRecord> bad = new ArrayList<>();
+        private boolean quarantined;
+        private boolean changed;
+
+        FileReport(String name, long bytes) {
+            this.name = name;
+            this.bytes = bytes;
+        }
+
+        public String getName() { return name; }
+        public long getBytes() { return bytes; }
+        /** Non-blank lines. */
+        public long getLines() { return lines; }
+        /** Lines whose checksum matched and that read fine. */
+        public long getChecked() { return checked; }
+        /** Lines without a checksum that read fine. */
+        public long getLegacy() { return legacy; }
+        /** Lines that failed, in file order. */
+        public List<BadRecord> getBad() { return bad; }
+        /** True when salvage moved the bad lines out of the file. */
+        public boolean isQuarantined() { return quarantined; }
+        /** True when salvage found the file changed since it was checked and left it alone. */
+        public boolean isChanged() { return changed; }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format("%s: %d lines, %d checked, %d legacy, %d bad",
+                    name, lines, checked, legacy, bad.size()));
+            if (quarantined) sb.append(", quarantined");
+            if (changed) sb.append(", changed during the scan so not salvaged");
+            for (int i = 0; i < Math.min(bad.size(), MAX_SAMPLES); i++) {
+                BadRecord r = bad.get(i);
+                sb.append(System.lineSeparator()).append("  byte ").append(r.offset).append(' ')
+                        .append(r.problem).append(": ").append(r.line);
+            }
+            return sb.toString();
+        }
+    }
+
+    /** Outcome for a whole branch. */
+    public static final class Report {
+        private final List<FileReport> files;
+        private final long nanos;
+
+        Report(List<FileReport> files, long nanos) {
+            this.files = files;
+            this.nanos = nanos;
+        }
+
+        public List<FileReport> getFiles() { return files; }
+        public long getNanos() { return nanos; }
+
+        public FileReport getFile(String name) {
+            for (FileReport f : files) {
+                if (f.name.equals(name)) return f;
+            }
+            return null;
+        }
+
+        public boolean isClean() {
+            for (FileReport f : files) {
+                if (!f.bad.isEmpty()) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            long bytes = 0;
+            StringBuilder sb = new StringBuilder();
+            for (FileReport f : files) {
+                sb.append(f).append(System.lineSeparator());
+                bytes += f.bytes;
+            }
+            return sb.append(String.format("%d bytes in %.1f ms (%.0f MB/s)", bytes, nanos / 1e6,
+                    nanos == 0 ? 0.0 : bytes * 1e3 / nanos)).toString();
+        }
+    }
+
+    /** One range's counts and failures. */
+    private static final class Partial {
+        long lines;
+        long checked;
+        long legacy;
+        final List<BadRecord> bad = new ArrayList<>();
+    }
+
+    private final Branch branch;
+    private final int threads;
+
+    public IntegrityScanner(Branch branch) {
+        this(branch, Runtime.getRuntime().availableProcessors());
+    }
+
+    public IntegrityScanner(Branch branch, int threads) {
+        this.branch = branch;
+        this.threads = Math.max(1, threads);
+    }
+
+    /** Checks the files without changing anything. */
+    public Report scan() throws IOException {
+        return run(false);
+    }
+
+    /** Checks the files and moves bad lines into each file's quarantine. */
+    public Report salvage() throws IOException {
+        return run(true);
+    }
+
+    private Report run(boolean salvage) throws IOException {
+        long start = System.nanoTime();
+        List<FileReport> reports = new ArrayList<>();
+        List<FileStamp> stamps = new ArrayList<>();
+        List<List<Future<Partial>>> results = new ArrayList<>();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        List<FileChannel> channels = new ArrayList<>();
+        try {
+            for (DataFile data : DataFile.values()) {
+                File file = branch.file(data.name);
+                if (!file.isFile()) {
+                    continue;
+                }
+                stamps.add(FileStamp.of(file));
+                FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                channels.add(channel);
+                long size = channel.size();
+                reports.add(new FileReport(data.name, size));
+                List<Future<Partial>> ranges = new ArrayList<>();
+                long[] bounds = ranges(channel, size);
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    long from = bounds[i];
+                    long to = bounds[i + 1];
+                    ranges.add(workers.submit((Callable<Partial>) () -> check(channel, from, to, data.parser)));
+                }
+                results.add(ranges);
+            }
+            for (int f = 0; f < reports.size(); f++) {
+                FileReport report = reports.get(f);
+                for (Future<Partial> future : results.get(f)) {
+                    Partial p = future.get();
+                    report.lines += p.lines;
+                    report.checked += p.checked;
+                    report.legacy += p.legacy;
+                    report.bad.addAll(p.bad);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Integrity scan interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Integrity scan failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+            for (FileChannel channel : channels) {
+                channel.close();
+            }
+        }
+
+        if (salvage) {
+            for (int f = 0; f < reports.size(); f++) {
+                FileReport report = reports.get(f);
+                if (!report.bad.isEmpty()) {
+                    quarantine(branch.file(report.name), stamps.get(f), report);
+                }
+            }
+        }
+        return new Report(reports, System.nanoTime() - start);
+    }
+
+    /** Splits a file into ranges that each start at the beginning of a line. */
+    private long[] ranges(FileChannel channel, long size) throws IOException {
+        int parts = (int) Math.max(1, Math.min(threads, size / MIN_RANGE_BYTES));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (int i = 1; i < parts; i++) {
+            long pos = Math.max(size * i / parts, bounds.get(bounds.size() - 1));
+            boolean found = false;
+            while (!found && pos < size) {
+                probe.clear();
+                int n = channel.read(probe, pos);
+                if (n <= 0) break;
+                for (int j = 0; j < n && !found; j++) {
+                    if (probe.get(j) == '\n') {
+                        pos += j + 1;
+                        found = true;
+                    }
+                }
+                if (!found) pos += n;
+            }
+            if (pos < size && pos > bounds.get(bounds.size() - 1)) {
+                bounds.add(pos);
+            }
+        }
+        bounds.add(size);
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    private static Partial check(FileChannel channel, long from, long to, Function<String, Object> parser)
+            throws IOException {
+        Partial partial = new Partial();
+        if (to <= from) {
+            return partial;
+        }
+        ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        Charset charset = Charset.defaultCharset();
+        byte[] bytes = new byte[256];
+        int limit = buf.limit();
+        int lineStart = 0;
+        for (int i = 0; i <= limit; i++) {
+            if (i < limit && buf.get(i) != '\n') {
+                continue;
+            }
+            int end = i > lineStart && buf.get(i - 1) == '\r' ? i - 1 : i;
+            if (end > lineStart) {
+                partial.lines++;
+                int recordEnd = RecordChecksum.verify(buf, lineStart, end);
+                if (bytes.length < end - lineStart) {
+                    bytes = new byte[end - lineStart];
+                }
+                buf.get(lineStart, bytes, 0, end - lineStart);
+                String line = new String(bytes, 0, end - lineStart, charset);
+                if (recordEnd < 0) {
+                    partial.bad.add(new BadRecord(from + lineStart, Problem.CHECKSUM, line));
+                } else if (readable(parser, line)) {
+                    if (recordEnd < end) partial.checked++; else partial.legacy++;
+                } else {
+                    partial.bad.add(new BadRecord(from + lineStart, Problem.MALFORMED, line));
+                }
+            }
+            lineStart = i + 1;
+        }
+        return partial;
+    }
+
+    private static boolean readable(Function<String, Object> parser, String line) {
+        try {
+            return parser.apply(line) != null;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Appends the bad lines to the quarantine, then replaces the file with a copy
+     * that leaves them out, provided the file is still as it was when checked.
+     */
+    private static void quarantine(File file, FileStamp scanned, FileReport report) throws IOException {
+        if (!FileStamp.of(file).equals(scanned)) {
+            report.changed = true;
+            return;
+        }
+        byte[] content = Files.readAllBytes(file.toPath());
+        Set<Long> badOffsets = new HashSet<>();
+        File side = new File(file.getPath() + QUARANTINE_EXTENSION);
+        String when = LocalDateTime.now().withNano(0).toString();
+        try (BufferedWriter writer = Files.newBufferedWriter(side.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND)) {
+            for (BadRecord r : report.bad) {
+                badOffsets.add(r.offset);
+                writer.write(when + "||" + r.offset + "||" + r.problem + "||" + r.line);
+                writer.newLine();
+            }
+        }
+        try (FileChannel channel = FileChannel.open(side.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+
+        File tmp = new File(file.getPath() + ".salvage.tmp");
+        try (FileChannel out = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int lineStart = 0;
+            for (int i = 0; i <= content.length; i++) {
+                if (i < content.length && content[i] != '\n') {
+                    continue;
+                }
+                int next = Math.min(i + 1, content.length);
+                if (!badOffsets.contains((long) lineStart)) {
+                    out.write(ByteBuffer.wrap(content, lineStart, next - lineStart));
+                }
+                lineStart = next;
+            }
+            out.force(true);
+        }
+        if (!FileStamp.of(file).equals(scanned)) {
+            Files.delete(tmp.toPath());
+            report.changed = true;
+            return;
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        report.quarantined = true;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean salvage = false;
+        Branch branch = Branch.DEFAULT;
+        for (String arg : args) {
+            if (arg.equals("--salvage")) {
+                salvage = true;
+            } else {
+                branch = new Branch("main", new File(arg));
+            }
+        }
+        IntegrityScanner scanner = new IntegrityScanner(branch);
+        Report report = salvage ? scanner.salvage() : scanner.scan();
+        System.out.println(report);
+        if (!report.isClean() && !salvage) {
+            System.exit(1);
+        }
+    }
+}
@@ -1,78 +1,174 @@
 package main.java.repository;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
+import main.java.branch.Branch;
 import main.java.config.FilePaths;
 import main.java.config.ItemCodePrefix;
+import main.java.config.StockConstants;
+import main.java.events.ChangeBus;
+import main.java.events.ChangeEvent;
+import main.java.inventory.ExpiryIndex;
+import main.java.inventory.ItemSearchIndex;
+import main.java.inventory.StockAlertIndex;
+import main.java.inventory.StockAlertListener;
+import main.java.jfr.RepositoryEvent;
 import main.java.model.ItemRecord;
+import main.java.util.RecordChecksum;
+import main.java.storage.ItemStore;
+import main.java.storage.Primeable;
 
-public class ItemRepository {
+public class ItemRepository implements ItemStore, Primeable<List<ItemRecord>> {
+    private final File itemFile;
+    private final File tmpFile;
+    private final StockAlertIndex stockIndex = new StockAlertIndex(StockConstants.DEFAULT_REORDER_LEVEL);
+    private final ExpiryIndex expiryIndex = new ExpiryIndex();
+    private final ItemSearchIndex searchIndex = new ItemSearchIndex();
+    private FileStamp indexStamp = FileStamp.MISSING;
+    private boolean indexesLoaded;
+    private final ChangeBus changes;
 
+    public ItemRepository() {
+        this(Branch.DEFAULT);
+    }
 
-    public List<ItemRecord> findAll() throws IOException {
-        List<ItemRecord> items = new ArrayList<>();
-        File file = new File(FilePaths.ITEM);
-        if (!file.exists()) {
-            return items;
-        }
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                ItemRecord record = parse(line);
-                if (record != null) {
-                    items.add(record);
+    public ItemRepository(Branch branch) {
+        this(branch, new ChangeBus());
+    }
+
+    /** @param changes bus that every add, update and delete is published on */
+    public ItemRepository(Branch branch, ChangeBus changes) {
+        this.changes = changes;
+        this.itemFile = branch.file(FilePaths.ITEM);
+        this.tmpFile = branch.file(FilePaths.ITEM + ".tmp");
+    }
+
+    @Override
+    public synchronized List<ItemRecord> findAll() throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(ItemRepository.class, "findAll", null);
+        try {
+            List<ItemRecord> items = new ArrayList<>();
+            File file = itemFile;
+            if (!file.exists()) {
+                return items;
+            }
+            try (BufferedReader reader = RecordFiles.reader(file)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    ItemRecord record = parse(line);
+                    if (record != null) {
+                        items.add(record);
+                    }
                 }
             }
+            return items;
+        } finally {
+            event.finish();
         }
-        return items;
     }
 
-    public ItemRecord findByCode(String code) throws IOException {
-        File file = new File(FilePaths.ITEM);
-        if (!file.exists()) {
-            return null;
-        }
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                ItemRecord record = parse(line);
-                if (record != null && record.getCode().equals(code)) {
-                    return record;
+    @Override
+    public synchronized ItemRecord findByCode(String code) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(ItemRepository.class, "findByCode", code);
+        try {
+            File file = itemFile;
+            if (!file.exists()) {
+                return null;
+            }
+            try (BufferedReader reader = RecordFiles.reader(file)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    ItemRecord record = parse(line);
+                    if (record != null && record.getCode().equals(code)) {
+                        return record;
+                    }
                 }
             }
+            return null;
+        } finally {
+            event.finish();
         }
-        return null;
     }
 
-    public boolean add(ItemRecord r) throws IOException {
-        if (findByCode(r.getCode()) != null) {
-            return false; 
-        }
-        try (PrintWriter writer = new PrintWriter(new FileWriter(FilePaths.ITEM, true))) {
-            writer.println(toLine(r));
+    @Override
+    public synchronized boolean add(ItemRecord r) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(ItemRepository.class, "add", r.getCode());
+        try {
+            if (findByCode(r.getCode()) != null) {
+                return false; 
+            }
+            syncIndexes();
+            try (PrintWriter writer = RecordFiles.writer(itemFile, true)) {
+                writer.println(toLine(r));
+            }
+            stockIndex.update(r);
+            expiryIndex.update(r);
+            searchIndex.update(r);
+            indexStamp = FileStamp.of(itemFile);
+            changes.publish(ItemRecord.class, ChangeEvent.Kind.INSERT, r.getCode(), null, r);
+            return true;
+        } finally {
+            event.finish();
         }
-        return true;
     }
     
-    public boolean update(String oldCode, ItemRecord updatedRecord) throws IOException {
-        File file = new File(FilePaths.ITEM);
-        File tmp = new File(FilePaths.ITEM + ".tmp");
+    /**
+     * Replaces an item whatever its version. Each write stamps the stored record
+     * with the next version.
+     */
+    @Override
+    public synchronized boolean update(String oldCode, ItemRecord updatedRecord) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(ItemRepository.class, "update", oldCode);
+        try {
+            return replace(oldCode, ANY_VERSION, updatedRecord);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Replaces an item only if it is still at the version the caller read, so a
+     * change made in between by another till using this repository is never
+     * overwritten. The version is checked and the file rewritten under this
+     * object's monitor; another process writing the same file is not excluded.
+     * @return false when the item is missing or was changed since it was read
+     */
+    @Override
+    public synchronized boolean update(String code, long expectedVersion, ItemRecord updatedRecord) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(ItemRepository.class, "update", code);
+        try {
+            return replace(code, expectedVersion, updatedRecord);
+        } finally {
+            event.finish();
+        }
+    }
+
+    private boolean replace(String oldCode, long expectedVersion, ItemRecord updatedRecord) throws IOException {
+        File file = itemFile;
+        File tmp = tmpFile;
         boolean found = false;
+        ItemRecord before = null;
+        syncIndexes();
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file));
-             PrintWriter writer = new PrintWriter(new FileWriter(tmp))) {
+        try (BufferedReader reader = RecordFiles.reader(file);
+             PrintWriter writer = RecordFiles.writer(tmp, false)) {
             String line;
             while ((line = reader.readLine()) != null) {
                 ItemRecord r = parse(line);
                 if (r != null && r.getCode().equals(oldCode)) {
+                    if (expectedVersion != ANY_VERSION && r.getVersion() != expectedVersion) {
+                        // changed since the caller read it; leave the file alone
+                        break;
+                    }
                     // Write the updated record instead of the old one
+                    updatedRecord = updatedRecord.withVersion(r.getVersion() + 1);
                     writer.println(toLine(updatedRecord));
+                    before = r;
                     found = true;
                     continue;
                 }
@@ -83,58 +179,237 @@ public class ItemRepository {
         if (found) {
             file.delete();
             tmp.renameTo(file);
+            if (!oldCode.equals(updatedRecord.getCode())) {
+                stockIndex.remove(oldCode);
+                expiryIndex.remove(oldCode);
+                searchIndex.remove(oldCode);
+            }
+            stockIndex.update(updatedRecord);
+            expiryIndex.update(updatedRecord);
+            searchIndex.update(updatedRecord);
+            indexStamp = FileStamp.of(file);
+            changes.publish(ItemRecord.class, ChangeEvent.Kind.UPDATE, oldCode, before, updatedRecord);
         } else {
             tmp.delete();
         }
         return found;
     }
     
-    public boolean delete(String code) throws IOException {
-        File file = new File(FilePaths.ITEM);
-        File tmp = new File(FilePaths.ITEM + ".tmp");
-        boolean found = false;
+    @Override
+    public synchronized boolean delete(String code) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(ItemRepository.class, "delete", code);
+        try {
+            File file = itemFile;
+            File tmp = tmpFile;
+            boolean found = false;
+            ItemRecord before = null;
+            syncIndexes();
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file));
-             PrintWriter writer = new PrintWriter(new FileWriter(tmp))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                ItemRecord r = parse(line);
-                if (r != null && r.getCode().equals(code)) {
-                    found = true;
-                    continue;
+            try (BufferedReader reader = RecordFiles.reader(file);
+                 PrintWriter writer = RecordFiles.writer(tmp, false)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    ItemRecord r = parse(line);
+                    if (r != null && r.getCode().equals(code)) {
+                        before = r;
+                        found = true;
+                        continue;
+                    }
+                    writer.println(line);
                 }
-                writer.println(line);
             }
+            if (found) {
+                file.delete();
+                tmp.renameTo(file);
+                stockIndex.remove(code);
+                expiryIndex.remove(code);
+                searchIndex.remove(code);
+                indexStamp = FileStamp.of(file);
+                changes.publish(ItemRecord.class, ChangeEvent.Kind.DELETE, code, before, null);
+            } else {
+                tmp.delete();
+            }
+            return found;
+        } finally {
+            event.finish();
         }
-        if (found) {
-            file.delete();
-            tmp.renameTo(file);
-        } else {
-            tmp.delete();
+    }
+
+    /**
+     * Items at or below their reorder level, lowest headroom first. Answered from
+     * the in-memory stock index; the item file is only read again when it was
+     * changed outside this repository.
+     */
+    @Override
+    public synchronized List<StockAlertIndex.Entry> findBelowReorderLevel() throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(ItemRepository.class, "findBelowReorderLevel", null);
+        try {
+            syncIndexes();
+            return stockIndex.belowReorderLevel();
+        } finally {
+            event.finish();
+        }
+    }
+
+    /** Registers a hook fired when a change through this repository takes an item to its reorder level. */
+    @Override
+    public void addStockListener(StockAlertListener listener) {
+        stockIndex.addListener(listener);
+    }
+
+    @Override
+    public void removeStockListener(StockAlertListener listener) {
+        stockIndex.removeListener(listener);
+    }
+
+    @Override
+    public synchronized void setReorderLevel(String code, int level) {
+        RepositoryEvent event = RepositoryEvent.start(ItemRepository.class, "setReorderLevel", code);
+        try {
+            stockIndex.setReorderLevel(code, level);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Supplements expiring between two dates inclusive, earliest first.
+     * Answered from the in-memory expiry index.
+     */
+    @Override
+    public synchronized List<ExpiryIndex.Entry> findExpiringBetween(LocalDate from, LocalDate to) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(ItemRepository.class, "findExpiringBetween", null);
+        try {
+            syncIndexes();
+            return expiryIndex.between(from, to);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /** Supplements expiring from today up to and including {@code days} days ahead. */
+    @Override
+    public synchronized List<ExpiryIndex.Entry> findExpiringWithin(int days) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(ItemRepository.class, "findExpiringWithin", null);
+        try {
+            LocalDate today = LocalDate.now();
+            return findExpiringBetween(today, today.plusDays(days));
+        } finally {
+            event.finish();
         }
-        return found;
     }
 
-    private ItemRecord parse(String line) {
+    /** Supplements that expired before the given day, earliest first. */
+    @Override
+    public synchronized List<ExpiryIndex.Entry> findExpiredBefore(LocalDate day) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(ItemRepository.class, "findExpiredBefore", null);
+        try {
+            syncIndexes();
+            return expiryIndex.expiredBefore(day);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Suggests an in-stock item of the same product that expires earlier than the
+     * chosen one and should be sold first (first-expired-first-out).
+     * @return the suggestion, or null when the chosen item is already the right pick
+     */
+    @Override
+    public synchronized ExpiryIndex.Entry suggestFefo(ItemRecord chosen, LocalDate today) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(ItemRepository.class, "suggestFefo", chosen.getCode());
+        try {
+            syncIndexes();
+            return expiryIndex.suggestEarlier(chosen, today);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Items whose description or use is within a few typos of the query, closest
+     * first. Answered from the in-memory trigram index.
+     * @param limit most items to return
+     */
+    @Override
+    public synchronized List<ItemSearchIndex.Match> search(String query, int limit) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(ItemRepository.class, "search", query);
+        try {
+            syncIndexes();
+            return searchIndex.search(query, limit);
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Builds the in-memory indexes from a checkpoint instead of the file, provided
+     * the item file still has the length and time it had when the checkpoint was taken.
+     * @return 0 when the checkpoint was used, -1 when the file has changed
+     */
+    @Override
+    public synchronized int prime(List<ItemRecord> checkpoint, long length, long modified) {
+        RepositoryEvent event = RepositoryEvent.start(ItemRepository.class, "prime", null);
+        try {
+            FileStamp stamp = new FileStamp(length, modified);
+            if (!stamp.equals(FileStamp.of(itemFile))) {
+                return -1;
+            }
+            stockIndex.reset(checkpoint);
+            expiryIndex.reset(checkpoint);
+            searchIndex.reset(checkpoint);
+            indexStamp = stamp;
+            indexesLoaded = true;
+            return 0;
+        } finally {
+            event.finish();
+        }
+    }
+
+    /** Loads the in-memory indexes on first use, and reloads them if the item file changed behind our back. */
+    private void syncIndexes() throws IOException {
+        FileStamp current = FileStamp.of(itemFile);
+        if (indexesLoaded && current.equals(indexStamp)) {
+            return;
+        }
+        List<ItemRecord> all = findAll();
+        stockIndex.reset(all);
+        expiryIndex.reset(all);
+        searchIndex.reset(all);
+        indexStamp = current;
+        indexesLoaded = true;
+    }
+
+    /** Parses a line of the item file; null when it is damaged or not an item. */
+    static ItemRecord parse(String line) {
+        line = RecordChecksum.verify(line);
+        if (line == null) return null;
         String[] info = line.split("\\|\\|");
         if (info.length < 6) return null;
         String code = info[0];
         String desc = info[1];
         
-        // Original logic for parsing price and quantity
-        double price = Double.parseDouble(info[2]);
-        int qty = Integer.parseInt(info[3]);
-        
-        // REFACTORED: Use ItemCodePrefix constants instead of "M" and "S"
-        if (code.startsWith(ItemCodePrefix.MEDICINE)) { 
-            return new ItemRecord(code, desc, price, qty, ItemRecord.Type.MEDICINE, info[4], Integer.parseInt(info[5]));
-        } else if (code.startsWith(ItemCodePrefix.SUPPLEMENT)) {
-            return new ItemRecord(code, desc, price, qty, ItemRecord.Type.SUPPLEMENT, info[4], Integer.parseInt(info[5]));
+        try {
+            // Original logic for parsing price and quantity
+            double price = Double.parseDouble(info[2]);
+            int qty = Integer.parseInt(info[3]);
+
+            // REFACTORED: Use ItemCodePrefix constants instead of "M" and "S"
+            // lines written before versions existed have six fields and are at version 0
+            long version = info.length > 6 ? Long.parseLong(info[6]) : 0L;
+            if (code.startsWith(ItemCodePrefix.MEDICINE)) {
+                return new ItemRecord(code, desc, price, qty, ItemRecord.Type.MEDICINE, info[4], Integer.parseInt(info[5]), version);
+            } else if (code.startsWith(ItemCodePrefix.SUPPLEMENT)) {
+                return new ItemRecord(code, desc, price, qty, ItemRecord.Type.SUPPLEMENT, info[4], Integer.parseInt(info[5]), version);
+            }
+        } catch (NumberFormatException e) {
+            // a damaged line is skipped like any other unreadable one
         }
         return null;
     }
 
-    private String toLine(ItemRecord r) {
-        return r.getCode() + "||" + r.getDescription() + "||" + r.getPrice() + "||" + r.getQuantity() + "||" + r.getExtra1() + "||" + r.getExtra2();
+    static String toLine(ItemRecord r) {
+        return RecordChecksum.append(r.getCode() + "||" + r.getDescription() + "||" + r.getPrice() + "||" + r.getQuantity() + "||" + r.getExtra1() + "||" + r.getExtra2() + "||" + r.getVersion());
     }
 }
\ No newline at end of file
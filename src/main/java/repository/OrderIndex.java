@@ -0,0 +1,413 @@
+package main.java.repository;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistent B+tree sidecar that maps order numbers to byte offsets in the order file.
+ *
+ * Layout: page 0 is a header, followed by fixed-size tree pages (leaves first, then
+ * each branch level, root last) and an append-only journal of entries added since the
+ * tree was bulk-loaded. Point lookups read one page per tree level, so even very large
+ * order files resolve in a handful of page reads. The header records the stamp of the
+ * order file the index describes; when the file changes behind our back the index is
+ * rebuilt from a single sequential scan.
+ */
+public class OrderIndex {
+    static final int PAGE_SIZE = 4096;
+    static final int MAX_KEY_BYTES = 255;
+    static final int JOURNAL_LIMIT = 4096;
+
+    private static final int MAGIC = 0x4F494458; // "OIDX"
+    private static final int VERSION = 1;
+    private static final byte LEAF = 1;
+    private static final byte BRANCH = 2;
+    private static final int PAGE_HEADER = 3; // type + entry count
+    private static final int LEAF_POINTER = 8; // byte offset into the order file
+    private static final int BRANCH_POINTER = 4; // child page number
+
+    private final File dataFile;
+    private final File indexFile;
+
+    private boolean loaded;
+    private FileStamp stamp = FileStamp.MISSING;
+    private int rootPage;
+    private int height;
+    private long journalStart;
+    private int journalBytes;
+    private final Map<String, Long> journal = new HashMap<>();
+    private ByteBuffer rootCache;
+
+    public OrderIndex(File dataFile, File indexFile) {
+        this.dataFile = dataFile;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Looks up the byte offset of the first line holding the given order number.
+     * @param orderNumber key to look up
+     * @return offset in the order file, or -1 when the number is not present
+     */
+    public synchronized long lookup(String orderNumber) throws IOException {
+        ensureFresh();
+        Long pending = journal.get(orderNumber);
+        if (pending != null) {
+            return pending;
+        }
+        byte[] key = orderNumber.getBytes(StandardCharsets.UTF_8);
+        if (height == 0 || key.length > MAX_KEY_BYTES) {
+            return -1L;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(indexFile, "r")) {
+            ByteBuffer page = rootCache;
+            for (int level = 1; level < height; level++) {
+                int child = findChild(page, key);
+                if (child < 0) {
+                    return -1L;
+                }
+                page = readPage(raf, child);
+            }
+            return findOffset(page, key);
+        }
+    }
+
+    /**
+     * Records a line appended to the order file. Must be called right after the
+     * append so the stamp stored in the header matches the file again.
+     * @param orderNumber key of the appended line
+     * @param offset byte offset at which the line starts
+     */
+    public synchronized void append(String orderNumber, long offset) throws IOException {
+        byte[] key = orderNumber.getBytes(StandardCharsets.UTF_8);
+        if (!loaded || key.length > MAX_KEY_BYTES || journal.size() >= JOURNAL_LIMIT) {
+            rebuild();
+            return;
+        }
+        ByteBuffer entry = ByteBuffer.allocate(1 + key.length + LEAF_POINTER);
+        entry.put((byte) key.length).put(key).putLong(offset).flip();
+        try (RandomAccessFile raf = new RandomAccessFile(indexFile, "rw")) {
+            raf.getChannel().write(entry, journalStart + journalBytes);
+            journalBytes += entry.capacity();
+            journal.putIfAbsent(orderNumber, offset);
+            stamp = FileStamp.of(dataFile);
+            writeHeader(raf);
+        }
+    }
+
+    /**
+     * Replaces the whole index with the entries collected while the order file was
+     * rewritten, saving the extra scan a {@link #rebuild()} would need.
+     * @param entries keys and offsets of the rewritten file, in file order
+     */
+    public synchronized void replace(Entries entries) throws IOException {
+        write(entries, FileStamp.of(dataFile));
+    }
+
+    /** Rebuilds the index from a sequential scan of the order file. */
+    public synchronized void rebuild() throws IOException {
+        FileStamp before = FileStamp.of(dataFile);
+        write(scan(dataFile), before);
+    }
+
+    /** Drops the index so the next lookup rebuilds it. */
+    public synchronized void invalidate() {
+        loaded = false;
+        journal.clear();
+        rootCache = null;
+        indexFile.delete();
+    }
+
+    private void ensureFresh() throws IOException {
+        FileStamp current = FileStamp.of(dataFile);
+        if (loaded && current.equals(stamp)) {
+            return;
+        }
+        if (!loaded && load() && current.equals(stamp)) {
+            return;
+        }
+        rebuild();
+    }
+
+    private boolean load() throws IOException {
+        if (!indexFile.exists() || indexFile.length() < PAGE_SIZE) {
+            return false;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(indexFile, "r")) {
+            ByteBuffer header = readPage(raf, 0);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getInt() != PAGE_SIZE) {
+                return false;
+            }
+            long length = header.getLong();
+            long modified = header.getLong();
+            int root = header.getInt();
+            int levels = header.getInt();
+            long start = header.getLong();
+            int bytes = header.getInt();
+            if (start + bytes > raf.length()) {
+                return false;
+            }
+            ByteBuffer tail = ByteBuffer.allocate(bytes);
+            raf.getChannel().read(tail, start);
+            tail.flip();
+            journal.clear();
+            byte[] key = new byte[MAX_KEY_BYTES];
+            while (tail.remaining() > 0) {
+                int len = tail.get() & 0xFF;
+                tail.get(key, 0, len);
+                journal.putIfAbsent(new String(key, 0, len, StandardCharsets.UTF_8), tail.getLong());
+            }
+            stamp = new FileStamp(length, modified);
+            rootPage = root;
+            height = levels;
+            journalStart = start;
+            journalBytes = bytes;
+            rootCache = levels > 0 ? readPage(raf, root) : null;
+            loaded = true;
+            return true;
+        }
+    }
+
+    private void write(Entries entries, FileStamp source) throws IOException {
+        entries.sort();
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        int page = 1;
+        int levels = 0;
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "rw")) {
+            raf.setLength(0);
+            List<byte[]> firstKeys = new ArrayList<>();
+            List<Integer> pages = new ArrayList<>();
+            ByteBuffer buf = ByteBuffer.allocate(PAGE_SIZE);
+            int count = 0;
+            for (int i = 0; i < entries.size; i++) {
+                byte[] key = entries.keys[entries.order[i]];
+                if (count > 0 && 1 + key.length + LEAF_POINTER > buf.remaining()) {
+                    writePage(raf, page, buf, LEAF, count);
+                    page++;
+                    count = 0;
+                }
+                if (count == 0) {
+                    buf.clear().position(PAGE_HEADER);
+                    firstKeys.add(key);
+                    pages.add(page);
+                }
+                buf.put((byte) key.length).put(key).putLong(entries.offsets[entries.order[i]]);
+                count++;
+            }
+            if (count > 0) {
+                writePage(raf, page, buf, LEAF, count);
+                page++;
+            }
+            levels = pages.isEmpty() ? 0 : 1;
+            while (pages.size() > 1) {
+                List<byte[]> parentKeys = new ArrayList<>();
+                List<Integer> parentPages = new ArrayList<>();
+                count = 0;
+                for (int i = 0; i < pages.size(); i++) {
+                    byte[] key = firstKeys.get(i);
+                    if (count > 0 && 1 + key.length + BRANCH_POINTER > buf.remaining()) {
+                        writePage(raf, page, buf, BRANCH, count);
+                        page++;
+                        count = 0;
+                    }
+                    if (count == 0) {
+                        buf.clear().position(PAGE_HEADER);
+                        parentKeys.add(key);
+                        parentPages.add(page);
+                    }
+                    buf.put((byte) key.length).put(key).putInt(pages.get(i));
+                    count++;
+                }
+                writePage(raf, page, buf, BRANCH, count);
+                page++;
+                firstKeys = parentKeys;
+                pages = parentPages;
+                levels++;
+            }
+            rootPage = pages.isEmpty() ? 0 : pages.get(0);
+            height = levels;
+            journalStart = (long) page * PAGE_SIZE;
+            journalBytes = 0;
+            stamp = source;
+            writeHeader(raf);
+            raf.setLength(journalStart);
+        }
+        Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        journal.clear();
+        try (RandomAccessFile raf = new RandomAccessFile(indexFile, "r")) {
+            rootCache = height > 0 ? readPage(raf, rootPage) : null;
+        }
+        loaded = true;
+    }
+
+    private void writeHeader(RandomAccessFile raf) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(PAGE_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(PAGE_SIZE)
+              .putLong(stamp.getLength()).putLong(stamp.getModified())
+              .putInt(rootPage).putInt(height)
+              .putLong(journalStart).putInt(journalBytes);
+        header.clear();
+        raf.getChannel().write(header, 0);
+    }
+
+    private static void writePage(RandomAccessFile raf, int page, ByteBuffer buf, byte type, int count) throws IOException {
+        buf.put(0, type).putShort(1, (short) count);
+        Arrays.fill(buf.array(), buf.position(), PAGE_SIZE, (byte) 0);
+        buf.clear();
+        raf.getChannel().write(buf, (long) page * PAGE_SIZE);
+    }
+
+    private static ByteBuffer readPage(RandomAccessFile raf, int page) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(PAGE_SIZE);
+        raf.getChannel().read(buf, (long) page * PAGE_SIZE);
+        buf.flip();
+        return buf;
+    }
+
+    /** Returns the child page whose key range covers {@code key}, or -1 if it sorts before every key. */
+    private static int findChild(ByteBuffer page, byte[] key) {
+        int count = page.getShort(1);
+        int pos = PAGE_HEADER;
+        int child = -1;
+        for (int i = 0; i < count; i++) {
+            int len = page.get(pos) & 0xFF;
+            if (compare(page, pos + 1, len, key) > 0) {
+                break;
+            }
+            child = page.getInt(pos + 1 + len);
+            pos += 1 + len + BRANCH_POINTER;
+        }
+        return child;
+    }
+
+    private static long findOffset(ByteBuffer page, byte[] key) {
+        int count = page.getShort(1);
+        int pos = PAGE_HEADER;
+        for (int i = 0; i < count; i++) {
+            int len = page.get(pos) & 0xFF;
+            int cmp = compare(page, pos + 1, len, key);
+            if (cmp == 0) {
+                return page.getLong(pos + 1 + len);
+            }
+            if (cmp > 0) {
+                break;
+            }
+            pos += 1 + len + LEAF_POINTER;
+        }
+        return -1L;
+    }
+
+    private static int compare(ByteBuffer page, int pos, int len, byte[] key) {
+        int n = Math.min(len, key.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = (page.get(pos + i) & 0xFF) - (key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return len - key.length;
+    }
+
+    /**
+     * Scans the order file once, collecting the key (text before the first field
+     * delimiter) and starting offset of every line.
+     */
+    static Entries scan(File file) throws IOException {
+        Entries entries = new Entries();
+        if (!file.exists()) {
+            return entries;
+        }
+        byte[] key = new byte[MAX_KEY_BYTES + 1];
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16)) {
+            long pos = 0;
+            long lineStart = 0;
+            int keyLen = 0;
+            boolean inKey = true;
+            boolean pipe = false;
+            int b;
+            while ((b = in.read()) != -1) {
+                pos++;
+                if (b == '\n') {
+                    lineStart = pos;
+                    keyLen = 0;
+                    inKey = true;
+                    pipe = false;
+                } else if (inKey) {
+                    if (b == '|' && pipe) {
+                        inKey = false;
+                        if (keyLen <= MAX_KEY_BYTES) {
+                            entries.add(Arrays.copyOf(key, keyLen), lineStart);
+                        }
+                    } else if (b == '|') {
+                        pipe = true;
+                    } else {
+                        if (pipe && keyLen <= MAX_KEY_BYTES) {
+                            key[keyLen++] = '|';
+                        }
+                        pipe = false;
+                        if (keyLen <= MAX_KEY_BYTES) {
+                            key[keyLen++] = (byte) b;
+                        }
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /** Key/offset pairs gathered for a bulk load, kept in parallel primitive arrays. */
+    public static class Entries {
+        private byte[][] keys = new byte[64][];
+        private long[] offsets = new long[64];
+        private int[] order;
+        private int size;
+
+        public void add(String orderNumber, long offset) {
+            byte[] key = orderNumber.getBytes(StandardCharsets.UTF_8);
+            if (key.length <= MAX_KEY_BYTES) {
+                add(key, offset);
+            }
+        }
+
+        void add(byte[] key, long offset) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            keys[size] = key;
+            offsets[size] = offset;
+            size++;
+        }
+
+        /** Sorts by key and keeps only the first line of each duplicated key, as a scan would. */
+        void sort() {
+            Integer[] idx = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                idx[i] = i;
+            }
+            // stable sort keeps file order among equal keys
+            Arrays.sort(idx, (a, b) -> Arrays.compareUnsigned(keys[a], keys[b]));
+            int[] sorted = new int[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (n > 0 && Arrays.equals(keys[sorted[n - 1]], keys[idx[i]])) {
+                    continue;
+                }
+                sorted[n++] = idx[i];
+            }
+            order = sorted;
+            size = n;
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package main.java.repository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import main.java.branch.Branch;
+import main.java.config.FilePaths;
+import main.java.config.OrderConstants;
+import main.java.model.OrderRecord;
+
+/**
+ * Sealed months of orders, one file per month, and the manifest describing them.
+ *
+ * The order file stays the open partition that new orders are appended to. Once a
+ * month has closed, {@link OrderRepository#sealBefore} moves its orders into
+ * {@code orders/Order-yyyy-MM.txt} and records the month's order-number and date
+ * ranges in {@code orders/manifest.txt}. Lookups and date queries check the manifest
+ * first and open only the partitions whose ranges can match.
+ *
+ * A sealed file is only ever replaced whole, through a temporary file and a rename,
+ * when an old order is corrected or removed; the manifest is replaced the same way
+ * afterwards. Partitions read once are therefore kept in memory, least recently used
+ * dropped first, for as long as their manifest entry is unchanged.
+ */
+public class OrderPartitions {
+    static final String MANIFEST = "manifest.txt";
+    static final String FILE_PREFIX = "Order-";
+    static final String FILE_SUFFIX = ".txt";
+    static final int MAX_CACHED = 24;
+
+    /** One manifest line: a sealed month and the ranges of what it holds. */
+    public static final class Partition {
+        private final String month;
+        private final int count;
+        private final String firstNumber;
+        private final String lastNumber;
+        private final String firstDate;
+        private final String lastDate;
+        private final long length;
+
+        Partition(String month, int count, String firstNumber, String lastNumber, String firstDate, String lastDate,
+                  long length) {
+            this.month = month;
+            this.count = count;
+            this.firstNumber = firstNumber;
+            this.lastNumber = lastNumber;
+            this.firstDate = firstDate;
+            this.lastDate = lastDate;
+            this.length = length;
+        }
+
+        /** Month as yyyy-MM. */
+        public String getMonth() { return month; }
+        public int getCount() { return count; }
+        public String getFirstNumber() { return firstNumber; }
+        public String getLastNumber() { return lastNumber; }
+        public String getFirstDate() { return firstDate; }
+        public String getLastDate() { return lastDate; }
+        /** Size of the partition file in bytes when it was written. */
+        public long getLength() { return length; }
+
+        public String getFileName() {
+            return FILE_PREFIX + month + FILE_SUFFIX;
+        }
+
+        boolean mayContain(String orderNumber) {
+            return compareNumbers(firstNumber, orderNumber) <= 0 && compareNumbers(orderNumber, lastNumber) <= 0;
+        }
+
+        /** @param fromDay first day, yyyy-MM-dd, inclusive @param toDay last day, inclusive */
+        boolean overlaps(String fromDay, String toDay) {
+            return dayOf(lastDate).compareTo(fromDay) >= 0 && dayOf(firstDate).compareTo(toDay) <= 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Partition)) return false;
+            Partition other = (Partition) o;
+            return month.equals(other.month) && count == other.count && length == other.length
+                    && firstNumber.equals(other.firstNumber) && lastNumber.equals(other.lastNumber)
+                    && firstDate.equals(other.firstDate) && lastDate.equals(other.lastDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(month, count, length, lastNumber);
+        }
+    }
+
+    /** A partition's orders, as read from its file. */
+    private static final class Loaded {
+        final List<OrderRecord> records;
+        final Map<String, OrderRecord> byNumber;
+
+        Loaded(List<OrderRecord> records) {
+            this.records = records;
+            this.byNumber = new HashMap<>(records.size() * 2);
+            for (OrderRecord record : records) {
+                byNumber.putIfAbsent(record.getOrderNumber(), record);
+            }
+        }
+    }
+
+    private final File dir;
+    private final File manifest;
+    private List<Partition> partitions = new ArrayList<>();
+    private FileStamp manifestStamp = FileStamp.MISSING;
+    private final Map<Partition, Loaded> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Partition, Loaded> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    public OrderPartitions(Branch branch) {
+        this(branch.file(FilePaths.ORDER_PARTITIONS));
+    }
+
+    /** @param dir directory holding the manifest and the partition files */
+    public OrderPartitions(File dir) {
+        this.dir = dir;
+        this.manifest = new File(dir, MANIFEST);
+    }
+
+    /** Sealed partitions, oldest month first. */
+    public synchronized List<Partition> list() throws IOException {
+        refresh();
+        return new ArrayList<>(partitions);
+    }
+
+    /** Partition files, oldest month first, for readers that stream them directly. */
+    public synchronized List<File> files() throws IOException {
+        refresh();
+        List<File> files = new ArrayList<>(partitions.size());
+        for (Partition p : partitions) {
+            files.add(new File(dir, p.getFileName()));
+        }
+        return files;
+    }
+
+    /** Every sealed order, oldest month first. */
+    public synchronized List<OrderRecord> findAll() throws IOException {
+        refresh();
+        List<OrderRecord> all = new ArrayList<>();
+        for (Partition p : partitions) {
+            all.addAll(load(p).records);
+        }
+        return all;
+    }
+
+    /** Looks the order up in the partitions whose number range covers it. */
+    public synchronized OrderRecord find(String orderNumber) throws IOException {
+        refresh();
+        for (Partition p : partitions) {
+            if (p.mayContain(orderNumber)) {
+                OrderRecord record = load(p).byNumber.get(orderNumber);
+                if (record != null) {
+                    return record;
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Sealed orders dated from {@code fromDay} to {@code toDay} inclusive, both yyyy-MM-dd. */
+    public synchronized List<OrderRecord> findBetween(String fromDay, String toDay) throws IOException {
+        refresh();
+        List<OrderRecord> found = new ArrayList<>();
+        for (Partition p : partitions) {
+            if (p.overlaps(fromDay, toDay)) {
+                for (OrderRecord record : load(p).records) {
+                    if (onDays(record, fromDay, toDay)) {
+                        found.add(record);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Adds orders to their months' partitions, creating partitions as needed. An
+     * order already sealed under the same number is kept and the new copy dropped,
+     * so repeating a seal that was interrupted is harmless.
+     * @param byMonth orders to seal, keyed by yyyy-MM
+     */
+    synchronized void seal(Map<String, List<OrderRecord>> byMonth) throws IOException {
+        refresh();
+        Map<String, List<OrderRecord>> rewritten = new HashMap<>();
+        for (Map.Entry<String, List<OrderRecord>> e : byMonth.entrySet()) {
+            Partition existing = partition(e.getKey());
+            List<OrderRecord> merged = existing == null ? new ArrayList<>() : new ArrayList<>(load(existing).records);
+            Map<String, OrderRecord> numbers = existing == null ? new HashMap<>() : new HashMap<>(load(existing).byNumber);
+            for (OrderRecord record : e.getValue()) {
+                if (numbers.putIfAbsent(record.getOrderNumber(), record) == null) {
+                    merged.add(record);
+                }
+            }
+            rewritten.put(e.getKey(), merged);
+        }
+        write(rewritten);
+    }
+
+    /**
+     * Replaces or removes a sealed order, rewriting its partition.
+     * @param updated new version, or null to remove the order
+     * @return the order as it was, or null when no partition holds it
+     */
+    synchronized OrderRecord replace(String orderNumber, OrderRecord updated) throws IOException {
+        refresh();
+        for (Partition p : partitions) {
+            if (!p.mayContain(orderNumber)) {
+                continue;
+            }
+            Loaded loaded = load(p);
+            OrderRecord before = loaded.byNumber.get(orderNumber);
+            if (before == null) {
+                continue;
+            }
+            List<OrderRecord> records = new ArrayList<>(loaded.records.size());
+            boolean replaced = false;
+            for (OrderRecord record : loaded.records) {
+                if (!replaced && record.getOrderNumber().equals(orderNumber)) {
+                    replaced = true;
+                    if (updated != null) {
+                        records.add(updated);
+                    }
+                    continue;
+                }
+                records.add(record);
+            }
+            Map<String, List<OrderRecord>> rewritten = new HashMap<>();
+            rewritten.put(p.getMonth(), records);
+            write(rewritten);
+            return before;
+        }
+        return null;
+    }
+
+    /** A sealed month's orders, as held in its file. */
+    synchronized List<OrderRecord> records(Partition p) throws IOException {
+        return new ArrayList<>(load(p).records);
+    }
+
+    /** Removes a month's partition, manifest line first. */
+    synchronized void drop(String month) throws IOException {
+        refresh();
+        Map<String, List<OrderRecord>> emptied = new HashMap<>();
+        emptied.put(month, new ArrayList<>());
+        write(emptied);
+    }
+
+    /**
+     * Writes the given months' partition files, then the manifest. A month left with
+     * no orders loses its file and its manifest line.
+     */
+    private void write(Map<String, List<OrderRecord>> months) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        Map<String, Partition> byMonth = new LinkedHashMap<>();
+        for (Partition p : partitions) {
+            byMonth.put(p.getMonth(), p);
+        }
+        for (Map.Entry<String, List<OrderRecord>> e : months.entrySet()) {
+            String month = e.getKey();
+            List<OrderRecord> records = e.getValue();
+            File file = new File(dir, FILE_PREFIX + month + FILE_SUFFIX);
+            if (records.isEmpty()) {
+                byMonth.remove(month);
+                continue;
+            }
+            List<String> lines = new ArrayList<>(records.size());
+            for (OrderRecord record : records) {
+                lines.add(OrderRepository.toLine(record));
+            }
+            replaceFile(file, lines);
+            Partition p = summarize(month, records, file.length());
+            byMonth.put(month, p);
+            cache.put(p, new Loaded(records));
+        }
+
+        List<Partition> updated = new ArrayList<>(byMonth.values());
+        updated.sort((a, b) -> a.getMonth().compareTo(b.getMonth()));
+        List<String> lines = new ArrayList<>(updated.size());
+        for (Partition p : updated) {
+            lines.add(String.join(OrderConstants.FIELD_DELIMITER, p.month, String.valueOf(p.count), p.firstNumber,
+                    p.lastNumber, p.firstDate, p.lastDate, String.valueOf(p.length)));
+        }
+        replaceFile(manifest, lines);
+        partitions = updated;
+        manifestStamp = FileStamp.of(manifest);
+
+        // files of emptied months go only once the manifest no longer lists them
+        for (Map.Entry<String, List<OrderRecord>> e : months.entrySet()) {
+            if (e.getValue().isEmpty()) {
+                Files.deleteIfExists(new File(dir, FILE_PREFIX + e.getKey() + FILE_SUFFIX).toPath());
+            }
+        }
+    }
+
+    private static void replaceFile(File file, List<String> lines) throws IOException {
+        File tmp = new File(file.getPath() + OrderConstants.TEMP_FILE_EXTENSION);
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp.toPath())) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write(System.lineSeparator());
+            }
+        }
+        try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Partition summarize(String month, List<OrderRecord> records, long length) {
+        OrderRecord first = records.get(0);
+        String firstNumber = first.getOrderNumber();
+        String lastNumber = firstNumber;
+        String firstDate = first.getDate();
+        String lastDate = firstDate;
+        for (OrderRecord record : records) {
+            String number = record.getOrderNumber();
+            if (compareNumbers(number, firstNumber) < 0) firstNumber = number;
+            if (compareNumbers(number, lastNumber) > 0) lastNumber = number;
+            if (record.getDate().compareTo(firstDate) < 0) firstDate = record.getDate();
+            if (record.getDate().compareTo(lastDate) > 0) lastDate = record.getDate();
+        }
+        return new Partition(month, records.size(), firstNumber, lastNumber, firstDate, lastDate, length);
+    }
+
+    private Partition partition(String month) {
+        for (Partition p : partitions) {
+            if (p.getMonth().equals(month)) {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    /** Re-reads the manifest when it has changed on disk. */
+    private void refresh() throws IOException {
+        FileStamp stamp = FileStamp.of(manifest);
+        if (stamp.equals(manifestStamp)) {
+            return;
+        }
+        List<Partition> read = new ArrayList<>();
+        if (manifest.exists()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(manifest))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] f = line.split(OrderConstants.FIELD_DELIMITER_REGEX);
+                    if (f.length < 7 || monthOf(f[0] + "-01") == null) {
+                        continue;
+                    }
+                    try {
+                        read.add(new Partition(f[0], Integer.parseInt(f[1]), f[2], f[3], f[4], f[5],
+                                Long.parseLong(f[6])));
+                    } catch (NumberFormatException e) {
+                        // not a manifest line
+                    }
+                }
+            }
+        }
+        read.sort((a, b) -> a.getMonth().compareTo(b.getMonth()));
+        partitions = read;
+        manifestStamp = stamp;
+    }
+
+    private Loaded load(Partition p) throws IOException {
+        Loaded loaded = cache.get(p);
+        if (loaded != null) {
+            return loaded;
+        }
+        List<OrderRecord> records = new ArrayList<>(p.getCount());
+        File file = new File(dir, p.getFileName());
+        if (file.exists()) {
+            try (BufferedReader reader = RecordFiles.reader(file)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    OrderRecord record = OrderRepository.parse(line);
+                    if (record != null) records.add(record);
+                }
+            }
+        }
+        loaded = new Loaded(records);
+        cache.put(p, loaded);
+        return loaded;
+    }
+
+    /**
+     * Orders order numbers by length, then character by character, so O10000
+     * follows O9999.
+     */
+    static int compareNumbers(String a, String b) {
+        return a.length() != b.length() ? Integer.compare(a.length(), b.length()) : a.compareTo(b);
+    }
+
+    /** The yyyy-MM an order date falls in, or null when the date does not start with one. */
+    static String monthOf(String date) {
+        if (date == null || date.length() < 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return null;
+        }
+        for (int i : new int[] {0, 1, 2, 3, 5, 6}) {
+            if (!Character.isDigit(date.charAt(i))) {
+                return null;
+            }
+        }
+        int month = (date.charAt(5) - '0') * 10 + (date.charAt(6) - '0');
+        return month >= 1 && month <= 12 ? date.substring(0, 7) : null;
+    }
+
+    static boolean onDays(OrderRecord record, String fromDay, String toDay) {
+        String day = dayOf(record.getDate());
+        return day.compareTo(fromDay) >= 0 && day.compareTo(toDay) <= 0;
+    }
+
+    private static String dayOf(String date) {
+        return date.length() > 10 ? date.substring(0, 10) : date;
+    }
+
+    /**
+     * Seals every order dated before a month, by default the current one:
+     *
+     *   java main.java.repository.OrderPartitions [data directory] [yyyy-MM]
+     */
+    public static void main(String[] args) throws IOException {
+        Branch branch = args.length > 0 ? new Branch("main", new File(args[0])) : Branch.DEFAULT;
+        YearMonth open = args.length > 1 ? YearMonth.parse(args[1]) : YearMonth.now();
+        int sealed = new OrderRepository(branch).sealBefore(open);
+        System.out.println("Sealed " + sealed + " orders dated before " + open);
+        for (Partition p : new OrderPartitions(branch).list()) {
+            System.out.println(p.getMonth() + ": " + p.getCount() + " orders, " + p.getFirstNumber() + " to "
+                    + p.getLastNumber());
+        }
+    }
+}
@@ -1,38 +1,256 @@
 package main.java.repository;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
+import main.java.archive.Archive;
+import main.java.branch.Branch;
 import main.java.config.FilePaths;
 import main.java.config.OrderConstants;
+import main.java.events.ChangeBus;
+import main.java.events.ChangeEvent;
+import main.java.jfr.RepositoryEvent;
 import main.java.model.OrderLine;
 import main.java.model.OrderRecord;
+import main.java.util.Money;
+import main.java.util.RecordChecksum;
+import main.java.storage.OrderStore;
+import main.java.storage.Primeable;
 
-public class OrderRepository {
+public class OrderRepository implements OrderStore, Primeable<List<OrderRecord>> {
+    private static final int LINE_SEPARATOR_BYTES = System.lineSeparator().length();
 
-    public List<OrderRecord> findAll() throws IOException {
+    private final File orderFile;
+    private final File tmpFile;
+    private final OrderIndex index;
+    // closed months moved out of the order file, see sealBefore
+    private final OrderPartitions partitions;
+    // months moved on from the partitions, compressed; see archiveBefore
+    private final Archive archive;
+    // whole file in memory once findAll or a checkpoint has loaded it
+    private List<OrderRecord> cache;
+    private Map<String, OrderRecord> cacheByNumber;
+    private FileStamp cacheStamp = FileStamp.MISSING;
+    private final ChangeBus changes;
+
+    public OrderRepository() {
+        this(Branch.DEFAULT);
+    }
+
+    public OrderRepository(Branch branch) {
+        this(branch, new ChangeBus());
+    }
+
+    /** @param changes bus that every add, update and delete is published on */
+    public OrderRepository(Branch branch, ChangeBus changes) {
+        this.changes = changes;
+        this.orderFile = branch.file(FilePaths.ORDER);
+        this.tmpFile = branch.file(FilePaths.ORDER + OrderConstants.TEMP_FILE_EXTENSION);
+        this.index = new OrderIndex(orderFile, branch.file(FilePaths.ORDER_INDEX));
+        this.partitions = new OrderPartitions(branch);
+        this.archive = new Archive(branch.file(FilePaths.ARCHIVE), "orders");
+    }
+
+    /** Every order: the archived months, then the sealed ones, oldest first, then the open order file. */
+    @Override
+    public synchronized List<OrderRecord> findAll() throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(OrderRepository.class, "findAll", null);
+        try {
+            List<OrderRecord> list = new ArrayList<>();
+            for (String line : archive.readAll()) {
+                OrderRecord record = parse(line);
+                if (record != null) list.add(record);
+            }
+            List<String> archivedMonths = archive.months();
+            List<OrderPartitions.Partition> sealed = partitions.list();
+            for (OrderPartitions.Partition p : sealed) {
+                for (OrderRecord record : partitions.records(p)) {
+                    if (!isArchivedCopy(archivedMonths, record)) list.add(record);
+                }
+            }
+            for (OrderRecord record : openRecords()) {
+                if (!isSealedCopy(sealed, record)) list.add(record);
+            }
+            return list;
+        } finally {
+            event.finish();
+        }
+    }
+
+    /** Orders still in the open order file, which is what a checkpoint holds. */
+    @Override
+    public synchronized List<OrderRecord> findOpen() throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(OrderRepository.class, "findOpen", null);
+        try {
+            return new ArrayList<>(openRecords());
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Orders dated from one day to the other, both inclusive. Of the sealed months
+     * only those whose date range overlaps the days are read.
+     */
+    @Override
+    public synchronized List<OrderRecord> findBetween(LocalDate from, LocalDate to) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(OrderRepository.class, "findBetween", null);
+        try {
+            String fromDay = from.toString();
+            String toDay = to.toString();
+            List<OrderRecord> found = new ArrayList<>();
+            for (String line : archive.readBetween(YearMonth.from(from).toString(), YearMonth.from(to).toString())) {
+                OrderRecord record = parse(line);
+                if (record != null && OrderPartitions.onDays(record, fromDay, toDay)) found.add(record);
+            }
+            List<String> archivedMonths = archive.months();
+            for (OrderRecord record : partitions.findBetween(fromDay, toDay)) {
+                if (!isArchivedCopy(archivedMonths, record)) found.add(record);
+            }
+            List<OrderPartitions.Partition> sealed = partitions.list();
+            for (OrderRecord record : openRecords()) {
+                if (OrderPartitions.onDays(record, fromDay, toDay) && !isSealedCopy(sealed, record)) found.add(record);
+            }
+            return found;
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * True for an open order that is also sealed, which only a seal interrupted
+     * before the order file was rewritten leaves behind. The sealed copy wins.
+     */
+    private boolean isSealedCopy(List<OrderPartitions.Partition> sealed, OrderRecord record) throws IOException {
+        for (OrderPartitions.Partition p : sealed) {
+            if (p.mayContain(record.getOrderNumber())) {
+                return partitions.find(record.getOrderNumber()) != null;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True for a sealed order that is also archived, which only an archiving run
+     * interrupted before the partition was dropped leaves behind.
+     */
+    private boolean isArchivedCopy(List<String> archivedMonths, OrderRecord record) throws IOException {
+        String month = OrderPartitions.monthOf(record.getDate());
+        return month != null && archivedMonths.contains(month) && archive.find(record.getOrderNumber()) != null;
+    }
+
+    /** The open file's orders, from the cache when it is current; not a copy. */
+    private List<OrderRecord> openRecords() throws IOException {
+        File file = orderFile;
+        if (!file.exists()) return new ArrayList<>();
+        if (cacheIsCurrent()) return cache;
         List<OrderRecord> list = new ArrayList<>();
-        File file = new File(FilePaths.ORDER);
-        if (!file.exists()) return list;
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        FileStamp stamp = FileStamp.of(file);
+        try (BufferedReader reader = RecordFiles.reader(file)) {
             String line;
             while ((line = reader.readLine()) != null) {
                 OrderRecord record = parse(line);
                 if (record != null) list.add(record);
             }
         }
+        fillCache(list, stamp);
         return list;
     }
 
-    public OrderRecord findByNumber(String orderNumber) throws IOException {
-        File file = new File(FilePaths.ORDER);
-        if (!file.exists()) return null;
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+    /**
+     * Seeds the in-memory copy from a checkpoint taken when the file was
+     * {@code offset} bytes long, parsing only the orders appended after that. The
+     * caller vouches that the first {@code offset} bytes have not changed since.
+     * @return number of appended orders replayed
+     */
+    @Override
+    public synchronized int prime(List<OrderRecord> checkpoint, long offset, long modified) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(OrderRepository.class, "prime", null);
+        try {
+            File file = orderFile;
+            FileStamp stamp = FileStamp.of(file);
+            List<OrderRecord> all = new ArrayList<>(checkpoint);
+            try (FileInputStream in = new FileInputStream(file)) {
+                in.getChannel().position(offset);
+                BufferedReader reader = RecordFiles.reader(in);
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    OrderRecord record = parse(line);
+                    if (record != null) all.add(record);
+                }
+            }
+            fillCache(all, stamp);
+            return all.size() - checkpoint.size();
+        } finally {
+            event.finish();
+        }
+    }
+
+    private boolean cacheIsCurrent() {
+        return cache != null && FileStamp.of(orderFile).equals(cacheStamp);
+    }
+
+    private void fillCache(List<OrderRecord> all, FileStamp stamp) {
+        Map<String, OrderRecord> byNumber = new HashMap<>(all.size() * 2);
+        for (OrderRecord record : all) {
+            byNumber.putIfAbsent(record.getOrderNumber(), record); // the first line wins, as in a scan
+        }
+        cache = all;
+        cacheByNumber = byNumber;
+        cacheStamp = stamp;
+    }
+
+    /**
+     * Finds an order in the sealed or archived month whose number range covers it,
+     * else through the order-number index, falling back to a full scan when the
+     * index is unavailable or disagrees with the file.
+     */
+    @Override
+    public synchronized OrderRecord findByNumber(String orderNumber) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(OrderRepository.class, "findByNumber", orderNumber);
+        try {
+            File file = orderFile;
+            if (!file.exists()) return null;
+            OrderRecord sealed = partitions.find(orderNumber);
+            if (sealed != null) return sealed;
+            String archived = archive.find(orderNumber);
+            if (archived != null) return parse(archived);
+            if (cacheIsCurrent()) return cacheByNumber.get(orderNumber);
+            long offset;
+            try {
+                offset = index.lookup(orderNumber);
+            } catch (IOException e) {
+                index.invalidate();
+                return scanForNumber(file, orderNumber);
+            }
+            if (offset < 0) return null;
+            OrderRecord record = readAt(file, offset);
+            if (record != null && record.getOrderNumber().equals(orderNumber)) {
+                return record;
+            }
+            index.invalidate();
+            return scanForNumber(file, orderNumber);
+        } finally {
+            event.finish();
+        }
+    }
+
+    private OrderRecord scanForNumber(File file, String orderNumber) throws IOException {
+        try (BufferedReader reader = RecordFiles.reader(file)) {
             String line;
             while ((line = reader.readLine()) != null) {
                 OrderRecord record = parse(line);
@@ -44,100 +262,306 @@ public class OrderRepository {
         return null;
     }
 
-    public boolean add(OrderRecord record) throws IOException {
-        File file = new File(FilePaths.ORDER);
-        if (!file.exists()) return false;
-        if (findByNumber(record.getOrderNumber()) != null) return false;
-        try (PrintWriter writer = new PrintWriter(new FileWriter(file, true))) {
-            writer.println(toLine(record));
+    @Override
+    public synchronized boolean add(OrderRecord record) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(OrderRepository.class, "add", record.getOrderNumber());
+        try {
+            File file = orderFile;
+            if (!file.exists()) return false;
+            if (findByNumber(record.getOrderNumber()) != null) return false;
+            boolean cached = cacheIsCurrent();
+            long offset = file.length();
+            try (PrintWriter writer = RecordFiles.writer(file, true)) {
+                writer.println(toLine(record));
+            }
+            if (cached) {
+                cache.add(record);
+                cacheByNumber.put(record.getOrderNumber(), record);
+                cacheStamp = FileStamp.of(file);
+            } else {
+                cache = null;
+            }
+            try {
+                index.append(record.getOrderNumber(), offset);
+            } catch (IOException e) {
+                index.invalidate();
+            }
+            changes.publish(OrderRecord.class, ChangeEvent.Kind.INSERT, record.getOrderNumber(), null, record);
+            return true;
+        } finally {
+            event.finish();
         }
-        return true;
     }
 
-    public boolean update(String orderNumber, OrderRecord updatedRecord) throws IOException {
-        File file = new File(FilePaths.ORDER);
-        File tmp = new File(FilePaths.ORDER + OrderConstants.TEMP_FILE_EXTENSION);
-        if (!file.exists()) return false;
-        boolean found = false;
+    @Override
+    public synchronized boolean update(String orderNumber, OrderRecord updatedRecord) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(OrderRepository.class, "update", orderNumber);
+        try {
+            File file = orderFile;
+            File tmp = tmpFile;
+            if (!file.exists()) return false;
+            OrderRecord sealed = partitions.replace(orderNumber, updatedRecord);
+            if (sealed == null) {
+                String archived = archive.replace(orderNumber, toLine(updatedRecord));
+                sealed = archived == null ? null : parse(archived);
+            }
+            if (sealed != null) {
+                changes.publish(OrderRecord.class, ChangeEvent.Kind.UPDATE, orderNumber, sealed, updatedRecord);
+                return true;
+            }
+            boolean found = false;
+            OrderRecord before = null;
+            OrderIndex.Entries entries = new OrderIndex.Entries();
+            long offset = 0;
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(file));
-             PrintWriter writer = new PrintWriter(new FileWriter(tmp))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                OrderRecord record = parse(line);
-                if (record != null && record.getOrderNumber().equals(orderNumber)) {
-                    // Write the updated record instead of the old one
-                    writer.println(toLine(updatedRecord));
-                    found = true;
-                    continue;
+            try (BufferedReader reader = RecordFiles.reader(file);
+                 PrintWriter writer = RecordFiles.writer(tmp, false)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    OrderRecord record = parse(line);
+                    if (record != null && record.getOrderNumber().equals(orderNumber)) {
+                        // Write the updated record instead of the old one
+                        String updatedLine = toLine(updatedRecord);
+                        writer.println(updatedLine);
+                        entries.add(updatedRecord.getOrderNumber(), offset);
+                        offset += lineBytes(updatedLine);
+                        before = record;
+                        found = true;
+                        continue;
+                    }
+                    writer.println(line);
+                    if (record != null) entries.add(record.getOrderNumber(), offset);
+                    offset += lineBytes(line);
                 }
-                writer.println(line);
             }
+
+            if (found) {
+                file.delete();
+                tmp.renameTo(file);
+                reindex(entries);
+                changes.publish(OrderRecord.class, ChangeEvent.Kind.UPDATE, orderNumber, before, updatedRecord);
+            } else {
+                tmp.delete();
+            }
+            return found;
+        } finally {
+            event.finish();
         }
+    }
+
+    @Override
+    public synchronized boolean delete(String orderNumber) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(OrderRepository.class, "delete", orderNumber);
+        try {
+            File file = orderFile;
+            File tmp = tmpFile;
+            if (!file.exists()) return false;
+            OrderRecord sealed = partitions.replace(orderNumber, null);
+            if (sealed == null) {
+                String archived = archive.replace(orderNumber, null);
+                sealed = archived == null ? null : parse(archived);
+            }
+            if (sealed != null) {
+                changes.publish(OrderRecord.class, ChangeEvent.Kind.DELETE, orderNumber, sealed, null);
+                return true;
+            }
+            boolean found = false;
+            OrderRecord before = null;
+            OrderIndex.Entries entries = new OrderIndex.Entries();
+            long offset = 0;
+            try (BufferedReader reader = RecordFiles.reader(file);
+                 PrintWriter writer = RecordFiles.writer(tmp, false)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    OrderRecord record = parse(line);
+                    if (record != null && record.getOrderNumber().equals(orderNumber)) {
+                        before = record;
+                        found = true;
+                        continue;
+                    }
+                    writer.println(line);
+                    if (record != null) entries.add(record.getOrderNumber(), offset);
+                    offset += lineBytes(line);
+                }
+            }
+            if (found) {
+                file.delete();
+                tmp.renameTo(file);
+                reindex(entries);
+                changes.publish(OrderRecord.class, ChangeEvent.Kind.DELETE, orderNumber, before, null);
+            } else {
+                tmp.delete();
+            }
+            return found;
+        } finally {
+            event.finish();
+        }
+    }
 
-        if (found) {
+    /**
+     * Moves every order dated before the given month out of the order file into its
+     * month's sealed partition. The partitions and the manifest are on disk before
+     * the order file is rewritten without those orders. Lines that do not parse or
+     * carry no date stay in the order file.
+     * @return number of orders sealed
+     */
+    @Override
+    public synchronized int sealBefore(YearMonth open) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(OrderRepository.class, "sealBefore", null);
+        try {
+            File file = orderFile;
+            File tmp = tmpFile;
+            if (!file.exists()) return 0;
+            String openMonth = open.toString();
+            Map<String, List<OrderRecord>> byMonth = new TreeMap<>();
+            List<String> kept = new ArrayList<>();
+            int sealed = 0;
+            try (BufferedReader reader = RecordFiles.reader(file)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    OrderRecord record = parse(line);
+                    String month = record == null ? null : OrderPartitions.monthOf(record.getDate());
+                    if (month != null && month.compareTo(openMonth) < 0) {
+                        byMonth.computeIfAbsent(month, m -> new ArrayList<>()).add(record);
+                        sealed++;
+                    } else {
+                        kept.add(line);
+                    }
+                }
+            }
+            if (sealed == 0) return 0;
+            partitions.seal(byMonth);
+
+            OrderIndex.Entries entries = new OrderIndex.Entries();
+            long offset = 0;
+            try (PrintWriter writer = RecordFiles.writer(tmp, false)) {
+                for (String line : kept) {
+                    writer.println(line);
+                    OrderRecord record = parse(line);
+                    if (record != null) entries.add(record.getOrderNumber(), offset);
+                    offset += lineBytes(line);
+                }
+            }
             file.delete();
             tmp.renameTo(file);
-        } else {
-            tmp.delete();
+            reindex(entries);
+            return sealed;
+        } finally {
+            event.finish();
         }
-        return found;
     }
 
-    public boolean delete(String orderNumber) throws IOException {
-        File file = new File(FilePaths.ORDER);
-        File tmp = new File(FilePaths.ORDER + OrderConstants.TEMP_FILE_EXTENSION);
-        if (!file.exists()) return false;
-        boolean found = false;
-        try (BufferedReader reader = new BufferedReader(new FileReader(file));
-             PrintWriter writer = new PrintWriter(new FileWriter(tmp))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                OrderRecord record = parse(line);
-                if (record != null && record.getOrderNumber().equals(orderNumber)) {
-                    found = true;
-                    continue;
+    /**
+     * Moves the sealed months before the given one into the compressed archive,
+     * sealing whatever of them is still in the order file first. Each month's
+     * partition is dropped only once its segment is on disk; running again after an
+     * interruption finishes the job without duplicating anything.
+     * @return numbers of the archived orders by month, for archiving their payments
+     */
+    @Override
+    public synchronized Map<String, Set<String>> archiveBefore(YearMonth cutoff) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(OrderRepository.class, "archiveBefore", null);
+        try {
+            sealBefore(cutoff);
+            Map<String, Set<String>> archived = new TreeMap<>();
+            for (OrderPartitions.Partition p : partitions.list()) {
+                if (p.getMonth().compareTo(cutoff.toString()) >= 0) continue;
+                List<String> lines = new ArrayList<>(p.getCount());
+                Set<String> numbers = new HashSet<>();
+                for (OrderRecord record : partitions.records(p)) {
+                    lines.add(toLine(record));
+                    numbers.add(record.getOrderNumber());
                 }
-                writer.println(line);
+                archive.add(p.getMonth(), lines);
+                partitions.drop(p.getMonth());
+                archived.put(p.getMonth(), numbers);
             }
+            return archived;
+        } finally {
+            event.finish();
         }
-        if (found) {
-            file.delete();
-            tmp.renameTo(file);
-        } else {
-            tmp.delete();
+    }
+
+    /**
+     * Replaces the index with the offsets collected while rewriting the file, so
+     * update and delete keep it current without a second scan.
+     */
+    private void reindex(OrderIndex.Entries entries) {
+        cache = null;
+        try {
+            index.replace(entries);
+        } catch (IOException e) {
+            index.invalidate();
         }
-        return found;
     }
 
-    private OrderRecord parse(String line) {
+    private static long lineBytes(String line) {
+        return line.getBytes(Charset.defaultCharset()).length + LINE_SEPARATOR_BYTES;
+    }
+
+    /** Reads and parses the single line starting at the given byte offset. */
+    private OrderRecord readAt(File file, long offset) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (offset >= raf.length()) return null;
+            raf.seek(offset);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            byte[] buf = new byte[512];
+            int n;
+            outer:
+            while ((n = raf.read(buf)) > 0) {
+                for (int i = 0; i < n; i++) {
+                    if (buf[i] == '\n') {
+                        bytes.write(buf, 0, i);
+                        break outer;
+                    }
+                }
+                bytes.write(buf, 0, n);
+            }
+            String line = new String(bytes.toByteArray(), Charset.defaultCharset());
+            RepositoryEvent.lineRead(bytes.size() + 1);
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            return parse(line);
+        }
+    }
+
+    /** Parses a line of an order file; null when it is damaged or not an order. */
+    static OrderRecord parse(String line) {
+        line = RecordChecksum.verify(line);
+        if (line == null) return null;
         String[] parts = line.split(OrderConstants.FIELD_DELIMITER_REGEX);
         if (parts.length < OrderConstants.MIN_PARTS_LENGTH) return null;
         String number = parts[0];
         String date = parts[1];
         List<OrderLine> lines = new ArrayList<>();
-        for (int i = OrderConstants.ORDER_LINE_START_INDEX; i < parts.length - 1; i += OrderConstants.ORDER_LINE_FIELD_COUNT) {
-            if (i + OrderConstants.ORDER_LINE_FIELD_COUNT - 1 >= parts.length) break;
-            String code = parts[i];
-            int qty = Integer.parseInt(parts[i + 1]);
-            double subtotal = Double.parseDouble(parts[i + 2]);
-            lines.add(new OrderLine(code, qty, subtotal));
+        try {
+            for (int i = OrderConstants.ORDER_LINE_START_INDEX; i < parts.length - 1; i += OrderConstants.ORDER_LINE_FIELD_COUNT) {
+                if (i + OrderConstants.ORDER_LINE_FIELD_COUNT - 1 >= parts.length) break;
+                String code = parts[i];
+                int qty = Integer.parseInt(parts[i + 1]);
+                long subtotal = Money.parse(parts[i + 2]);
+                lines.add(OrderLine.ofSen(code, qty, subtotal));
+            }
+            long total = Money.parse(parts[parts.length - 1]);
+            return OrderRecord.ofSen(number, date, lines, total);
+        } catch (NumberFormatException e) {
+            // a damaged line is skipped like any other unreadable one
+            return null;
         }
-        double total = Double.parseDouble(parts[parts.length - 1]);
-        return new OrderRecord(number, date, lines, total);
     }
 
-    private String toLine(OrderRecord record) {
+    static String toLine(OrderRecord record) {
         StringBuilder sb = new StringBuilder();
         sb.append(record.getOrderNumber()).append(OrderConstants.FIELD_DELIMITER)
           .append(record.getDate()).append(OrderConstants.FIELD_DELIMITER);
         for (OrderLine line : record.getLines()) {
             sb.append(line.getItemCode()).append(OrderConstants.FIELD_DELIMITER)
-              .append(line.getQuantity()).append(OrderConstants.FIELD_DELIMITER)
-              .append(line.getSubtotal()).append(OrderConstants.FIELD_DELIMITER);
+              .append(line.getQuantity()).append(OrderConstants.FIELD_DELIMITER);
+            Money.append(sb, line.getSubtotalSen()).append(OrderConstants.FIELD_DELIMITER);
         }
-        sb.append(record.getTotal());
-        return sb.toString();
+        Money.append(sb, record.getTotalSen());
+        return RecordChecksum.append(sb.toString());
     }
 }
 
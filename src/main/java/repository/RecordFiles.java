@@ -0,0 +1,66 @@
+package main.java.repository;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+import main.java.jfr.RepositoryEvent;
+
+/**
+ * Readers and writers for the data files that count the lines they pass to the
+ * {@link RepositoryEvent} of the repository call in progress. Bytes are counted
+ * as characters plus the line separator, which is exact for the ASCII records
+ * the files hold.
+ */
+final class RecordFiles {
+    private static final int LINE_SEPARATOR_LENGTH = System.lineSeparator().length();
+
+    private RecordFiles() {}
+
+    static BufferedReader reader(File file) throws IOException {
+        return new CountingReader(new FileReader(file));
+    }
+
+    /** Reads from a stream already positioned, e.g. past a checkpointed prefix. */
+    static BufferedReader reader(InputStream in) {
+        return new CountingReader(new InputStreamReader(in, Charset.defaultCharset()));
+    }
+
+    static PrintWriter writer(File file, boolean append) throws IOException {
+        return new CountingWriter(new FileWriter(file, append));
+    }
+
+    private static final class CountingReader extends BufferedReader {
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public String readLine() throws IOException {
+            String line = super.readLine();
+            if (line != null) {
+                RepositoryEvent.lineRead(line.length() + LINE_SEPARATOR_LENGTH);
+            }
+            return line;
+        }
+    }
+
+    private static final class CountingWriter extends PrintWriter {
+        CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void println(String line) {
+            super.println(line);
+            RepositoryEvent.lineWritten(line.length() + LINE_SEPARATOR_LENGTH);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package main.java.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import main.java.model.Address;
+import main.java.model.Name;
+import main.java.model.Staff;
+import main.java.storage.StaffQuery;
+
+/**
+ * In-memory directory of staff for looking people up by something other than
+ * their ID.
+ *
+ * Every staff member gets an internal number, handed out in increasing order,
+ * and each searchable value keeps the sorted numbers of the staff having it:
+ * first and last names in sorted maps so a prefix is one sub-map, phone
+ * numbers by their digits, positions, regions and states case-insensitively.
+ * A query with several conditions intersects those lists, smallest first.
+ */
+public class StaffDirectory {
+
+    /** Sorted internal numbers of the staff sharing one value. */
+    private static class Postings {
+        int[] ids = new int[2];
+        int size;
+
+        void append(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        void remove(int id) {
+            int i = Arrays.binarySearch(ids, 0, size, id);
+            if (i >= 0) {
+                System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+                size--;
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+
+    /** The indexed values; names are sorted for prefix lookups. */
+    private enum Field {
+        FIRST_NAME(true, s -> StaffQuery.key(s.getname().getFirstName())),
+        LAST_NAME(true, s -> StaffQuery.key(s.getname().getLastName())),
+        PHONE(false, s -> StaffQuery.digits(s.getphoneNo())),
+        POSITION(false, s -> StaffQuery.key(s.getStaffPosition())),
+        REGION(false, s -> StaffQuery.key(s.getaddress().getregion())),
+        STATE(false, s -> StaffQuery.key(s.getaddress().getstate()));
+
+        final boolean sorted;
+        final Function<Staff, String> value;
+
+        Field(boolean sorted, Function<Staff, String> value) {
+            this.sorted = sorted;
+            this.value = value;
+        }
+    }
+
+    private static final int[] NONE = new int[0];
+    /** Freed numbers tolerated before renumbering, so a small directory is not rebuilt on every change. */
+    private static final int MIN_COMPACT_FREED = 16;
+
+    private final Map<String, Integer> idByStaffId = new HashMap<>();
+    private final List<Staff> byId = new ArrayList<>();
+    private final Map<Field, Map<String, Postings>> indexes = new EnumMap<>(Field.class);
+
+    public StaffDirectory() {
+        for (Field field : Field.values()) {
+            indexes.put(field, field.sorted ? new TreeMap<>() : new HashMap<>());
+        }
+    }
+
+    public static StaffDirectory of(List<Staff> all) {
+        StaffDirectory directory = new StaffDirectory();
+        for (Staff s : all) {
+            directory.put(s);
+        }
+        return directory;
+    }
+
+    /** Adds a staff member, replacing any entry with the same ID. The directory keeps its own copy. */
+    public void put(Staff staff) {
+        remove(staff.getStaffId());
+        index(copyOf(staff));
+    }
+
+    private void index(Staff s) {
+        int id = byId.size();
+        byId.add(s);
+        idByStaffId.put(s.getStaffId(), id);
+        for (Field field : Field.values()) {
+            indexes.get(field).computeIfAbsent(field.value.apply(s), k -> new Postings()).append(id);
+        }
+    }
+
+    /**
+     * Removes a staff member. The internal number is not reused, since numbers
+     * give the order results come back in; once freed numbers outnumber the
+     * staff still listed, everyone is renumbered in order instead.
+     */
+    public void remove(String staffId) {
+        Integer id = idByStaffId.remove(staffId);
+        if (id == null) {
+            return;
+        }
+        Staff s = byId.get(id);
+        for (Field field : Field.values()) {
+            Map<String, Postings> index = indexes.get(field);
+            String value = field.value.apply(s);
+            Postings p = index.get(value);
+            p.remove(id);
+            if (p.size == 0) {
+                index.remove(value);
+            }
+        }
+        byId.set(id, null);
+        if (byId.size() - idByStaffId.size() > Math.max(idByStaffId.size(), MIN_COMPACT_FREED)) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        List<Staff> live = new ArrayList<>(idByStaffId.size());
+        for (Staff s : byId) {
+            if (s != null) {
+                live.add(s);
+            }
+        }
+        byId.clear();
+        idByStaffId.clear();
+        for (Map<String, Postings> index : indexes.values()) {
+            index.clear();
+        }
+        for (Staff s : live) {
+            index(s);
+        }
+    }
+
+    public int size() {
+        return idByStaffId.size();
+    }
+
+    /** Staff meeting every condition of the query, in the order they were added; copies. */
+    public List<Staff> find(StaffQuery query) {
+        List<int[]> lists = new ArrayList<>();
+        for (String prefix : query.getNames()) {
+            lists.add(union(prefixed(Field.FIRST_NAME, prefix), prefixed(Field.LAST_NAME, prefix)));
+        }
+        for (String prefix : query.getFirstNames()) lists.add(prefixed(Field.FIRST_NAME, prefix));
+        for (String prefix : query.getLastNames()) lists.add(prefixed(Field.LAST_NAME, prefix));
+        for (String phone : query.getPhones()) lists.add(exact(Field.PHONE, phone));
+        for (String position : query.getPositions()) lists.add(exact(Field.POSITION, position));
+        for (String region : query.getRegions()) lists.add(exact(Field.REGION, region));
+        for (String state : query.getStates()) lists.add(exact(Field.STATE, state));
+
+        List<Staff> found = new ArrayList<>();
+        if (lists.isEmpty()) {
+            return found;
+        }
+        lists.sort(Comparator.comparingInt(a -> a.length));
+        int[] ids = lists.get(0);
+        for (int i = 1; i < lists.size() && ids.length > 0; i++) {
+            ids = intersect(ids, lists.get(i));
+        }
+        for (int id : ids) {
+            found.add(copyOf(byId.get(id)));
+        }
+        return found;
+    }
+
+    private int[] exact(Field field, String value) {
+        Postings p = indexes.get(field).get(value);
+        return p == null ? NONE : p.toArray();
+    }
+
+    /** Every id under a key starting with the prefix, merged into one sorted list. */
+    private int[] prefixed(Field field, String prefix) {
+        NavigableMap<String, Postings> index = (NavigableMap<String, Postings>) indexes.get(field);
+        int[] ids = NONE;
+        for (Postings p : index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            ids = union(ids, p.toArray());
+        }
+        return ids;
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            int next = j == b.length || (i < a.length && a[i] <= b[j]) ? a[i] : b[j];
+            if (i < a.length && a[i] == next) i++;
+            if (j < b.length && b[j] == next) j++;
+            out[n++] = next;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Ids in both sorted lists. Walks the shorter one and gallops through the
+     * longer, so a rare value against a common one costs the rare list's length
+     * times a logarithm rather than both lengths.
+     */
+    static int[] intersect(int[] small, int[] large) {
+        int[] out = new int[Math.min(small.length, large.length)];
+        int n = 0;
+        int from = 0;
+        for (int id : small) {
+            int step = 1;
+            int to = from;
+            while (to < large.length && large[to] < id) {
+                from = to;
+                to += step;
+                step <<= 1;
+            }
+            int i = Arrays.binarySearch(large, from, Math.min(to + 1, large.length), id);
+            if (i >= 0) {
+                out[n++] = id;
+                from = i + 1;
+            } else {
+                from = -i - 1;
+            }
+            if (from >= large.length) {
+                break;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static Staff copyOf(Staff s) {
+        Address a = s.getaddress();
+        return new Staff(s.getStaffId(), s.getpassword(),
+                new Name(s.getname().getFirstName(), s.getname().getLastName()), s.getphoneNo(), s.getStaffPosition(),
+                new Address(a.getstreet(), a.getpostcode(), a.getregion(), a.getstate()));
+    }
+}
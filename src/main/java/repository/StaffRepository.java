@@ -1,8 +1,6 @@
 package main.java.repository;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
@@ -11,32 +9,135 @@ import java.util.regex.Pattern;
 import main.java.model.Staff;
 import main.java.model.Name;
 import main.java.model.Address;
+import main.java.branch.Branch;
 import main.java.config.FilePaths;
 import main.java.config.StaffConstants;
+import main.java.events.ChangeBus;
+import main.java.events.ChangeEvent;
+import main.java.jfr.RepositoryEvent;
 import main.java.util.PasswordUtil;
+import main.java.util.RecordChecksum;
+import main.java.storage.Primeable;
+import main.java.storage.StaffQuery;
+import main.java.storage.StaffStore;
 
-public class StaffRepository {
+public class StaffRepository implements StaffStore, Primeable<List<Staff>> {
+    private final File staffPath;
+    private final File tmpPath;
+    // parsed file once findAll or a checkpoint has loaded it; handed out as copies since Staff is mutable
+    private List<Staff> cache;
+    private FileStamp cacheStamp = FileStamp.MISSING;
+    // name, phone, position and address indexes; carried forward by add, update and delete
+    private StaffDirectory directory;
+    private FileStamp directoryStamp = FileStamp.MISSING;
+    private final ChangeBus changes;
+
+    public StaffRepository() {
+        this(Branch.DEFAULT);
+    }
+
+    public StaffRepository(Branch branch) {
+        this(branch, new ChangeBus());
+    }
+
+    /** @param changes bus that every add, update and delete is published on */
+    public StaffRepository(Branch branch, ChangeBus changes) {
+        this.changes = changes;
+        this.staffPath = branch.file(FilePaths.STAFF);
+        this.tmpPath = branch.file(FilePaths.STAFF_TMP);
+    }
 
     /**
      * Loads every staff record from the staff file.
      * @return list of parsed staff entries; empty if file missing
      */
-    public List<Staff> findAll() throws IOException {
-        List<Staff> staffList = new ArrayList<>();
-        File staffFile = new File(FilePaths.STAFF);
-        if (!staffFile.exists()) {
+    @Override
+    public synchronized List<Staff> findAll() throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(StaffRepository.class, "findAll", null);
+        try {
+            List<Staff> staffList = new ArrayList<>();
+            File staffFile = staffPath;
+            if (!staffFile.exists()) {
+                return staffList;
+            }
+            if (!cacheIsCurrent()) {
+                FileStamp stamp = FileStamp.of(staffFile);
+                List<Staff> parsed = new ArrayList<>();
+                try (BufferedReader reader = RecordFiles.reader(staffFile)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        Staff staff = parseStaffLine(line);
+                        if (staff != null) {
+                            parsed.add(staff);
+                        }
+                    }
+                }
+                cache = parsed;
+                cacheStamp = stamp;
+            }
+            for (Staff staff : cache) {
+                staffList.add(copyOf(staff));
+            }
             return staffList;
+        } finally {
+            event.finish();
         }
-        try (BufferedReader reader = new BufferedReader(new FileReader(staffFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Staff staff = parseStaffLine(line);
-                if (staff != null) {
-                    staffList.add(staff);
-                }
+    }
+
+    /**
+     * Seeds the in-memory copy from a checkpoint, provided the staff file still
+     * has the length and time it had when the checkpoint was taken.
+     * @return 0 when the checkpoint was used, -1 when the file has changed
+     */
+    @Override
+    public synchronized int prime(List<Staff> checkpoint, long length, long modified) {
+        RepositoryEvent event = RepositoryEvent.start(StaffRepository.class, "prime", null);
+        try {
+            FileStamp stamp = new FileStamp(length, modified);
+            if (!stamp.equals(FileStamp.of(staffPath))) {
+                return -1;
+            }
+            cache = new ArrayList<>(checkpoint);
+            cacheStamp = stamp;
+            return 0;
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Staff matching every condition of the query, e.g. a name prefix together
+     * with a position. Answered from the in-memory directory, which is rebuilt
+     * only when the staff file changed outside this repository.
+     */
+    @Override
+    public synchronized List<Staff> search(StaffQuery query) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(StaffRepository.class, "search", null);
+        try {
+            if (!directoryIsCurrent()) {
+                FileStamp stamp = FileStamp.of(staffPath);
+                directory = StaffDirectory.of(findAll());
+                directoryStamp = stamp;
             }
+            return directory.find(query);
+        } finally {
+            event.finish();
         }
-        return staffList;
+    }
+
+    private boolean directoryIsCurrent() {
+        return directory != null && FileStamp.of(staffPath).equals(directoryStamp);
+    }
+
+    private boolean cacheIsCurrent() {
+        return cache != null && FileStamp.of(staffPath).equals(cacheStamp);
+    }
+
+    private static Staff copyOf(Staff s) {
+        Address a = s.getaddress();
+        return new Staff(s.getStaffId(), s.getpassword(),
+                new Name(s.getname().getFirstName(), s.getname().getLastName()), s.getphoneNo(), s.getStaffPosition(),
+                new Address(a.getstreet(), a.getpostcode(), a.getregion(), a.getstate()));
     }
 
     /**
@@ -44,21 +145,35 @@ public class StaffRepository {
      * @param staffId ID to search for
      * @return staff if found; otherwise null
      */
-    public Staff findById(String staffId) throws IOException {
-        File staffFile = new File(FilePaths.STAFF);
-        if (!staffFile.exists()) {
-            return null;
-        }
-        try (BufferedReader reader = new BufferedReader(new FileReader(staffFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Staff staff = parseStaffLine(line);
-                if (staff != null && staff.getStaffId().equals(staffId)) {
-                    return staff;
+    @Override
+    public synchronized Staff findById(String staffId) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(StaffRepository.class, "findById", staffId);
+        try {
+            File staffFile = staffPath;
+            if (!staffFile.exists()) {
+                return null;
+            }
+            if (cacheIsCurrent()) {
+                for (Staff staff : cache) {
+                    if (staff.getStaffId().equals(staffId)) {
+                        return copyOf(staff);
+                    }
+                }
+                return null;
+            }
+            try (BufferedReader reader = RecordFiles.reader(staffFile)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Staff staff = parseStaffLine(line);
+                    if (staff != null && staff.getStaffId().equals(staffId)) {
+                        return staff;
+                    }
                 }
             }
+            return null;
+        } finally {
+            event.finish();
         }
-        return null;
     }
 
     /**
@@ -67,31 +182,46 @@ public class StaffRepository {
      * @param staff staff entity to add
      * @return true when added; false for missing file or duplicate ID
      */
-    public boolean add(Staff staff) throws IOException {
-        File staffFile = new File(FilePaths.STAFF);
-        if (!staffFile.exists()) {
-            return false;
-        }
-        if (findById(staff.getStaffId()) != null) {
-            return false;
-        }
-        Staff staffToSave = staff;
-        String password = staff.getpassword();
-        if (password != null && !PasswordUtil.isHashed(password)) {
-            String hashedPassword = PasswordUtil.hashPassword(password);
-            staffToSave = new Staff(
-                staff.getStaffId(),
-                hashedPassword,
-                staff.getname(),
-                staff.getphoneNo(),
-                staff.getStaffPosition(),
-                staff.getaddress()
-            );
-        }
-        try (PrintWriter writer = new PrintWriter(new FileWriter(staffFile, true))) {
-            writer.println(toLine(staffToSave));
+    @Override
+    public synchronized boolean add(Staff staff) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(StaffRepository.class, "add", staff.getStaffId());
+        try {
+            File staffFile = staffPath;
+            if (!staffFile.exists()) {
+                return false;
+            }
+            if (findById(staff.getStaffId()) != null) {
+                return false;
+            }
+            Staff staffToSave = staff;
+            String password = staff.getpassword();
+            if (password != null && !PasswordUtil.isHashed(password)) {
+                String hashedPassword = PasswordUtil.hashPassword(password);
+                staffToSave = new Staff(
+                    staff.getStaffId(),
+                    hashedPassword,
+                    staff.getname(),
+                    staff.getphoneNo(),
+                    staff.getStaffPosition(),
+                    staff.getaddress()
+                );
+            }
+            boolean indexed = directoryIsCurrent();
+            try (PrintWriter writer = RecordFiles.writer(staffFile, true)) {
+                writer.println(toLine(staffToSave));
+            }
+            cache = null;
+            if (indexed) {
+                directory.put(staffToSave);
+                directoryStamp = FileStamp.of(staffFile);
+            } else {
+                directory = null;
+            }
+            changes.publish(Staff.class, ChangeEvent.Kind.INSERT, staffToSave.getStaffId(), null, copyOf(staffToSave));
+            return true;
+        } finally {
+            event.finish();
         }
-        return true;
     }
 
     /**
@@ -101,46 +231,64 @@ public class StaffRepository {
      * @param updated new staff data to write
      * @return true when the record is found and replaced
      */
-    public boolean update(String id, Staff updated) throws IOException {
-        File staffFile = new File(FilePaths.STAFF);
-        File newFile = new File(FilePaths.STAFF_TMP);
-        if (!staffFile.exists()) {
-            return false;
-        }
-        Staff staffToSave = updated;
-        String password = updated.getpassword();
-        if (password != null && !PasswordUtil.isHashed(password)) {
-            String hashedPassword = PasswordUtil.hashPassword(password);
-            staffToSave = new Staff(
-                updated.getStaffId(),
-                hashedPassword,
-                updated.getname(),
-                updated.getphoneNo(),
-                updated.getStaffPosition(),
-                updated.getaddress()
-            );
-        }
-        boolean found = false;
-        try (BufferedReader reader = new BufferedReader(new FileReader(staffFile));
-             PrintWriter writer = new PrintWriter(new FileWriter(newFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Staff staff = parseStaffLine(line);
-                if (staff != null && staff.getStaffId().equals(id)) {
-                    writer.println(toLine(staffToSave));
-                    found = true;
+    @Override
+    public synchronized boolean update(String id, Staff updated) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(StaffRepository.class, "update", id);
+        try {
+            File staffFile = staffPath;
+            File newFile = tmpPath;
+            if (!staffFile.exists()) {
+                return false;
+            }
+            Staff staffToSave = updated;
+            String password = updated.getpassword();
+            if (password != null && !PasswordUtil.isHashed(password)) {
+                String hashedPassword = PasswordUtil.hashPassword(password);
+                staffToSave = new Staff(
+                    updated.getStaffId(),
+                    hashedPassword,
+                    updated.getname(),
+                    updated.getphoneNo(),
+                    updated.getStaffPosition(),
+                    updated.getaddress()
+                );
+            }
+            boolean found = false;
+            boolean indexed = directoryIsCurrent();
+            Staff before = null;
+            try (BufferedReader reader = RecordFiles.reader(staffFile);
+                 PrintWriter writer = RecordFiles.writer(newFile, false)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Staff staff = parseStaffLine(line);
+                    if (staff != null && staff.getStaffId().equals(id)) {
+                        writer.println(toLine(staffToSave));
+                        before = staff;
+                        found = true;
+                    } else {
+                        writer.println(line);
+                    }
+                }
+            }
+            if (found) {
+                staffFile.delete();
+                newFile.renameTo(staffFile);
+                cache = null;
+                if (indexed) {
+                    directory.remove(id);
+                    directory.put(staffToSave);
+                    directoryStamp = FileStamp.of(staffFile);
                 } else {
-                    writer.println(line);
+                    directory = null;
                 }
+                changes.publish(Staff.class, ChangeEvent.Kind.UPDATE, id, before, copyOf(staffToSave));
+            } else {
+                newFile.delete();
             }
+            return found;
+        } finally {
+            event.finish();
         }
-        if (found) {
-            staffFile.delete();
-            newFile.renameTo(staffFile);
-        } else {
-            newFile.delete();
-        }
-        return found;
     }
 
     /**
@@ -148,58 +296,91 @@ public class StaffRepository {
      * @param staffId ID to delete
      * @return true when a record is removed
      */
-    public boolean delete(String staffId) throws IOException {
-        File staffFile = new File(FilePaths.STAFF);
-        File newFile = new File(FilePaths.STAFF_TMP);
-        if (!staffFile.exists()) {
-            return false;
-        }
-        boolean found = false;
-        try (BufferedReader reader = new BufferedReader(new FileReader(staffFile));
-             PrintWriter writer = new PrintWriter(new FileWriter(newFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Staff staff = parseStaffLine(line);
-                if (staff != null && staff.getStaffId().equals(staffId)) {
-                    found = true;
-                    continue;
+    @Override
+    public synchronized boolean delete(String staffId) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(StaffRepository.class, "delete", staffId);
+        try {
+            File staffFile = staffPath;
+            File newFile = tmpPath;
+            if (!staffFile.exists()) {
+                return false;
+            }
+            boolean found = false;
+            boolean indexed = directoryIsCurrent();
+            Staff before = null;
+            try (BufferedReader reader = RecordFiles.reader(staffFile);
+                 PrintWriter writer = RecordFiles.writer(newFile, false)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Staff staff = parseStaffLine(line);
+                    if (staff != null && staff.getStaffId().equals(staffId)) {
+                        before = staff;
+                        found = true;
+                        continue;
+                    }
+                    writer.println(line);
                 }
-                writer.println(line);
             }
+            if (found) {
+                staffFile.delete();
+                newFile.renameTo(staffFile);
+                cache = null;
+                if (indexed) {
+                    directory.remove(staffId);
+                    directoryStamp = FileStamp.of(staffFile);
+                } else {
+                    directory = null;
+                }
+                changes.publish(Staff.class, ChangeEvent.Kind.DELETE, staffId, before, null);
+            } else {
+                newFile.delete();
+            }
+            return found;
+        } finally {
+            event.finish();
         }
-        if (found) {
-            staffFile.delete();
-            newFile.renameTo(staffFile);
-        } else {
-            newFile.delete();
-        }
-        return found;
     }
 
     /**
      * Verifies login credentials by comparing stored password.
-     * Supports both hashed and plain text passwords for backward compatibility.
+     * Supports both hashed and plain text passwords for backward compatibility;
+     * a match against a legacy entry replaces it with a salted hash.
      * @param id staff ID
      * @param password plain text password to verify
      * @return staff when credentials match; otherwise null
      */
+    @Override
     public Staff validateCredentials(String id, String password) throws IOException {
-        Staff staff = findById(id);
-        if (staff != null) {
-            String storedPassword = staff.getpassword();
-            if (PasswordUtil.verifyPassword(password, storedPassword)) {
-                return staff;
+        RepositoryEvent event = RepositoryEvent.start(StaffRepository.class, "validateCredentials", id);
+        try {
+            Staff staff = findById(id);
+            if (staff != null) {
+                String storedPassword = staff.getpassword();
+                if (PasswordUtil.verifyPassword(password, storedPassword)) {
+                    if (PasswordUtil.needsRehash(storedPassword) && !password.isEmpty()) {
+                        // legacy or marked entry: now that the plain text is known, store it salted
+                        staff.setpassword(PasswordUtil.hashPassword(password));
+                        update(id, staff);
+                    }
+                    return staff;
+                }
             }
+            return null;
+        } finally {
+            event.finish();
         }
-        return null;
     }
 
     /**
      * Converts a file line into a Staff object when the field count matches.
      * @param line raw line from the staff file
-     * @return parsed staff or null when the line is invalid
+     * @return parsed staff or null when the line is invalid or fails its checksum
      */
-    private Staff parseStaffLine(String line) {
+    static Staff parseStaffLine(String line) {
+        line = RecordChecksum.verify(line);
+        if (line == null) {
+            return null;
+        }
         String[] info = line.split(Pattern.quote(StaffConstants.FIELD_DELIMITER));
         if (info.length >= StaffConstants.REQUIRED_FIELD_COUNT) {
             return new Staff(
@@ -220,12 +401,13 @@ public class StaffRepository {
     }
 
     /**
-     * Serialises a staff entity into a file line using the configured delimiter.
+     * Serialises a staff entity into a file line using the configured delimiter,
+     * followed by its checksum.
      * @param staff staff to serialise
      * @return delimited string representation
      */
-    private String toLine(Staff staff) {
-        return staff.getStaffId() + StaffConstants.FIELD_DELIMITER +
+    static String toLine(Staff staff) {
+        return RecordChecksum.append(staff.getStaffId() + StaffConstants.FIELD_DELIMITER +
                 staff.getpassword() + StaffConstants.FIELD_DELIMITER +
                 staff.getname().getFirstName() + StaffConstants.FIELD_DELIMITER +
                 staff.getname().getLastName() + StaffConstants.FIELD_DELIMITER +
@@ -234,7 +416,7 @@ public class StaffRepository {
                 staff.getaddress().getstreet() + StaffConstants.FIELD_DELIMITER +
                 staff.getaddress().getpostcode() + StaffConstants.FIELD_DELIMITER +
                 staff.getaddress().getregion() + StaffConstants.FIELD_DELIMITER +
-                staff.getaddress().getstate();
+                staff.getaddress().getstate());
     }
 }
 
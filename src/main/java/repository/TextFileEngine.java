@@ -0,0 +1,53 @@
+package main.java.repository;
+
+import java.io.IOException;
+
+import main.java.analytics.SalesAnalytics;
+import main.java.analytics.SalesReport;
+import main.java.branch.Branch;
+import main.java.events.ChangeBus;
+import main.java.storage.ItemStore;
+import main.java.storage.OrderStore;
+import main.java.storage.StaffStore;
+import main.java.storage.StorageEngine;
+import main.java.storage.TransactionStore;
+
+/**
+ * The default engine: one text file per store in the branch's directory, named
+ * by {@code FilePaths}, with the caches, indexes and checkpoints the
+ * repositories keep on top of them.
+ */
+public final class TextFileEngine implements StorageEngine {
+    public static final String NAME = "text";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public ItemStore openItems(Branch branch, ChangeBus changes) {
+        return new ItemRepository(branch, changes);
+    }
+
+    @Override
+    public OrderStore openOrders(Branch branch, ChangeBus changes) {
+        return new OrderRepository(branch, changes);
+    }
+
+    @Override
+    public TransactionStore openTransactions(Branch branch, ChangeBus changes) {
+        return new TransactionRepository(branch, changes);
+    }
+
+    @Override
+    public StaffStore openStaff(Branch branch, ChangeBus changes) {
+        return new StaffRepository(branch, changes);
+    }
+
+    /** Scans the order files directly rather than parsing every record into the store. */
+    @Override
+    public SalesReport analyzeSales(Branch branch, OrderStore orders, int parallelism) throws IOException {
+        return new SalesAnalytics(branch, parallelism).analyze();
+    }
+}
@@ -1,94 +1,299 @@
 package main.java.repository;
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import main.java.analytics.TransactionStatistics;
+import main.java.archive.Archive;
+import main.java.branch.Branch;
+import main.java.events.ChangeBus;
+import main.java.events.ChangeEvent;
+import main.java.jfr.RepositoryEvent;
 import main.java.model.TransactionRecord;
+import main.java.util.Money;
+import main.java.util.RecordChecksum;
 import main.java.config.FilePaths;
+import main.java.storage.Primeable;
+import main.java.storage.TransactionStore;
+
+public class TransactionRepository implements TransactionStore, Primeable<TransactionStatistics> {
+    private final File transactionFile;
+    private final File tmpFile;
+    private TransactionStatistics statistics;
+    private FileStamp statisticsStamp = FileStamp.MISSING;
+    private final ChangeBus changes;
+    // payments of archived orders, compressed; see archive
+    private final Archive archive;
+
+    public TransactionRepository() {
+        this(Branch.DEFAULT);
+    }
 
-public class TransactionRepository {
+    public TransactionRepository(Branch branch) {
+        this(branch, new ChangeBus());
+    }
 
-    public boolean add(TransactionRecord record) throws IOException {
-        File file = new File(FilePaths.TRANSACTION);
-        if (!file.exists()) return false;
-        try (PrintWriter writer = new PrintWriter(new FileWriter(file, true))) {
-            writer.println(toLine(record));
+    /** @param changes bus that every add and delete is published on */
+    public TransactionRepository(Branch branch, ChangeBus changes) {
+        this.changes = changes;
+        this.transactionFile = branch.file(FilePaths.TRANSACTION);
+        this.tmpFile = branch.file(FilePaths.TRANSACTION + ".tmp");
+        this.archive = new Archive(branch.file(FilePaths.ARCHIVE), "transactions");
+    }
+
+    @Override
+    public synchronized boolean add(TransactionRecord record) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(TransactionRepository.class, "add", record.getOrderNumber());
+        try {
+            File file = transactionFile;
+            if (!file.exists()) return false;
+            boolean current = statistics != null && FileStamp.of(file).equals(statisticsStamp);
+            try (PrintWriter writer = RecordFiles.writer(file, true)) {
+                writer.println(toLine(record));
+            }
+            if (current) {
+                statistics.add(record);
+                statisticsStamp = FileStamp.of(file);
+            } else {
+                statistics = null;
+            }
+            changes.publish(TransactionRecord.class, ChangeEvent.Kind.INSERT, record.getOrderNumber(), null, record);
+            return true;
+        } finally {
+            event.finish();
         }
-        return true;
     }
 
-    public TransactionRecord findByOrder(String orderNumber) throws IOException {
-        File file = new File(FilePaths.TRANSACTION);
-        if (!file.exists()) return null;
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                TransactionRecord r = parse(line);
-                if (r != null && r.getOrderNumber().equals(orderNumber)) {
-                    return r;
+    /**
+     * Counts and revenue per payment method. Kept in memory and carried forward
+     * by {@link #add}; the file is only read again when it changed some other way.
+     */
+    @Override
+    public synchronized TransactionStatistics statistics() throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(TransactionRepository.class, "statistics", null);
+        try {
+            FileStamp current = FileStamp.of(transactionFile);
+            if (statistics == null || !current.equals(statisticsStamp)) {
+                statistics = TransactionStatistics.of(findAll());
+                statisticsStamp = current;
+            }
+            return statistics.copy();
+        } finally {
+            event.finish();
+        }
+    }
+
+    /**
+     * Seeds the statistics from a checkpoint taken when the file was {@code offset}
+     * bytes long, reading only the records appended after that. The caller vouches
+     * that the first {@code offset} bytes have not changed since.
+     * @return number of appended records replayed
+     */
+    @Override
+    public synchronized int prime(TransactionStatistics checkpoint, long offset, long modified) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(TransactionRepository.class, "prime", null);
+        try {
+            File file = transactionFile;
+            FileStamp stamp = FileStamp.of(file);
+            TransactionStatistics stats = checkpoint.copy();
+            int replayed = 0;
+            try (FileInputStream in = new FileInputStream(file)) {
+                in.getChannel().position(offset);
+                BufferedReader reader = RecordFiles.reader(in);
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    TransactionRecord r = parse(line);
+                    if (r != null) {
+                        stats.add(r);
+                        replayed++;
+                    }
+                }
+            }
+            statistics = stats;
+            statisticsStamp = stamp;
+            return replayed;
+        } finally {
+            event.finish();
+        }
+    }
+
+    /** Looks in the archived months whose order numbers cover the order, then scans the file. */
+    @Override
+    public synchronized TransactionRecord findByOrder(String orderNumber) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(TransactionRepository.class, "findByOrder", orderNumber);
+        try {
+            File file = transactionFile;
+            if (!file.exists()) return null;
+            String archived = archive.find(orderNumber);
+            if (archived != null) return parse(archived);
+            try (BufferedReader reader = RecordFiles.reader(file)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    TransactionRecord r = parse(line);
+                    if (r != null && r.getOrderNumber().equals(orderNumber)) {
+                        return r;
+                    }
                 }
             }
+            return null;
+        } finally {
+            event.finish();
         }
-        return null;
     }
 
-    public java.util.List<TransactionRecord> findAll() throws IOException {
-        java.util.List<TransactionRecord> list = new java.util.ArrayList<>();
-        File file = new File(FilePaths.TRANSACTION);
-        if (!file.exists()) return list;
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
+    @Override
+    public synchronized java.util.List<TransactionRecord> findAll() throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(TransactionRepository.class, "findAll", null);
+        try {
+            java.util.List<TransactionRecord> list = new java.util.ArrayList<>();
+            File file = transactionFile;
+            if (!file.exists()) return list;
+            for (String line : archive.readAll()) {
                 TransactionRecord r = parse(line);
                 if (r != null) list.add(r);
             }
+            try (BufferedReader reader = RecordFiles.reader(file)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    TransactionRecord r = parse(line);
+                    if (r != null) list.add(r);
+                }
+            }
+            return list;
+        } finally {
+            event.finish();
         }
-        return list;
     }
 
-    public boolean delete(String orderNumber) throws IOException {
-        File file = new File(FilePaths.TRANSACTION);
-        File tmp = new File(FilePaths.TRANSACTION + ".tmp");
-        if (!file.exists()) return false;
-        boolean found = false;
-        try (BufferedReader reader = new BufferedReader(new FileReader(file));
-             PrintWriter writer = new PrintWriter(new FileWriter(tmp))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                TransactionRecord r = parse(line);
-                if (r != null && r.getOrderNumber().equals(orderNumber)) {
-                    found = true;
-                    continue;
+    @Override
+    public synchronized boolean delete(String orderNumber) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(TransactionRepository.class, "delete", orderNumber);
+        try {
+            File file = transactionFile;
+            File tmp = tmpFile;
+            if (!file.exists()) return false;
+            String archived = archive.replace(orderNumber, null);
+            if (archived != null) {
+                statistics = null;
+                changes.publish(TransactionRecord.class, ChangeEvent.Kind.DELETE, orderNumber, parse(archived), null);
+                return true;
+            }
+            boolean found = false;
+            TransactionRecord before = null;
+            try (BufferedReader reader = RecordFiles.reader(file);
+                 PrintWriter writer = RecordFiles.writer(tmp, false)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    TransactionRecord r = parse(line);
+                    if (r != null && r.getOrderNumber().equals(orderNumber)) {
+                        before = r;
+                        found = true;
+                        continue;
+                    }
+                    writer.println(line);
                 }
-                writer.println(line);
             }
+            if (found) {
+                file.delete();
+                tmp.renameTo(file);
+                statistics = null;
+                changes.publish(TransactionRecord.class, ChangeEvent.Kind.DELETE, orderNumber, before, null);
+            } else {
+                tmp.delete();
+            }
+            return found;
+        } finally {
+            event.finish();
         }
-        if (found) {
+    }
+
+    /**
+     * Moves the payments of archived orders into the archive under their orders'
+     * months and rewrites the file without them. The file shrinks only once every
+     * segment is on disk.
+     * @param orders order numbers by month, as returned by {@code OrderRepository.archiveBefore}
+     * @return number of payments archived
+     */
+    @Override
+    public synchronized int archive(Map<String, Set<String>> orders) throws IOException {
+        RepositoryEvent event = RepositoryEvent.start(TransactionRepository.class, "archive", null);
+        try {
+            File file = transactionFile;
+            File tmp = tmpFile;
+            if (!file.exists() || orders.isEmpty()) return 0;
+            Map<String, String> monthOf = new HashMap<>();
+            for (Map.Entry<String, Set<String>> e : orders.entrySet()) {
+                for (String number : e.getValue()) monthOf.put(number, e.getKey());
+            }
+            Map<String, java.util.List<String>> byMonth = new TreeMap<>();
+            java.util.List<String> kept = new java.util.ArrayList<>();
+            int archived = 0;
+            try (BufferedReader reader = RecordFiles.reader(file)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    TransactionRecord r = parse(line);
+                    String month = r == null ? null : monthOf.get(r.getOrderNumber());
+                    if (month != null) {
+                        byMonth.computeIfAbsent(month, m -> new java.util.ArrayList<>()).add(line);
+                        archived++;
+                    } else {
+                        kept.add(line);
+                    }
+                }
+            }
+            if (archived == 0) return 0;
+            for (Map.Entry<String, java.util.List<String>> e : byMonth.entrySet()) {
+                archive.add(e.getKey(), e.getValue());
+            }
+            try (PrintWriter writer = RecordFiles.writer(tmp, false)) {
+                for (String line : kept) writer.println(line);
+            }
             file.delete();
             tmp.renameTo(file);
-        } else {
-            tmp.delete();
+            statistics = null;
+            return archived;
+        } finally {
+            event.finish();
         }
-        return found;
     }
 
-    private String toLine(TransactionRecord r) {
-        return r.getOrderNumber() + "||" + r.getTotalPrice() + "||" + r.getDiscountPercent() + "||" +
-                r.getDiscountAmount() + "||" + r.getTaxPercent() + "||" + r.getFinalPrice() + "||" +
-                r.getField1() + "||" + r.getField2() + "||" + r.getMethod().name();
+    static String toLine(TransactionRecord r) {
+        StringBuilder sb = new StringBuilder(96).append(r.getOrderNumber()).append("||");
+        Money.append(sb, r.getTotalPriceSen()).append("||").append(r.getDiscountPercent()).append("||");
+        Money.append(sb, r.getDiscountAmountSen()).append("||").append(r.getTaxPercent()).append("||");
+        Money.append(sb, r.getFinalPriceSen()).append("||");
+        return RecordChecksum.append(sb.append(r.getField1()).append("||").append(r.getField2()).append("||")
+                .append(r.getMethod().name()).toString());
     }
 
-    private TransactionRecord parse(String line) {
+    /** Parses a line of the transaction file; null when it is damaged or not a payment. */
+    static TransactionRecord parse(String line) {
+        line = RecordChecksum.verify(line);
+        if (line == null) return null;
         String[] p = line.split("\\|\\|");
         if (p.length < 9) return null;
         String order = p[0];
-        double total = Double.parseDouble(p[1]);
-        double discPct = Double.parseDouble(p[2]);
-        double discAmt = Double.parseDouble(p[3]);
-        double tax = Double.parseDouble(p[4]);
-        double finalPrice = Double.parseDouble(p[5]);
+        long total;
+        double discPct;
+        long discAmt;
+        double tax;
+        long finalPrice;
+        try {
+            total = Money.parse(p[1]);
+            discPct = Double.parseDouble(p[2]);
+            discAmt = Money.parse(p[3]);
+            tax = Double.parseDouble(p[4]);
+            finalPrice = Money.parse(p[5]);
+        } catch (NumberFormatException e) {
+            // a damaged line is skipped like any other unreadable one
+            return null;
+        }
         String field1 = p[6];
         String field2 = p[7];
         // accept legacy or mixed-case method strings from file
@@ -100,7 +305,7 @@ public class TransactionRepository {
             // unknown payment method in file; skip this record
             return null;
         }
-        return new TransactionRecord(order, total, discPct, discAmt, tax, finalPrice, method, field1, field2);
+        return TransactionRecord.ofSen(order, total, discPct, discAmt, tax, finalPrice, method, field1, field2);
     }
 }
 
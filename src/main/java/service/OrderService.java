@@ -0,0 +1,202 @@
+package main.java.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import main.java.config.OrderConstants;
+import main.java.config.StockConstants;
+import main.java.inventory.StockReservations;
+import main.java.model.ItemRecord;
+import main.java.model.OrderLine;
+import main.java.model.OrderRecord;
+import main.java.storage.ItemStore;
+import main.java.storage.OrderStore;
+import main.java.util.Money;
+
+/**
+ * Order placement shared by the console order screen and the HTTP API.
+ *
+ * Placing an order writes the order file and then the item file. The lock keeps
+ * other callers sharing it from reading either file half-way through; the
+ * console passes its own uncontended lock.
+ *
+ * Lines being entered hold their stock in the reservation table until the order
+ * is saved or given up, so two tills cannot both sell the last unit.
+ */
+public class OrderService {
+    private final ItemStore itemRepository;
+    private final OrderStore orderRepository;
+    private final ReadWriteLock lock;
+    private final StockReservations reservations;
+
+    public OrderService(ItemStore itemRepository, OrderStore orderRepository) {
+        this(itemRepository, orderRepository, new ReentrantReadWriteLock());
+    }
+
+    public OrderService(ItemStore itemRepository, OrderStore orderRepository, ReadWriteLock lock) {
+        this(itemRepository, orderRepository, lock,
+                new StockReservations(Duration.ofMinutes(StockConstants.RESERVATION_TTL_MINUTES)));
+    }
+
+    /** @param reservations shared by every till selling from the same stock */
+    public OrderService(ItemStore itemRepository, OrderStore orderRepository, ReadWriteLock lock,
+                        StockReservations reservations) {
+        this.itemRepository = itemRepository;
+        this.orderRepository = orderRepository;
+        this.lock = lock;
+        this.reservations = reservations;
+    }
+
+    public ItemRecord findItem(String code) throws IOException {
+        lock.readLock().lock();
+        try {
+            return itemRepository.findByCode(code);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<ItemRecord> findItems() throws IOException {
+        lock.readLock().lock();
+        try {
+            return itemRepository.findAll();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public OrderRecord findOrder(String orderNumber) throws IOException {
+        lock.readLock().lock();
+        try {
+            return orderRepository.findByNumber(orderNumber);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** What is left of an item once every held line is taken off, the caller's own included. */
+    public int available(ItemRecord item) {
+        return reservations.available(item);
+    }
+
+    /**
+     * Holds stock for a line as it is entered. The item is read again under the
+     * write lock, so a sale saved since the caller looked at it is counted even
+     * though its holds are gone.
+     * @return false when less than {@code quantity} is available or there is no such item
+     */
+    public boolean reserve(String holder, String code, int quantity) throws IOException {
+        lock.writeLock().lock();
+        try {
+            ItemRecord item = itemRepository.findByCode(code);
+            return item != null && reservations.reserve(holder, item, quantity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Gives back what a holder held, once its order is saved or cancelled. */
+    public void release(String holder) {
+        reservations.release(holder);
+    }
+
+    /** Prices a line at the item's current price. */
+    public OrderLine priceLine(ItemRecord item, int quantity) {
+        return OrderLine.ofSen(item.getCode(), quantity, Money.times(item.getPriceSen(), quantity));
+    }
+
+    /**
+     * Saves a new order stamped with the current time and takes its quantities out of stock.
+     * @return the saved order, or null when the order file could not be written
+     * @throws IllegalStateException when the order number is already taken
+     */
+    public OrderRecord placeOrder(String orderNumber, List<OrderLine> lines) throws IOException {
+        return placeOrder(orderNumber, lines, null);
+    }
+
+    /**
+     * Places an order whose lines were reserved under {@code holder}; the holds are
+     * released once the stock is reduced, turning them into the sale.
+     * @throws IllegalStateException when the order number is already taken, a line
+     *         needs more than is on hand and not held by other tills, or the
+     *         holder's holds have lapsed; nothing is saved then
+     */
+    public OrderRecord placeOrder(String orderNumber, List<OrderLine> lines, String holder) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (orderRepository.findByNumber(orderNumber) != null) {
+                throw new IllegalStateException(OrderConstants.MSG_ORDER_NUMBER_EXISTS.trim());
+            }
+            checkStock(lines, holder);
+            String date = LocalDateTime.now().format(DateTimeFormatter.ofPattern(OrderConstants.DATE_FORMAT_PATTERN));
+            OrderRecord record = OrderRecord.ofSen(orderNumber, date, lines, OrderRecord.sumSen(lines));
+            if (!orderRepository.add(record)) {
+                return null;
+            }
+            // reduce inventory
+            for (OrderLine l : lines) {
+                adjustStock(l.getItemCode(), -l.getQuantity());
+            }
+            if (holder != null) {
+                reservations.release(holder);
+            }
+            return record;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Refuses lines that the stock on hand, less what other tills hold, cannot cover. */
+    private void checkStock(List<OrderLine> lines, String holder) throws IOException {
+        Map<String, Integer> wanted = new LinkedHashMap<>();
+        for (OrderLine l : lines) {
+            wanted.merge(l.getItemCode(), l.getQuantity(), Integer::sum);
+        }
+        Map<String, Integer> held = holder == null ? Map.of() : reservations.held(holder);
+        for (Map.Entry<String, Integer> line : wanted.entrySet()) {
+            String code = line.getKey();
+            int own = held.getOrDefault(code, 0);
+            if (holder != null && own < line.getValue()) {
+                throw new IllegalStateException(String.format(OrderConstants.MSG_HOLD_LAPSED_FORMAT, code));
+            }
+            ItemRecord item = itemRepository.findByCode(code);
+            int free = (item == null ? 0 : item.getQuantity()) - (reservations.reserved(code) - own);
+            if (line.getValue() > free) {
+                throw new IllegalStateException(String.format(OrderConstants.DISPLAY_NOT_ENOUGH_STOCK_FORMAT,
+                        Math.max(0, free), code));
+            }
+        }
+    }
+
+    /**
+     * Adds {@code delta} to an item's quantity. The write only succeeds if the item
+     * is still at the version that was read, so a sale made meanwhile by a till
+     * that does not share this lock, but does share the item store, is never lost;
+     * the item is read again and the change retried instead. The check holds within
+     * one process only: two processes writing the same item file are not guarded.
+     * @return the item as stored, or null when there is no such item
+     * @throws IOException when the item file cannot be written, or the item kept
+     *         changing for {@link StockConstants#MAX_STOCK_UPDATE_ATTEMPTS} attempts
+     */
+    public ItemRecord adjustStock(String code, int delta) throws IOException {
+        for (int attempt = 0; attempt < StockConstants.MAX_STOCK_UPDATE_ATTEMPTS; attempt++) {
+            ItemRecord item = itemRepository.findByCode(code);
+            if (item == null) {
+                return null;
+            }
+            ItemRecord updated = item.withQuantity(item.getQuantity() + delta);
+            if (itemRepository.update(code, item.getVersion(), updated)) {
+                return updated.withVersion(item.getVersion() + 1);
+            }
+        }
+        throw new IOException(String.format(StockConstants.MSG_STOCK_CONTENDED_FORMAT, code,
+                StockConstants.MAX_STOCK_UPDATE_ATTEMPTS));
+    }
+}
@@ -0,0 +1,100 @@
+package main.java.service;
+
+import java.io.IOException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import main.java.analytics.TransactionStatistics;
+import main.java.model.OrderRecord;
+import main.java.model.TransactionRecord;
+import main.java.pricing.PriceQuote;
+import main.java.pricing.PricingEngine;
+import main.java.storage.TransactionStore;
+import main.java.util.Money;
+
+/** Prices orders and records their payments; shared by the console and the HTTP API. */
+public class PaymentService {
+    public static final String MSG_ALREADY_PAID_FORMAT = "Order %s is already paid.";
+
+    private final TransactionStore repository;
+    private final PricingEngine pricing;
+    private final ReadWriteLock lock;
+
+    public PaymentService(TransactionStore repository, PricingEngine pricing) {
+        this(repository, pricing, new ReentrantReadWriteLock());
+    }
+
+    public PaymentService(TransactionStore repository, PricingEngine pricing, ReadWriteLock lock) {
+        this.repository = repository;
+        this.pricing = pricing;
+        this.lock = lock;
+    }
+
+    public PriceQuote quote(OrderRecord order) {
+        return pricing.price(order);
+    }
+
+    public TransactionRecord findPayment(String orderNumber) throws IOException {
+        lock.readLock().lock();
+        try {
+            return repository.findByOrder(orderNumber);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records a cash payment; the tendered amount and the change are kept as the two detail fields.
+     * @throws IllegalArgumentException when less than the final price is tendered
+     * @throws IllegalStateException when the order is already paid
+     */
+    public TransactionRecord payCash(OrderRecord order, long paidSen) throws IOException {
+        PriceQuote quote = quote(order);
+        if (paidSen < quote.getFinalSen()) {
+            throw new IllegalArgumentException("Pay Amount cannot be less than Final Price.");
+        }
+        return record(quote, TransactionRecord.Method.CASH,
+                Money.format(paidSen), Money.format(paidSen - quote.getFinalSen()));
+    }
+
+    /**
+     * Records a bank or e-wallet payment.
+     * @param field1 bank name or wallet holder's name
+     * @param field2 account number or phone number
+     * @throws IllegalStateException when the order is already paid
+     */
+    public TransactionRecord pay(OrderRecord order, TransactionRecord.Method method, String field1, String field2)
+            throws IOException {
+        return record(quote(order), method, field1, field2);
+    }
+
+    /**
+     * Saves the payment unless the order already has one; the check and the save
+     * happen under the same write lock, so two tills paying at once cannot both succeed.
+     * @return the saved record, or null when the transaction file is missing
+     */
+    private TransactionRecord record(PriceQuote quote, TransactionRecord.Method method, String field1, String field2)
+            throws IOException {
+        TransactionRecord record = TransactionRecord.ofSen(quote.getOrderNumber(), quote.getTotalSen(),
+                quote.getDiscountPercent(), quote.getDiscountSen(), quote.getTaxPercent(), quote.getFinalSen(),
+                method, field1, field2);
+        lock.writeLock().lock();
+        try {
+            if (repository.findByOrder(record.getOrderNumber()) != null) {
+                throw new IllegalStateException(String.format(MSG_ALREADY_PAID_FORMAT, record.getOrderNumber()));
+            }
+            return repository.add(record) ? record : null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public TransactionStatistics statistics() throws IOException {
+        lock.readLock().lock();
+        try {
+            return repository.statistics();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
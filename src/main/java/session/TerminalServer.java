@@ -0,0 +1,119 @@
+package main.java.session;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.checkpoint.Checkpoint;
+import main.java.events.ChangeLog;
+import main.java.controller.LoginController;
+import main.java.controller.MainController;
+import main.java.util.VirtualThreads;
+import main.java.view.Terminal;
+
+/**
+ * Serves the console to many tills from one process. Each connection (telnet,
+ * netcat or a till's terminal program) gets the same login and main menu as
+ * {@code Main}, running on its own thread (virtual where available) with views
+ * bound to that connection.
+ *
+ * All sessions share one {@link BranchContext}, so the repositories, their
+ * caches and indexes are loaded once for every till instead of once per JVM.
+ */
+public class TerminalServer {
+    private static final int DEFAULT_PORT = 2323;
+
+    private final BranchContext context;
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger active = new AtomicInteger();
+
+    public TerminalServer(BranchContext context, InetSocketAddress address) throws IOException {
+        this.context = context;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(address);
+        this.sessions = VirtualThreads.newPerTaskExecutor("till");
+    }
+
+    public void start() {
+        Thread acceptor = new Thread(this::acceptLoop, "till-acceptor");
+        acceptor.start();
+    }
+
+    /** Stops accepting tills and disconnects the ones still logged in. */
+    public void stop() throws IOException {
+        serverSocket.close();
+        for (Socket socket : connections) {
+            socket.close();
+        }
+        sessions.shutdownNow();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /** Sessions currently connected, logged in or not. */
+    public int getActiveSessions() {
+        return active.get();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                active.incrementAndGet();
+                sessions.execute(() -> runSession(socket));
+            } catch (SocketException e) {
+                // closed by stop()
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void runSession(Socket socket) {
+        try (Socket s = socket) {
+            Terminal terminal = Terminal.of(s.getInputStream(), s.getOutputStream());
+            if (new LoginController(terminal, context.getStaff()).validateLogin()) {
+                new MainController(terminal, context).run();
+            }
+            terminal.getOut().flush();
+        } catch (NoSuchElementException e) {
+            // the till hung up mid-prompt, or typed something a menu could not read (InputMismatchException)
+        } catch (IOException e) {
+            if (!serverSocket.isClosed()) {
+                e.printStackTrace();
+            }
+        } finally {
+            connections.remove(socket);
+            active.decrementAndGet();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        BranchContext context = BranchContext.of(Branch.DEFAULT);
+        File checkpoint = Checkpoint.defaultFile(Branch.DEFAULT);
+        System.out.println(Checkpoint.restore(context, checkpoint));
+        Checkpoint.schedule(context, checkpoint, Checkpoint.intervalMinutes());
+        ChangeLog.attachIfEnabled(context);
+        TerminalServer server = new TerminalServer(context, new InetSocketAddress(port));
+        server.start();
+        System.out.println("Till sessions on port " + server.getPort()
+                + (VirtualThreads.available() ? " (virtual threads)" : ""));
+    }
+}
@@ -0,0 +1,464 @@
+package main.java.session;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.config.FilePaths;
+import main.java.config.OrderConstants;
+import main.java.controller.LoginController;
+import main.java.controller.OrderController;
+import main.java.controller.TransactionController;
+import main.java.model.Address;
+import main.java.model.ItemRecord;
+import main.java.model.Name;
+import main.java.model.Staff;
+import main.java.view.Terminal;
+
+/**
+ * Closed-loop workload for the till controllers: many simulated tills, each on
+ * its own thread with its own terminal, type scripted sessions back to back
+ * against one shared {@link BranchContext}, the way {@link TerminalServer} runs
+ * real ones. A session logs in, then places orders of one to five lines and pays
+ * for them by cash, bank or e-wallet, looks up orders and payments, and reads
+ * the statistics, in a seeded random mix.
+ *
+ * The data files are copied to a scratch directory first, so the real ones are
+ * never touched; every item is restocked there so orders never run out. Prints
+ * throughput, p50/p99/p99.9 latency per operation and how much each data file
+ * grew.
+ *
+ * <pre>
+ * java main.java.session.TillSimulator [tills] [seconds] [data directory] [seed]
+ * </pre>
+ */
+public class TillSimulator {
+    static final String STAFF_ID = "SIM01";
+    static final String PASSWORD = "sim-pass";
+    private static final int RESTOCK_QUANTITY = 100_000_000;
+    private static final int MAX_SAMPLES_PER_TILL = 1 << 20;
+    private static final long WARMUP_SECONDS = 2;
+    private static final String[] DATA_FILES = {FilePaths.ITEM, FilePaths.STAFF, FilePaths.ORDER,
+            FilePaths.TRANSACTION, FilePaths.PRICING};
+
+    /** What a till does next, with how often it does it out of 100. */
+    enum Operation {
+        LOGIN(10), CHECKOUT(50), ORDER_SEARCH(20), PAYMENT_SEARCH(10), STATISTICS(10);
+
+        final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+
+        static Operation pick(Random random) {
+            int r = random.nextInt(100);
+            for (Operation op : values()) {
+                r -= op.weight;
+                if (r < 0) return op;
+            }
+            return CHECKOUT;
+        }
+    }
+
+    /** Latencies of one operation across all tills. */
+    public static final class OperationStats {
+        private final String name;
+        private final long[] sorted;
+        private final long count;
+        private final long errors;
+
+        OperationStats(String name, long[] sorted, long count, long errors) {
+            this.name = name;
+            this.sorted = sorted;
+            this.count = count;
+            this.errors = errors;
+        }
+
+        public String getName() { return name; }
+        public long getCount() { return count; }
+        public long getErrors() { return errors; }
+
+        /** Latency at quantile {@code p} in milliseconds. */
+        public double percentile(double p) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int i = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+            return sorted[Math.max(0, i)] / 1e6;
+        }
+    }
+
+    /** Outcome of one run. */
+    public static final class Report {
+        private final int tills;
+        private final long nanos;
+        private final List<OperationStats> operations;
+        private final String[] files;
+        private final long[] before;
+        private final long[] after;
+
+        Report(int tills, long nanos, List<OperationStats> operations, String[] files, long[] before, long[] after) {
+            this.tills = tills;
+            this.nanos = nanos;
+            this.operations = operations;
+            this.files = files;
+            this.before = before;
+            this.after = after;
+        }
+
+        public List<OperationStats> getOperations() { return operations; }
+
+        public OperationStats getOperation(String name) {
+            for (OperationStats op : operations) {
+                if (op.name.equals(name)) return op;
+            }
+            return null;
+        }
+
+        public long getTotal() {
+            long total = 0;
+            for (OperationStats op : operations) total += op.count;
+            return total;
+        }
+
+        public long getErrors() {
+            long errors = 0;
+            for (OperationStats op : operations) errors += op.errors;
+            return errors;
+        }
+
+        /** Bytes a data file grew by during the measured run. */
+        public long getGrowth(String file) {
+            for (int i = 0; i < files.length; i++) {
+                if (files[i].equals(file)) return after[i] - before[i];
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            StringBuilder sb = new StringBuilder(String.format("%d operations in %.1f s with %d tills: %.1f ops/s, "
+                    + "%d errors%n", getTotal(), seconds, tills, getTotal() / seconds, getErrors()));
+            sb.append(String.format("%-15s %8s %8s %10s %10s %10s %10s%n",
+                    "operation", "count", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+            for (OperationStats op : operations) {
+                sb.append(String.format("%-15s %8d %8d %10.3f %10.3f %10.3f %10.3f%n", op.name, op.count,
+                        op.errors, op.percentile(0.50), op.percentile(0.99), op.percentile(0.999),
+                        op.percentile(1.0)));
+            }
+            OperationStats checkouts = getOperation(Operation.CHECKOUT.name());
+            sb.append(String.format("checkouts/s: %.1f%n", checkouts == null ? 0.0 : checkouts.count / seconds));
+            for (int i = 0; i < files.length; i++) {
+                long growth = after[i] - before[i];
+                sb.append(String.format("%-16s %10d -> %10d bytes (+%d%s)%n", files[i], before[i], after[i], growth,
+                        checkouts == null || checkouts.count == 0 ? ""
+                                : String.format(", %.1f per checkout", growth / (double) checkouts.count)));
+            }
+            return sb.toString();
+        }
+    }
+
+    private final BranchContext context;
+    private final int tills;
+    private final long seed;
+    private final List<ItemRecord> items = new ArrayList<>();
+    private final AtomicLong nextOrder = new AtomicLong(100_000_000L);
+
+    /**
+     * @param context the branch to run against; its files are written to, so it
+     *                should be a copy, see {@link #scratchCopy}
+     */
+    public TillSimulator(BranchContext context, int tills, long seed) throws IOException {
+        this.context = context;
+        this.tills = tills;
+        this.seed = seed;
+        for (ItemRecord item : context.getItems().findAll()) {
+            if (item.getPrice() > 0) {
+                items.add(item);
+                if (item.getQuantity() < RESTOCK_QUANTITY) {
+                    context.getItems().update(item.getCode(), item.withQuantity(RESTOCK_QUANTITY));
+                }
+            }
+        }
+        if (items.isEmpty()) {
+            throw new IOException("No items to sell in " + context.getBranch().file(FilePaths.ITEM));
+        }
+        if (context.getStaff().findById(STAFF_ID) == null) {
+            context.getStaff().add(new Staff(STAFF_ID, PASSWORD, new Name("Till", "Simulator"), "012-345-6789",
+                    "Cashier", new Address("1 Test St", "12345", "Region", "State")));
+        }
+    }
+
+    /** Copies a branch's data files into a new temporary directory. */
+    public static Branch scratchCopy(Branch source) throws IOException {
+        Path dir = Files.createTempDirectory("till-sim");
+        for (String name : DATA_FILES) {
+            File file = source.file(name);
+            if (file.isFile()) {
+                Files.copy(file.toPath(), dir.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+            } else if (!name.equals(FilePaths.PRICING)) {
+                Files.createFile(dir.resolve(name));
+            }
+        }
+        return new Branch("simulation", dir.toFile());
+    }
+
+    /** Runs the tills for {@code warmupSeconds} unmeasured, then for {@code seconds}. */
+    public Report run(long warmupSeconds, long seconds) throws InterruptedException {
+        if (warmupSeconds > 0) {
+            drive(warmupSeconds, seed ^ 0x5DEECE66DL);
+        }
+        long[] before = sizes();
+        long start = System.nanoTime();
+        Till[] done = drive(seconds, seed);
+        long nanos = System.nanoTime() - start;
+
+        List<OperationStats> stats = new ArrayList<>();
+        for (Operation op : Operation.values()) {
+            long count = 0;
+            long errors = 0;
+            int samples = 0;
+            for (Till till : done) {
+                count += till.counts[op.ordinal()];
+                errors += till.errors[op.ordinal()];
+                samples += till.samples[op.ordinal()].size;
+            }
+            long[] all = new long[samples];
+            int pos = 0;
+            for (Till till : done) {
+                Samples s = till.samples[op.ordinal()];
+                System.arraycopy(s.values, 0, all, pos, s.size);
+                pos += s.size;
+            }
+            Arrays.sort(all);
+            stats.add(new OperationStats(op.name(), all, count, errors));
+        }
+        return new Report(tills, nanos, stats, DATA_FILES, before, sizes());
+    }
+
+    private Till[] drive(long seconds, long runSeed) throws InterruptedException {
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        Till[] all = new Till[tills];
+        Thread[] threads = new Thread[tills];
+        for (int t = 0; t < tills; t++) {
+            all[t] = new Till(new Random(runSeed * 31 + t));
+            Till till = all[t];
+            threads[t] = new Thread(() -> till.runUntil(end), "till-sim-" + t);
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return all;
+    }
+
+    private long[] sizes() {
+        long[] sizes = new long[DATA_FILES.length];
+        for (int i = 0; i < DATA_FILES.length; i++) {
+            sizes[i] = context.getBranch().file(DATA_FILES[i]).length();
+        }
+        return sizes;
+    }
+
+    /** Growable array of latencies, capped so a long run cannot exhaust the heap. */
+    private static final class Samples {
+        long[] values = new long[1024];
+        int size;
+
+        void add(long nanos) {
+            if (size == values.length) {
+                if (size == MAX_SAMPLES_PER_TILL) return;
+                values = Arrays.copyOf(values, Math.min(size * 2, MAX_SAMPLES_PER_TILL));
+            }
+            values[size++] = nanos;
+        }
+    }
+
+    /**
+     * Input a till's scanner reads: one operation's keystrokes at a time. Running
+     * dry means the script and the screens disagree, which ends the session.
+     */
+    private static final class ScriptInput extends InputStream {
+        private byte[] script = new byte[0];
+        private int pos;
+
+        void type(String keys) {
+            script = keys.getBytes(StandardCharsets.UTF_8);
+            pos = 0;
+        }
+
+        @Override
+        public int read() {
+            return pos < script.length ? script[pos++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (pos >= script.length) {
+                return -1;
+            }
+            int n = Math.min(len, script.length - pos);
+            System.arraycopy(script, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+    }
+
+    /** One simulated till: a terminal and the controllers a logged-in session uses. */
+    private final class Till {
+        final Random random;
+        final long[] counts = new long[Operation.values().length];
+        final long[] errors = new long[Operation.values().length];
+        final Samples[] samples = new Samples[Operation.values().length];
+        final List<String> placed = new ArrayList<>();
+        ScriptInput input;
+        ByteArrayOutputStream screen;
+        LoginController login;
+        OrderController orders;
+        TransactionController payments;
+
+        Till(Random random) {
+            this.random = random;
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = new Samples();
+            }
+            connect();
+        }
+
+        /** A fresh terminal and controllers, as a till reconnecting to the server gets. */
+        void connect() {
+            input = new ScriptInput();
+            screen = new ByteArrayOutputStream(8192);
+            Terminal terminal = Terminal.of(input, screen);
+            login = new LoginController(terminal, context.getStaff());
+            payments = new TransactionController(terminal, context);
+            orders = new OrderController(terminal, context.getItems(), context.getOrders(), context.getLock(),
+                    context.getReservations(), payments);
+        }
+
+        void runUntil(long end) {
+            while (System.nanoTime() < end) {
+                Operation op = Operation.pick(random);
+                if (placed.isEmpty() && (op == Operation.ORDER_SEARCH || op == Operation.PAYMENT_SEARCH)) {
+                    op = Operation.CHECKOUT;
+                }
+                String expected = script(op);
+                screen.reset();
+                long start = System.nanoTime();
+                boolean ok;
+                try {
+                    ok = perform(op);
+                } catch (NoSuchElementException e) {
+                    // the script ran out before the screens did; start over like a dropped till
+                    ok = false;
+                    connect();
+                }
+                long nanos = System.nanoTime() - start;
+                if (ok && expected != null) {
+                    ok = screen.toString(StandardCharsets.UTF_8).contains(expected);
+                }
+                counts[op.ordinal()]++;
+                samples[op.ordinal()].add(nanos);
+                if (!ok) errors[op.ordinal()]++;
+            }
+        }
+
+        /** Queues the keystrokes for an operation and returns text its screen must show. */
+        String script(Operation op) {
+            StringBuilder keys = new StringBuilder();
+            switch (op) {
+                case LOGIN:
+                    // a new session starts on a fresh connection, as at the session server
+                    connect();
+                    input.type(STAFF_ID + "\n" + PASSWORD + "\n");
+                    return null;
+                case CHECKOUT: {
+                    String number = "O" + nextOrder.getAndIncrement();
+                    placed.add(number);
+                    keys.append("1\n").append(number).append('\n');
+                    int lines = 1 + random.nextInt(5);
+                    for (int i = 0; i < lines; i++) {
+                        ItemRecord item = items.get(random.nextInt(items.size()));
+                        keys.append(item.getCode()).append('\n').append(1 + random.nextInt(3)).append('\n')
+                                .append(i + 1 < lines ? "Y\n" : "N\n");
+                    }
+                    int method = random.nextInt(3);
+                    keys.append(method + 1).append('\n');
+                    if (method == 0) {
+                        keys.append("100000\n");
+                    } else if (method == 1) {
+                        keys.append("Maybank\n").append("1234-5678-9012-3456\n");
+                    } else {
+                        keys.append("Till Customer\n").append("012-345-6789\n");
+                    }
+                    input.type(keys.append("5\n").toString());
+                    return "Payment saved.";
+                }
+                case ORDER_SEARCH:
+                    input.type("2\n" + recentOrder() + "\n5\n");
+                    return OrderConstants.DISPLAY_ORDER_NUMBER;
+                case PAYMENT_SEARCH:
+                    input.type("1\n" + recentOrder() + "\n4\n");
+                    return null;
+                default:
+                    input.type("2\n4\n");
+                    return null;
+            }
+        }
+
+        boolean perform(Operation op) {
+            switch (op) {
+                case LOGIN:
+                    return login.validateLogin();
+                case CHECKOUT:
+                case ORDER_SEARCH:
+                    orders.run();
+                    return true;
+                default:
+                    payments.run();
+                    return true;
+            }
+        }
+
+        /** One of this till's latest orders, so searches hit. */
+        String recentOrder() {
+            return placed.get(placed.size() - 1 - random.nextInt(Math.min(placed.size(), 50)));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int tills = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+        Branch source = args.length > 2 ? new Branch("main", new File(args[2])) : Branch.DEFAULT;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42L;
+
+        Branch scratch = scratchCopy(source);
+        try {
+            TillSimulator simulator = new TillSimulator(new BranchContext(scratch), tills, seed);
+            System.out.print(simulator.run(WARMUP_SECONDS, seconds));
+        } finally {
+            try (Stream<Path> paths = Files.walk(scratch.file("").toPath())) {
+                for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        }
+    }
+}
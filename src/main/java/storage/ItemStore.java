@@ -0,0 +1,69 @@
+package main.java.storage;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+import main.java.inventory.ExpiryIndex;
+import main.java.inventory.ItemSearchIndex;
+import main.java.inventory.StockAlertIndex;
+import main.java.inventory.StockAlertListener;
+import main.java.model.ItemRecord;
+
+/**
+ * The branch's items and stock. Every write stamps the stored record with the
+ * next version, so {@link #update(String, long, ItemRecord)} can refuse to
+ * overwrite a change made by another till.
+ */
+public interface ItemStore extends KeyedStore<String, ItemRecord> {
+    /** Expected version that matches any record. */
+    long ANY_VERSION = -1L;
+
+    ItemRecord findByCode(String code) throws IOException;
+
+    @Override
+    default ItemRecord find(String code) throws IOException {
+        return findByCode(code);
+    }
+
+    /** Replaces an item whatever its version. */
+    boolean update(String oldCode, ItemRecord updatedRecord) throws IOException;
+
+    /**
+     * Replaces an item only if it is still at the version the caller read.
+     * @return false when the item is missing or was changed since it was read
+     */
+    boolean update(String code, long expectedVersion, ItemRecord updatedRecord) throws IOException;
+
+    /** Items at or below their reorder level, lowest headroom first. */
+    List<StockAlertIndex.Entry> findBelowReorderLevel() throws IOException;
+
+    /** Registers a hook fired when a change through this store takes an item to its reorder level. */
+    void addStockListener(StockAlertListener listener);
+
+    void removeStockListener(StockAlertListener listener);
+
+    void setReorderLevel(String code, int level);
+
+    /** Supplements expiring between two dates inclusive, earliest first. */
+    List<ExpiryIndex.Entry> findExpiringBetween(LocalDate from, LocalDate to) throws IOException;
+
+    /** Supplements expiring from today up to and including {@code days} days ahead. */
+    List<ExpiryIndex.Entry> findExpiringWithin(int days) throws IOException;
+
+    /** Supplements that expired before the given day, earliest first. */
+    List<ExpiryIndex.Entry> findExpiredBefore(LocalDate day) throws IOException;
+
+    /**
+     * Suggests an in-stock item of the same product that expires earlier than the
+     * chosen one and should be sold first.
+     * @return the suggestion, or null when the chosen item is already the right pick
+     */
+    ExpiryIndex.Entry suggestFefo(ItemRecord chosen, LocalDate today) throws IOException;
+
+    /**
+     * Items whose description or use is within a few typos of the query, closest first.
+     * @param limit most items to return
+     */
+    List<ItemSearchIndex.Match> search(String query, int limit) throws IOException;
+}
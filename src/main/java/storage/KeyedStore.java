@@ -0,0 +1,30 @@
+package main.java.storage;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Records of one kind, each identified by a unique key: an item code, order
+ * number or staff ID. The part every store has in common, so code that only
+ * loads, looks up, adds and removes records (copying a branch, a benchmark
+ * comparing engines) can work with any of them.
+ *
+ * Implementations are safe to share between threads, and publish every add,
+ * update and delete on the {@code ChangeBus} they were opened with.
+ *
+ * @param <K> key type
+ * @param <T> record type, e.g. {@code ItemRecord}
+ */
+public interface KeyedStore<K, T> {
+    /** Every record, in the order the store keeps them. */
+    List<T> findAll() throws IOException;
+
+    /** @return the record with the key, or null when there is none */
+    T find(K key) throws IOException;
+
+    /** @return false when a record with the same key is already stored */
+    boolean add(T record) throws IOException;
+
+    /** @return true when a record was removed */
+    boolean delete(K key) throws IOException;
+}
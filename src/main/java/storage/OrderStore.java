@@ -0,0 +1,49 @@
+package main.java.storage;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import main.java.model.OrderRecord;
+
+/**
+ * The branch's orders: the open ones still being taken and changed, and the
+ * closed months that {@link #sealBefore} and {@link #archiveBefore} move out of
+ * the way.
+ */
+public interface OrderStore extends KeyedStore<String, OrderRecord> {
+    /** Every order, oldest months first. */
+    @Override
+    List<OrderRecord> findAll() throws IOException;
+
+    /** Orders not yet moved to a closed month. */
+    List<OrderRecord> findOpen() throws IOException;
+
+    /** Orders dated from one day to the other, both inclusive. */
+    List<OrderRecord> findBetween(LocalDate from, LocalDate to) throws IOException;
+
+    OrderRecord findByNumber(String orderNumber) throws IOException;
+
+    @Override
+    default OrderRecord find(String orderNumber) throws IOException {
+        return findByNumber(orderNumber);
+    }
+
+    boolean update(String orderNumber, OrderRecord updatedRecord) throws IOException;
+
+    /**
+     * Moves every order dated before the given month into its closed month.
+     * @return number of orders moved
+     */
+    int sealBefore(YearMonth open) throws IOException;
+
+    /**
+     * Moves the closed months before the given one into the archive, sealing
+     * whatever of them is still open first. Safe to run again after an interruption.
+     * @return numbers of the archived orders by month, for archiving their payments
+     */
+    Map<String, Set<String>> archiveBefore(YearMonth cutoff) throws IOException;
+}
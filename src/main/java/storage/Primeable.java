@@ -0,0 +1,25 @@
+package main.java.storage;
+
+import java.io.IOException;
+
+/**
+ * Optional for stores that keep a data file's records in memory: fills that
+ * copy from a checkpoint instead of parsing the whole file. A store that does
+ * not implement it loads from its file as usual, and a checkpoint restore
+ * skips it.
+ *
+ * @param <S> what the checkpoint holds for the store, e.g. its records
+ */
+public interface Primeable<S> {
+    /**
+     * Fills the in-memory copy from a snapshot taken when the data file was
+     * {@code length} bytes long and last modified at {@code modified}
+     * (nanoseconds). A store that only ever appends to its file may read the
+     * lines past {@code length} and add them; the caller vouches that the first
+     * {@code length} bytes have not changed since. Any other store uses the
+     * snapshot only when the file is still exactly as it was.
+     * @return records read from the file past the snapshot, or -1 when the
+     *         snapshot was not used
+     */
+    int prime(S snapshot, long length, long modified) throws IOException;
+}
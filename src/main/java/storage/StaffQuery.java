@@ -0,0 +1,88 @@
+package main.java.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A staff search: conditions that must all hold. Name conditions match the
+ * start of the name, the others the whole value; letter case is ignored
+ * throughout.
+ */
+public final class StaffQuery {
+    private final List<String> names = new ArrayList<>();
+    private final List<String> firstNames = new ArrayList<>();
+    private final List<String> lastNames = new ArrayList<>();
+    private final List<String> phones = new ArrayList<>();
+    private final List<String> positions = new ArrayList<>();
+    private final List<String> regions = new ArrayList<>();
+    private final List<String> states = new ArrayList<>();
+
+    /** First or last name starts with the prefix. */
+    public StaffQuery name(String prefix) { names.add(key(prefix)); return this; }
+    public StaffQuery firstName(String prefix) { firstNames.add(key(prefix)); return this; }
+    public StaffQuery lastName(String prefix) { lastNames.add(key(prefix)); return this; }
+    /** Same digits, however the number is punctuated. */
+    public StaffQuery phone(String phone) { phones.add(digits(phone)); return this; }
+    public StaffQuery position(String position) { positions.add(key(position)); return this; }
+    public StaffQuery region(String region) { regions.add(key(region)); return this; }
+    public StaffQuery state(String state) { states.add(key(state)); return this; }
+
+    public boolean isEmpty() {
+        return names.isEmpty() && firstNames.isEmpty() && lastNames.isEmpty() && phones.isEmpty()
+                && positions.isEmpty() && regions.isEmpty() && states.isEmpty();
+    }
+
+    /**
+     * Reads comma-separated terms such as {@code "jo, position=pharmacist, state=selangor"}.
+     * A term without a field is a phone number when it is all digits and dashes,
+     * otherwise a name prefix. Fields: name, first, last, phone, position, region, state.
+     * @throws IllegalArgumentException for an unknown field or an empty term
+     */
+    public static StaffQuery parse(String text) {
+        StaffQuery query = new StaffQuery();
+        for (String term : text.split(",", -1)) {
+            term = term.trim();
+            int eq = term.indexOf('=');
+            String field = eq < 0 ? "" : term.substring(0, eq).trim().toLowerCase(Locale.ROOT);
+            String value = eq < 0 ? term : term.substring(eq + 1).trim();
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException("Empty search term");
+            }
+            switch (field) {
+                case "":
+                    if (value.matches("[\\d-]+")) query.phone(value); else query.name(value);
+                    break;
+                case "name": query.name(value); break;
+                case "first": query.firstName(value); break;
+                case "last": query.lastName(value); break;
+                case "phone": query.phone(value); break;
+                case "position": query.position(value); break;
+                case "region": query.region(value); break;
+                case "state": query.state(value); break;
+                default:
+                    throw new IllegalArgumentException("Unknown search field: " + field);
+            }
+        }
+        return query;
+    }
+
+    public List<String> getNames() { return Collections.unmodifiableList(names); }
+    public List<String> getFirstNames() { return Collections.unmodifiableList(firstNames); }
+    public List<String> getLastNames() { return Collections.unmodifiableList(lastNames); }
+    public List<String> getPhones() { return Collections.unmodifiableList(phones); }
+    public List<String> getPositions() { return Collections.unmodifiableList(positions); }
+    public List<String> getRegions() { return Collections.unmodifiableList(regions); }
+    public List<String> getStates() { return Collections.unmodifiableList(states); }
+
+    /** A value as the conditions hold it: trimmed, lower case, null as empty. */
+    public static String key(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** A phone number as the conditions hold it: its digits only. */
+    public static String digits(String phone) {
+        return phone == null ? "" : phone.replaceAll("\\D", "");
+    }
+}
@@ -0,0 +1,32 @@
+package main.java.storage;
+
+import java.io.IOException;
+import java.util.List;
+
+import main.java.model.Staff;
+
+/** The branch's staff. Passwords are hashed before they are stored. */
+public interface StaffStore extends KeyedStore<String, Staff> {
+    /** Staff matching every condition of the query, e.g. a name prefix together with a position. */
+    List<Staff> search(StaffQuery query) throws IOException;
+
+    Staff findById(String staffId) throws IOException;
+
+    @Override
+    default Staff find(String staffId) throws IOException {
+        return findById(staffId);
+    }
+
+    /**
+     * Updates an existing staff record by ID.
+     * @return true when the record is found and replaced
+     */
+    boolean update(String id, Staff updated) throws IOException;
+
+    /**
+     * Verifies login credentials; a match against a legacy password entry
+     * replaces it with a salted hash.
+     * @return staff when credentials match; otherwise null
+     */
+    Staff validateCredentials(String id, String password) throws IOException;
+}
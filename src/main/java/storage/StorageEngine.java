@@ -0,0 +1,41 @@
+package main.java.storage;
+
+import java.io.IOException;
+
+import main.java.analytics.SalesReport;
+import main.java.branch.Branch;
+import main.java.events.ChangeBus;
+
+/**
+ * Opens the stores of a branch. The engine decides how records are kept, e.g.
+ * as the text files of {@code TextFileEngine}, the default; everything above the
+ * stores, controllers and services included, only sees the store interfaces.
+ *
+ * An engine is chosen by name with {@code -Dpharmacy.storage=<name>}, see
+ * {@link main.java.branch.StorageEngines}. Each store is opened once per branch
+ * context and shared by all its sessions, so it must serialise its own access
+ * and publish every change on the bus it is given.
+ */
+public interface StorageEngine {
+    /** Name that selects the engine, e.g. "text". */
+    String getName();
+
+    ItemStore openItems(Branch branch, ChangeBus changes);
+
+    OrderStore openOrders(Branch branch, ChangeBus changes);
+
+    TransactionStore openTransactions(Branch branch, ChangeBus changes);
+
+    StaffStore openStaff(Branch branch, ChangeBus changes);
+
+    /**
+     * Sales per item, type and day over every order the branch has kept. By
+     * default this aggregates {@link OrderStore#findAll()}; an engine with a
+     * faster way to scan its own orders may override it.
+     * @param orders the branch's order store, as opened by {@link #openOrders}
+     * @param parallelism threads the engine may use for the scan
+     */
+    default SalesReport analyzeSales(Branch branch, OrderStore orders, int parallelism) throws IOException {
+        return SalesReport.of(orders.findAll());
+    }
+}
@@ -0,0 +1,28 @@
+package main.java.storage;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import main.java.analytics.TransactionStatistics;
+import main.java.model.TransactionRecord;
+
+/** The branch's payments, one per order and keyed by its order number. */
+public interface TransactionStore extends KeyedStore<String, TransactionRecord> {
+    /** Counts and revenue per payment method. */
+    TransactionStatistics statistics() throws IOException;
+
+    TransactionRecord findByOrder(String orderNumber) throws IOException;
+
+    @Override
+    default TransactionRecord find(String orderNumber) throws IOException {
+        return findByOrder(orderNumber);
+    }
+
+    /**
+     * Moves the payments of archived orders into the archive under their orders' months.
+     * @param orders order numbers by month, as returned by {@link OrderStore#archiveBefore}
+     * @return number of payments archived
+     */
+    int archive(Map<String, Set<String>> orders) throws IOException;
+}
@@ -0,0 +1,41 @@
+package main.java.util;
+
+import java.util.function.Supplier;
+
+/**
+ * A value created on first use and shared afterwards. Safe to call from any
+ * thread; the supplier runs at most once.
+ */
+public final class Lazy<T> implements Supplier<T> {
+    private Supplier<? extends T> supplier;
+    private volatile T value;
+
+    private Lazy(Supplier<? extends T> supplier) {
+        this.supplier = supplier;
+    }
+
+    public static <T> Lazy<T> of(Supplier<? extends T> supplier) {
+        return new Lazy<>(supplier);
+    }
+
+    @Override
+    public T get() {
+        T result = value;
+        if (result == null) {
+            synchronized (this) {
+                result = value;
+                if (result == null) {
+                    result = supplier.get();
+                    value = result;
+                    supplier = null; // let whatever the supplier captured be collected
+                }
+            }
+        }
+        return result;
+    }
+
+    /** True once {@link #get} has created the value. */
+    public boolean isCreated() {
+        return value != null;
+    }
+}
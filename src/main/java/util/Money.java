@@ -0,0 +1,135 @@
+package main.java.util;
+
+/**
+ * Fixed-point money arithmetic on amounts held as a plain {@code long} number of
+ * sen (1/100 ringgit).
+ *
+ * Amounts are never wrapped in objects, so adding, multiplying and taking
+ * percentages allocates nothing, and sums are exact. Text is written with exactly
+ * two decimals ({@code 12.00}) and read back with integer arithmetic; the older
+ * double-formatted values in the data files, such as {@code 7.140000000000001},
+ * are still accepted and rounded half-up to the nearest sen.
+ */
+public final class Money {
+    public static final long ZERO = 0L;
+
+    /** One percent expressed in basis points, the unit {@link #percentOf} takes. */
+    public static final int ONE_PERCENT = 100;
+
+    private static final long HUNDRED_PERCENT = 100 * ONE_PERCENT;
+
+    private Money() {}
+
+    /** Nearest sen to a ringgit amount given as a double. */
+    public static long ofDouble(double ringgit) {
+        return Math.round(ringgit * 100.0);
+    }
+
+    public static double toDouble(long sen) {
+        return sen / 100.0;
+    }
+
+    public static long times(long sen, int quantity) {
+        return Math.multiplyExact(sen, quantity);
+    }
+
+    /**
+     * A percentage of an amount, rounded half-up (away from zero) to the sen.
+     * @param basisPoints the rate in hundredths of a percent, e.g. 600 for 6%
+     */
+    public static long percentOf(long sen, long basisPoints) {
+        long scaled = Math.multiplyExact(sen, basisPoints);
+        long half = HUNDRED_PERCENT / 2;
+        return scaled >= 0 ? (scaled + half) / HUNDRED_PERCENT : -((-scaled + half) / HUNDRED_PERCENT);
+    }
+
+    /** Converts a percentage such as {@code 6.0} or {@code 7.5} to basis points. */
+    public static long basisPoints(double percent) {
+        return Math.round(percent * ONE_PERCENT);
+    }
+
+    /**
+     * Parses a decimal amount into sen.
+     * @throws NumberFormatException when the text is not a number
+     */
+    public static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses {@code text[start, end)} into sen without creating intermediate strings.
+     * Digits past the second decimal only decide the rounding; exponent forms fall
+     * back to {@link Double#parseDouble}.
+     * @throws NumberFormatException when the range is not a number
+     */
+    public static long parse(CharSequence text, int start, int end) {
+        if (start >= end) {
+            throw new NumberFormatException("Empty amount");
+        }
+        char first = text.charAt(start);
+        boolean negative = first == '-';
+        int i = negative || first == '+' ? start + 1 : start;
+        long whole = 0;
+        int digits = 0;
+        for (; i < end && text.charAt(i) != '.'; i++) {
+            int d = text.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                return parseFallback(text, start, end);
+            }
+            whole = Math.addExact(Math.multiplyExact(whole, 10), d);
+            digits++;
+        }
+        long fraction = 0;
+        int scale = 0;
+        boolean roundUp = false;
+        if (i < end) {
+            for (i++; i < end; i++) {
+                int d = text.charAt(i) - '0';
+                if (d < 0 || d > 9) {
+                    return parseFallback(text, start, end);
+                }
+                if (scale < 2) {
+                    fraction = fraction * 10 + d;
+                } else if (scale == 2) {
+                    roundUp = d >= 5;
+                }
+                scale++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Not an amount: " + text.subSequence(start, end));
+        }
+        for (; scale < 2; scale++) {
+            fraction *= 10;
+        }
+        long sen = Math.addExact(Math.multiplyExact(whole, 100), fraction + (roundUp ? 1 : 0));
+        return negative ? -sen : sen;
+    }
+
+    private static long parseFallback(CharSequence text, int start, int end) {
+        return ofDouble(Double.parseDouble(text.subSequence(start, end).toString()));
+    }
+
+    /** Appends the amount with exactly two decimals, e.g. {@code -0.05} or {@code 190.80}. */
+    public static StringBuilder append(StringBuilder sb, long sen) {
+        if (sen < 0) {
+            sb.append('-');
+            if (sen == Long.MIN_VALUE) {
+                // cannot be negated; Long.MIN_VALUE ends in ...08 sen
+                return sb.append(-(sen / 100)).append(".08");
+            }
+            sen = -sen;
+        }
+        long cents = sen % 100;
+        sb.append(sen / 100).append('.');
+        if (cents < 10) {
+            sb.append('0');
+        }
+        return sb.append(cents);
+    }
+
+    public static String format(long sen) {
+        return append(new StringBuilder(24), sen).toString();
+    }
+}
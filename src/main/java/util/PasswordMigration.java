@@ -0,0 +1,210 @@
+package main.java.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import main.java.branch.Branch;
+import main.java.config.FilePaths;
+import main.java.config.StaffConstants;
+
+/**
+ * Offline upgrade of every password in the staff file to the salted format.
+ *
+ * Plain-text passwords are hashed with a fresh salt. Legacy hex SHA-256 hashes
+ * cannot be, since their plain text is unknown, so they are marked with
+ * {@link PasswordUtil#REHASH_PREFIX} and replaced at the owner's next login.
+ * Salted and already-marked entries, and lines that are not staff records or fail
+ * their checksum, are copied unchanged; rewritten lines get a new checksum.
+ *
+ * The file is read as a stream and handed to worker threads in chunks; the
+ * results are written in the original order to a temporary file, which is
+ * forced to disk and renamed over the staff file in one atomic step. Nothing is
+ * rewritten when no entry needed upgrading. Run it with the tills stopped:
+ *
+ *   java main.java.util.PasswordMigration [staff file] [threads]
+ */
+public class PasswordMigration {
+    static final int CHUNK_LINES = 256;
+    private static final Pattern FIELDS = Pattern.compile(Pattern.quote(StaffConstants.FIELD_DELIMITER));
+
+    private enum Outcome { HASHED, MARKED, UNCHANGED, SKIPPED }
+
+    /** Counts and timing of one migration run. */
+    public static class Result {
+        private final long[] counts;
+        private final long nanos;
+        private final boolean rewritten;
+
+        Result(long[] counts, long nanos, boolean rewritten) {
+            this.counts = counts;
+            this.nanos = nanos;
+            this.rewritten = rewritten;
+        }
+
+        public long getLines() {
+            long lines = 0;
+            for (long c : counts) {
+                lines += c;
+            }
+            return lines;
+        }
+
+        /** Plain-text passwords replaced by salted hashes. */
+        public long getHashed() { return counts[Outcome.HASHED.ordinal()]; }
+        /** Legacy hex hashes marked for rehash at the next login. */
+        public long getMarked() { return counts[Outcome.MARKED.ordinal()]; }
+        /** Entries already salted or marked. */
+        public long getUnchanged() { return counts[Outcome.UNCHANGED.ordinal()]; }
+        /** Lines that are not staff records, fail their checksum or have no password. */
+        public long getSkipped() { return counts[Outcome.SKIPPED.ordinal()]; }
+        public long getNanos() { return nanos; }
+        public boolean isRewritten() { return rewritten; }
+
+        public double getLinesPerSecond() {
+            return nanos == 0 ? 0.0 : getLines() * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d lines in %.1f ms (%.0f lines/s): %d hashed, %d marked for rehash, "
+                            + "%d already salted, %d skipped%s",
+                    getLines(), nanos / 1e6, getLinesPerSecond(), getHashed(), getMarked(), getUnchanged(),
+                    getSkipped(), rewritten ? "" : "; file left as it was");
+        }
+    }
+
+    /** A run of lines migrated by one task, with its own counts. */
+    private static class Chunk implements Callable<Chunk> {
+        final List<String> lines;
+        final long[] counts = new long[Outcome.values().length];
+
+        Chunk(List<String> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public Chunk call() {
+            for (int i = 0; i < lines.size(); i++) {
+                String record = RecordChecksum.verify(lines.get(i));
+                String[] fields = record == null ? null : FIELDS.split(record, -1);
+                Outcome outcome = fields == null ? Outcome.SKIPPED : migrate(fields);
+                counts[outcome.ordinal()]++;
+                if (outcome == Outcome.HASHED || outcome == Outcome.MARKED) {
+                    lines.set(i, RecordChecksum.append(String.join(StaffConstants.FIELD_DELIMITER, fields)));
+                }
+            }
+            return this;
+        }
+
+        private static Outcome migrate(String[] fields) {
+            if (fields.length < StaffConstants.REQUIRED_FIELD_COUNT) {
+                return Outcome.SKIPPED;
+            }
+            String password = fields[StaffConstants.INDEX_PASSWORD];
+            if (PasswordUtil.isHashed(password)) {
+                return Outcome.UNCHANGED;
+            }
+            if (PasswordUtil.isHexHash(password)) {
+                fields[StaffConstants.INDEX_PASSWORD] = PasswordUtil.markForRehash(password);
+                return Outcome.MARKED;
+            }
+            if (password.isEmpty()) {
+                return Outcome.SKIPPED;
+            }
+            fields[StaffConstants.INDEX_PASSWORD] = PasswordUtil.hashPassword(password);
+            return Outcome.HASHED;
+        }
+    }
+
+    /**
+     * Migrates the staff file in place.
+     * @param threads worker threads hashing the passwords
+     */
+    public static Result migrate(File staffFile, int threads) throws IOException {
+        long start = System.nanoTime();
+        long[] counts = new long[Outcome.values().length];
+        File tmp = new File(staffFile.getPath() + ".migrate.tmp");
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try (BufferedReader reader = Files.newBufferedReader(staffFile.toPath());
+             BufferedWriter writer = Files.newBufferedWriter(tmp.toPath())) {
+            // bounded so a large file streams through instead of being held whole
+            ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+            List<String> lines = new ArrayList<>(CHUNK_LINES);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+                if (lines.size() == CHUNK_LINES) {
+                    pending.add(workers.submit(new Chunk(lines)));
+                    lines = new ArrayList<>(CHUNK_LINES);
+                    while (pending.size() > threads * 4) {
+                        write(pending.poll(), writer, counts);
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                pending.add(workers.submit(new Chunk(lines)));
+            }
+            while (!pending.isEmpty()) {
+                write(pending.poll(), writer, counts);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp.toPath());
+            throw e;
+        } finally {
+            workers.shutdownNow();
+        }
+
+        boolean rewrite = counts[Outcome.HASHED.ordinal()] + counts[Outcome.MARKED.ordinal()] > 0;
+        if (rewrite) {
+            try (FileChannel channel = FileChannel.open(tmp.toPath(), StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(tmp.toPath(), staffFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } else {
+            Files.delete(tmp.toPath());
+        }
+        return new Result(counts, System.nanoTime() - start, rewrite);
+    }
+
+    private static void write(Future<Chunk> future, BufferedWriter writer, long[] counts) throws IOException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Password migration interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Password migration failed", e.getCause());
+        }
+        for (String line : chunk.lines) {
+            writer.write(line);
+            writer.write(System.lineSeparator());
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += chunk.counts[i];
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        File staffFile = args.length > 0 ? new File(args[0]) : Branch.DEFAULT.file(FilePaths.STAFF);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        System.out.println("Migrating " + staffFile + " on " + threads + " threads");
+        System.out.println(migrate(staffFile, threads));
+    }
+}
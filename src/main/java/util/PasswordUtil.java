@@ -5,10 +5,16 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
 
+import main.java.jfr.PasswordVerifyEvent;
+
 public class PasswordUtil {
     private static final String ALGORITHM = "SHA-256";
     private static final int SALT_LENGTH = 16;
     private static final String DELIMITER = ":";
+    /** Marks a legacy unsalted SHA-256 hash that is replaced by a salted one at the next login. */
+    public static final String REHASH_PREFIX = "sha256$";
+    // seeding a SecureRandom is the slow part of hashing; one per thread avoids both the cost and shared locking
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
 
     /**
      * Hashes a plain text password with a randomly generated salt.
@@ -23,9 +29,8 @@ public class PasswordUtil {
 
         try {
             // Generate a random salt
-            SecureRandom random = new SecureRandom();
             byte[] salt = new byte[SALT_LENGTH];
-            random.nextBytes(salt);
+            RANDOM.get().nextBytes(salt);
 
             // Hash the password with the salt
             byte[] hash = hashWithSalt(plainPassword, salt);
@@ -45,6 +50,7 @@ public class PasswordUtil {
      * Verifies a plain text password against a stored hashed password.
      * Supports multiple formats for backward compatibility:
      * - New format: "salt:hash" (Base64 encoded)
+     * - Migrated legacy hash: "sha256$" followed by the hex hash, see {@link #markForRehash}
      * - Legacy unsalted SHA-256: hex-encoded hash (64 hex characters)
      * - Plain text: direct comparison
      * 
@@ -53,6 +59,19 @@ public class PasswordUtil {
      * @return true if the password matches, false otherwise
      */
     public static boolean verifyPassword(String plainPassword, String hashedPassword) {
+        PasswordVerifyEvent event = new PasswordVerifyEvent();
+        event.begin();
+        boolean matched = matches(plainPassword, hashedPassword);
+        event.end();
+        if (event.shouldCommit()) {
+            event.setFormat(formatOf(hashedPassword));
+            event.setMatched(matched);
+            event.commit();
+        }
+        return matched;
+    }
+
+    private static boolean matches(String plainPassword, String hashedPassword) {
         if (plainPassword == null || hashedPassword == null) {
             return false;
         }
@@ -80,28 +99,14 @@ public class PasswordUtil {
             }
         }
 
+        // A legacy hash already marked by the migration: no format sniffing needed
+        if (hashedPassword.startsWith(REHASH_PREFIX)) {
+            return hexHashMatches(plainPassword, hashedPassword.substring(REHASH_PREFIX.length()));
+        }
+
         // Check if it's a legacy unsalted SHA-256 hash (64 hex characters)
         if (isHexHash(hashedPassword)) {
-            try {
-                // Compute SHA-256 hash of the plain password
-                MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
-                byte[] computedHashBytes = digest.digest(plainPassword.getBytes());
-                
-                // Convert to hex string
-                StringBuilder hexString = new StringBuilder();
-                for (byte b : computedHashBytes) {
-                    String hex = Integer.toHexString(0xff & b);
-                    if (hex.length() == 1) {
-                        hexString.append('0');
-                    }
-                    hexString.append(hex);
-                }
-                
-                // Compare with stored hash (case-insensitive for hex)
-                return hexString.toString().equalsIgnoreCase(hashedPassword);
-            } catch (NoSuchAlgorithmException e) {
-                return false;
-            }
+            return hexHashMatches(plainPassword, hashedPassword);
         }
 
         // Legacy plain text password - do direct comparison for backward compatibility
@@ -109,13 +114,46 @@ public class PasswordUtil {
         return hashedPassword.equals(plainPassword);
     }
 
+    /** Names the format of a stored password, in the order {@link #verifyPassword} tells them apart. */
+    static String formatOf(String hashedPassword) {
+        if (hashedPassword == null) return "none";
+        if (hashedPassword.contains(DELIMITER)) return "salted";
+        if (hashedPassword.startsWith(REHASH_PREFIX)) return "marked";
+        if (isHexHash(hashedPassword)) return "hex";
+        return "plain";
+    }
+
+    /** Compares the unsalted SHA-256 of a password with a stored hex hash, ignoring case. */
+    private static boolean hexHashMatches(String plainPassword, String hexHash) {
+        try {
+            // Compute SHA-256 hash of the plain password
+            MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
+            byte[] computedHashBytes = digest.digest(plainPassword.getBytes());
+
+            // Convert to hex string
+            StringBuilder hexString = new StringBuilder();
+            for (byte b : computedHashBytes) {
+                String hex = Integer.toHexString(0xff & b);
+                if (hex.length() == 1) {
+                    hexString.append('0');
+                }
+                hexString.append(hex);
+            }
+
+            // Compare with stored hash (case-insensitive for hex)
+            return hexString.toString().equalsIgnoreCase(hexHash);
+        } catch (NoSuchAlgorithmException e) {
+            return false;
+        }
+    }
+
     /**
      * Checks if a string is a hex-encoded hash (64 hex characters, typical for SHA-256).
      * 
      * @param password the password string to check
      * @return true if it appears to be a hex hash, false otherwise
      */
-    private static boolean isHexHash(String password) {
+    public static boolean isHexHash(String password) {
         if (password == null || password.length() != 64) {
             return false;
         }
@@ -144,7 +182,23 @@ public class PasswordUtil {
      * @return true if the password appears to be hashed, false otherwise
      */
     public static boolean isHashed(String password) {
-        return password != null && password.contains(DELIMITER);
+        return password != null && (password.contains(DELIMITER) || password.startsWith(REHASH_PREFIX));
+    }
+
+    /**
+     * Checks if a stored password is in anything but the salted format, so should
+     * be replaced once the plain text is known, i.e. at a successful login.
+     */
+    public static boolean needsRehash(String storedPassword) {
+        return storedPassword != null && !storedPassword.contains(DELIMITER);
+    }
+
+    /**
+     * Marks a legacy hex SHA-256 hash whose plain text is unknown. Logins still
+     * verify against it, and the first successful one replaces it.
+     */
+    public static String markForRehash(String hexHash) {
+        return REHASH_PREFIX + hexHash.toLowerCase();
     }
 }
 
@@ -0,0 +1,99 @@
+package main.java.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * CRC32C checksum carried at the end of every line the repositories write.
+ *
+ * A checked line is the record's fields followed by {@link #MARK} and the CRC32C of
+ * everything before the mark as eight lowercase hex digits. Lines written before
+ * checksums existed have no mark and are read as they are. A line whose mark is
+ * there but whose digits do not match was torn or edited by hand and is treated
+ * like any other line that cannot be read.
+ */
+public final class RecordChecksum {
+    public static final String MARK = "||~";
+    /** Characters the mark and the digits add to a line. */
+    public static final int SUFFIX_LENGTH = MARK.length() + 8;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private RecordChecksum() {}
+
+    /** The record followed by its checksum. */
+    public static String append(String record) {
+        byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        int crc = crc(bytes, 0, bytes.length);
+        StringBuilder sb = new StringBuilder(record.length() + SUFFIX_LENGTH).append(record).append(MARK);
+        for (int shift = 28; shift >= 0; shift -= 4) {
+            sb.append(HEX[(crc >>> shift) & 0xf]);
+        }
+        return sb.toString();
+    }
+
+    /** True when the line ends in a checksum, whether or not it matches. */
+    public static boolean isChecked(String line) {
+        int mark = line.length() - SUFFIX_LENGTH;
+        return mark >= 0 && line.startsWith(MARK, mark) && hex(line, mark + MARK.length()) != -1L;
+    }
+
+    /**
+     * Checks a line read from a data file.
+     * @return the record without its checksum, the line itself when it has none,
+     *         or null when the checksum does not match
+     */
+    public static String verify(String line) {
+        if (!isChecked(line)) {
+            return line;
+        }
+        int mark = line.length() - SUFFIX_LENGTH;
+        String record = line.substring(0, mark);
+        byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        return crc(bytes, 0, bytes.length) == (int) hex(line, mark + MARK.length()) ? record : null;
+    }
+
+    /**
+     * Byte-level form of {@link #verify} for readers working on mapped files.
+     * @return end of the record within {@code [start, end)}, the end itself when the
+     *         line has no checksum, or -1 when the checksum does not match
+     */
+    public static int verify(ByteBuffer buf, int start, int end) {
+        int mark = end - SUFFIX_LENGTH;
+        if (mark < start || buf.get(mark) != '|' || buf.get(mark + 1) != '|' || buf.get(mark + 2) != '~') {
+            return end;
+        }
+        long expected = 0;
+        for (int i = mark + MARK.length(); i < end; i++) {
+            int d = Character.digit((char) buf.get(i), 16);
+            if (d < 0 || Character.isUpperCase((char) buf.get(i))) {
+                return end;
+            }
+            expected = expected << 4 | d;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buf.duplicate().limit(mark).position(start));
+        return (int) crc.getValue() == (int) expected ? mark : -1;
+    }
+
+    public static int crc(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /** Eight lowercase hex digits from {@code start} as a number, or -1 when they are not. */
+    private static long hex(String s, int start) {
+        long value = 0;
+        for (int i = start; i < start + 8; i++) {
+            char c = s.charAt(i);
+            int d = c >= '0' && c <= '9' ? c - '0' : c >= 'a' && c <= 'f' ? c - 'a' + 10 : -1;
+            if (d < 0) {
+                return -1L;
+            }
+            value = value << 4 | d;
+        }
+        return value;
+    }
+}
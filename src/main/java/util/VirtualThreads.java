@@ -0,0 +1,45 @@
+package main.java.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread-per-task executors that use virtual threads where the JDK has them.
+ *
+ * The project still compiles for Java 17, so the Java 21 factory methods are
+ * looked up reflectively; on older runtimes an unbounded pool of daemon
+ * platform threads stands in, which behaves the same at till-sized loads.
+ */
+public final class VirtualThreads {
+    private VirtualThreads() {}
+
+    /** One new thread per submitted task. */
+    public static ExecutorService newPerTaskExecutor(String name) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(daemonFactory(name));
+        }
+    }
+
+    /** True when {@link #newPerTaskExecutor} hands out virtual threads. */
+    public static boolean available() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ThreadFactory daemonFactory(String name) {
+        ThreadFactory base = Executors.defaultThreadFactory();
+        return task -> {
+            Thread t = base.newThread(task);
+            t.setName(name + "-" + t.getName());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,141 @@
+package main.java.view;
+import java.util.List;
+import java.io.PrintStream;
+import java.util.Scanner;
+import main.java.analytics.SalesReport;
+import main.java.branch.CrossBranchQuery;
+import main.java.config.AnalyticsMenuOption;
+import main.java.config.StockConstants;
+import main.java.inventory.ExpiryIndex;
+import main.java.inventory.StockAlertIndex;
+import main.java.model.ItemRecord;
+
+public class AnalyticsView {
+    private final Scanner scanner;
+    private final PrintStream out;
+
+    public AnalyticsView() {
+        this(Terminal.system());
+    }
+
+    public AnalyticsView(Terminal terminal) {
+        this.scanner = terminal.getScanner();
+        this.out = terminal.getOut();
+    }
+
+    public int menu() {
+        out.println("\n\n----------------------------------------");
+        out.println("      Sales Analytics");
+        out.println("----------------------------------------");
+        for (AnalyticsMenuOption option : AnalyticsMenuOption.values()) {
+            out.println(option.getDisplayText());
+        }
+        out.print("\nEnter your selection: ");
+        return scanner.nextInt();
+    }
+
+    public int promptLimit(int defaultLimit) {
+        out.print("How many rows? (blank for " + defaultLimit + "): ");
+        return readPositive(defaultLimit);
+    }
+
+    public int promptDays(int defaultDays) {
+        out.print("Days ahead? (blank for " + defaultDays + "): ");
+        return readPositive(defaultDays);
+    }
+
+    public String promptText(String prompt) {
+        out.print(prompt);
+        scanner.nextLine();
+        return scanner.nextLine().trim().toUpperCase();
+    }
+
+    public void showTable(String title, String labelHeader, List<SalesReport.Row> rows) {
+        out.println("\n" + title);
+        out.println("------------------------------------------------------");
+        out.printf("%-4s %-12s %10s %14s %8s%n", "#", labelHeader, "Qty", "Amount (RM)", "Count");
+        int rank = 1;
+        for (SalesReport.Row row : rows) {
+            out.printf("%-4d %-12s %10d %14.2f %8d%n",
+                    rank++, row.getLabel(), row.getQuantity(), row.getAmount(), row.getCount());
+        }
+        if (rows.isEmpty()) {
+            out.println("No sales recorded.");
+        }
+        out.println("------------------------------------------------------");
+    }
+
+    public void showLowStock(List<StockAlertIndex.Entry> entries) {
+        out.println(StockConstants.DISPLAY_LOW_STOCK_HEADER);
+        out.println("------------------------------------------------------");
+        out.printf("%-8s %-24s %8s %8s%n", "Item", "Description", "Stock", "Reorder");
+        for (StockAlertIndex.Entry entry : entries) {
+            ItemRecord item = entry.getItem();
+            out.printf("%-8s %-24s %8d %8d%n",
+                    item.getCode(), item.getDescription(), item.getQuantity(), entry.getReorderLevel());
+        }
+        if (entries.isEmpty()) {
+            out.println(StockConstants.MSG_NO_LOW_STOCK);
+        }
+        out.println("------------------------------------------------------");
+    }
+
+    public void showExpiring(int days, List<ExpiryIndex.Entry> entries) {
+        out.println(String.format(StockConstants.DISPLAY_EXPIRING_HEADER_FORMAT, days));
+        out.println("------------------------------------------------------");
+        out.printf("%-8s %-24s %8s %12s%n", "Item", "Description", "Stock", "Expiry");
+        for (ExpiryIndex.Entry entry : entries) {
+            ItemRecord item = entry.getItem();
+            out.printf("%-8s %-24s %8d %12s%n",
+                    item.getCode(), item.getDescription(), item.getQuantity(), entry.getExpiry());
+        }
+        if (entries.isEmpty()) {
+            out.println(StockConstants.MSG_NO_EXPIRING);
+        }
+        out.println("------------------------------------------------------");
+    }
+
+    public void showBranchStock(String code, List<CrossBranchQuery.StockLevel> levels) {
+        out.println("\nStock of " + code + " by branch");
+        out.println("------------------------------------------------------");
+        out.printf("%-16s %-24s %8s%n", "Branch", "Description", "Stock");
+        long total = 0;
+        for (CrossBranchQuery.StockLevel level : levels) {
+            out.printf("%-16s %-24s %8d%n",
+                    level.getBranch(), level.getItem().getDescription(), level.getQuantity());
+            total += level.getQuantity();
+        }
+        if (levels.isEmpty()) {
+            out.println("No branch stocks this item.");
+        } else {
+            out.printf("%-16s %-24s %8d%n", "All", "", total);
+        }
+        out.println("------------------------------------------------------");
+    }
+
+    public void showSummary(SalesReport report, long elapsedMillis) {
+        out.printf("Orders: %d  Revenue: RM%.2f  (%d ms)%n",
+                report.getOrderCount(), report.getRevenue(), elapsedMillis);
+        if (report.getSkippedLines() > 0) {
+            out.println("Skipped " + report.getSkippedLines() + " malformed order line(s).");
+        }
+    }
+
+    public void info(String msg) {
+        out.println(msg);
+    }
+
+    private int readPositive(int defaultValue) {
+        scanner.nextLine();
+        String input = scanner.nextLine().trim();
+        if (input.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            int n = Integer.parseInt(input);
+            return n > 0 ? n : defaultValue;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
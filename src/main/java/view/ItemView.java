@@ -2,23 +2,34 @@ package main.java.view;
 
 import main.java.config.ItemMenuOption;
 import java.util.List;
+import java.io.PrintStream;
 import java.util.Scanner;
 import main.java.model.ItemRecord;
 
 public class ItemView {
-    private final Scanner scanner = new Scanner(System.in);
+    private final Scanner scanner;
+    private final PrintStream out;
+
+    public ItemView() {
+        this(Terminal.system());
+    }
+
+    public ItemView(Terminal terminal) {
+        this.scanner = terminal.getScanner();
+        this.out = terminal.getOut();
+    }
 
     public int menu() {
-        System.out.println("\n\n----------------------------------------");
-        System.out.println("      Welcome to Item Interface");
-        System.out.println("----------------------------------------");
+        out.println("\n\n----------------------------------------");
+        out.println("      Welcome to Item Interface");
+        out.println("----------------------------------------");
         
         // Use the enum to print the menu options
         for (ItemMenuOption option : ItemMenuOption.values()) {
-            System.out.println(option.getValue() + ". " + option.getDescription());
+            out.println(option.getValue() + ". " + option.getDescription());
         }
         
-        System.out.print("\nEnter your selection: ");
+        out.print("\nEnter your selection: ");
         
         // Get min and max values from the enum for robust validation message
         int min = ItemMenuOption.ADD.getValue();
@@ -32,7 +43,7 @@ public class ItemView {
             String input = scanner.nextLine().trim();
 
             if (input.isEmpty()) {
-                System.out.print("*Invalid input. Enter your selection " + range + ": ");
+                out.print("*Invalid input. Enter your selection " + range + ": ");
                 continue;
             }
             try {
@@ -42,10 +53,10 @@ public class ItemView {
                 if (selection >= min && selection <= max) {
                     valid = true;
                 } else {
-                    System.out.print("*Invalid input. Please enter a number " + range + ": ");
+                    out.print("*Invalid input. Please enter a number " + range + ": ");
                 }
             } catch (NumberFormatException e) {
-                System.out.print("*Invalid input. Please enter a number " + range + ": ");
+                out.print("*Invalid input. Please enter a number " + range + ": ");
             }
         } while (!valid);
         
@@ -54,10 +65,10 @@ public class ItemView {
 
     // RETURNS NULL IF USER ENTERS 'X'
     public ItemRecord.Type promptType() {
-        System.out.println("Choose Item type (X to back):");
-        System.out.println("1. Medicine");
-        System.out.println("2. Supplement");
-        System.out.print("Selection: ");
+        out.println("Choose Item type (X to back):");
+        out.println("1. Medicine");
+        out.println("2. Supplement");
+        out.print("Selection: ");
         
         int sel = -1;
         boolean valid = false;
@@ -76,7 +87,7 @@ public class ItemView {
                 sel = 2;
                 valid = true;
             } else {
-                System.out.print("*Invalid input. Enter 1, 2, or X: ");
+                out.print("*Invalid input. Enter 1, 2, or X: ");
             }
         } while (!valid);
         
@@ -91,7 +102,7 @@ public class ItemView {
         
         // 1. Item Code Validation (Allows 'X' to back)
         do {
-            System.out.print("Enter Item Code (" + codeFormat + ") (X to back): ");
+            out.print("Enter Item Code (" + codeFormat + ") (X to back): ");
             code = scanner.nextLine().trim().toUpperCase();
 
             if (code.equals("X")) { // Exit condition
@@ -101,28 +112,28 @@ public class ItemView {
             if (code.length() == 5 && code.startsWith(typeChar)) {
                 break;
             }
-            System.out.println("*Invalid Item Code format. Must be 5 characters and start with '" + typeChar + "'.");
+            out.println("*Invalid Item Code format. Must be 5 characters and start with '" + typeChar + "'.");
         } while (true);
 
         // 2. Description
-        System.out.print("Enter Description: ");
+        out.print("Enter Description: ");
         String desc = scanner.nextLine();
 
         // 3. Price Validation (Non-numeric and non-negative check)
         double price = 0.0;
         boolean validPrice = false;
         do {
-            System.out.print("Enter Price: ");
+            out.print("Enter Price: ");
             String priceStr = scanner.nextLine().trim();
             try {
                 price = Double.parseDouble(priceStr);
                 if (price < 0) {
-                     System.out.println("*Invalid price input. Price cannot be negative.");
+                     out.println("*Invalid price input. Price cannot be negative.");
                 } else {
                     validPrice = true;
                 }
             } catch (NumberFormatException e) {
-                System.out.println("*Invalid price input. Please enter a number.");
+                out.println("*Invalid price input. Please enter a number.");
             }
         } while (!validPrice);
         
@@ -130,23 +141,23 @@ public class ItemView {
         int qty = 0;
         boolean validQty = false;
         do {
-            System.out.print("Enter Quantity: ");
+            out.print("Enter Quantity: ");
             String qtyStr = scanner.nextLine().trim();
             try {
                 qty = Integer.parseInt(qtyStr);
                 if (qty < 0) {
-                     System.out.println("*Invalid quantity input. Quantity cannot be negative.");
+                     out.println("*Invalid quantity input. Quantity cannot be negative.");
                 } else {
                     validQty = true;
                 }
             } catch (NumberFormatException e) {
-                System.out.println("*Invalid quantity input. Please enter a whole number.");
+                out.println("*Invalid quantity input. Please enter a whole number.");
             }
         } while (!validQty);
 
         // 5. Extra 1 (String)
         String extra1Label = type == ItemRecord.Type.MEDICINE ? "For Disease" : "Function";
-        System.out.print("Enter " + extra1Label + ": ");
+        out.print("Enter " + extra1Label + ": ");
         String extra1 = scanner.nextLine();
 
         // 6. Extra 2 (Integer) Validation (Non-numeric and non-negative check)
@@ -154,17 +165,17 @@ public class ItemView {
         int extra2 = 0;
         boolean validExtra2 = false;
         do {
-            System.out.print("Enter " + extra2Label + ": ");
+            out.print("Enter " + extra2Label + ": ");
             String extra2Str = scanner.nextLine().trim();
             try {
                 extra2 = Integer.parseInt(extra2Str);
                 if (extra2 < 0) {
-                     System.out.println("*Invalid " + extra2Label + " input. Value cannot be negative.");
+                     out.println("*Invalid " + extra2Label + " input. Value cannot be negative.");
                 } else {
                     validExtra2 = true;
                 }
             } catch (NumberFormatException e) {
-                System.out.println("*Invalid " + extra2Label + " input. Please enter a whole number.");
+                out.println("*Invalid " + extra2Label + " input. Please enter a whole number.");
             }
         } while (!validExtra2);
         
@@ -173,13 +184,13 @@ public class ItemView {
 
     // RETURNS "X" IF USER ENTERS 'X'
     public String promptCode(String prompt) {
-        System.out.print(prompt + " (X to back): ");
+        out.print(prompt + " (X to back): ");
         // Ensure input is trimmed and converted to upper case for consistent 'X' check in controller
         return scanner.nextLine().trim().toUpperCase(); 
     }
 
     public ItemRecord promptUpdate(ItemRecord current) {
-        System.out.println("\n--- Modifying Item: " + current.getCode() + " (" + current.getType() + ") ---");
+        out.println("\n--- Modifying Item: " + current.getCode() + " (" + current.getType() + ") ---");
         
         // 0. Item Code (Allows 'X' to back or empty to keep current)
         String newCode = current.getCode();
@@ -187,7 +198,7 @@ public class ItemView {
         String codePrompt = "Item Code (current: " + current.getCode() + " / Leave empty to keep / X to back): ";
 
         do {
-            System.out.print(codePrompt);
+            out.print(codePrompt);
             String codeStr = scanner.nextLine().trim().toUpperCase();
             
             if (codeStr.equals("X")) { // Exit condition
@@ -204,11 +215,11 @@ public class ItemView {
                 newCode = codeStr;
                 break;
             }
-            System.out.println("*Invalid Item Code. Must be 5 characters and start with '" + typeChar + "'.");
+            out.println("*Invalid Item Code. Must be 5 characters and start with '" + typeChar + "'.");
         } while (true);
 
         // 1. Description
-        System.out.print("Description [" + current.getDescription() + "]: ");
+        out.print("Description [" + current.getDescription() + "]: ");
         String desc = scanner.nextLine();
         if (desc.isEmpty()) desc = current.getDescription();
 
@@ -218,7 +229,7 @@ public class ItemView {
         boolean validPrice = false;
 
         do {
-            System.out.print(priceLabel);
+            out.print(priceLabel);
             String priceStr = scanner.nextLine().trim();
             if (priceStr.isEmpty()) {
                 validPrice = true;
@@ -226,13 +237,13 @@ public class ItemView {
                 try {
                     double tempPrice = Double.parseDouble(priceStr);
                     if (tempPrice < 0) {
-                        System.out.println("*Invalid price input. Price cannot be negative.");
+                        out.println("*Invalid price input. Price cannot be negative.");
                     } else {
                         price = tempPrice;
                         validPrice = true;
                     }
                 } catch (NumberFormatException e) {
-                    System.out.println("*Invalid price input. Please enter a number.");
+                    out.println("*Invalid price input. Please enter a number.");
                 }
             }
         } while (!validPrice);
@@ -243,7 +254,7 @@ public class ItemView {
         boolean validQty = false;
 
         do {
-            System.out.print(qtyLabel);
+            out.print(qtyLabel);
             String qtyStr = scanner.nextLine().trim();
             if (qtyStr.isEmpty()) {
                 validQty = true;
@@ -251,13 +262,13 @@ public class ItemView {
                 try {
                     int tempQty = Integer.parseInt(qtyStr);
                     if (tempQty < 0) {
-                        System.out.println("*Invalid quantity input. Quantity cannot be negative.");
+                        out.println("*Invalid quantity input. Quantity cannot be negative.");
                     } else {
                         qty = tempQty;
                         validQty = true;
                     }
                 } catch (NumberFormatException e) {
-                    System.out.println("*Invalid quantity input. Please enter a whole number.");
+                    out.println("*Invalid quantity input. Please enter a whole number.");
                 }
             }
         } while (!validQty);
@@ -267,7 +278,7 @@ public class ItemView {
         String extra2Label = current.getType() == ItemRecord.Type.MEDICINE ? "Amount Day Take" : "Expire Date (YYYYMMDD)";
 
         // Extra 1 (String)
-        System.out.print(extra1Label + " [" + current.getExtra1() + "]: ");
+        out.print(extra1Label + " [" + current.getExtra1() + "]: ");
         String extra1 = scanner.nextLine();
         if (extra1.isEmpty()) extra1 = current.getExtra1();
 
@@ -277,7 +288,7 @@ public class ItemView {
         boolean validExtra2 = false;
 
         do {
-            System.out.print(extra2Prompt);
+            out.print(extra2Prompt);
             String extra2Str = scanner.nextLine().trim();
             if (extra2Str.isEmpty()) {
                 validExtra2 = true;
@@ -285,13 +296,13 @@ public class ItemView {
                 try {
                     int tempExtra2 = Integer.parseInt(extra2Str);
                     if (tempExtra2 < 0) {
-                        System.out.println("*Invalid " + extra2Label + " input. Value cannot be negative.");
+                        out.println("*Invalid " + extra2Label + " input. Value cannot be negative.");
                     } else {
                         extra2 = tempExtra2;
                         validExtra2 = true;
                     }
                 } catch (NumberFormatException e) {
-                    System.out.println("*Invalid " + extra2Label + " input. Please enter a whole number.");
+                    out.println("*Invalid " + extra2Label + " input. Please enter a whole number.");
                 }
             }
         } while (!validExtra2);
@@ -300,17 +311,17 @@ public class ItemView {
     }
 
     public void show(ItemRecord r) {
-        System.out.println("\nItem:");
-        System.out.println("Code: " + r.getCode());
-        System.out.println("Description: " + r.getDescription());
-        System.out.println("Price: RM" + String.format("%.2f", r.getPrice())); 
-        System.out.println("Quantity: " + r.getQuantity());
+        out.println("\nItem:");
+        out.println("Code: " + r.getCode());
+        out.println("Description: " + r.getDescription());
+        out.println("Price: RM" + String.format("%.2f", r.getPrice())); 
+        out.println("Quantity: " + r.getQuantity());
         if (r.getType() == ItemRecord.Type.MEDICINE) {
-            System.out.println("For Disease: " + r.getExtra1());
-            System.out.println("Amount Day Take: " + r.getExtra2());
+            out.println("For Disease: " + r.getExtra1());
+            out.println("Amount Day Take: " + r.getExtra2());
         } else {
-            System.out.println("Function: " + r.getExtra1());
-            System.out.println("Expire Date: " + r.getExtra2());
+            out.println("Function: " + r.getExtra1());
+            out.println("Expire Date: " + r.getExtra2());
         }
     }
 
@@ -320,6 +331,6 @@ public class ItemView {
     }
 
     public void info(String msg) {
-        System.out.println(msg);
+        out.println(msg);
     }
 }
\ No newline at end of file
@@ -1,29 +1,40 @@
 package main.java.view;
+import java.io.PrintStream;
 import java.util.Scanner;
 
 public class LoginView {
-    private final Scanner scanner = new Scanner(System.in);
+    private final Scanner scanner;
+    private final PrintStream out;
+
+    public LoginView() {
+        this(Terminal.system());
+    }
+
+    public LoginView(Terminal terminal) {
+        this.scanner = terminal.getScanner();
+        this.out = terminal.getOut();
+    }
 
     public String promptUsername() {
-        System.out.print("\nEnter your username to login: ");
+        out.print("\nEnter your username to login: ");
         return scanner.nextLine();
     }
 
     public String promptPassword() {
-        System.out.print("\nEnter your password: ");
+        out.print("\nEnter your password: ");
         return scanner.nextLine();
     }
 
     public void showLoginSuccess() {
-        System.out.println("\n\n*Login successful!");
+        out.println("\n\n*Login successful!");
     }
 
     public void showLoginFailure() {
-        System.out.println("\n*Invalid username or password.");
+        out.println("\n*Invalid username or password.");
     }
 
     public void showMaxAttemptsReached() {
-        System.out.println("\n*Too many failed login attempts. Exiting...");
+        out.println("\n*Too many failed login attempts. Exiting...");
     }
 }
 
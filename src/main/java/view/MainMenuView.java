@@ -1,26 +1,42 @@
 package main.java.view;
+import java.io.PrintStream;
 import java.util.Scanner;
 
 public class MainMenuView {
-    private final Scanner scanner = new Scanner(System.in);
+    private final Scanner scanner;
+    private final PrintStream out;
+
+    public MainMenuView() {
+        this(Terminal.system());
+    }
+
+    public MainMenuView(Terminal terminal) {
+        this.scanner = terminal.getScanner();
+        this.out = terminal.getOut();
+    }
 
     public int menu() {
-        System.out.println("\n\n================================================================");
-        System.out.println("             CCCCCCC  TTTTTTTT  RRRRRRR   LL");
-        System.out.println("            CC           TT     RR   RR   LL");
-        System.out.println("           CC            TT     RRRRRRR   LL");
-        System.out.println("           CC            TT     RR  RR    LL");
-        System.out.println("            CC           TT     RR   RR   LL");
-        System.out.println("             CCCCCCC     TT     RR    RR  LLLLLLLL");
-        System.out.println("================================================================");
-        System.out.println("\nSelection:");
-        System.out.println("1. Staff");
-        System.out.println("2. Item");
-        System.out.println("3. Order");
-        System.out.println("4. Transaction");
-        System.out.println("5. Exit");
-        System.out.print("\nEnter your selection: ");
+        out.println("\n\n================================================================");
+        out.println("             CCCCCCC  TTTTTTTT  RRRRRRR   LL");
+        out.println("            CC           TT     RR   RR   LL");
+        out.println("           CC            TT     RRRRRRR   LL");
+        out.println("           CC            TT     RR  RR    LL");
+        out.println("            CC           TT     RR   RR   LL");
+        out.println("             CCCCCCC     TT     RR    RR  LLLLLLLL");
+        out.println("================================================================");
+        out.println("\nSelection:");
+        out.println("1. Staff");
+        out.println("2. Item");
+        out.println("3. Order");
+        out.println("4. Transaction");
+        out.println("5. Exit");
+        out.println("6. Analytics");
+        out.print("\nEnter your selection: ");
         return scanner.nextInt();
     }
+
+    public void showInvalidInput() {
+        out.println("\nInvalid input.");
+    }
 }
 
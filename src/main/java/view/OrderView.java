@@ -1,37 +1,51 @@
 package main.java.view;
+import java.time.LocalDate;
+import java.io.PrintStream;
 import java.util.Scanner;
 import main.java.config.OrderConstants;
 import main.java.config.OrderMenuOption;
+import main.java.config.StockConstants;
 import main.java.controller.Validation;
 import main.java.model.*;
+import main.java.util.Money;
 
 public class OrderView {
-    private final Scanner scanner = new Scanner(System.in);
+    private final Scanner scanner;
+    private final PrintStream out;
+
+    public OrderView() {
+        this(Terminal.system());
+    }
+
+    public OrderView(Terminal terminal) {
+        this.scanner = terminal.getScanner();
+        this.out = terminal.getOut();
+    }
 
     public int menu() {
-        System.out.println(OrderConstants.MENU_HEADER);
-        System.out.println(OrderConstants.MENU_TITLE);
-        System.out.println(OrderConstants.MENU_SEPARATOR);
+        out.println(OrderConstants.MENU_HEADER);
+        out.println(OrderConstants.MENU_TITLE);
+        out.println(OrderConstants.MENU_SEPARATOR);
         for (OrderMenuOption option : OrderMenuOption.values()) {
-            System.out.println(option.getDisplayText());
+            out.println(option.getDisplayText());
         }
-        System.out.print(OrderConstants.MENU_SELECTION_PROMPT);
+        out.print(OrderConstants.MENU_SELECTION_PROMPT);
         return scanner.nextInt();
     }
 
     public String promptOrderNumber(String prompt) {
         while (true) {
-            System.out.print(prompt);
+            out.print(prompt);
             scanner.nextLine(); // consume newline
             String input = scanner.nextLine().trim();
             
             if (input.isEmpty()) {
-                System.out.println(OrderConstants.MSG_ORDER_NUMBER_REQUIRED);
+                out.println(OrderConstants.MSG_ORDER_NUMBER_REQUIRED);
                 continue;
             }
             
             if (!Validation.isOrderNumber(input)) {
-                System.out.println(OrderConstants.MSG_INVALID_ORDER_NUMBER_FORMAT);
+                out.println(OrderConstants.MSG_INVALID_ORDER_NUMBER_FORMAT);
                 continue;
             }
             
@@ -41,7 +55,7 @@ public class OrderView {
 
     public String promptOrderNumberForSearch(String prompt) {
         // For search, allow empty input to show all orders
-        System.out.print(prompt);
+        out.print(prompt);
         scanner.nextLine(); // consume newline
         String input = scanner.nextLine().trim();
         
@@ -52,7 +66,7 @@ public class OrderView {
         
         // If not empty, validate format
         if (!Validation.isOrderNumber(input)) {
-            System.out.println(OrderConstants.MSG_INVALID_ORDER_NUMBER_FORMAT);
+            out.println(OrderConstants.MSG_INVALID_ORDER_NUMBER_FORMAT);
             return null; // Indicate invalid input
         }
         
@@ -60,7 +74,7 @@ public class OrderView {
     }
 
     public boolean confirm(String prompt) {
-        System.out.print(prompt);
+        out.print(prompt);
         String c = scanner.next();
         scanner.nextLine();
         return c.equalsIgnoreCase(OrderConstants.YES_CODE);
@@ -68,7 +82,7 @@ public class OrderView {
 
     public String promptItemCode() {
         while (true) {
-            System.out.print(OrderConstants.PROMPT_ITEM_CODE);
+            out.print(OrderConstants.PROMPT_ITEM_CODE);
             String input = scanner.nextLine().trim();
             
             // Allow exit code
@@ -77,12 +91,12 @@ public class OrderView {
             }
             
             if (input.isEmpty()) {
-                System.out.println(OrderConstants.MSG_ITEM_CODE_REQUIRED);
+                out.println(OrderConstants.MSG_ITEM_CODE_REQUIRED);
                 continue;
             }
             
             if (!Validation.isItemCode(input)) {
-                System.out.println(OrderConstants.MSG_INVALID_ITEM_CODE_FORMAT);
+                out.println(OrderConstants.MSG_INVALID_ITEM_CODE_FORMAT);
                 continue;
             }
             
@@ -92,72 +106,92 @@ public class OrderView {
 
     public int promptQuantity() {
         while (true) {
-            System.out.print(OrderConstants.PROMPT_QUANTITY);
+            out.print(OrderConstants.PROMPT_QUANTITY);
             String input = scanner.nextLine().trim();
             
             if (input.isEmpty()) {
-                System.out.println(OrderConstants.MSG_QUANTITY_REQUIRED);
+                out.println(OrderConstants.MSG_QUANTITY_REQUIRED);
                 continue;
             }
             
             if (!Validation.isPositiveInteger(input)) {
-                System.out.println(OrderConstants.MSG_INVALID_QUANTITY_FORMAT);
+                out.println(OrderConstants.MSG_INVALID_QUANTITY_FORMAT);
                 continue;
             }
             
             try {
                 return Integer.parseInt(input);
             } catch (NumberFormatException e) {
-                System.out.println(OrderConstants.MSG_INVALID_QUANTITY_FORMAT);
+                out.println(OrderConstants.MSG_INVALID_QUANTITY_FORMAT);
             }
         }
     }
 
     public boolean promptAddAnother() {
-        System.out.print(OrderConstants.PROMPT_ADD_ANOTHER);
+        out.print(OrderConstants.PROMPT_ADD_ANOTHER);
         String ans = scanner.nextLine().trim();
         return ans.equalsIgnoreCase(OrderConstants.YES_CODE);
     }
 
-    public void showItemInfo(ItemRecord item) {
+    /** @param available stock not already held by orders being entered at other tills */
+    public void showItemInfo(ItemRecord item, int available) {
         String formattedPrice = String.format(OrderConstants.PRICE_FORMAT, item.getPrice());
-        System.out.println(String.format(OrderConstants.DISPLAY_ITEM_INFO_FORMAT, 
-            item.getCode(), item.getDescription(), formattedPrice, item.getQuantity()));
+        out.println(String.format(OrderConstants.DISPLAY_ITEM_INFO_FORMAT, 
+            item.getCode(), item.getDescription(), formattedPrice, available));
+    }
+
+    public void showNotEnoughStock(ItemRecord item, int available) {
+        out.println(String.format(OrderConstants.DISPLAY_NOT_ENOUGH_STOCK_FORMAT, available, item.getCode()));
     }
 
     public void showItemNotFound(String code) {
-        System.out.println(String.format(OrderConstants.DISPLAY_ITEM_NOT_FOUND_FORMAT, code));
+        out.println(String.format(OrderConstants.DISPLAY_ITEM_NOT_FOUND_FORMAT, code));
+    }
+
+    public void showExpired(ItemRecord item, LocalDate expiry) {
+        out.println(String.format(StockConstants.MSG_EXPIRED_FORMAT,
+            item.getCode(), item.getDescription(), expiry));
+    }
+
+    public void showFefoSuggestion(ItemRecord item, LocalDate expiry) {
+        out.println(String.format(StockConstants.MSG_FEFO_FORMAT,
+            item.getCode(), expiry, item.getQuantity()));
+    }
+
+    public void showLowStock(ItemRecord item, int reorderLevel) {
+        out.println(String.format(StockConstants.MSG_LOW_STOCK_FORMAT,
+            item.getCode(), item.getDescription(), item.getQuantity(), reorderLevel));
     }
 
     public void showInvalidQuantity() {
-        System.out.println(OrderConstants.MSG_QUANTITY_MUST_BE_POSITIVE);
+        out.println(OrderConstants.MSG_QUANTITY_MUST_BE_POSITIVE);
     }
 
     public void show(OrderRecord record) {
-        System.out.println(OrderConstants.DISPLAY_ORDER_HEADER);
-        System.out.println(OrderConstants.DISPLAY_ORDER_NUMBER + record.getOrderNumber());
-        System.out.println(OrderConstants.DISPLAY_DATE + record.getDate());
+        out.println(OrderConstants.DISPLAY_ORDER_HEADER);
+        out.println(OrderConstants.DISPLAY_ORDER_NUMBER + record.getOrderNumber());
+        out.println(OrderConstants.DISPLAY_DATE + record.getDate());
         for (OrderLine line : record.getLines()) {
-            System.out.println(OrderConstants.DISPLAY_ITEM_PREFIX + line.getItemCode() + 
+            out.println(OrderConstants.DISPLAY_ITEM_PREFIX + line.getItemCode() + 
                 OrderConstants.DISPLAY_QTY + line.getQuantity() + 
-                OrderConstants.DISPLAY_SUBTOTAL + line.getSubtotal());
+                OrderConstants.DISPLAY_SUBTOTAL + Money.format(line.getSubtotalSen()));
         }
-        System.out.println(OrderConstants.DISPLAY_TOTAL + record.getTotal());
+        out.println(OrderConstants.DISPLAY_TOTAL + Money.format(record.getTotalSen()));
     }
 
     public void showUpdatePrompt(OrderRecord current) {
-        System.out.println(OrderConstants.DISPLAY_UPDATE_HEADER + current.getOrderNumber() + OrderConstants.DISPLAY_UPDATE_FOOTER);
-        System.out.println(OrderConstants.DISPLAY_CURRENT_ORDER_DETAILS);
+        out.println(OrderConstants.DISPLAY_UPDATE_HEADER + current.getOrderNumber() + OrderConstants.DISPLAY_UPDATE_FOOTER);
+        out.println(OrderConstants.DISPLAY_CURRENT_ORDER_DETAILS);
         show(current);
-        System.out.println(OrderConstants.DISPLAY_UPDATE_INSTRUCTIONS);
+        out.println(OrderConstants.DISPLAY_UPDATE_INSTRUCTIONS);
     }
 
     public void showUpdateCancelled() {
-        System.out.println(OrderConstants.MSG_UPDATE_CANCELLED);
+        out.println(OrderConstants.MSG_UPDATE_CANCELLED);
     }
 
     public void info(String msg) {
-        System.out.println(msg);
+        out.println(msg);
     }
 }
 
@@ -1,5 +1,6 @@
 package main.java.view;
 import java.util.List;
+import java.io.PrintStream;
 import java.util.Scanner;
 import java.util.function.Predicate;
 import main.java.model.Staff;
@@ -10,20 +11,30 @@ import main.java.config.StaffMenuOption;
 import main.java.controller.Validation;
 
 public class StaffView {
-    private final Scanner scanner = new Scanner(System.in);
+    private final Scanner scanner;
+    private final PrintStream out;
+
+    public StaffView() {
+        this(Terminal.system());
+    }
+
+    public StaffView(Terminal terminal) {
+        this.scanner = terminal.getScanner();
+        this.out = terminal.getOut();
+    }
 
     /**
      * Displays the staff menu and returns the user's selection.
      * @return numeric menu choice
      */
     public int menu() {
-        System.out.println(StaffConstants.MENU_HEADER);
-        System.out.println(StaffConstants.MENU_TITLE);
-        System.out.println(StaffConstants.MENU_SEPARATOR);
+        out.println(StaffConstants.MENU_HEADER);
+        out.println(StaffConstants.MENU_TITLE);
+        out.println(StaffConstants.MENU_SEPARATOR);
         for (StaffMenuOption option : StaffMenuOption.values()) {
-            System.out.println(option.getDisplayText());
+            out.println(option.getDisplayText());
         }
-        System.out.print(StaffConstants.MENU_SELECTION_PROMPT);
+        out.print(StaffConstants.MENU_SELECTION_PROMPT);
         return scanner.nextInt();
     }
 
@@ -66,6 +77,16 @@ public class StaffView {
         return promptValidated(prompt, Validation::isStaffId, StaffConstants.MSG_INVALID_STAFF_ID_FORMAT);
     }
 
+    /**
+     * Prompts for a staff ID or directory search terms.
+     * @return the non-blank input, trimmed
+     */
+    public String promptSearch() {
+        scanner.nextLine(); // consume newline if needed
+        return promptValidated(StaffConstants.PROMPT_STAFF_SEARCH, s -> !s.trim().isEmpty(),
+                StaffConstants.MSG_REQUIRED_FIELD).trim();
+    }
+
     /**
      * Prompts for new field values while allowing blanks to keep current data.
      * @param current existing staff data
@@ -73,7 +94,7 @@ public class StaffView {
      */
     public Staff promptUpdate(Staff current) {
         scanner.nextLine(); // consume newline
-        System.out.println(StaffConstants.PROMPT_LEAVE_BLANK);
+        out.println(StaffConstants.PROMPT_LEAVE_BLANK);
         
         String staffId = promptUpdateField("New Staff ID (Sxxxx)", current.getStaffId(), Validation::isStaffId, StaffConstants.MSG_INVALID_STAFF_ID_FORMAT);
         String password = promptUpdateField("New Password", current.getpassword(), Validation::isNonEmpty, StaffConstants.MSG_REQUIRED_FIELD);
@@ -97,12 +118,12 @@ public class StaffView {
      */
     private String promptValidated(String prompt, Predicate<String> validator, String errorMessage) {
         while (true) {
-            System.out.print(prompt);
+            out.print(prompt);
             String input = scanner.nextLine();
             if (validator.test(input)) {
                 return input;
             }
-            System.out.println(errorMessage);
+            out.println(errorMessage);
         }
     }
 
@@ -115,7 +136,7 @@ public class StaffView {
      */
     private String promptUpdateField(String label, String currentValue, Predicate<String> validator, String errorMessage) {
         while (true) {
-            System.out.print(label + " [" + currentValue + "]: ");
+            out.print(label + " [" + currentValue + "]: ");
             String input = scanner.nextLine();
             if (input.isEmpty()) {
                 return currentValue;
@@ -123,7 +144,7 @@ public class StaffView {
             if (validator.test(input)) {
                 return input;
             }
-            System.out.println(errorMessage);
+            out.println(errorMessage);
         }
     }
 
@@ -132,17 +153,17 @@ public class StaffView {
      * @param staff staff to display
      */
     public void showStaff(Staff staff) {
-        System.out.println(StaffConstants.DISPLAY_STAFF_INFO);
-        System.out.println(StaffConstants.DISPLAY_STAFF_ID + staff.getStaffId());
-        System.out.println(StaffConstants.DISPLAY_PASSWORD + staff.getpassword());
-        System.out.println(StaffConstants.DISPLAY_FIRST_NAME + staff.getname().getFirstName());
-        System.out.println(StaffConstants.DISPLAY_LAST_NAME + staff.getname().getLastName());
-        System.out.println(StaffConstants.DISPLAY_PHONE_NO + staff.getphoneNo());
-        System.out.println(StaffConstants.DISPLAY_STAFF_POSITION + staff.getStaffPosition());
-        System.out.println(StaffConstants.DISPLAY_STREET + staff.getaddress().getstreet());
-        System.out.println(StaffConstants.DISPLAY_POSTCODE + staff.getaddress().getpostcode());
-        System.out.println(StaffConstants.DISPLAY_REGION + staff.getaddress().getregion());
-        System.out.println(StaffConstants.DISPLAY_STATE + staff.getaddress().getstate());
+        out.println(StaffConstants.DISPLAY_STAFF_INFO);
+        out.println(StaffConstants.DISPLAY_STAFF_ID + staff.getStaffId());
+        out.println(StaffConstants.DISPLAY_PASSWORD + staff.getpassword());
+        out.println(StaffConstants.DISPLAY_FIRST_NAME + staff.getname().getFirstName());
+        out.println(StaffConstants.DISPLAY_LAST_NAME + staff.getname().getLastName());
+        out.println(StaffConstants.DISPLAY_PHONE_NO + staff.getphoneNo());
+        out.println(StaffConstants.DISPLAY_STAFF_POSITION + staff.getStaffPosition());
+        out.println(StaffConstants.DISPLAY_STREET + staff.getaddress().getstreet());
+        out.println(StaffConstants.DISPLAY_POSTCODE + staff.getaddress().getpostcode());
+        out.println(StaffConstants.DISPLAY_REGION + staff.getaddress().getregion());
+        out.println(StaffConstants.DISPLAY_STATE + staff.getaddress().getstate());
     }
 
     /**
@@ -150,7 +171,7 @@ public class StaffView {
      * @param staffList staff collection to display
      */
     public void showList(List<Staff> staffList) {
-        System.out.println(StaffConstants.DISPLAY_ALL_STAFF);
+        out.println(StaffConstants.DISPLAY_ALL_STAFF);
         for (Staff s : staffList) {
             showStaff(s);
         }
@@ -161,7 +182,7 @@ public class StaffView {
      * @param message text to display
      */
     public void info(String message) {
-        System.out.println(message);
+        out.println(message);
     }
 }
 
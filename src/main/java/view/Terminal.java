@@ -0,0 +1,69 @@
+package main.java.view;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+
+/**
+ * The input and output a view talks to: the process console, or one till's
+ * connection to the session server.
+ *
+ * All views of one session must share a terminal. A {@link Scanner} reads ahead,
+ * so two scanners over the same stream would each swallow input meant for the
+ * other.
+ */
+public final class Terminal {
+    private final Scanner scanner;
+    private final PrintStream out;
+
+    private Terminal(Scanner scanner, PrintStream out) {
+        this.scanner = scanner;
+        this.out = out;
+    }
+
+    /**
+     * The console as it is when this is called. Every call makes a new scanner
+     * over {@code System.in}, which is what views have always done.
+     */
+    public static Terminal system() {
+        return new Terminal(new Scanner(System.in), System.out);
+    }
+
+    /**
+     * A terminal over a connection's streams. Output is flushed whenever input is
+     * about to be read, so a prompt printed without a newline reaches the till
+     * before the session waits for its answer.
+     */
+    public static Terminal of(InputStream in, OutputStream out) {
+        PrintStream print = new PrintStream(out, true, StandardCharsets.UTF_8);
+        return new Terminal(new Scanner(new FlushingInputStream(in, print), StandardCharsets.UTF_8), print);
+    }
+
+    public Scanner getScanner() { return scanner; }
+    public PrintStream getOut() { return out; }
+
+    private static final class FlushingInputStream extends FilterInputStream {
+        private final PrintStream out;
+
+        FlushingInputStream(InputStream in, PrintStream out) {
+            super(in);
+            this.out = out;
+        }
+
+        @Override
+        public int read() throws IOException {
+            out.flush();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            out.flush();
+            return super.read(b, off, len);
+        }
+    }
+}
@@ -1,34 +1,46 @@
 package main.java.view;
+import java.io.PrintStream;
 import java.util.Scanner;
 import main.java.model.TransactionRecord;
+import main.java.util.Money;
 
 public class TransactionView {
-    private final Scanner scanner = new Scanner(System.in);
+    private final Scanner scanner;
+    private final PrintStream out;
+
+    public TransactionView() {
+        this(Terminal.system());
+    }
+
+    public TransactionView(Terminal terminal) {
+        this.scanner = terminal.getScanner();
+        this.out = terminal.getOut();
+    }
 
     public int menu() {
-        System.out.println("\n\n--------------------");
-        System.out.println("   Transaction");
-        System.out.println("--------------------");
-        System.out.println("1. Search");
-        System.out.println("2. Statistics");
-        System.out.println("3. Delete");
-        System.out.println("4. Back");
-        System.out.print("Select Function: ");
+        out.println("\n\n--------------------");
+        out.println("   Transaction");
+        out.println("--------------------");
+        out.println("1. Search");
+        out.println("2. Statistics");
+        out.println("3. Delete");
+        out.println("4. Back");
+        out.print("Select Function: ");
         return scanner.nextInt();
     }
 
     public String promptOrderCode(String prompt) {
-        System.out.print(prompt);
+        out.print(prompt);
         scanner.nextLine();
         return scanner.nextLine().trim();
     }
 
     public TransactionRecord.Method promptMethod() {
-        System.out.println("\nSelect Payment Method:");
-        System.out.println("1. Cash");
-        System.out.println("2. Bank");
-        System.out.println("3. E-Wallet");
-        System.out.print("Selection: ");
+        out.println("\nSelect Payment Method:");
+        out.println("1. Cash");
+        out.println("2. Bank");
+        out.println("3. E-Wallet");
+        out.print("Selection: ");
         int s = scanner.nextInt();
         scanner.nextLine();
         if (s == 1) return TransactionRecord.Method.CASH;
@@ -37,12 +49,12 @@ public class TransactionView {
     }
 
     public double promptCash(double finalPrice) {
-        System.out.print("Enter Pay Amount: RM");
+        out.print("Enter Pay Amount: RM");
         double pay = scanner.nextDouble();
         scanner.nextLine();
         while (pay < finalPrice) {
-            System.out.println("Pay Amount cannot be less than Final Price.");
-            System.out.print("Enter Pay Amount: RM");
+            out.println("Pay Amount cannot be less than Final Price.");
+            out.print("Enter Pay Amount: RM");
             pay = scanner.nextDouble();
             scanner.nextLine();
         }
@@ -50,84 +62,63 @@ public class TransactionView {
     }
 
     public String promptBankName() {
-        System.out.print("Enter Bank Name: ");
+        out.print("Enter Bank Name: ");
         return scanner.nextLine();
     }
 
     public String promptAccount() {
-        System.out.print("Enter Account Number (XXXX-XXXX-XXXX-XXXX): ");
+        out.print("Enter Account Number (XXXX-XXXX-XXXX-XXXX): ");
         return scanner.nextLine();
     }
 
     public String promptName() {
-        System.out.print("Enter Name: ");
+        out.print("Enter Name: ");
         return scanner.nextLine();
     }
 
     public String promptPhone() {
-        System.out.print("Enter Phone (XXX-XXX-XXXX or XXX-XXXX-XXXX): ");
+        out.print("Enter Phone (XXX-XXX-XXXX or XXX-XXXX-XXXX): ");
         return scanner.nextLine();
     }
 
     public void showSummary(String orderNumber, double total, double discountPct, double discountAmt, double tax, double finalPrice) {
-        System.out.printf("\nOrder: %s\nTotal: RM%.2f\nDiscount: %.2f%% (RM%.2f)\nTax: %.2f%%\nFinal: RM%.2f\n",
+        out.printf("\nOrder: %s\nTotal: RM%.2f\nDiscount: %.2f%% (RM%.2f)\nTax: %.2f%%\nFinal: RM%.2f\n",
                 orderNumber, total, discountPct, discountAmt, tax, finalPrice);
     }
 
     public void show(TransactionRecord r) {
-        System.out.println("\nTransaction:");
-        System.out.println("Order: " + r.getOrderNumber());
-        System.out.println("Total: " + r.getTotalPrice());
-        System.out.println("Discount: " + r.getDiscountPercent() + "% (" + r.getDiscountAmount() + ")");
-        System.out.println("Tax: " + r.getTaxPercent() + "%");
-        System.out.println("Final: " + r.getFinalPrice());
-        System.out.println("Method: " + r.getMethod());
-        System.out.println("Field1: " + r.getField1());
-        System.out.println("Field2: " + r.getField2());
+        out.println("\nTransaction:");
+        out.println("Order: " + r.getOrderNumber());
+        out.println("Total: " + Money.format(r.getTotalPriceSen()));
+        out.println("Discount: " + r.getDiscountPercent() + "% (" + Money.format(r.getDiscountAmountSen()) + ")");
+        out.println("Tax: " + r.getTaxPercent() + "%");
+        out.println("Final: " + Money.format(r.getFinalPriceSen()));
+        out.println("Method: " + r.getMethod());
+        out.println("Field1: " + r.getField1());
+        out.println("Field2: " + r.getField2());
     }
 
     public void info(String msg) {
-        System.out.println(msg);
+        out.println(msg);
     }
 
     public void showStatistics(int totalTransactions, double totalRevenue, double averageTransaction, 
                                int cashCount, double cashTotal, int bankCount, double bankTotal, 
                                int ewalletCount, double ewalletTotal) {
-        System.out.println("\n\n====================");
-        System.out.println("Transaction Statistics");
-        System.out.println("====================");
-        System.out.printf("Total Transactions: %d\n", totalTransactions);
-        System.out.printf("Total Revenue: RM%.2f\n", totalRevenue);
-        if (totalTransactions > 0) {
-            System.out.printf("Average Transaction: RM%.2f\n", averageTransaction);
-        } else {
-            System.out.println("Average Transaction: N/A");
-        }
-        System.out.println("\nPayment Method Breakdown:");
-        System.out.printf("  Cash: %d transactions, RM%.2f\n", cashCount, cashTotal);
-        System.out.printf("  Bank: %d transactions, RM%.2f\n", bankCount, bankTotal);
-        System.out.printf("  E-Wallet: %d transactions, RM%.2f\n", ewalletCount, ewalletTotal);
-        System.out.println("====================\n");
-    }
-}
-
-    public void showStatistics(int totalTransactions, double totalRevenue, double averageTransaction, 
-                               int cashCount, double cashTotal, int bankCount, double bankTotal, 
-                               int ewalletCount, double ewalletTotal) {
-        System.out.println("\n\n====================");
-        System.out.println("Transaction Statistics");
-        System.out.println("====================");
-        System.out.printf("Total Transactions: %d\n", totalTransactions);
-        System.out.printf("Total Revenue: RM%.2f\n", totalRevenue);
+        out.println("\n\n====================");
+        out.println("Transaction Statistics");
+        out.println("====================");
+        out.printf("Total Transactions: %d\n", totalTransactions);
+        out.printf("Total Revenue: RM%.2f\n", totalRevenue);
         if (totalTransactions > 0) {
-            System.out.printf("Average Transaction: RM%.2f\n", averageTransaction);
+            out.printf("Average Transaction: RM%.2f\n", averageTransaction);
         } else {
-            System.out.println("Average Transaction: N/A");
+            out.println("Average Transaction: N/A");
         }
-        System.out.println("\nPayment Method Breakdown:");
-        System.out.printf("  Cash: %d transactions, RM%.2f\n", cashCount, cashTotal);
-        System.out.printf("  Bank: %d transactions, RM%.2f\n", bankCount, bankTotal);
-        System.out.printf("  E-Wallet: %d transactions, RM%.2f\n", ewalletCount, ewalletTotal);
-        System.out.println("====================\n");
+        out.println("\nPayment Method Breakdown:");
+        out.printf("  Cash: %d transactions, RM%.2f\n", cashCount, cashTotal);
+        out.printf("  Bank: %d transactions, RM%.2f\n", bankCount, bankTotal);
+        out.printf("  E-Wallet: %d transactions, RM%.2f\n", ewalletCount, ewalletTotal);
+        out.println("====================\n");
     }
 }
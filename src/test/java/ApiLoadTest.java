@@ -0,0 +1,104 @@
+package test.java;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import main.java.api.ApiServer;
+
+/**
+ * Closed-loop load generator for {@link ApiServer}: each client thread sends
+ * GET requests back to back for a fixed time, then throughput and latency
+ * percentiles are printed.
+ *
+ * <pre>
+ * java test.java.ApiLoadTest [baseUrl] [clients] [seconds] [path...]
+ * java test.java.ApiLoadTest http://localhost:8080 32 10 /items/M0001 /statistics
+ * </pre>
+ */
+public class ApiLoadTest {
+    private static final int MAX_SAMPLES_PER_CLIENT = 1 << 20;
+
+    public static void main(String[] args) throws Exception {
+        String base = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        String[] paths = args.length > 3 ? Arrays.copyOfRange(args, 3, args.length) : new String[] {"/items/M0001"};
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5)).build();
+        HttpRequest[] requests = new HttpRequest[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            requests[i] = HttpRequest.newBuilder(URI.create(base + paths[i])).GET().build();
+        }
+
+        // warm up connections and JIT before measuring
+        long warmupEnd = System.nanoTime() + Duration.ofSeconds(Math.min(2, seconds)).toNanos();
+        while (System.nanoTime() < warmupEnd) {
+            client.send(requests[0], HttpResponse.BodyHandlers.discarding());
+        }
+
+        AtomicLong errors = new AtomicLong();
+        long[][] samples = new long[clients][];
+        int[] counts = new int[clients];
+        Thread[] threads = new Thread[clients];
+        long end = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        for (int c = 0; c < clients; c++) {
+            int id = c;
+            samples[id] = new long[MAX_SAMPLES_PER_CLIENT];
+            threads[id] = new Thread(() -> {
+                int n = 0;
+                while (System.nanoTime() < end) {
+                    HttpRequest request = requests[n % requests.length];
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    if (n < MAX_SAMPLES_PER_CLIENT) {
+                        samples[id][n] = System.nanoTime() - start;
+                    }
+                    n++;
+                }
+                counts[id] = n;
+            }, "load-" + c);
+            threads[id].start();
+        }
+        long total = 0;
+        for (int c = 0; c < clients; c++) {
+            threads[c].join();
+            total += counts[c];
+        }
+
+        long[] all = new long[(int) Math.min(Integer.MAX_VALUE - 8, total)];
+        int pos = 0;
+        for (int c = 0; c < clients; c++) {
+            int n = Math.min(counts[c], MAX_SAMPLES_PER_CLIENT);
+            System.arraycopy(samples[c], 0, all, pos, n);
+            pos += n;
+        }
+        long[] sorted = Arrays.copyOf(all, pos);
+        Arrays.sort(sorted);
+        System.out.printf("%d requests in %d s with %d clients: %.0f req/s, %d errors%n",
+                total, seconds, clients, total / (double) seconds, errors.get());
+        System.out.printf("latency p50 %.3f ms  p99 %.3f ms  p99.9 %.3f ms  max %.3f ms%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int i = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, i)] / 1e6;
+    }
+}
@@ -0,0 +1,207 @@
+package test.java;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A small benchmark harness for per-call costs of a few hundred nanoseconds up
+ * to milliseconds, in the spirit of JMH, which the build does not have.
+ *
+ * Each benchmark runs for a number of warmup iterations, so the JIT has
+ * compiled it, then for measured iterations of a fixed time. The body is called
+ * in batches sized during warmup so the clock is read rarely, and every result is
+ * written to a volatile field so the JIT cannot drop the call as dead code.
+ * Reported per call: the mean time with the spread across iterations, and the
+ * bytes the thread allocated; per run: the collections and collector time.
+ *
+ * Numbers from one JVM run are comparable with each other; across runs, compare
+ * with the same iteration settings on the same machine.
+ */
+public final class Microbench {
+
+    /** The code being measured; its result is consumed so it cannot be optimised away. */
+    @FunctionalInterface
+    public interface Body {
+        Object run() throws Exception;
+    }
+
+    /** Measurements of one benchmark with one set of parameters. */
+    public static final class Result {
+        private final String name;
+        private final String params;
+        private final double nanosPerOp;
+        private final double nanosError;
+        private final double bytesPerOp;
+        private final long gcCount;
+        private final long gcMillis;
+
+        Result(String name, String params, double nanosPerOp, double nanosError, double bytesPerOp, long gcCount,
+               long gcMillis) {
+            this.name = name;
+            this.params = params;
+            this.nanosPerOp = nanosPerOp;
+            this.nanosError = nanosError;
+            this.bytesPerOp = bytesPerOp;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        public String getName() { return name; }
+        public String getParams() { return params; }
+        public double getNanosPerOp() { return nanosPerOp; }
+        /** Standard deviation of the per-iteration means. */
+        public double getNanosError() { return nanosError; }
+        public double getBytesPerOp() { return bytesPerOp; }
+        public long getGcCount() { return gcCount; }
+        public long getGcMillis() { return gcMillis; }
+
+        public static String header() {
+            return String.format("%-34s %-22s %12s %10s %12s %10s %5s %6s", "benchmark", "params", "ns/op", "+-",
+                    "ops/s", "B/op", "gc", "gc ms");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-34s %-22s %12.1f %10.1f %12.0f %10.1f %5d %6d", name, params, nanosPerOp,
+                    nanosError, nanosPerOp == 0 ? 0.0 : 1e9 / nanosPerOp, bytesPerOp, gcCount, gcMillis);
+        }
+    }
+
+    private static volatile Object sink;
+
+    private final int warmupIterations;
+    private final int iterations;
+    private final long iterationNanos;
+    private final Pattern filter;
+    private final PrintStream out;
+    private final List<Result> results = new ArrayList<>();
+
+    public Microbench(int warmupIterations, int iterations, long iterationMillis, Pattern filter) {
+        this(warmupIterations, iterations, iterationMillis, filter, null);
+    }
+
+    /**
+     * @param filter only benchmarks whose "name params" this finds are run; null runs all
+     * @param out    where each result is printed as soon as it is measured; null prints nothing
+     */
+    public Microbench(int warmupIterations, int iterations, long iterationMillis, Pattern filter, PrintStream out) {
+        this.warmupIterations = warmupIterations;
+        this.iterations = Math.max(1, iterations);
+        this.iterationNanos = iterationMillis * 1_000_000L;
+        this.filter = filter;
+        this.out = out;
+    }
+
+    /** Everything measured so far, in order. */
+    public List<Result> getResults() { return results; }
+
+    /**
+     * Measures a body, unless the filter leaves it out.
+     * @return the result, or null when it was not run
+     */
+    public Result measure(String name, String params, Body body) throws Exception {
+        if (filter != null && !filter.matcher(name + " " + params).find()) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = threadBean();
+        long thread = Thread.currentThread().getId();
+
+        int batch = 1;
+        for (int i = 0; i < warmupIterations; i++) {
+            batch = calibrate(body, batch);
+        }
+        if (warmupIterations == 0) {
+            batch = calibrate(body, batch);
+        }
+
+        double[] means = new double[iterations];
+        long calls = 0;
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        long allocatedBefore = threads == null ? 0 : threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < iterations; i++) {
+            long ops = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                for (int b = 0; b < batch; b++) {
+                    sink = body.run();
+                }
+                ops += batch;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < iterationNanos);
+            means[i] = elapsed / (double) ops;
+            calls += ops;
+        }
+        long allocated = threads == null ? 0 : threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+        double mean = 0;
+        for (double m : means) mean += m;
+        mean /= means.length;
+        double variance = 0;
+        for (double m : means) variance += (m - mean) * (m - mean);
+        double error = means.length > 1 ? Math.sqrt(variance / (means.length - 1)) : 0.0;
+
+        Result result = new Result(name, params, mean, error, allocated / (double) calls,
+                gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+        results.add(result);
+        if (out != null) {
+            out.println(result);
+        }
+        return result;
+    }
+
+    /** Runs one warmup iteration and returns a batch size that takes about a millisecond. */
+    private int calibrate(Body body, int batch) throws Exception {
+        long ops = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int b = 0; b < batch; b++) {
+                sink = body.run();
+            }
+            ops += batch;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        double nanosPerOp = elapsed / (double) ops;
+        return (int) Math.max(1, Math.min(1 << 20, 1_000_000 / Math.max(1.0, nanosPerOp)));
+    }
+
+    /** Bytes the current thread has allocated so far, or -1 where the JVM cannot tell. */
+    public static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = threadBean();
+        return threads == null ? -1 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,102 @@
+package test.java;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import main.java.controller.Validation;
+import main.java.repository.RecordCodecBenchmarks;
+import main.java.util.PasswordUtil;
+
+/**
+ * Per-call cost of the primitives behind login, prompt validation and reading
+ * and writing data files:
+ * <ul>
+ * <li>{@link PasswordUtil#hashPassword} by password length, and
+ *     {@link PasswordUtil#verifyPassword} against each stored format (salted,
+ *     marked legacy hash, legacy hex, plain text), matching or not;</li>
+ * <li>the {@link Validation} checks on valid, invalid and overlong input;</li>
+ * <li>each repository's line parser and writer, see {@link RecordCodecBenchmarks}.</li>
+ * </ul>
+ *
+ * <pre>
+ * java test.java.PrimitiveBenchmarks [--quick] [filter regex]
+ * java test.java.PrimitiveBenchmarks verifyPassword
+ * </pre>
+ */
+public final class PrimitiveBenchmarks {
+    private PrimitiveBenchmarks() {}
+
+    public static void run(Microbench bench) throws Exception {
+        passwords(bench);
+        validation(bench);
+        RecordCodecBenchmarks.run(bench);
+    }
+
+    private static void passwords(Microbench bench) throws Exception {
+        for (int length : new int[] {8, 32, 128}) {
+            String password = "p".repeat(length);
+            bench.measure("PasswordUtil.hashPassword", "length=" + length, () -> PasswordUtil.hashPassword(password));
+        }
+
+        String password = "correct horse";
+        String hex = legacyHex(password);
+        String[][] formats = {
+                {"salted", PasswordUtil.hashPassword(password)},
+                {"marked", PasswordUtil.markForRehash(hex)},
+                {"hex", hex},
+                {"plain", password},
+        };
+        for (String[] format : formats) {
+            String stored = format[1];
+            bench.measure("PasswordUtil.verifyPassword", "format=" + format[0] + " match=yes",
+                    () -> PasswordUtil.verifyPassword(password, stored));
+            bench.measure("PasswordUtil.verifyPassword", "format=" + format[0] + " match=no",
+                    () -> PasswordUtil.verifyPassword("wrong horse", stored));
+        }
+    }
+
+    private static void validation(Microbench bench) throws Exception {
+        String overlong = "1".repeat(256);
+        check(bench, "isStaffId", Validation::isStaffId, "S1001", "X1001", "S" + overlong);
+        check(bench, "isPhone", Validation::isPhone, "012-3456-7890", "012-345-678", overlong);
+        check(bench, "isPostcode", Validation::isPostcode, "12345", "1234a", overlong);
+        check(bench, "isOrderNumber", Validation::isOrderNumber, "O12345", "012345", "O" + overlong + "x");
+        check(bench, "isItemCode", Validation::isItemCode, "M0001", "M001", "M" + overlong);
+        check(bench, "isPositiveInteger", Validation::isPositiveInteger, "12", "-3", overlong);
+    }
+
+    private static void check(Microbench bench, String name, Predicate<String> check,
+                              String valid, String invalid, String overlong) throws Exception {
+        bench.measure("Validation." + name, "input=valid", () -> check.test(valid));
+        bench.measure("Validation." + name, "input=invalid", () -> check.test(invalid));
+        bench.measure("Validation." + name, "input=overlong", () -> check.test(overlong));
+    }
+
+    /** An unsalted SHA-256 hex hash, as staff files stored before salting. */
+    private static String legacyHex(String password) throws Exception {
+        byte[] hash = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder();
+        for (byte b : hash) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean quick = false;
+        Pattern filter = null;
+        for (String arg : args) {
+            if (arg.equals("--quick")) {
+                quick = true;
+            } else {
+                filter = Pattern.compile(arg);
+            }
+        }
+        Microbench bench = quick ? new Microbench(2, 3, 200, filter, System.out)
+                : new Microbench(5, 5, 1000, filter, System.out);
+        System.out.println(Microbench.Result.header());
+        run(bench);
+    }
+}
@@ -0,0 +1,161 @@
+package test.java;
+
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.controller.TransactionController;
+import main.java.jfr.RepositoryEvent;
+import main.java.repository.ItemRepository;
+import main.java.util.RecordChecksum;
+import main.java.view.Terminal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Guards the garbage the tills' hot paths make. Each test warms a path up, then
+ * measures the bytes its thread allocates per call and fails when that exceeds
+ * the path's budget in {@code allocation-budgets.properties} next to this file.
+ */
+public class TestAllocationBudgets {
+    private static final Path BUDGETS = Path.of("src", "test", "java", "allocation-budgets.properties");
+    private static final int WARMUP_CALLS = 20_000;
+    private static final int MEASURED_CALLS = 2_000;
+    private static final int ROUNDS = 3;
+
+    private static final Properties budgets = new Properties();
+    private static com.sun.management.ThreadMXBean threads;
+
+    private Path dir;
+
+    /** A call of the path under test. */
+    @FunctionalInterface
+    private interface Call {
+        Object run() throws Exception;
+    }
+
+    @BeforeAll
+    static void loadBudgets() throws IOException {
+        try (Reader reader = Files.newBufferedReader(BUDGETS)) {
+            budgets.load(reader);
+        }
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threads = (com.sun.management.ThreadMXBean) bean;
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    @BeforeEach
+    public void createBranch() throws IOException {
+        dir = Files.createTempDirectory("alloc");
+        List<String> items = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            items.add(RecordChecksum.append(String.format("M%04d||Item %d||%d.50||%d||Pain Relief||2||3", i, i, i, i * 7)));
+        }
+        Files.write(dir.resolve("Item.txt"), items);
+        List<String> payments = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            payments.add(RecordChecksum.append(String.format("O%04d||%d.00||0.0||0.00||6.0||%d.36||100.00||1.00||%s",
+                    i, i % 90, i % 90, i % 3 == 0 ? "CASH" : i % 3 == 1 ? "BANK" : "EWALLET")));
+        }
+        Files.write(dir.resolve("Transaction.txt"), payments);
+    }
+
+    @AfterEach
+    public void deleteDir() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    public void itemFindByCode_shouldStayWithinBudget() throws Exception {
+        BranchContext context = new BranchContext(new Branch("alloc", dir.toFile()));
+        assertNotNull(context.getItems().findByCode("M0050"));
+
+        assertWithinBudget("ItemRepository.findByCode", () -> context.getItems().findByCode("M0050"));
+    }
+
+    @Test
+    public void orderParse_shouldStayWithinBudget() throws Exception {
+        Method parse = Class.forName("main.java.repository.OrderRepository").getDeclaredMethod("parse", String.class);
+        parse.setAccessible(true);
+        String line = RecordChecksum.append("O0042||2025-06-01 10:15:00||M0001||2||6.00||M0002||1||2.50"
+                + "||S0005||3||15.00||23.50");
+        assertNotNull(parse.invoke(null, line));
+
+        assertWithinBudget("OrderRepository.parse", () -> parse.invoke(null, line));
+    }
+
+    @Test
+    public void transactionStatistics_shouldStayWithinBudget() throws Exception {
+        BranchContext context = new BranchContext(new Branch("alloc", dir.toFile()));
+        Terminal terminal = Terminal.of(new ByteArrayInputStream(new byte[0]), OutputStream.nullOutputStream());
+        TransactionController controller =
+                new TransactionController(terminal, context.getTransactions(), context.getLock());
+        Method statistics = TransactionController.class.getDeclaredMethod("handleStatistics");
+        statistics.setAccessible(true);
+        assertEquals(200, context.getTransactions().statistics().getCount());
+
+        assertWithinBudget("TransactionController.handleStatistics", () -> statistics.invoke(controller));
+    }
+
+    @Test
+    public void repositoryEvent_shouldNotAllocateOutsideARecording() throws Exception {
+        RepositoryEvent event = RepositoryEvent.start(ItemRepository.class, "findByCode", "M0050");
+        event.finish();
+        assertFalse(event.isEnabled());
+
+        assertWithinBudget("RepositoryEvent.start", () -> {
+            RepositoryEvent call = RepositoryEvent.start(ItemRepository.class, "findByCode", "M0050");
+            call.finish();
+            return call;
+        });
+    }
+
+    /** Fails when the least a call allocated over a few rounds is above its budget. */
+    private static void assertWithinBudget(String path, Call call) throws Exception {
+        assumeTrue(threads != null, "This JVM does not count allocated bytes.");
+        String declared = budgets.getProperty(path);
+        assertNotNull(declared, "No budget for " + path + " in " + BUDGETS);
+        long budget = Long.parseLong(declared.trim());
+
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            call.run();
+        }
+        // the least of a few rounds, so a stray allocation by the JIT or the runtime does not count
+        long perCall = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < MEASURED_CALLS; i++) {
+                call.run();
+            }
+            perCall = Math.min(perCall, (threads.getThreadAllocatedBytes(thread) - before) / MEASURED_CALLS);
+        }
+        assertTrue(perCall <= budget, path + " allocated " + perCall + " bytes per call, over its budget of "
+                + budget + "; make it leaner or raise the budget in " + BUDGETS + " with a reason");
+    }
+}
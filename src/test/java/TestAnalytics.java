@@ -0,0 +1,123 @@
+package test.java;
+
+import main.java.analytics.SalesAnalytics;
+import main.java.analytics.SalesReport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the sales analytics engine. Works on a temporary order file so the
+ * shared Order.txt used by the other suites is never touched.
+ */
+public class TestAnalytics {
+
+    private Path orderFile;
+
+    @BeforeEach
+    public void createFile() throws IOException {
+        orderFile = Files.createTempFile("orders", ".txt");
+    }
+
+    @AfterEach
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(orderFile);
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(orderFile, content.getBytes());
+    }
+
+    @Test
+    public void analyze_aggregatesPerItemTypeAndDay() throws IOException {
+        write("O0001||2023-09-17 00:16:34||S0011||5||40.0||S0009||3||18.0||58.0||\n" +
+              "O0002||2023-09-17 00:17:47||S0008||4||28.0||M0004||5||12.5||40.5||\r\n" +
+              "O0003||2023-09-18 13:57:56||M0004||2||5.0||7.140000000000001\n" +
+              "garbage line\n" +
+              "O0004||2023-09-18 14:00:00||M0001||x||6.0||6.0\n");
+
+        SalesReport report = new SalesAnalytics(orderFile.toFile(), 1).analyze();
+
+        assertEquals(3, report.getOrderCount());
+        assertEquals(2, report.getSkippedLines(), "Unparseable lines should be skipped, not fatal.");
+        assertEquals(58.0 + 40.5 + 7.14, report.getRevenue(), 0.0001);
+
+        SalesReport.Row m0004 = report.findItem("M0004");
+        assertNotNull(m0004);
+        assertEquals(7, m0004.getQuantity());
+        assertEquals(1750, m0004.getAmountSen());
+        assertEquals(2, m0004.getCount());
+
+        assertEquals(9850, report.findDay("2023-09-17").getAmountSen());
+        assertEquals(714, report.findDay("2023-09-18").getAmountSen());
+
+        List<SalesReport.Row> types = report.getTypes();
+        assertEquals("MEDICINE", types.get(0).getLabel());
+        assertEquals(7, types.get(0).getQuantity());
+        assertEquals(12, types.get(1).getQuantity());
+        assertEquals(8600, types.get(1).getAmountSen());
+    }
+
+    @Test
+    public void topN_ordersByMeasureAndBreaksTiesByLabel() throws IOException {
+        write("O0001||2024-01-01 10:00:00||M0001||2||6.0||S0005||2||10.0||M0002||9||22.5||38.5\n" +
+              "O0002||2024-01-02 10:00:00||S0006||1||7.5||7.5\n");
+
+        SalesReport report = new SalesAnalytics(orderFile.toFile(), 1).analyze();
+
+        List<SalesReport.Row> byQty = report.topItemsByQuantity(3);
+        assertEquals("M0002", byQty.get(0).getLabel());
+        assertEquals("M0001", byQty.get(1).getLabel(), "Equal quantities should sort by item code.");
+        assertEquals("S0005", byQty.get(2).getLabel());
+
+        List<SalesReport.Row> byRevenue = report.topItemsByRevenue(1);
+        assertEquals(1, byRevenue.size());
+        assertEquals("M0002", byRevenue.get(0).getLabel());
+
+        assertEquals("2024-01-01", report.topDaysByRevenue(5).get(0).getLabel());
+        assertTrue(report.topItemsByQuantity(0).isEmpty());
+    }
+
+    @Test
+    public void analyze_parallelPartitionsMatchSingleThread() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 60000; i++) {
+            int qty = i % 7 + 1;
+            sb.append(String.format("O%06d||2024-%02d-%02d 10:00:00||M%04d||%d||%d.5||S%04d||1||3.25||%d.75%n",
+                    i, i % 12 + 1, i % 28 + 1, i % 50, qty, qty * 2, i % 30, qty * 2 + 3));
+        }
+        write(sb.toString());
+        File file = orderFile.toFile();
+
+        SalesReport single = new SalesAnalytics(file, 1).analyze();
+        SalesReport parallel = new SalesAnalytics(file, 4).analyze();
+
+        assertEquals(60000, single.getOrderCount());
+        assertEquals(single.getOrderCount(), parallel.getOrderCount());
+        assertEquals(single.getRevenueSen(), parallel.getRevenueSen());
+        assertEquals(single.getItems().size(), parallel.getItems().size());
+        for (SalesReport.Row row : single.getItems()) {
+            SalesReport.Row other = parallel.findItem(row.getLabel());
+            assertEquals(row.getQuantity(), other.getQuantity(), row.getLabel());
+            assertEquals(row.getAmountSen(), other.getAmountSen(), row.getLabel());
+        }
+        assertEquals(single.getDays().size(), parallel.getDays().size());
+    }
+
+    @Test
+    public void analyze_missingFile_returnsEmptyReport() throws IOException {
+        Files.deleteIfExists(orderFile);
+        SalesReport report = new SalesAnalytics(orderFile.toFile(), 2).analyze();
+        assertEquals(0, report.getOrderCount());
+        assertTrue(report.getItems().isEmpty());
+    }
+}
@@ -0,0 +1,171 @@
+package test.java;
+
+import main.java.api.ApiServer;
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.repository.ItemRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end tests for the HTTP API. The server runs on a free port against a
+ * branch in a temporary directory, so the shared data files are never touched.
+ */
+public class TestApi {
+
+    private Path dir;
+    private Branch branch;
+    private ApiServer server;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        dir = Files.createTempDirectory("api");
+        Files.write(dir.resolve("Item.txt"), ("M0001||Aspirin||3.0||40||Pain Relief||2\n" +
+                "S0005||Vitamin C||5.0||45||Immune Support||230525\n").getBytes());
+        Files.write(dir.resolve("Order.txt"), new byte[0]);
+        Files.write(dir.resolve("Transaction.txt"), new byte[0]);
+        branch = new Branch("test", dir.toFile());
+        server = new ApiServer(branch, new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() throws IOException {
+        server.stop();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(json)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getPort() + path);
+    }
+
+    @Test
+    public void getItem_shouldReturnJsonOr404() throws Exception {
+        HttpResponse<String> found = get("/items/M0001");
+        assertEquals(200, found.statusCode());
+        assertTrue(found.body().contains("\"code\":\"M0001\""));
+        assertTrue(found.body().contains("\"price\":3.00"));
+        assertTrue(found.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+
+        HttpResponse<String> missing = get("/items/M9999");
+        assertEquals(404, missing.statusCode());
+        assertTrue(missing.body().contains("\"error\""));
+        assertEquals(2, get("/items").body().split("\"code\"").length - 1);
+    }
+
+    @Test
+    public void createOrder_shouldSaveReduceStockAndRejectDuplicates() throws Exception {
+        String body = "{\"orderNumber\":\"O0100\",\"lines\":[{\"itemCode\":\"M0001\",\"quantity\":2}," +
+                "{\"itemCode\":\"S0005\",\"quantity\":1}]}";
+
+        HttpResponse<String> created = post("/orders", body);
+
+        assertEquals(201, created.statusCode(), created.body());
+        assertEquals("/orders/O0100", created.headers().firstValue("Location").orElse(null));
+        assertTrue(created.body().contains("\"total\":11.00"));
+        assertTrue(created.body().contains("\"final\":11.66"), "6% tax, no discount below RM100");
+        assertEquals(38, new ItemRepository(branch).findByCode("M0001").getQuantity());
+        assertEquals(200, get("/orders/O0100").statusCode());
+
+        assertEquals(409, post("/orders", body).statusCode());
+        assertEquals(400, post("/orders", "{\"orderNumber\":\"X1\",\"lines\":[]}").statusCode());
+        assertEquals(400, post("/orders", "{\"orderNumber\":\"O0101\",\"lines\":[{\"itemCode\":\"M0001\",\"quantity\":0}]}").statusCode());
+        assertEquals(400, post("/orders", "{\"orderNumber\":\"O0101\",\"lines\":[{\"itemCode\":\"M0009\",\"quantity\":1}]}").statusCode());
+        assertEquals(400, post("/orders", "{not json").statusCode());
+        assertEquals(405, get("/orders").statusCode());
+    }
+
+    @Test
+    public void payment_shouldBeRecordedOnceAndCounted() throws Exception {
+        post("/orders", "{\"orderNumber\":\"O0200\",\"lines\":[{\"itemCode\":\"S0005\",\"quantity\":40}]}");
+
+        assertEquals(400, post("/orders/O0200/payment", "{\"method\":\"CASH\",\"payAmount\":100}").statusCode(),
+                "Paying less than the final price should be refused");
+        HttpResponse<String> paid = post("/orders/O0200/payment", "{\"method\":\"CASH\",\"payAmount\":200.00}");
+        assertEquals(201, paid.statusCode(), paid.body());
+        assertTrue(paid.body().contains("\"final\":190.80"), paid.body());
+        assertTrue(paid.body().contains("\"field2\":\"9.20\""), "Change should be recorded");
+
+        assertEquals(409, post("/orders/O0200/payment", "{\"method\":\"BANK\",\"bankName\":\"Maybank\",\"account\":\"1\"}").statusCode());
+        assertEquals(404, post("/orders/O0999/payment", "{\"method\":\"CASH\",\"payAmount\":1}").statusCode());
+
+        HttpResponse<String> stats = get("/statistics");
+        assertEquals(200, stats.statusCode());
+        assertTrue(stats.body().startsWith("{\"transactions\":1,\"revenue\":190.80"), stats.body());
+    }
+
+    @Test
+    public void concurrentPayments_shouldSaveOnlyOne() throws Exception {
+        post("/orders", "{\"orderNumber\":\"O0300\",\"lines\":[{\"itemCode\":\"M0001\",\"quantity\":1}]}");
+        HttpRequest pay = HttpRequest.newBuilder(uri("/orders/O0300/payment"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"method\":\"CASH\",\"payAmount\":10.00}")).build();
+
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            responses.add(client.sendAsync(pay, HttpResponse.BodyHandlers.ofString()));
+        }
+        int paid = 0;
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            int status = response.get().statusCode();
+            assertTrue(status == 201 || status == 409, "status " + status);
+            if (status == 201) paid++;
+        }
+
+        assertEquals(1, paid);
+        assertTrue(get("/statistics").body().startsWith("{\"transactions\":1,"));
+    }
+
+    @Test
+    public void createOrder_shouldNotSellStockATillIsHolding() throws Exception {
+        BranchContext context = BranchContext.of(branch);
+        context.getReservations().reserve("till-1", context.getItems().findByCode("M0001"), 39);
+        try {
+            HttpResponse<String> refused = post("/orders",
+                    "{\"orderNumber\":\"O0400\",\"lines\":[{\"itemCode\":\"M0001\",\"quantity\":2}]}");
+
+            assertEquals(409, refused.statusCode(), refused.body());
+            assertTrue(refused.body().contains("Only 1 of M0001 available."), refused.body());
+            assertEquals(404, get("/orders/O0400").statusCode());
+            assertEquals(40, new ItemRepository(branch).findByCode("M0001").getQuantity());
+            assertEquals(39, context.getReservations().reserved("M0001"), "The refused order holds nothing.");
+
+            assertEquals(201, post("/orders",
+                    "{\"orderNumber\":\"O0401\",\"lines\":[{\"itemCode\":\"M0001\",\"quantity\":1}]}").statusCode());
+            assertEquals(39, context.getReservations().reserved("M0001"));
+        } finally {
+            context.getReservations().release("till-1");
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package test.java;
+
+import main.java.analytics.SalesAnalytics;
+import main.java.archive.ArchiveSegment;
+import main.java.archive.Archiver;
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.model.OrderRecord;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the compressed archive: the block format on its own, and archiving
+ * a branch's closed months of orders and payments.
+ */
+public class TestArchive {
+
+    private Path dir;
+
+    @BeforeEach
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("archive");
+    }
+
+    @AfterEach
+    public void deleteDir() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    public void segment_shouldFindEveryKeyAcrossBlocks() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 20000; i >= 1; i--) {
+            lines.add(String.format("O%04d||%d.00||0.0||0.00||6.0||%d.36||10.00||3.64||CASH", i, i % 90, i % 90));
+        }
+        File file = dir.resolve("t.seg").toFile();
+        ArchiveSegment written = ArchiveSegment.write(file, lines);
+        ArchiveSegment segment = ArchiveSegment.open(file);
+
+        assertTrue(segment.getBlockCount() > 1);
+        assertEquals(written.getBlockCount(), segment.getBlockCount());
+        assertEquals(20000, segment.getLineCount());
+        assertEquals("O0001", segment.getFirstKey());
+        assertEquals("O20000", segment.getLastKey(), "Longer order numbers sort last.");
+        assertTrue(segment.getLength() * 4 < segment.getRawBytes(), "Repetitive lines compress well.");
+        for (int i = 1; i <= 20000; i += 997) {
+            assertTrue(segment.find(String.format("O%04d", i)).startsWith(String.format("O%04d||", i)));
+        }
+        assertNull(segment.find("O0000"));
+        assertNull(segment.find("O99999"));
+        List<String> all = segment.readAll();
+        assertEquals("O0001", ArchiveSegment.keyOf(all.get(0)));
+        assertEquals("O10000", ArchiveSegment.keyOf(all.get(9999)));
+    }
+
+    @Test
+    public void damagedBlock_shouldOnlyFailLookupsThatNeedIt() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= 20000; i++) {
+            lines.add(String.format("O%05d||%d", i, i * 7919 % 104729));
+        }
+        File file = dir.resolve("o.seg").toFile();
+        ArchiveSegment.write(file, lines);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(20);
+            raf.write(new byte[16]);
+        }
+        ArchiveSegment segment = ArchiveSegment.open(file);
+
+        assertTrue(segment.find("O20000").startsWith("O20000||"));
+        assertThrows(IOException.class, () -> segment.find("O00001"));
+    }
+
+    @Test
+    public void archiver_shouldMoveClosedMonthsOfOrdersAndPayments() throws IOException {
+        Files.write(dir.resolve("Order.txt"), String.join(System.lineSeparator(),
+                "O0001||2025-01-02 09:00:00||M0001||2||6.00||6.00",
+                "O0002||2025-01-30 18:00:00||M0001||1||3.00||3.00",
+                "O0003||2025-02-14 12:00:00||S0001||1||5.00||5.00",
+                "O0004||2025-03-01 08:00:00||M0001||1||3.00||3.00", "").getBytes());
+        Files.write(dir.resolve("Transaction.txt"), String.join(System.lineSeparator(),
+                "O0001||6.00||0.0||0.00||6.0||6.36||10.00||3.64||CASH",
+                "O0003||5.00||0.0||0.00||6.0||5.30||10.00||4.70||CASH",
+                "O0004||3.00||0.0||0.00||6.0||3.18||5.00||1.82||CASH", "").getBytes());
+        Branch branch = new Branch("test", dir.toFile());
+        BranchContext context = new BranchContext(branch);
+
+        Archiver.Result result = Archiver.archiveBefore(context, YearMonth.of(2025, 3));
+        assertEquals(2, result.getMonths());
+        assertEquals(3, result.getOrders());
+        assertEquals(2, result.getPayments());
+        assertTrue(Files.exists(dir.resolve("archive").resolve("orders-2025-01.seg")));
+        assertEquals(List.of("O0004||2025-03-01 08:00:00||M0001||1||3.00||3.00"),
+                Files.readAllLines(dir.resolve("Order.txt")));
+        assertEquals(1, Files.readAllLines(dir.resolve("Transaction.txt")).size());
+
+        BranchContext fresh = new BranchContext(branch);
+        assertEquals("2025-01-30 18:00:00", fresh.getOrders().findByNumber("O0002").getDate());
+        assertEquals(530, fresh.getTransactions().findByOrder("O0003").getFinalPriceSen());
+        assertEquals(List.of("O0001", "O0002", "O0003", "O0004"), numbers(fresh.getOrders().findAll()));
+        assertEquals(List.of("O0003"),
+                numbers(fresh.getOrders().findBetween(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 28))));
+        assertEquals(3, fresh.getTransactions().statistics().getCount());
+        assertEquals(4, new SalesAnalytics(branch, 1).analyze().getOrderCount());
+
+        assertTrue(fresh.getTransactions().delete("O0001"));
+        assertTrue(fresh.getOrders().delete("O0001"));
+        assertNull(fresh.getOrders().findByNumber("O0001"));
+        assertNull(fresh.getTransactions().findByOrder("O0001"));
+
+        Archiver.Result again = Archiver.archiveBefore(fresh, YearMonth.of(2025, 3));
+        assertEquals(0, again.getOrders());
+        assertEquals(List.of("O0002", "O0003", "O0004"), numbers(fresh.getOrders().findAll()));
+    }
+
+    private static List<String> numbers(List<OrderRecord> orders) {
+        List<String> numbers = new ArrayList<>();
+        for (OrderRecord order : orders) {
+            numbers.add(order.getOrderNumber());
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,139 @@
+package test.java;
+
+import main.java.analytics.SalesReport;
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.branch.BranchDirectory;
+import main.java.branch.CrossBranchQuery;
+import main.java.model.ItemRecord;
+import main.java.repository.ItemRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for per-branch data directories and the cross-branch query layer.
+ * Every branch lives in its own temporary directory, so the shared data files
+ * in the working directory are never touched.
+ */
+public class TestBranch {
+
+    private Path root;
+
+    @BeforeEach
+    public void createRoot() throws IOException {
+        root = Files.createTempDirectory("branches");
+    }
+
+    @AfterEach
+    public void deleteRoot() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private Branch branch(String name, String items, String orders) throws IOException {
+        Path dir = Files.createDirectories(root.resolve(name));
+        Files.write(dir.resolve("Item.txt"), items.getBytes());
+        if (orders != null) {
+            Files.write(dir.resolve("Order.txt"), orders.getBytes());
+        }
+        return new Branch(name, dir.toFile());
+    }
+
+    @Test
+    public void repositories_shouldOnlySeeTheirOwnBranch() throws IOException {
+        Branch klang = branch("klang", "M0001||Aspirin||3.0||40||Pain Relief||2\n", null);
+        Branch ipoh = branch("ipoh", "M0001||Aspirin||3.0||7||Pain Relief||2\n", null);
+
+        ItemRepository klangItems = new ItemRepository(klang);
+        klangItems.add(new ItemRecord("M0002", "Paracetamol", 2.5, 4, ItemRecord.Type.MEDICINE, "Fever", 1));
+
+        assertEquals(2, klangItems.findAll().size());
+        assertEquals(1, new ItemRepository(ipoh).findAll().size(), "Writes must stay in their own branch.");
+        assertEquals(7, new ItemRepository(ipoh).findByCode("M0001").getQuantity());
+        assertFalse(new File("klang").exists());
+    }
+
+    @Test
+    public void findStock_shouldFanOutAndKeepDirectoryOrder() throws IOException {
+        BranchDirectory directory = new BranchDirectory(List.of(
+                branch("klang", "M0001||Aspirin||3.0||40||Pain Relief||2\n", null),
+                branch("ipoh", "M0002||Paracetamol||2.5||4||Fever Reducer||1\n", null),
+                branch("penang", "M0001||Aspirin||3.0||7||Pain Relief||2\n", null)));
+        CrossBranchQuery query = new CrossBranchQuery(directory, 3);
+
+        List<CrossBranchQuery.StockLevel> levels = query.findStock("M0001");
+
+        assertEquals(2, levels.size(), "Branches without the item should be left out.");
+        assertEquals("klang", levels.get(0).getBranch());
+        assertEquals("penang", levels.get(1).getBranch());
+        assertEquals(47, query.totalStock("M0001"));
+        assertEquals(0, query.totalStock("M9999"));
+    }
+
+    @Test
+    public void revenueByBranch_shouldMergePerBranchTotals() throws IOException {
+        BranchDirectory directory = new BranchDirectory(List.of(
+                branch("klang", "", "O0001||2025-01-01 10:00:00||M0001||2||6.0||12.0\n" +
+                        "O0002||2025-01-02 10:00:00||M0001||1||3.0||3.0\n"),
+                branch("ipoh", "", "O0001||2025-01-01 11:00:00||S0005||4||20.0||20.0\n"),
+                branch("penang", "", null)));
+
+        List<SalesReport.Row> rows = new CrossBranchQuery(directory, 2).revenueByBranch();
+
+        assertEquals(3, rows.size());
+        assertEquals("klang", rows.get(0).getLabel());
+        assertEquals(1500, rows.get(0).getAmountSen());
+        assertEquals(2, rows.get(0).getCount());
+        assertEquals(0, rows.get(2).getCount(), "A branch without orders should report zero.");
+        SalesReport.Row total = CrossBranchQuery.total(rows);
+        assertEquals(3500, total.getAmountSen());
+        assertEquals(7, total.getQuantity());
+        assertEquals(3, total.getCount());
+    }
+
+    @Test
+    public void sharedContext_shouldHandOutOneSetOfRepositoriesPerBranch() throws IOException {
+        Branch klang = branch("klang", "M0001||Aspirin||3.0||40||Pain Relief||2\n", null);
+        BranchContext shared = BranchContext.of(klang);
+
+        assertSame(shared, BranchContext.of(new Branch("klang", root.resolve("klang/.").toFile())));
+        assertNotSame(shared, BranchContext.of(new Branch("ipoh", root.resolve("klang").toFile())));
+        assertSame(shared.getItems(), shared.getItems(), "Repositories are created once and reused.");
+        assertSame(shared, new BranchDirectory(List.of(klang)).get("klang"));
+        assertNotSame(shared.getItems(), new BranchContext(klang).getItems(), "The constructor makes a private context.");
+    }
+
+    @Test
+    public void load_shouldReadBranchFileOrFallBackToDefault() throws IOException {
+        BranchDirectory fallback = BranchDirectory.load(root.resolve("missing.txt").toFile());
+        assertEquals(1, fallback.size());
+        assertSame(Branch.DEFAULT, fallback.all().get(0).getBranch(), "No config file means one default branch.");
+
+        Path config = root.resolve("branches.txt");
+        Files.write(config, ("# name||directory\n\nklang||" + root.resolve("klang") + "\nipoh||data/ipoh\n").getBytes());
+        BranchDirectory directory = BranchDirectory.load(config.toFile());
+
+        assertEquals(2, directory.size());
+        assertEquals(root.resolve("klang").toFile(), directory.get("klang").getBranch().getDataDir());
+        assertEquals(new File("data/ipoh", "Item.txt"), directory.get("ipoh").getBranch().file("Item.txt"));
+        assertNull(directory.get("penang"));
+
+        Files.write(config, "klang||a\nklang||b\n".getBytes());
+        assertThrows(IllegalArgumentException.class, () -> BranchDirectory.load(config.toFile()));
+    }
+}
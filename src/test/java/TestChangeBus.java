@@ -0,0 +1,212 @@
+package test.java;
+
+import main.java.analytics.TransactionStatistics;
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.events.ChangeBus;
+import main.java.events.ChangeEvent;
+import main.java.model.Address;
+import main.java.model.ItemRecord;
+import main.java.model.Name;
+import main.java.model.OrderLine;
+import main.java.model.OrderRecord;
+import main.java.model.Staff;
+import main.java.model.TransactionRecord;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the change bus: what the repositories publish, and that concurrent
+ * publishers through a small ring lose, duplicate and reorder nothing.
+ */
+public class TestChangeBus {
+
+    private Path dir;
+    private BranchContext context;
+
+    @BeforeEach
+    public void createBranch() throws IOException {
+        dir = Files.createTempDirectory("changes");
+        Files.write(dir.resolve("Item.txt"), "M0001||Aspirin||3.0||40||Pain Relief||2\n".getBytes());
+        Files.write(dir.resolve("staff.txt"),
+                "S1001||secret||John||Doe||012-345-6789||Pharmacist||123 Main St||12345||Region1||State1\n".getBytes());
+        Files.write(dir.resolve("Order.txt"), "O0001||2025-01-02||M0001||2||6.00||6.00\n".getBytes());
+        Files.write(dir.resolve("Transaction.txt"), "O0001||6.00||0.0||0.00||6.0||6.36||10.00||3.64||CASH\n".getBytes());
+        context = new BranchContext(new Branch("test", dir.toFile()));
+    }
+
+    @AfterEach
+    public void deleteBranch() throws IOException {
+        context.getChanges().close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    public void repositories_shouldPublishBeforeAndAfterOfEveryChange() throws Exception {
+        List<ChangeEvent<Object>> events = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch received = new CountDownLatch(5);
+        context.getChanges().subscribeAll("test", batch -> {
+            events.addAll(batch);
+            batch.forEach(e -> received.countDown());
+        });
+
+        context.getItems().update("M0001", new ItemRecord("M0001", "Aspirin", 3.0, 38, ItemRecord.Type.MEDICINE,
+                "Pain Relief", 2));
+        context.getOrders().add(OrderRecord.ofSen("O0002", "2025-01-03", List.of(OrderLine.ofSen("M0001", 2, 600)), 600));
+        context.getTransactions().delete("O0001");
+        context.getStaff().add(new Staff("S1002", "pass", new Name("Jane", "Roe"), "012-000-0000", "Cashier",
+                new Address("1 High St", "54321", "Region2", "State2")));
+        context.getStaff().delete("S1001");
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+
+        ChangeEvent<Object> item = events.get(0);
+        assertEquals(ChangeEvent.Kind.UPDATE, item.getKind());
+        assertEquals(ItemRecord.class, item.getType());
+        assertEquals(40, ((ItemRecord) item.getBefore()).getQuantity());
+        assertEquals(38, ((ItemRecord) item.getAfter()).getQuantity());
+
+        ChangeEvent<Object> order = events.get(1);
+        assertEquals(ChangeEvent.Kind.INSERT, order.getKind());
+        assertNull(order.getBefore());
+        assertEquals("O0002", order.getKey());
+
+        ChangeEvent<Object> payment = events.get(2);
+        assertEquals(ChangeEvent.Kind.DELETE, payment.getKind());
+        assertEquals(636, ((TransactionRecord) payment.getBefore()).getFinalPriceSen());
+        assertNull(payment.getAfter());
+
+        assertNotEquals("pass", ((Staff) events.get(3).getAfter()).getpassword(), "Staff events carry the stored hash.");
+        assertEquals("Doe", ((Staff) events.get(4).getBefore()).getname().getLastName());
+        for (int i = 1; i < events.size(); i++) {
+            assertEquals(events.get(i - 1).getSequence() + 1, events.get(i).getSequence());
+        }
+    }
+
+    @Test
+    public void typedSubscription_shouldOnlySeeItsRecordType() throws Exception {
+        TransactionStatistics stats = new TransactionStatistics();
+        CountDownLatch received = new CountDownLatch(1);
+        context.getChanges().subscribe("revenue", TransactionRecord.class, batch -> {
+            synchronized (stats) {
+                batch.forEach(e -> stats.add(e.getAfter()));
+            }
+            received.countDown();
+        });
+
+        context.getOrders().add(OrderRecord.ofSen("O0002", "2025-01-03", List.of(OrderLine.ofSen("M0001", 1, 300)), 300));
+        context.getTransactions().add(TransactionRecord.ofSen("O0002", 300, 0.0, 0, 6.0, 318,
+                TransactionRecord.Method.CASH, "5.00", "1.82"));
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+
+        synchronized (stats) {
+            assertEquals(1, stats.getCount());
+            assertEquals(318, stats.getRevenueSen());
+        }
+    }
+
+    @Test
+    public void concurrentPublishers_shouldDeliverEveryEventOnceAndInOrder() throws Exception {
+        int threads = 4;
+        int perThread = 5000;
+        try (ChangeBus bus = new ChangeBus(8)) {
+            List<Long> sequences = new ArrayList<>();
+            List<String> keys = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch received = new CountDownLatch(threads * perThread);
+            int[] largestBatch = new int[1];
+            bus.subscribe("slow", String.class, batch -> {
+                largestBatch[0] = Math.max(largestBatch[0], batch.size());
+                for (ChangeEvent<String> e : batch) {
+                    sequences.add(e.getSequence());
+                    received.countDown();
+                }
+                Thread.yield();
+            });
+            ChangeBus.Subscription fast = bus.subscribe("fast", String.class,
+                    batch -> batch.forEach(e -> keys.add(e.getKey())));
+
+            List<Thread> publishers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String prefix = "T" + t + "-";
+                Thread publisher = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        bus.publish(String.class, ChangeEvent.Kind.INSERT, prefix + i, null, "x");
+                    }
+                });
+                publishers.add(publisher);
+                publisher.start();
+            }
+            for (Thread publisher : publishers) {
+                publisher.join();
+            }
+            assertTrue(received.await(10, TimeUnit.SECONDS));
+
+            assertEquals(threads * perThread, sequences.size());
+            for (int i = 0; i < sequences.size(); i++) {
+                assertEquals(i, sequences.get(i));
+            }
+            assertTrue(largestBatch[0] <= bus.getCapacity());
+            fast.close();
+            assertEquals(threads * perThread, keys.size(), "The faster subscriber gets every event too.");
+        }
+    }
+
+    @Test
+    public void failingListener_shouldKeepReceiving() throws Exception {
+        CountDownLatch received = new CountDownLatch(2);
+        context.getChanges().subscribe("flaky", OrderRecord.class, batch -> {
+            received.countDown();
+            throw new IllegalStateException("listener bug");
+        });
+        context.getOrders().delete("O0001");
+        Thread.sleep(50);
+        context.getOrders().add(OrderRecord.ofSen("O0003", "2025-01-04", List.of(OrderLine.ofSen("M0001", 1, 300)), 300));
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void listenerReadingTheRepository_shouldNotHoldUpItsWriters() throws Exception {
+        int orders = ChangeBus.DEFAULT_CAPACITY + 100;
+        CountDownLatch received = new CountDownLatch(orders);
+        CountDownLatch firstBatch = new CountDownLatch(1);
+        context.getChanges().subscribe("reader", OrderRecord.class, batch -> {
+            try {
+                firstBatch.await();
+                for (ChangeEvent<OrderRecord> e : batch) {
+                    assertNotNull(context.getOrders().find(e.getKey()));
+                    received.countDown();
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            for (int i = 0; i < orders; i++) {
+                context.getOrders().add(OrderRecord.ofSen(String.format("O%05d", i + 10), "2025-01-04",
+                        List.of(OrderLine.ofSen("M0001", 1, 300)), 300));
+            }
+        }, "More orders than the ring holds are saved while the listener is behind.");
+        firstBatch.countDown();
+        assertTrue(received.await(30, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,133 @@
+package test.java;
+
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.checkpoint.Checkpoint;
+import main.java.model.ItemRecord;
+import main.java.model.OrderLine;
+import main.java.model.OrderRecord;
+import main.java.model.TransactionRecord;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the binary checkpoint. Each test writes a checkpoint from one
+ * context and restores it into a fresh one over the same temporary directory.
+ */
+public class TestCheckpoint {
+
+    private Path dir;
+    private Branch branch;
+    private File checkpoint;
+
+    @BeforeEach
+    public void createBranch() throws IOException {
+        dir = Files.createTempDirectory("checkpoint");
+        Files.write(dir.resolve("Item.txt"), ("M0001||Aspirin||3.0||40||Pain Relief||2\n" +
+                "S0005||Vitamin C||5.0||3||Immune Support||20991231\n").getBytes());
+        Files.write(dir.resolve("staff.txt"),
+                "S1001||secret||John||Doe||012-345-6789||Pharmacist||123 Main St||12345||Region1||State1\n".getBytes());
+        Files.write(dir.resolve("Order.txt"), ("O0001||2025-01-02||M0001||2||6.00||6.00\n" +
+                "O0002||2025-01-03||S0005||1||5.00||5.00\n").getBytes());
+        Files.write(dir.resolve("Transaction.txt"), ("O0001||6.00||0.0||0.00||6.0||6.36||10.00||3.64||CASH\n" +
+                "O0002||5.00||0.0||0.00||6.0||5.30||Maybank||123||BANK\n").getBytes());
+        branch = new Branch("test", dir.toFile());
+        checkpoint = Checkpoint.defaultFile(branch);
+    }
+
+    @AfterEach
+    public void deleteBranch() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    public void restore_unchangedFiles_shouldServeCachesFromCheckpoint() throws IOException {
+        Checkpoint.write(new BranchContext(branch), checkpoint);
+
+        // same length and stamp, different content: only a restored cache can still see the old total
+        Path orders = dir.resolve("Order.txt");
+        FileTime modified = Files.getLastModifiedTime(orders);
+        Files.write(orders, new String(Files.readAllBytes(orders)).replace("||5.00\n", "||9.00\n").getBytes());
+        Files.setLastModifiedTime(orders, modified);
+
+        BranchContext restored = new BranchContext(branch);
+        Checkpoint.Result result = Checkpoint.restore(restored, checkpoint);
+
+        assertEquals(4, result.getSections());
+        assertEquals(0, result.getReplayed());
+        assertEquals(500, restored.getOrders().findByNumber("O0002").getTotalSen());
+        assertEquals(2, restored.getTransactions().statistics().getCount());
+        assertEquals(1166, restored.getTransactions().statistics().getRevenueSen());
+        assertEquals("Doe", restored.getStaff().findById("S1001").getname().getLastName());
+        assertEquals("S0005", restored.getItems().findBelowReorderLevel().get(0).getItem().getCode());
+    }
+
+    @Test
+    public void restore_appendedOrdersAndPayments_shouldReplayOnlyTheTail() throws IOException {
+        BranchContext live = new BranchContext(branch);
+        Checkpoint.write(live, checkpoint);
+        live.getOrders().add(OrderRecord.ofSen("O0003", "2025-01-04",
+                List.of(OrderLine.ofSen("M0001", 1, 300)), 300));
+        live.getTransactions().add(TransactionRecord.ofSen("O0003", 300, 0.0, 0, 6.0, 318,
+                TransactionRecord.Method.CASH, "5.00", "1.82"));
+
+        BranchContext restored = new BranchContext(branch);
+        Checkpoint.Result result = Checkpoint.restore(restored, checkpoint);
+
+        assertEquals(4, result.getSections());
+        assertEquals(2, result.getReplayed(), "One order and one payment were appended.");
+        assertEquals(3, restored.getOrders().findAll().size());
+        assertEquals(300, restored.getOrders().findByNumber("O0003").getTotalSen());
+        assertEquals(2, restored.getTransactions().statistics().getCount(TransactionRecord.Method.CASH));
+        assertEquals(3, restored.getTransactions().statistics().getCount());
+        assertEquals(1484, restored.getTransactions().statistics().getRevenueSen());
+    }
+
+    @Test
+    public void restore_rewrittenFiles_shouldLeaveThoseCachesToLoadFromText() throws IOException {
+        BranchContext live = new BranchContext(branch);
+        Checkpoint.write(live, checkpoint);
+        live.getItems().update("S0005", new ItemRecord("S0005", "Vitamin C", 5.0, 30, ItemRecord.Type.SUPPLEMENT,
+                "Immune Support", 20991231));
+        live.getOrders().delete("O0001");
+
+        BranchContext restored = new BranchContext(branch);
+        Checkpoint.Result result = Checkpoint.restore(restored, checkpoint);
+
+        assertEquals(2, result.getSections(), "Only staff and transactions are unchanged.");
+        assertTrue(restored.getItems().findBelowReorderLevel().isEmpty());
+        assertEquals(1, restored.getOrders().findAll().size());
+        assertNull(restored.getOrders().findByNumber("O0001"));
+    }
+
+    @Test
+    public void restore_missingOrDamagedCheckpoint_shouldRestoreNothing() throws IOException {
+        assertEquals(0, Checkpoint.restore(new BranchContext(branch), checkpoint).getSections());
+
+        Checkpoint.write(new BranchContext(branch), checkpoint);
+        byte[] bytes = Files.readAllBytes(checkpoint.toPath());
+        bytes[bytes.length / 2] ^= 0x5A;
+        Files.write(checkpoint.toPath(), bytes);
+
+        BranchContext restored = new BranchContext(branch);
+        assertEquals(0, Checkpoint.restore(restored, checkpoint).getSections());
+        assertEquals(2, restored.getOrders().findAll().size(), "Data still loads from the text files.");
+    }
+}
@@ -0,0 +1,163 @@
+package test.java;
+
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.controller.TransactionController;
+import main.java.model.OrderLine;
+import main.java.model.OrderRecord;
+import main.java.repository.ItemRepository;
+import main.java.storage.ItemStore;
+import main.java.util.PasswordUtil;
+import main.java.view.Terminal;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the Flight Recorder events: what repository calls, password checks
+ * and payments record, and that the bundled settings profile loads.
+ */
+public class TestFlightRecorderEvents {
+
+    private Path dir;
+    private BranchContext context;
+
+    @BeforeEach
+    public void createBranch() throws IOException {
+        dir = Files.createTempDirectory("jfr");
+        Files.write(dir.resolve("Item.txt"), String.join(System.lineSeparator(),
+                "M0001||Aspirin||3.0||1000||Pain Relief||2",
+                "M0002||Paracetamol||2.5||36||Fever Reducer||1", "").getBytes());
+        Files.createFile(dir.resolve("Transaction.txt"));
+        context = new BranchContext(new Branch("test", dir.toFile()));
+    }
+
+    @AfterEach
+    public void deleteDir() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    public void bundledProfile_shouldEnableThePharmacyEvents() throws Exception {
+        Configuration profile = Configuration.create(Path.of("scripts", "pharmacy.jfc"));
+        assertEquals("true", profile.getSettings().get("pharmacy.Repository#enabled"));
+        assertEquals("true", profile.getSettings().get("pharmacy.PasswordVerify#enabled"));
+        assertEquals("true", profile.getSettings().get("pharmacy.Payment#enabled"));
+        assertEquals("true", profile.getSettings().get("jdk.GarbageCollection#enabled"),
+                "The JDK's own events stay on, so a stall can be told apart from a collection.");
+    }
+
+    @Test
+    public void repositoryCalls_shouldRecordKeyRowsAndBytes() throws Exception {
+        ItemStore items = context.getItems();
+        List<RecordedEvent> events = record(() -> {
+            items.findByCode("M0002");
+            items.update("M0001", items.findByCode("M0001").withQuantity(999));
+        });
+
+        List<RecordedEvent> calls = events.stream().filter(e -> e.getEventType().getName().equals("pharmacy.Repository"))
+                .collect(Collectors.toList());
+        RecordedEvent lookup = calls.get(0);
+        assertEquals("findByCode", lookup.getString("operation"));
+        assertEquals("M0002", lookup.getString("key"));
+        assertEquals(ItemRepository.class.getName(), lookup.getClass("repository").getName());
+        assertEquals(2, lookup.getLong("rowsScanned"), "The scan stops at the matching line.");
+        assertTrue(lookup.getLong("bytesRead") > 0);
+        assertEquals(0, lookup.getLong("bytesWritten"));
+
+        RecordedEvent update = calls.stream().filter(e -> e.getString("operation").equals("update")).findFirst()
+                .orElseThrow();
+        assertEquals("M0001", update.getString("key"));
+        assertEquals(2, update.getLong("rowsWritten"), "The whole file is rewritten.");
+        assertTrue(update.getLong("bytesWritten") > 0);
+        assertTrue(update.getLong("rowsScanned") >= 2, "Includes the index reload made inside the update.");
+    }
+
+    @Test
+    public void passwordChecks_shouldRecordTheStoredFormatButNoPassword() throws Exception {
+        String stored = PasswordUtil.hashPassword("secret");
+        List<RecordedEvent> events = record(() -> {
+            PasswordUtil.verifyPassword("secret", stored);
+            PasswordUtil.verifyPassword("wrong", "plain-text");
+        });
+
+        List<RecordedEvent> checks = events.stream()
+                .filter(e -> e.getEventType().getName().equals("pharmacy.PasswordVerify")).collect(Collectors.toList());
+        assertEquals(2, checks.size());
+        assertEquals("salted", checks.get(0).getString("format"));
+        assertTrue(checks.get(0).getBoolean("matched"));
+        assertEquals("plain", checks.get(1).getString("format"));
+        assertFalse(checks.get(1).getBoolean("matched"));
+        assertFalse(checks.get(0).toString().contains("secret"));
+    }
+
+    @Test
+    public void payForOrder_shouldRecordThePayment() throws Exception {
+        List<OrderLine> lines = List.of(OrderLine.ofSen("M0001", 2, 600));
+        OrderRecord order = OrderRecord.ofSen("O12345", "2025-06-01 10:15:00", lines, OrderRecord.sumSen(lines));
+        Terminal terminal = Terminal.of(new ByteArrayInputStream("1\n100.00\n".getBytes()), new ByteArrayOutputStream());
+        TransactionController controller = new TransactionController(terminal, context.getTransactions(),
+                context.getLock());
+
+        List<RecordedEvent> events = record(() -> controller.payForOrder(order));
+
+        RecordedEvent payment = events.stream().filter(e -> e.getEventType().getName().equals("pharmacy.Payment"))
+                .findFirst().orElseThrow();
+        assertEquals("O12345", payment.getString("orderNumber"));
+        assertEquals("CASH", payment.getString("method"));
+        assertTrue(payment.getLong("amountSen") > 0);
+        assertTrue(payment.getBoolean("saved"));
+        assertTrue(payment.getDuration("promptNanos").toNanos() > 0, "Prompt time is a field of its own.");
+        RecordedEvent save = events.stream().filter(e -> e.getEventType().getName().equals("pharmacy.Repository")
+                && e.getString("operation").equals("add")).findFirst().orElseThrow();
+        assertFalse(payment.getStartTime().isAfter(save.getStartTime()), "The payment's span covers the save.");
+        assertFalse(payment.getEndTime().isBefore(save.getEndTime()));
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("pharmacy.Repository")
+                && e.getString("operation").equals("add") && "O12345".equals(e.getString("key"))));
+    }
+
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    /** Runs the action with every pharmacy event enabled at no threshold and returns what was recorded, in order. */
+    private List<RecordedEvent> record(Action action) throws Exception {
+        Path file = dir.resolve("test.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("pharmacy.Repository").withThreshold(Duration.ZERO).withoutStackTrace();
+            recording.enable("pharmacy.PasswordVerify").withThreshold(Duration.ZERO).withoutStackTrace();
+            recording.enable("pharmacy.Payment").withThreshold(Duration.ZERO).withoutStackTrace();
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getThread() != null && e.getThread().getJavaThreadId() == Thread.currentThread().getId())
+                .sorted(Comparator.comparing(RecordedEvent::getStartTime))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,136 @@
+package test.java;
+
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.model.ItemRecord;
+import main.java.repository.IntegrityScanner;
+import main.java.util.RecordChecksum;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for checksummed records: the line format, how the repositories read
+ * damaged lines, and the scanner that finds and quarantines them.
+ */
+public class TestIntegrity {
+
+    private Path dir;
+
+    @BeforeEach
+    public void createDir() throws IOException {
+        dir = Files.createTempDirectory("integrity");
+    }
+
+    @AfterEach
+    public void deleteDir() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    public void checksum_shouldRoundTripAndCatchEdits() {
+        String record = "M0001||Aspirin||3.0||12||Pain Relief||2";
+        String line = RecordChecksum.append(record);
+
+        assertTrue(RecordChecksum.isChecked(line));
+        assertEquals(record.length() + RecordChecksum.SUFFIX_LENGTH, line.length());
+        assertEquals(record, RecordChecksum.verify(line));
+        assertNull(RecordChecksum.verify(line.replace("12", "99")));
+        assertFalse(RecordChecksum.isChecked(record));
+        assertEquals(record, RecordChecksum.verify(record), "Lines written before checksums read as they are.");
+    }
+
+    @Test
+    public void repositories_shouldSkipDamagedLinesInsteadOfFailing() throws IOException {
+        String tampered = RecordChecksum.append("M0002||Paracetamol||2.5||36||Fever Reducer||1").replace("36", "96");
+        Files.write(dir.resolve("Item.txt"), String.join(System.lineSeparator(),
+                "M0001||Aspirin||3.0||12||Pain Relief||2",
+                tampered,
+                "M0003||Vitamin C||abc||5||Immunity||1",
+                RecordChecksum.append("S0001||Fish Oil||5.0||7||Heart||1"), "").getBytes());
+        BranchContext context = new BranchContext(new Branch("test", dir.toFile()));
+
+        List<ItemRecord> items = context.getItems().findAll();
+        assertEquals(2, items.size());
+        assertEquals("M0001", items.get(0).getCode());
+        assertEquals(7, items.get(1).getQuantity());
+        assertNull(context.getItems().findByCode("M0002"));
+
+        assertTrue(context.getItems().add(new ItemRecord("M0004", "Ibuprofen", 4.0, 10, ItemRecord.Type.MEDICINE,
+                "Pain Relief", 1)));
+        List<String> lines = Files.readAllLines(dir.resolve("Item.txt"));
+        assertTrue(RecordChecksum.isChecked(lines.get(lines.size() - 1)), "New lines carry a checksum.");
+        assertTrue(lines.contains("M0001||Aspirin||3.0||12||Pain Relief||2"), "Untouched lines keep their bytes.");
+    }
+
+    @Test
+    public void scanner_shouldReportDamageAcrossFiles() throws IOException {
+        writeBranch();
+        IntegrityScanner.Report report = new IntegrityScanner(new Branch("test", dir.toFile()), 2).scan();
+
+        assertFalse(report.isClean());
+        IntegrityScanner.FileReport items = report.getFile("Item.txt");
+        assertEquals(3, items.getLines());
+        assertEquals(1, items.getChecked());
+        assertEquals(1, items.getLegacy());
+        assertEquals(IntegrityScanner.Problem.CHECKSUM, items.getBad().get(0).getProblem());
+        IntegrityScanner.FileReport orders = report.getFile("Order.txt");
+        assertEquals(1, orders.getBad().size());
+        assertEquals(IntegrityScanner.Problem.MALFORMED, orders.getBad().get(0).getProblem());
+        assertTrue(orders.getBad().get(0).getOffset() > 0);
+        assertTrue(report.getFile("staff.txt").getBad().isEmpty());
+        assertTrue(report.getFile("Transaction.txt").getBad().isEmpty());
+        assertTrue(Files.notExists(dir.resolve("Item.txt" + IntegrityScanner.QUARANTINE_EXTENSION)),
+                "A scan changes nothing.");
+    }
+
+    @Test
+    public void salvage_shouldQuarantineBadLinesAndLeaveCleanFiles() throws IOException {
+        writeBranch();
+        Branch branch = new Branch("test", dir.toFile());
+        IntegrityScanner.Report salvaged = new IntegrityScanner(branch, 2).salvage();
+
+        assertTrue(salvaged.getFile("Item.txt").isQuarantined());
+        assertTrue(salvaged.getFile("Order.txt").isQuarantined());
+        List<String> quarantine = Files.readAllLines(dir.resolve("Order.txt" + IntegrityScanner.QUARANTINE_EXTENSION));
+        assertEquals(1, quarantine.size());
+        assertTrue(quarantine.get(0).contains("||MALFORMED||O0002||"));
+        assertEquals(2, Files.readAllLines(dir.resolve("Item.txt")).size());
+        assertEquals(2, Files.readAllLines(dir.resolve("Order.txt")).size());
+
+        IntegrityScanner.Report again = new IntegrityScanner(branch, 2).scan();
+        assertTrue(again.isClean(), again.toString());
+        assertEquals(2, new BranchContext(branch).getOrders().findAll().size());
+    }
+
+    private void writeBranch() throws IOException {
+        String nl = System.lineSeparator();
+        Files.write(dir.resolve("Item.txt"), String.join(nl,
+                "M0001||Aspirin||3.0||12||Pain Relief||2",
+                RecordChecksum.append("M0002||Paracetamol||2.5||36||Fever Reducer||1").replace("36", "96"),
+                RecordChecksum.append("S0001||Fish Oil||5.0||7||Heart||1"), "").getBytes());
+        Files.write(dir.resolve("staff.txt"), String.join(nl,
+                RecordChecksum.append("S1001||hash||John||Doe||012-345-6789||Pharmacist||123 Main St||12345||Region1||State1"),
+                "").getBytes());
+        Files.write(dir.resolve("Order.txt"), String.join(nl,
+                RecordChecksum.append("O0001||2025-01-02 09:00:00||M0001||2||6.00||6.00"),
+                "O0002||2025-01-03 09:00:00||M0001||two||6.00||6.00",
+                "O0003||2025-01-04 09:00:00||M0001||1||3.00||3.00", "").getBytes());
+        Files.write(dir.resolve("Transaction.txt"), String.join(nl,
+                RecordChecksum.append("O0001||6.00||0.0||0.00||6.0||6.36||10.00||3.64||CASH"), "").getBytes());
+    }
+}
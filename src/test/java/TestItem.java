@@ -635,6 +635,26 @@ public class TestItem {
                 assertFalse(output.contains("Item:"), "Controller should not print item details.");
         }
 
+        @Test
+        void controllerRun_searchMisspeltDescription_shouldDisplayClosestMatches() {
+                // Arrange
+                String mockedInput = "2\n" + // 1. Menu Selection: 2. Search
+                                "vitamn c\n" + // 2. Misspelt description instead of a code
+                                "5\n"; // 3. Second Menu Call (Exit)
+
+                setInput(mockedInput);
+                ItemController controller = new ItemController();
+
+                // Act
+                controller.run();
+
+                // Assert
+                String output = outputStreamCaptor.toString();
+                assertTrue(output.contains("Closest matches:"), "Controller should fall back to fuzzy search.");
+                assertTrue(output.contains("Code: S0005"), "Vitamin C should be among the matches.");
+                assertFalse(output.contains("Item not found."), "A fuzzy match is not a miss.");
+        }
+
         @Test
         void controllerRun_modifyNonExistentCode_shouldDisplayNotFound() {
                 // Arrange
@@ -1187,4 +1207,125 @@ public class TestItem {
                 assertTrue(output.contains("Immunity Boost"), "toString() should include updated Function.");
                 assertTrue(output.contains("250101"), "toString() should include updated expireDate.");
         }
+
+        // ------------------------- V. Stock Alert Index -------------------------
+
+        private static final String STOCK_ITEMS =
+                        "M0001||Aspirin||3.0||40||Pain Relief||2\n" +
+                        "M0002||Paracetamol||2.5||4||Fever Reducer||1\n" +
+                        "S0005||Vitamin C||5.0||10||Immune Support||230525\n" +
+                        "S0006||Fish Oil||7.5||-2||Omega-3 Fatty Acids||230404\n";
+
+        @Test
+        void findBelowReorderLevel_shouldListLowItemsLowestFirst() throws IOException {
+                Files.write(Path.of(ITEM_FILE_PATH), STOCK_ITEMS.getBytes(), StandardOpenOption.TRUNCATE_EXISTING);
+
+                List<main.java.inventory.StockAlertIndex.Entry> low = repository.findBelowReorderLevel();
+
+                assertEquals(3, low.size(), "Items at or below the default level of 10 should be reported.");
+                assertEquals("S0006", low.get(0).getItem().getCode(), "Negative stock should come first.");
+                assertEquals("M0002", low.get(1).getItem().getCode());
+                assertEquals("S0005", low.get(2).getItem().getCode(), "Stock equal to the level counts as low.");
+        }
+
+        @Test
+        void update_crossingReorderLevel_shouldFireListenerOnce() throws IOException {
+                Files.write(Path.of(ITEM_FILE_PATH), STOCK_ITEMS.getBytes(), StandardOpenOption.TRUNCATE_EXISTING);
+                List<String> alerts = new java.util.ArrayList<>();
+                repository.addStockListener((item, level) -> alerts.add(item.getCode() + ":" + item.getQuantity()));
+
+                ItemRecord aspirin = repository.findByCode("M0001");
+                repository.update("M0001", withQuantity(aspirin, 15));
+                repository.update("M0001", withQuantity(aspirin, 9));
+                repository.update("M0001", withQuantity(aspirin, 5));
+                repository.update("M0002", withQuantity(repository.findByCode("M0002"), 1));
+
+                assertEquals(List.of("M0001:9"), alerts, "Only the change that crosses the level should alert.");
+                assertEquals("M0002", repository.findBelowReorderLevel().get(1).getItem().getCode());
+        }
+
+        @Test
+        void findBelowReorderLevel_shouldTrackAddDeleteAndOutsideEdits() throws IOException {
+                Files.write(Path.of(ITEM_FILE_PATH), STOCK_ITEMS.getBytes(), StandardOpenOption.TRUNCATE_EXISTING);
+                assertEquals(3, repository.findBelowReorderLevel().size());
+
+                repository.add(new ItemRecord("M0003", "Cough Syrup", 4.0, 2, ItemRecord.Type.MEDICINE, "Cough", 3));
+                repository.delete("S0006");
+                List<main.java.inventory.StockAlertIndex.Entry> low = repository.findBelowReorderLevel();
+                assertEquals("M0003", low.get(0).getItem().getCode());
+                assertEquals(3, low.size());
+
+                Files.write(Path.of(ITEM_FILE_PATH), "M0001||Aspirin||3.0||1||Pain Relief||2\n".getBytes(),
+                                StandardOpenOption.TRUNCATE_EXISTING);
+                low = repository.findBelowReorderLevel();
+                assertEquals(1, low.size(), "An outside rewrite of Item.txt should reload the index.");
+                assertEquals("M0001", low.get(0).getItem().getCode());
+        }
+
+        // ------------------------- VI. Expiry Index -------------------------
+
+        private static final String EXPIRY_ITEMS =
+                        "M0001||Aspirin||3.0||40||Pain Relief||2\n" +
+                        "S0005||Vitamin C||5.0||10||Immune Support||20300525\n" +
+                        "S0006||Vitamin C||5.0||4||Immune Support||20300301\n" +
+                        "S0007||Vitamin C||5.0||0||Immune Support||20300101\n" +
+                        "S0008||Fish Oil||7.5||15||Omega-3 Fatty Acids||230404\n" +
+                        "S0009||Calcium||7.0||5||Bone Health||99\n";
+
+        @Test
+        void decodeExpiry_shouldAcceptLongAndShortForms() {
+                assertEquals(java.time.LocalDate.of(2030, 5, 25), main.java.inventory.ExpiryIndex.decode(20300525));
+                assertEquals(java.time.LocalDate.of(2023, 5, 25), main.java.inventory.ExpiryIndex.decode(230525));
+                assertNull(main.java.inventory.ExpiryIndex.decode(99), "Values that are not dates should be ignored.");
+                assertNull(main.java.inventory.ExpiryIndex.decode(20231345));
+        }
+
+        @Test
+        void findExpiringBetween_shouldReturnSupplementsInExpiryOrder() throws IOException {
+                Files.write(Path.of(ITEM_FILE_PATH), EXPIRY_ITEMS.getBytes(), StandardOpenOption.TRUNCATE_EXISTING);
+
+                List<main.java.inventory.ExpiryIndex.Entry> expiring = repository.findExpiringBetween(
+                                java.time.LocalDate.of(2030, 1, 1), java.time.LocalDate.of(2030, 3, 1));
+                assertEquals(2, expiring.size(), "Both range ends should be inclusive.");
+                assertEquals("S0007", expiring.get(0).getItem().getCode());
+                assertEquals("S0006", expiring.get(1).getItem().getCode());
+
+                List<main.java.inventory.ExpiryIndex.Entry> expired = repository.findExpiredBefore(
+                                java.time.LocalDate.of(2025, 1, 1));
+                assertEquals(1, expired.size(), "Medicines and undated supplements should not be indexed.");
+                assertEquals("S0008", expired.get(0).getItem().getCode());
+        }
+
+        @Test
+        void suggestFefo_shouldPointAtEarliestInStockBatch() throws IOException {
+                Files.write(Path.of(ITEM_FILE_PATH), EXPIRY_ITEMS.getBytes(), StandardOpenOption.TRUNCATE_EXISTING);
+                java.time.LocalDate today = java.time.LocalDate.of(2029, 12, 1);
+
+                main.java.inventory.ExpiryIndex.Entry tip = repository.suggestFefo(repository.findByCode("S0005"), today);
+                assertEquals("S0006", tip.getItem().getCode(), "Out-of-stock batches should be skipped.");
+                assertNull(repository.suggestFefo(repository.findByCode("S0006"), today));
+                assertNull(repository.suggestFefo(repository.findByCode("S0008"), today));
+        }
+
+        @Test
+        void expiryIndex_shouldFollowUpdatesAndDeletes() throws IOException {
+                Files.write(Path.of(ITEM_FILE_PATH), EXPIRY_ITEMS.getBytes(), StandardOpenOption.TRUNCATE_EXISTING);
+                java.time.LocalDate today = java.time.LocalDate.of(2029, 12, 1);
+                ItemRecord s7 = repository.findByCode("S0007");
+                repository.update("S0007", withQuantity(s7, 3));
+                assertEquals("S0007", repository.suggestFefo(repository.findByCode("S0005"), today).getItem().getCode());
+
+                repository.delete("S0007");
+                repository.update("S0006", new ItemRecord("S0006", "Vitamin C", 5.0, 4, ItemRecord.Type.SUPPLEMENT,
+                                "Immune Support", 20310101));
+                assertNull(repository.suggestFefo(repository.findByCode("S0005"), today),
+                                "A later expiry after update should no longer be suggested.");
+                assertEquals(0, repository.findExpiringBetween(java.time.LocalDate.of(2030, 1, 1),
+                                java.time.LocalDate.of(2030, 3, 31)).size());
+        }
+
+        private static ItemRecord withQuantity(ItemRecord r, int quantity) {
+                return new ItemRecord(r.getCode(), r.getDescription(), r.getPrice(), quantity, r.getType(),
+                                r.getExtra1(), r.getExtra2());
+        }
 }
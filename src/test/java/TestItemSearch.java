@@ -0,0 +1,109 @@
+package test.java;
+
+import main.java.inventory.ItemSearchIndex;
+import main.java.model.ItemRecord;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the trigram item search: typo tolerance, ranking, and keeping the
+ * index right as items are added, changed and removed.
+ */
+public class TestItemSearch {
+
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    public void buildIndex() {
+        index = new ItemSearchIndex();
+        index.reset(List.of(
+                medicine("M0001", "Aspirin", "Pain Relief"),
+                medicine("M0002", "Paracetamol", "Fever Reducer"),
+                medicine("M0003", "Cough Syrup", "Cough and Cold"),
+                medicine("M0010", "Cough Drops", "Cough and Cold"),
+                supplement("S0005", "Vitamin C", "Immune Support"),
+                supplement("S0009", "Vitamin D", "Bone Health")));
+    }
+
+    private static ItemRecord medicine(String code, String description, String use) {
+        return new ItemRecord(code, description, 2.5, 10, ItemRecord.Type.MEDICINE, use, 1);
+    }
+
+    private static ItemRecord supplement(String code, String description, String use) {
+        return new ItemRecord(code, description, 5.0, 10, ItemRecord.Type.SUPPLEMENT, use, 20991231);
+    }
+
+    private List<String> codes(String query) {
+        List<String> codes = new ArrayList<>();
+        for (ItemSearchIndex.Match m : index.search(query, 10)) {
+            codes.add(m.getItem().getCode());
+        }
+        return codes;
+    }
+
+    @Test
+    public void search_misspeltQuery_shouldRankTheIntendedItemFirst() {
+        assertEquals("M0002", codes("paracetmol").get(0));
+        assertEquals("M0003", codes("cough syrp").get(0));
+        assertEquals("S0005", codes("VITAMN C").get(0), "Case and typos both forgiven.");
+    }
+
+    @Test
+    public void search_shouldRankByEditDistanceThenCode() {
+        List<ItemSearchIndex.Match> matches = index.search("cough", 10);
+        assertEquals(List.of("M0003", "M0010"), codes("cough"));
+        assertEquals(0, matches.get(0).getDistance());
+
+        List<ItemSearchIndex.Match> vitamin = index.search("vitamin d", 10);
+        assertEquals("S0009", vitamin.get(0).getItem().getCode());
+        assertEquals(0, vitamin.get(0).getDistance());
+        assertEquals("S0005", vitamin.get(1).getItem().getCode());
+        assertEquals(1, vitamin.get(1).getDistance());
+    }
+
+    @Test
+    public void search_useField_shouldMatchToo() {
+        assertEquals(List.of("S0009"), codes("bone helth"));
+    }
+
+    @Test
+    public void search_unrelatedOrEmptyQuery_shouldFindNothing() {
+        assertTrue(codes("N9999").isEmpty());
+        assertTrue(codes("zzzz").isEmpty());
+        assertTrue(codes("  ").isEmpty());
+        assertEquals(1, index.search("cough", 1).size(), "Limit caps the matches.");
+    }
+
+    @Test
+    public void updateAndRemove_shouldKeepIndexCurrent() {
+        index.update(medicine("M0002", "Ibuprofen", "Fever Reducer"));
+        assertFalse(codes("paracetamol").contains("M0002"));
+        assertEquals("M0002", codes("ibuprofin").get(0));
+
+        index.update(new ItemRecord("M0003", "Cough Syrup", 4.0, 99, ItemRecord.Type.MEDICINE, "Cough and Cold", 3));
+        assertEquals(99, index.search("cough syrup", 1).get(0).getItem().getQuantity(), "Stock changes show up.");
+
+        index.remove("M0003");
+        assertEquals(List.of("M0010"), codes("cough"));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    public void manyChanges_shouldSurviveCompaction() {
+        for (int round = 0; round < 3000; round++) {
+            index.update(medicine("M9000", round % 2 == 0 ? "Loratadine" : "Cetirizine", "Allergy"));
+        }
+        index.remove("M0001");
+        assertEquals(List.of("M9000"), codes("cetirizin"));
+        assertTrue(codes("loratadine").isEmpty());
+        assertEquals("M0002", codes("paracetmol").get(0));
+        assertTrue(codes("aspirin").isEmpty());
+        assertEquals(6, index.size());
+    }
+}
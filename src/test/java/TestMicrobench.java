@@ -0,0 +1,38 @@
+package test.java;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests for the benchmark harness itself, with iterations short enough for the suite.
+ */
+public class TestMicrobench {
+
+    @Test
+    public void measure_shouldReportTimeAndAllocationPerCall() throws Exception {
+        assumeTrue(Microbench.allocatedBytes() >= 0, "This JVM does not count allocated bytes.");
+        Microbench bench = new Microbench(1, 2, 20, null);
+        String text = "O12345";
+
+        Microbench.Result free = bench.measure("length", "", text::length);
+        Microbench.Result allocating = bench.measure("array", "size=1024", () -> new byte[1024]);
+
+        assertTrue(free.getNanosPerOp() > 0);
+        assertTrue(free.getBytesPerOp() < 1, "Boxing a small int comes from the cache: " + free.getBytesPerOp());
+        assertTrue(allocating.getBytesPerOp() >= 1024, "Got " + allocating.getBytesPerOp());
+        assertEquals(2, bench.getResults().size());
+    }
+
+    @Test
+    public void filter_shouldSkipBenchmarksItDoesNotMatch() throws Exception {
+        Microbench bench = new Microbench(0, 1, 5, Pattern.compile("^Validation\\.isPhone "));
+
+        assertNull(bench.measure("Validation.isPostcode", "input=valid", () -> true));
+        assertNotNull(bench.measure("Validation.isPhone", "input=valid", () -> true));
+        assertEquals(1, bench.getResults().size());
+    }
+}
@@ -973,4 +973,58 @@ public class TestOrder {
             "Should show invalid quantity message.");
     }
 
-}
\ No newline at end of file
+    // ==================== Order number index ====================
+
+    @Test
+    void findByNumber_afterExternalRewrite_shouldRebuildStaleIndex() throws IOException {
+        assertNotNull(orderRepository.findByNumber("O0001"), "Baseline order should be indexed.");
+
+        Files.write(Path.of(ORDER_FILE_PATH),
+                "O0007||2025-02-02 09:00:00||M0001||1||3.0||3.0\n".getBytes(),
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        assertNull(orderRepository.findByNumber("O0001"), "Removed order should no longer be found.");
+        OrderRecord found = orderRepository.findByNumber("O0007");
+        assertNotNull(found, "Order written outside the repository should be found after rebuild.");
+        assertEquals("2025-02-02 09:00:00", found.getDate());
+    }
+
+    @Test
+    void findByNumber_afterUpdateAndDelete_shouldFollowShiftedOffsets() throws IOException {
+        for (int i = 2; i <= 4; i++) {
+            List<OrderLine> lines = new ArrayList<>();
+            lines.add(new OrderLine("M0001", i, i * 3.0));
+            assertTrue(orderRepository.add(new OrderRecord("O000" + i, "2025-03-0" + i + " 10:00:00", lines, i * 3.0)));
+        }
+        List<OrderLine> longer = new ArrayList<>();
+        longer.add(new OrderLine("M0001", 1, 3.0));
+        longer.add(new OrderLine("S0005", 1, 5.0));
+        assertTrue(orderRepository.update("O0002", new OrderRecord("O0002", "2025-03-02 10:00:00", longer, 8.0)));
+        assertTrue(orderRepository.delete("O0003"));
+
+        assertNull(orderRepository.findByNumber("O0003"), "Deleted order should not be found.");
+        assertEquals(2, orderRepository.findByNumber("O0002").getLines().size(), "Updated lines should be read back.");
+        OrderRecord last = orderRepository.findByNumber("O0004");
+        assertNotNull(last, "Order after the rewritten lines should still resolve.");
+        assertEquals(12.0, last.getTotal(), 0.001);
+        assertNotNull(new OrderRepository().findByNumber("O0004"), "A fresh repository should reuse the persisted index.");
+    }
+
+    @Test
+    void findByNumber_manyOrders_shouldResolveThroughMultiLevelTree() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= 5000; i++) {
+            sb.append(String.format("O%05d||2025-04-01 10:00:00||M0001||1||3.0||3.0%n", i));
+        }
+        Files.write(Path.of(ORDER_FILE_PATH), sb.toString().getBytes(), StandardOpenOption.TRUNCATE_EXISTING);
+
+        for (int i : new int[] {1, 777, 2500, 4999, 5000}) {
+            String number = String.format("O%05d", i);
+            OrderRecord found = orderRepository.findByNumber(number);
+            assertNotNull(found, number + " should be found.");
+            assertEquals(number, found.getOrderNumber());
+        }
+        assertNull(orderRepository.findByNumber("O05001"), "Key past the last leaf should not be found.");
+        assertNull(orderRepository.findByNumber("O00000"), "Key before the first leaf should not be found.");
+    }
+}
@@ -0,0 +1,204 @@
+package test.java;
+
+import main.java.analytics.SalesAnalytics;
+import main.java.analytics.SalesReport;
+import main.java.archive.Archiver;
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.model.OrderLine;
+import main.java.model.OrderRecord;
+import main.java.repository.OrderPartitions;
+import main.java.repository.OrderRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for sealing closed months of orders into partitions and for reading
+ * through the manifest.
+ */
+public class TestOrderPartitions {
+
+    private Path dir;
+    private Branch branch;
+    private OrderRepository repository;
+
+    @BeforeEach
+    public void createBranch() throws IOException {
+        dir = Files.createTempDirectory("partitions");
+        Files.write(dir.resolve("Order.txt"), String.join(System.lineSeparator(),
+                "O0001||2025-01-02 09:00:00||M0001||2||6.00||6.00",
+                "O0002||2025-01-30 18:00:00||M0001||1||3.00||3.00",
+                "O0003||2025-02-14 12:00:00||S0001||1||5.00||5.00",
+                "not an order",
+                "O0004||2025-03-01 08:00:00||M0001||1||3.00||3.00", "").getBytes());
+        branch = new Branch("test", dir.toFile());
+        repository = new OrderRepository(branch);
+    }
+
+    @AfterEach
+    public void deleteBranch() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    public void sealBefore_shouldMoveClosedMonthsIntoPartitions() throws IOException {
+        assertEquals(3, repository.sealBefore(YearMonth.of(2025, 3)));
+
+        List<OrderPartitions.Partition> sealed = new OrderPartitions(branch).list();
+        assertEquals(2, sealed.size());
+        OrderPartitions.Partition january = sealed.get(0);
+        assertEquals("2025-01", january.getMonth());
+        assertEquals(2, january.getCount());
+        assertEquals("O0001", january.getFirstNumber());
+        assertEquals("O0002", january.getLastNumber());
+        assertEquals("2025-01-30 18:00:00", january.getLastDate());
+        assertTrue(Files.exists(dir.resolve("orders").resolve("Order-2025-02.txt")));
+
+        List<String> open = Files.readAllLines(dir.resolve("Order.txt"));
+        assertEquals(List.of("not an order", "O0004||2025-03-01 08:00:00||M0001||1||3.00||3.00"), open);
+        assertEquals(List.of("O0001", "O0002", "O0003", "O0004"), numbers(repository.findAll()));
+        assertEquals(List.of("O0004"), numbers(repository.findOpen()));
+        assertEquals("O0002", repository.findByNumber("O0002").getOrderNumber());
+        assertEquals("O0004", repository.findByNumber("O0004").getOrderNumber());
+        assertNull(repository.findByNumber("O0005"));
+        assertFalse(repository.add(order("O0003", "2025-03-02 10:00:00")), "Sealed numbers stay taken.");
+        assertEquals(0, repository.sealBefore(YearMonth.of(2025, 3)));
+    }
+
+    @Test
+    public void findBetween_shouldOnlyReadOverlappingPartitions() throws IOException {
+        repository.sealBefore(YearMonth.of(2025, 3));
+        // a fresh repository has nothing cached; January can no longer be read at all
+        Files.delete(dir.resolve("orders").resolve("Order-2025-01.txt"));
+        OrderRepository fresh = new OrderRepository(branch);
+
+        assertEquals(List.of("O0003", "O0004"),
+                numbers(fresh.findBetween(LocalDate.of(2025, 2, 1), LocalDate.of(2025, 3, 31))));
+        assertEquals(List.of("O0003"),
+                numbers(fresh.findBetween(LocalDate.of(2025, 2, 14), LocalDate.of(2025, 2, 14))));
+        assertEquals("O0003", fresh.findByNumber("O0003").getOrderNumber());
+        assertEquals(List.of("O0003", "O0004"), numbers(fresh.findAll()));
+    }
+
+    @Test
+    public void updateAndDelete_shouldRewriteSealedPartition() throws IOException {
+        repository.sealBefore(YearMonth.of(2025, 3));
+
+        OrderRecord corrected = OrderRecord.ofSen("O0001", "2025-01-02 09:00:00",
+                List.of(OrderLine.ofSen("M0001", 3, 900)), 900);
+        assertTrue(repository.update("O0001", corrected));
+        assertEquals(900, new OrderRepository(branch).findByNumber("O0001").getTotalSen());
+
+        assertTrue(repository.delete("O0003"));
+        assertFalse(Files.exists(dir.resolve("orders").resolve("Order-2025-02.txt")));
+        List<OrderPartitions.Partition> sealed = new OrderPartitions(branch).list();
+        assertEquals(1, sealed.size());
+        assertEquals("2025-01", sealed.get(0).getMonth());
+        assertNull(new OrderRepository(branch).findByNumber("O0003"));
+        assertEquals(List.of("O0001", "O0002", "O0004"), numbers(repository.findAll()));
+    }
+
+    @Test
+    public void interruptedSeal_shouldNotDuplicateOrders() throws IOException {
+        repository.sealBefore(YearMonth.of(2025, 3));
+        // as if the order file had not been rewritten after the partitions were written
+        Files.write(dir.resolve("Order.txt"), ("O0002||2025-01-30 18:00:00||M0001||1||3.00||3.00"
+                + System.lineSeparator()).getBytes(), StandardOpenOption.APPEND);
+
+        assertEquals(List.of("O0001", "O0002", "O0003", "O0004"), numbers(repository.findAll()));
+        assertEquals(1, repository.sealBefore(YearMonth.of(2025, 3)));
+        assertEquals(2, new OrderPartitions(branch).list().get(0).getCount());
+        assertEquals(List.of("O0004"), numbers(repository.findOpen()));
+    }
+
+    @Test
+    public void numberRanges_shouldOrderLongerNumbersLast() throws IOException {
+        repository.add(order("O9999", "2025-03-05 10:00:00"));
+        repository.add(order("O10000", "2025-04-01 10:00:00"));
+        repository.sealBefore(YearMonth.of(2025, 5));
+
+        OrderPartitions.Partition march = new OrderPartitions(branch).list().get(2);
+        assertEquals("O0004", march.getFirstNumber());
+        assertEquals("O9999", march.getLastNumber());
+        OrderRepository fresh = new OrderRepository(branch);
+        assertEquals("2025-04-01 10:00:00", fresh.findByNumber("O10000").getDate());
+        assertEquals("2025-03-05 10:00:00", fresh.findByNumber("O9999").getDate());
+    }
+
+    @Test
+    public void salesAnalytics_shouldCoverSealedMonths() throws IOException {
+        repository.sealBefore(YearMonth.of(2025, 3));
+
+        assertEquals(4, new SalesAnalytics(branch, 1).analyze().getOrderCount());
+        assertEquals(1, new SalesAnalytics(dir.resolve("Order.txt").toFile(), 1).analyze().getOrderCount());
+    }
+
+    @Test
+    public void salesAnalytics_shouldCountOrdersAnInterruptedSealLeftTwiceOnce() throws IOException {
+        repository.sealBefore(YearMonth.of(2025, 3));
+        // as if the order file had not been rewritten after the partitions were written
+        Files.write(dir.resolve("Order.txt"), ("O0002||2025-01-30 18:00:00||M0001||1||3.00||3.00"
+                + System.lineSeparator()).getBytes(), StandardOpenOption.APPEND);
+
+        SalesReport report = new SalesAnalytics(branch, 1).analyze();
+        assertEquals(4, report.getOrderCount());
+        assertEquals(1700, report.getRevenueSen());
+        assertEquals(4, report.findItem("M0001").getQuantity());
+    }
+
+    @Test
+    public void salesAnalytics_shouldCountOrdersAnInterruptedArchiveLeftTwiceOnce() throws IOException {
+        repository.sealBefore(YearMonth.of(2025, 3));
+        Path sealed = dir.resolve("orders");
+        Path copy = Files.createDirectory(dir.resolve("orders-copy"));
+        try (Stream<Path> files = Files.list(sealed)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.copy(p, copy.resolve(p.getFileName()));
+            }
+        }
+        Archiver.archiveBefore(new BranchContext(branch), YearMonth.of(2025, 3));
+        // as if the partitions had not been dropped after the archive was written
+        try (Stream<Path> files = Files.list(copy)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.copy(p, sealed.resolve(p.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        assertEquals(List.of("O0001", "O0002", "O0003", "O0004"), numbers(new OrderRepository(branch).findAll()));
+        SalesReport report = new SalesAnalytics(branch, 1).analyze();
+        assertEquals(4, report.getOrderCount());
+        assertEquals(1700, report.getRevenueSen());
+    }
+
+    private static OrderRecord order(String number, String date) {
+        return OrderRecord.ofSen(number, date, List.of(OrderLine.ofSen("M0001", 1, 300)), 300);
+    }
+
+    private static List<String> numbers(List<OrderRecord> orders) {
+        List<String> numbers = new ArrayList<>();
+        for (OrderRecord order : orders) {
+            numbers.add(order.getOrderNumber());
+        }
+        return numbers;
+    }
+}
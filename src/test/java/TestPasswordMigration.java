@@ -0,0 +1,146 @@
+package test.java;
+
+import main.java.branch.Branch;
+import main.java.model.Staff;
+import main.java.repository.StaffRepository;
+import main.java.util.PasswordMigration;
+import main.java.util.PasswordUtil;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the offline password migration and the rehash at login that
+ * finishes it for legacy hashes.
+ */
+public class TestPasswordMigration {
+
+    private static final String ADDRESS = "||012-345-6789||Pharmacist||123 Main St||12345||Region1||State1";
+
+    private Path dir;
+    private Path staffFile;
+    /** Unsalted SHA-256 of "legacy", as older builds stored it. */
+    private String legacyHex;
+
+    @BeforeEach
+    public void createStaffFile() throws IOException {
+        dir = Files.createTempDirectory("migration");
+        staffFile = dir.resolve("staff.txt");
+        legacyHex = hexOf("legacy");
+    }
+
+    @AfterEach
+    public void deleteStaffFile() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    public void migrate_shouldHashPlainTextAndMarkLegacyHashes() throws IOException {
+        String salted = PasswordUtil.hashPassword("salted");
+        Files.write(staffFile, List.of(
+                "S1001||plain||John||Doe" + ADDRESS,
+                "S1002||" + legacyHex + "||Jane||Roe" + ADDRESS,
+                "S1003||" + salted + "||Ali||Tan" + ADDRESS,
+                "not a staff record"));
+
+        PasswordMigration.Result result = PasswordMigration.migrate(staffFile.toFile(), 2);
+
+        assertEquals(4, result.getLines());
+        assertEquals(1, result.getHashed());
+        assertEquals(1, result.getMarked());
+        assertEquals(1, result.getUnchanged());
+        assertEquals(1, result.getSkipped());
+        assertTrue(result.isRewritten());
+
+        List<String> lines = Files.readAllLines(staffFile);
+        assertEquals(4, lines.size());
+        String hashed = lines.get(0).split("\\|\\|")[1];
+        assertTrue(PasswordUtil.isHashed(hashed));
+        assertTrue(PasswordUtil.verifyPassword("plain", hashed));
+        String marked = lines.get(1).split("\\|\\|")[1];
+        assertEquals(PasswordUtil.REHASH_PREFIX + legacyHex, marked);
+        assertTrue(PasswordUtil.verifyPassword("legacy", marked));
+        assertFalse(PasswordUtil.verifyPassword("wrong", marked));
+        assertEquals("S1003||" + salted + "||Ali||Tan" + ADDRESS, lines.get(2));
+        assertEquals("not a staff record", lines.get(3));
+        assertFalse(Files.exists(dir.resolve("staff.txt.migrate.tmp")));
+    }
+
+    @Test
+    public void migrate_shouldLeaveFileAloneWhenEverythingIsSalted() throws IOException {
+        Files.write(staffFile, List.of("S1001||" + PasswordUtil.hashPassword("a") + "||John||Doe" + ADDRESS));
+        long modified = Files.getLastModifiedTime(staffFile).toMillis();
+
+        PasswordMigration.Result result = PasswordMigration.migrate(staffFile.toFile(), 1);
+
+        assertEquals(1, result.getUnchanged());
+        assertFalse(result.isRewritten());
+        assertEquals(modified, Files.getLastModifiedTime(staffFile).toMillis());
+        assertFalse(Files.exists(dir.resolve("staff.txt.migrate.tmp")));
+    }
+
+    @Test
+    public void migrate_shouldKeepOrderAcrossManyChunks() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append(String.format("S%04d||pw%d||First||Last%s%n", i, i, ADDRESS));
+        }
+        Files.write(staffFile, text.toString().getBytes());
+
+        PasswordMigration.Result result = PasswordMigration.migrate(staffFile.toFile(), 3);
+
+        assertEquals(1000, result.getHashed());
+        List<String> lines = Files.readAllLines(staffFile);
+        for (int i = 0; i < 1000; i += 97) {
+            String[] fields = lines.get(i).split("\\|\\|");
+            assertEquals(String.format("S%04d", i), fields[0]);
+            assertTrue(PasswordUtil.verifyPassword("pw" + i, fields[1]));
+        }
+    }
+
+    @Test
+    public void login_shouldReplaceMarkedHashWithSaltedOne() throws IOException {
+        Files.write(staffFile, List.of("S1002||" + legacyHex + "||Jane||Roe" + ADDRESS));
+        PasswordMigration.migrate(staffFile.toFile(), 1);
+        StaffRepository repository = new StaffRepository(new Branch("test", dir.toFile()));
+
+        assertNull(repository.validateCredentials("S1002", "wrong"));
+        assertTrue(Files.readAllLines(staffFile).get(0).contains(PasswordUtil.REHASH_PREFIX));
+
+        Staff staff = repository.validateCredentials("S1002", "legacy");
+        assertNotNull(staff);
+        String stored = Files.readAllLines(staffFile).get(0).split("\\|\\|")[1];
+        assertFalse(PasswordUtil.needsRehash(stored));
+        assertTrue(PasswordUtil.verifyPassword("legacy", stored));
+        assertNotNull(repository.validateCredentials("S1002", "legacy"));
+    }
+
+    private static String hexOf(String password) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(password.getBytes());
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
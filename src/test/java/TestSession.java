@@ -0,0 +1,125 @@
+package test.java;
+
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.session.TerminalServer;
+import main.java.util.PasswordUtil;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the multi-session terminal server. Tills connect over real sockets
+ * to a server running against a branch in a temporary directory.
+ */
+public class TestSession {
+
+    private Path dir;
+    private BranchContext context;
+    private TerminalServer server;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        dir = Files.createTempDirectory("session");
+        Files.write(dir.resolve("staff.txt"), ("S1001||" + PasswordUtil.hashPassword("password123")
+                + "||John||Doe||012-345-6789||Pharmacist||123 Main St||12345||Region1||State1\n").getBytes());
+        Files.write(dir.resolve("Item.txt"), "M0001||Aspirin||3.0||40||Pain Relief||2\n".getBytes());
+        Files.write(dir.resolve("Order.txt"), new byte[0]);
+        Files.write(dir.resolve("Transaction.txt"), new byte[0]);
+        context = new BranchContext(new Branch("test", dir.toFile()));
+        server = new TerminalServer(context, new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() throws IOException {
+        server.stop();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    /** Sends a till's whole input, then reads everything the server writes until it hangs up. */
+    private String till(String input) throws IOException {
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            socket.setSoTimeout(10_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(input.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            InputStream in = socket.getInputStream();
+            in.transferTo(received);
+            return received.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void session_shouldLoginShowMenuAndExit() throws Exception {
+        String output = till("S1001\r\npassword123\r\n5\r\n");
+
+        assertTrue(output.contains("Enter your username to login"));
+        assertTrue(output.contains("Login successful"));
+        assertTrue(output.contains("5. Exit"));
+    }
+
+    @Test
+    public void session_shouldCloseAfterFailedLogins() throws Exception {
+        String output = till("S1001\nwrong\nS1001\nwrong\nS1001\nwrong\n");
+
+        assertTrue(output.contains("Too many failed login attempts"));
+        assertFalse(output.contains("5. Exit"));
+    }
+
+    @Test
+    public void concurrentSessions_shouldShareRepositories() throws Exception {
+        ExecutorService tills = Executors.newFixedThreadPool(2);
+        try {
+            // two tills look the item up at the same time
+            Callable<String> search = () -> till("S1001\npassword123\n2\n2\nM0001\n5\n5\n");
+            Future<String> first = tills.submit(search);
+            Future<String> second = tills.submit(search);
+            assertTrue(first.get().contains("Aspirin"));
+            assertTrue(second.get().contains("Aspirin"));
+        } finally {
+            tills.shutdownNow();
+        }
+
+        assertTrue(till("S1001\npassword123\n2\n4\nM0001\n5\n5\n").contains("5. Exit"));
+        assertNull(context.getItems().findByCode("M0001"), "Every session should write through the shared repository");
+        assertTrue(till("S1001\npassword123\n2\n2\nM0001\n5\n5\n").contains("not found"));
+    }
+
+    @Test
+    public void disconnectMidPrompt_shouldEndOnlyThatSession() throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", server.getPort())) {
+            socket.getOutputStream().write("S1001\n".getBytes(StandardCharsets.UTF_8));
+        }
+        assertTrue(till("S1001\npassword123\n5\n").contains("Login successful"));
+
+        for (int i = 0; i < 100 && server.getActiveSessions() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, server.getActiveSessions());
+    }
+}
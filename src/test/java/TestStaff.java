@@ -500,6 +500,29 @@ public class TestStaff {
         assertTrue(output.contains("Staff not found"), "Not found message should be displayed.");
     }
 
+    @Test
+    void controllerHandleSearch_directoryTerms_shouldListMatchingStaff() {
+        // Arrange: S1001 is John Doe, a pharmacist in State1
+        String mockedInput =
+            "2\n" + // Menu Selection: 2. Search
+            "do, position=PHARMACIST, state=state1\n" + // Last name prefix, position and state
+            "2\n" + // Menu Selection: 2. Search
+            "position=cleaner\n" + // Nobody
+            "5\n" + // Exit menu
+            "5\n"; // Safety buffer
+
+        setInput(mockedInput);
+        StaffController controller = new StaffController();
+
+        // Act
+        controller.run();
+
+        // Assert
+        String output = outputStreamCaptor.toString();
+        assertTrue(output.contains("Staff ID: S1001"), "Matching staff should be listed.");
+        assertTrue(output.contains("Staff not found"), "A search with no matches should say so.");
+    }
+
     @Test
     void controllerHandleModify_existingStaff_shouldSucceed() {
         // Arrange: S1001 exists
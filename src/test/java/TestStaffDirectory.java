@@ -0,0 +1,128 @@
+package test.java;
+
+import main.java.branch.Branch;
+import main.java.model.Address;
+import main.java.model.Name;
+import main.java.model.Staff;
+import main.java.repository.StaffDirectory;
+import main.java.repository.StaffRepository;
+import main.java.storage.StaffQuery;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the staff directory: each field on its own, compound queries, and
+ * the repository keeping the directory in step with its writes.
+ */
+public class TestStaffDirectory {
+
+    private StaffDirectory directory;
+
+    @BeforeEach
+    public void buildDirectory() {
+        directory = StaffDirectory.of(List.of(
+                staff("S1001", "John", "Doe", "012-345-6789", "Pharmacist", "Region1", "Selangor"),
+                staff("S1002", "Jane", "Smith", "013-456-7890", "Assistant", "Region2", "Johor"),
+                staff("S1003", "Joanna", "Lim", "014-000-1111", "Pharmacist", "Region1", "Johor"),
+                staff("S1004", "Ahmad", "Johari", "015-222-3333", "Manager", "Region1", "Selangor")));
+    }
+
+    private static Staff staff(String id, String first, String last, String phone, String position,
+                               String region, String state) {
+        return new Staff(id, "hash", new Name(first, last), phone, position,
+                new Address("1 Main St", "12345", region, state));
+    }
+
+    private List<String> ids(StaffQuery query) {
+        List<String> ids = new ArrayList<>();
+        for (Staff s : directory.find(query)) {
+            ids.add(s.getStaffId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void singleFields_shouldMatchIgnoringCase() {
+        assertEquals(List.of("S1001", "S1002", "S1003"), ids(new StaffQuery().firstName("J")));
+        assertEquals(List.of("S1004"), ids(new StaffQuery().lastName("joh")));
+        assertEquals(List.of("S1002"), ids(new StaffQuery().phone("0134567890")), "Dashes are ignored.");
+        assertEquals(List.of("S1001", "S1003"), ids(new StaffQuery().position("pharmacist")));
+        assertEquals(List.of("S1002", "S1003"), ids(new StaffQuery().state("JOHOR")));
+        assertTrue(ids(new StaffQuery().position("Pharm")).isEmpty(), "Only names match by prefix.");
+    }
+
+    @Test
+    public void nameCondition_shouldMatchEitherFirstOrLastName() {
+        assertEquals(List.of("S1001", "S1003", "S1004"), ids(new StaffQuery().name("jo")));
+    }
+
+    @Test
+    public void compoundQuery_shouldIntersectEveryCondition() {
+        assertEquals(List.of("S1003"), ids(StaffQuery.parse("jo, position=Pharmacist, state=johor")));
+        assertEquals(List.of("S1004"), ids(StaffQuery.parse("region=region1, state=selangor, last=J")));
+        assertTrue(ids(StaffQuery.parse("jane, position=pharmacist")).isEmpty());
+        assertEquals(List.of("S1001"), ids(StaffQuery.parse("012-345-6789")), "A bare number is a phone.");
+    }
+
+    @Test
+    public void manyUpdates_shouldKeepResultsAndTheirOrder() {
+        for (int round = 0; round < 100; round++) {
+            String position = round % 2 == 0 ? "Manager" : "Pharmacist";
+            directory.put(staff("S1001", "John", "Doe", "012-345-6789", position, "Region1", "Selangor"));
+            directory.remove("S1002");
+            directory.put(staff("S1002", "Jane", "Smith", "013-456-7890", "Assistant", "Region2", "Johor"));
+        }
+        assertEquals(4, directory.size());
+        assertEquals(List.of("S1003", "S1001"), ids(new StaffQuery().position("pharmacist")),
+                "Renumbering keeps the order the staff were last put in.");
+        assertEquals(List.of("S1003", "S1004", "S1001", "S1002"), ids(new StaffQuery().name("")));
+        assertEquals(List.of("S1001"), ids(new StaffQuery().phone("0123456789")));
+    }
+
+    @Test
+    public void parse_unknownFieldOrEmptyTerm_shouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> StaffQuery.parse("salary=100"));
+        assertThrows(IllegalArgumentException.class, () -> StaffQuery.parse("jo,,"));
+    }
+
+    @Test
+    public void repositoryWrites_shouldKeepDirectoryCurrent() throws IOException {
+        Path dir = Files.createTempDirectory("directory");
+        try {
+            Files.write(dir.resolve("staff.txt"),
+                    "S1001||secret||John||Doe||012-345-6789||Pharmacist||123 Main St||12345||Region1||State1\n".getBytes());
+            StaffRepository repository = new StaffRepository(new Branch("test", dir.toFile()));
+            StaffQuery pharmacists = new StaffQuery().position("pharmacist");
+            assertEquals(1, repository.search(pharmacists).size());
+
+            repository.add(staff("S1002", "Mary", "Tan", "013-456-7890", "Pharmacist", "Region2", "State2"));
+            assertEquals(2, repository.search(pharmacists).size());
+
+            repository.update("S1001", staff("S1001", "John", "Doe", "012-345-6789", "Manager", "Region1", "State1"));
+            List<Staff> found = repository.search(pharmacists);
+            assertEquals(1, found.size());
+            assertEquals("S1002", found.get(0).getStaffId());
+            assertEquals(1, repository.search(new StaffQuery().name("doe").position("manager")).size());
+
+            repository.delete("S1002");
+            assertTrue(repository.search(pharmacists).isEmpty());
+
+            found = repository.search(new StaffQuery().name("john"));
+            found.get(0).getname().setLastName("Changed");
+            assertEquals("Doe", repository.search(new StaffQuery().name("john")).get(0).getname().getLastName(),
+                    "Results are copies.");
+        } finally {
+            Files.deleteIfExists(dir.resolve("staff.txt"));
+            Files.deleteIfExists(dir);
+        }
+    }
+}
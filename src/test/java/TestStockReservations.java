@@ -0,0 +1,149 @@
+package test.java;
+
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.config.OrderConstants;
+import main.java.inventory.StockReservations;
+import main.java.model.ItemRecord;
+import main.java.model.OrderLine;
+import main.java.service.OrderService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for holding stock while order lines are entered.
+ */
+public class TestStockReservations {
+
+    private static final ItemRecord ASPIRIN =
+            new ItemRecord("M0001", "Aspirin", 3.0, 5, ItemRecord.Type.MEDICINE, "Pain Relief", 2);
+
+    private Path dir;
+
+    @AfterEach
+    public void deleteDir() throws IOException {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    public void reserve_shouldNotHandOutTheSameUnitTwice() {
+        AtomicLong now = new AtomicLong();
+        StockReservations table = new StockReservations(Duration.ofMinutes(15), now::get);
+
+        assertTrue(table.reserve("till-1", ASPIRIN, 3));
+        assertEquals(2, table.available(ASPIRIN));
+        assertFalse(table.reserve("till-2", ASPIRIN, 3), "Only two are left to sell.");
+        assertTrue(table.reserve("till-2", ASPIRIN, 2));
+        assertEquals(0, table.available(ASPIRIN));
+        assertTrue(table.held("till-3").isEmpty());
+
+        table.release("till-1");
+        assertEquals(3, table.available(ASPIRIN));
+        assertEquals(Map.of("M0001", 2), table.held("till-2"));
+        table.release("till-2");
+        table.release("till-2");
+        assertEquals(0, table.reserved("M0001"));
+    }
+
+    @Test
+    public void holds_shouldLapseAfterTheTimeToLiveUnlessRenewed() {
+        AtomicLong now = new AtomicLong();
+        StockReservations table = new StockReservations(Duration.ofMinutes(15), now::get);
+        ItemRecord other = new ItemRecord("M0002", "Paracetamol", 2.5, 10, ItemRecord.Type.MEDICINE, "Fever", 1);
+
+        assertTrue(table.reserve("abandoned", ASPIRIN, 4));
+        assertTrue(table.reserve("busy", other, 1));
+        now.set(Duration.ofMinutes(10).toMillis());
+        assertTrue(table.reserve("busy", other, 1), "A new line renews every hold of the holder.");
+        now.set(Duration.ofMinutes(15).toMillis());
+
+        assertEquals(5, table.available(ASPIRIN), "The abandoned hold has lapsed.");
+        assertEquals(8, table.available(other));
+        now.set(Duration.ofMinutes(25).toMillis());
+        assertEquals(10, table.available(other));
+    }
+
+    @Test
+    public void placeOrder_shouldTurnTheHoldsIntoTheSale() throws IOException {
+        dir = Files.createTempDirectory("reservations");
+        Files.write(dir.resolve("Item.txt"), ("M0001||Aspirin||3.0||5||Pain Relief||2" + System.lineSeparator()).getBytes());
+        Files.createFile(dir.resolve("Order.txt"));
+        BranchContext context = new BranchContext(new Branch("test", dir.toFile()));
+        OrderService till = new OrderService(context.getItems(), context.getOrders(), context.getLock(),
+                context.getReservations());
+        ItemRecord item = till.findItem("M0001");
+
+        assertTrue(till.reserve("till-1", "M0001", 4));
+        assertNotNull(till.placeOrder("O0001", List.of(till.priceLine(item, 4)), "till-1"));
+        ItemRecord after = till.findItem("M0001");
+        assertEquals(1, after.getQuantity());
+        assertEquals(1, till.available(after), "Sold stock is no longer held as well.");
+        assertTrue(context.getReservations().held("till-1").isEmpty());
+        assertFalse(till.reserve("till-2", "M0001", 2));
+    }
+
+    private OrderService openTill(int stock, StockReservations table) throws IOException {
+        dir = Files.createTempDirectory("reservations");
+        Files.write(dir.resolve("Item.txt"),
+                ("M0001||Aspirin||3.0||" + stock + "||Pain Relief||2" + System.lineSeparator()).getBytes());
+        Files.createFile(dir.resolve("Order.txt"));
+        BranchContext context = new BranchContext(new Branch("test", dir.toFile()));
+        return new OrderService(context.getItems(), context.getOrders(), context.getLock(), table);
+    }
+
+    @Test
+    public void saleSavedAfterATillLooked_shouldNotBeSoldAgain() throws IOException {
+        StockReservations table = new StockReservations(Duration.ofMinutes(15));
+        OrderService till = openTill(1, table);
+        ItemRecord seenByTill1 = till.findItem("M0001");
+
+        assertTrue(till.reserve("till-2", "M0001", 1));
+        assertNotNull(till.placeOrder("O0002", List.of(till.priceLine(seenByTill1, 1)), "till-2"));
+        assertEquals(0, table.reserved("M0001"), "The sale has released its hold.");
+
+        assertFalse(till.reserve("till-1", "M0001", 1), "The last unit is sold although till 1 still shows it.");
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> till.placeOrder("O0001", List.of(till.priceLine(seenByTill1, 1))));
+        assertEquals("Only 0 of M0001 available.", e.getMessage());
+        assertNull(till.findOrder("O0001"));
+        assertEquals(0, till.findItem("M0001").getQuantity(), "Stock never goes negative.");
+    }
+
+    @Test
+    public void placeOrder_shouldRefuseLinesWhoseHoldLapsed() throws IOException {
+        AtomicLong now = new AtomicLong();
+        StockReservations table = new StockReservations(Duration.ofMinutes(15), now::get);
+        OrderService till = openTill(3, table);
+        ItemRecord item = till.findItem("M0001");
+
+        assertTrue(till.reserve("till-1", "M0001", 2));
+        now.set(Duration.ofMinutes(16).toMillis());
+        assertTrue(till.reserve("till-2", "M0001", 3), "The lapsed hold went back on sale.");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> till.placeOrder("O0001", List.of(till.priceLine(item, 2)), "till-1"));
+        assertEquals(String.format(OrderConstants.MSG_HOLD_LAPSED_FORMAT, "M0001"), e.getMessage());
+        assertNull(till.findOrder("O0001"));
+        assertEquals(3, till.findItem("M0001").getQuantity());
+    }
+}
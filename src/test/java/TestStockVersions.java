@@ -0,0 +1,102 @@
+package test.java;
+
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.model.ItemRecord;
+import main.java.service.OrderService;
+import main.java.storage.ItemStore;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for versioned item records: compare-and-set updates, and stock changes
+ * from tills that do not share a lock.
+ */
+public class TestStockVersions {
+
+    private Path dir;
+    private BranchContext context;
+
+    @BeforeEach
+    public void createBranch() throws IOException {
+        dir = Files.createTempDirectory("versions");
+        Files.write(dir.resolve("Item.txt"), String.join(System.lineSeparator(),
+                "M0001||Aspirin||3.0||1000||Pain Relief||2",
+                "M0002||Paracetamol||2.5||36||Fever Reducer||1", "").getBytes());
+        context = new BranchContext(new Branch("test", dir.toFile()));
+    }
+
+    @AfterEach
+    public void deleteDir() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    public void update_shouldOnlyApplyAtTheVersionRead() throws IOException {
+        ItemStore items = context.getItems();
+        ItemRecord read = items.findByCode("M0002");
+        assertEquals(0, read.getVersion(), "Lines written before versions existed are at version 0.");
+
+        assertTrue(items.update("M0002", read.getVersion(), read.withQuantity(30)));
+        ItemRecord stored = items.findByCode("M0002");
+        assertEquals(1, stored.getVersion());
+        assertEquals(30, stored.getQuantity());
+
+        assertFalse(items.update("M0002", read.getVersion(), read.withQuantity(20)), "A stale version is refused.");
+        assertEquals(30, items.findByCode("M0002").getQuantity());
+        assertFalse(items.update("M9999", 0, read.withQuantity(20)));
+
+        assertTrue(items.update("M0002", read.withQuantity(25)), "A plain update ignores the version.");
+        assertEquals(2, new BranchContext(new Branch("test", dir.toFile())).getItems().findByCode("M0002").getVersion(),
+                "The version is kept in the item file.");
+    }
+
+    @Test
+    public void adjustStock_shouldNotLoseChangesFromTillsWithTheirOwnLocks() throws Exception {
+        int tills = 4;
+        int sales = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(tills);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < tills; t++) {
+                // a service per till, each with its own lock, as separate processes would have
+                OrderService till = new OrderService(context.getItems(), context.getOrders());
+                done.add(pool.submit(() -> {
+                    for (int i = 0; i < sales; i++) {
+                        till.adjustStock("M0001", -2);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : done) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        ItemRecord item = context.getItems().findByCode("M0001");
+        assertEquals(1000 - tills * sales * 2, item.getQuantity());
+        assertEquals(tills * sales, item.getVersion());
+        assertNull(new OrderService(context.getItems(), context.getOrders()).adjustStock("M9999", 1));
+    }
+}
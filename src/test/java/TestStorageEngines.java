@@ -0,0 +1,160 @@
+package test.java;
+
+import main.java.analytics.SalesReport;
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.branch.StorageEngines;
+import main.java.checkpoint.Checkpoint;
+import main.java.events.ChangeBus;
+import main.java.model.ItemRecord;
+import main.java.repository.ItemRepository;
+import main.java.repository.TextFileEngine;
+import main.java.service.OrderService;
+import main.java.storage.ItemStore;
+import main.java.storage.KeyedStore;
+import main.java.storage.OrderStore;
+import main.java.storage.StaffStore;
+import main.java.storage.StorageEngine;
+import main.java.storage.TransactionStore;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for choosing the storage engine a branch opens its stores with, and for
+ * the generic keyed-store view of them.
+ */
+public class TestStorageEngines {
+
+    /** Opens the text-file stores, noting each one it was asked for. */
+    private static final class RecordingEngine implements StorageEngine {
+        private final TextFileEngine text = new TextFileEngine();
+        private final List<String> opened = new ArrayList<>();
+
+        @Override
+        public String getName() { return "recording"; }
+
+        @Override
+        public ItemStore openItems(Branch branch, ChangeBus changes) {
+            opened.add("items");
+            return text.openItems(branch, changes);
+        }
+
+        @Override
+        public OrderStore openOrders(Branch branch, ChangeBus changes) {
+            opened.add("orders");
+            return text.openOrders(branch, changes);
+        }
+
+        @Override
+        public TransactionStore openTransactions(Branch branch, ChangeBus changes) {
+            opened.add("transactions");
+            return text.openTransactions(branch, changes);
+        }
+
+        @Override
+        public StaffStore openStaff(Branch branch, ChangeBus changes) {
+            opened.add("staff");
+            return text.openStaff(branch, changes);
+        }
+    }
+
+    private Path dir;
+    private Branch branch;
+
+    @BeforeEach
+    public void createBranch() throws IOException {
+        dir = Files.createTempDirectory("storage");
+        Files.write(dir.resolve("Item.txt"), ("M0001||Aspirin||3.0||5||Pain Relief||2" + System.lineSeparator()).getBytes());
+        Files.createFile(dir.resolve("Order.txt"));
+        branch = new Branch("test", dir.toFile());
+    }
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        System.clearProperty(StorageEngines.PROPERTY);
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    public void branches_shouldUseTheTextFilesByDefault() throws IOException {
+        BranchContext context = new BranchContext(branch);
+
+        assertTrue(context.getStorage() instanceof TextFileEngine);
+        assertTrue(context.getItems() instanceof ItemRepository);
+        KeyedStore<String, ItemRecord> items = context.getItems();
+        assertEquals("Aspirin", items.find("M0001").getDescription());
+        assertTrue(StorageEngines.names().contains("text"));
+    }
+
+    @Test
+    public void configuredEngine_shouldOpenTheStoresServicesUse() throws IOException {
+        RecordingEngine engine = new RecordingEngine();
+        StorageEngines.register(engine);
+        System.setProperty(StorageEngines.PROPERTY, "recording");
+
+        BranchContext context = new BranchContext(branch);
+        assertSame(engine, context.getStorage());
+        assertTrue(engine.opened.isEmpty(), "Stores are opened on first use.");
+
+        OrderService till = new OrderService(context.getItems(), context.getOrders());
+        ItemRecord item = till.findItem("M0001");
+        assertNotNull(till.placeOrder("O0001", List.of(till.priceLine(item, 2))));
+        assertEquals(3, till.findItem("M0001").getQuantity());
+        assertEquals(List.of("items", "orders"), engine.opened);
+    }
+
+    @Test
+    public void salesAnalytics_shouldReadTheConfiguredEnginesOrders() throws IOException {
+        RecordingEngine engine = new RecordingEngine();
+        BranchContext context = new BranchContext(branch, engine);
+        OrderService till = new OrderService(context.getItems(), context.getOrders());
+        till.placeOrder("O0001", List.of(till.priceLine(till.findItem("M0001"), 2)));
+
+        SalesReport report = engine.analyzeSales(branch, context.getOrders(), 1);
+        SalesReport scanned = new TextFileEngine().analyzeSales(branch, context.getOrders(), 1);
+
+        assertEquals(1, report.getOrderCount());
+        assertEquals(600, report.getRevenueSen());
+        assertEquals(2, report.findItem("M0001").getQuantity());
+        assertEquals(2, report.getTypes().get(ItemRecord.Type.MEDICINE.ordinal()).getQuantity());
+        assertEquals(scanned.getRevenueSen(), report.getRevenueSen());
+        assertEquals(scanned.getDays().get(0).getLabel(), report.getDays().get(0).getLabel());
+    }
+
+    @Test
+    public void unknownEngine_shouldFailAtStartupNamingTheAvailableOnes() {
+        System.setProperty(StorageEngines.PROPERTY, "no-such-engine");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> new BranchContext(branch));
+        assertTrue(e.getMessage().contains("no-such-engine"));
+        assertTrue(e.getMessage().contains("text"));
+    }
+
+    @Test
+    public void checkpoints_shouldOnlyCoverTheTextFiles() throws IOException {
+        BranchContext context = new BranchContext(branch, new RecordingEngine());
+        File checkpoint = dir.resolve("snapshot.ckpt").toFile();
+
+        Checkpoint.write(context, checkpoint);
+
+        assertFalse(checkpoint.exists());
+        assertEquals(0, Checkpoint.restore(context, checkpoint).getSections());
+    }
+}
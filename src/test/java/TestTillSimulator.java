@@ -0,0 +1,55 @@
+package test.java;
+
+import main.java.branch.Branch;
+import main.java.branch.BranchContext;
+import main.java.session.TillSimulator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A short run of the till workload: every scripted operation must get the screen
+ * it expects, and the real data files must not change.
+ */
+public class TestTillSimulator {
+
+    private Path scratch;
+
+    @AfterEach
+    public void deleteScratch() throws IOException {
+        if (scratch == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(scratch)) {
+            for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    @Test
+    public void simulatedTills_shouldCheckOutWithoutErrorsOnACopy() throws Exception {
+        File orders = Branch.DEFAULT.file("Order.txt");
+        long ordersBefore = orders.length();
+        Branch copy = TillSimulator.scratchCopy(Branch.DEFAULT);
+        scratch = copy.file("").toPath();
+
+        TillSimulator.Report report = new TillSimulator(new BranchContext(copy), 3, 7L).run(0, 1);
+
+        assertEquals(0, report.getErrors(), report.toString());
+        assertTrue(report.getOperation("CHECKOUT").getCount() > 0, report.toString());
+        assertTrue(report.getOperation("CHECKOUT").percentile(0.99) > 0);
+        assertTrue(report.getGrowth("Order.txt") > 0);
+        assertTrue(report.getGrowth("Transaction.txt") > 0);
+        assertEquals(ordersBefore, orders.length(), "The simulation runs on a copy.");
+    }
+}
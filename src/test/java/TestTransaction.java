@@ -499,4 +499,145 @@ public class TestTransaction {
         assertTrue(output.contains(String.format("E-Wallet: %d transactions", ewalletCount)), 
                    "Should show correct e-wallet count");
     }
+
+    // --- 8. TEST CASES (FIXED-POINT MONEY) ---
+
+    @Test
+    public void testMoneyParseAndFormat() {
+        assertEquals(714, main.java.util.Money.parse("7.140000000000001"), "Legacy double text should round to the sen");
+        assertEquals(715, main.java.util.Money.parse("7.145"));
+        assertEquals(1200, main.java.util.Money.parse("12"));
+        assertEquals(-5, main.java.util.Money.parse("-0.05"));
+        assertEquals(150, main.java.util.Money.parse("1.5E0"), "Exponent form should still parse");
+        assertThrows(NumberFormatException.class, () -> main.java.util.Money.parse("abc"));
+        assertEquals("190.80", main.java.util.Money.format(19080));
+        assertEquals("-0.05", main.java.util.Money.format(-5));
+        assertEquals("0.00", main.java.util.Money.format(0));
+        assertEquals(1145, main.java.util.Money.percentOf(1080, 10600), "6% tax on RM10.80 rounds half-up");
+    }
+
+    @Test
+    public void testPaymentStoresExactTwoDecimalAmounts() throws IOException {
+        OrderRecord order = createMockOrder("O_EXACT_001", 7.14);
+        mockUserInput("2\nMaybank\n123456789\n");
+
+        new TransactionController().payForOrder(order);
+
+        String saved = null;
+        for (String line : Files.readAllLines(new File(TRANSACTION_FILE).toPath())) {
+            if (line.startsWith("O_EXACT_001||")) saved = line;
+        }
+        assertNotNull(saved);
+        assertTrue(saved.startsWith("O_EXACT_001||7.14||0.0||0.00||6.0||7.57||"), "Prices should be stored in sen precision: " + saved);
+        assertEquals(757, repository.findByOrder("O_EXACT_001").getFinalPriceSen());
+    }
+
+    // --- 9. TEST CASES (PRICING RULES) ---
+
+    private main.java.pricing.PricingEngine loadRules(String rules) throws IOException {
+        File config = File.createTempFile("pricing", ".txt");
+        config.deleteOnExit();
+        Files.write(config.toPath(), rules.getBytes());
+        try {
+            return main.java.pricing.PricingEngine.load(config);
+        } finally {
+            config.delete();
+        }
+    }
+
+    @Test
+    public void testBranchControllerUsesTheBranchPricingFile() throws IOException {
+        File dir = java.nio.file.Files.createTempDirectory("pricing").toFile();
+        File branchPayments = new File(dir, "Transaction.txt");
+        File branchPricing = new File(dir, "pricing.txt");
+        try {
+            Files.write(branchPayments.toPath(), new byte[0]);
+            Files.write(branchPricing.toPath(), "TAX||DEFAULT||0\nTAX||MEDICINE||0\nTAX||SUPPLEMENT||0\n".getBytes());
+            main.java.branch.BranchContext context = new main.java.branch.BranchContext(
+                    new main.java.branch.Branch("test", dir));
+            main.java.view.Terminal terminal = main.java.view.Terminal.of(
+                    new ByteArrayInputStream("2\nMaybank\n123456789\n".getBytes()), new ByteArrayOutputStream());
+
+            new TransactionController(terminal, context).payForOrder(createMockOrder("O_BRANCH_001", 50.00));
+
+            TransactionRecord record = context.getTransactions().findByOrder("O_BRANCH_001");
+            assertNotNull(record);
+            assertEquals(0.0, record.getTaxPercent(), "The branch's own rules charge no tax");
+            assertEquals(5000, record.getFinalPriceSen());
+        } finally {
+            branchPayments.delete();
+            branchPricing.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void testDefaultRulesMatchTheOldRates() {
+        main.java.pricing.PricingEngine engine = main.java.pricing.PricingEngine.defaults();
+        assertEquals(1000, engine.discountBasisPoints(15000), "RM150 exactly reaches the 10% tier");
+        assertEquals(500, engine.discountBasisPoints(14999));
+        assertEquals(500, engine.discountBasisPoints(10000));
+        assertEquals(0, engine.discountBasisPoints(9999));
+
+        main.java.pricing.PriceQuote quote = engine.price(createMockOrder("O_RULE_001", 200.00));
+        assertEquals(2000, quote.getDiscountSen());
+        assertEquals(19080, quote.getFinalSen());
+        assertEquals(6.0, quote.getTaxPercent());
+    }
+
+    @Test
+    public void testMixedTypesAtOneRateAreTaxedOnTheWholeNet() {
+        List<OrderLine> lines = new ArrayList<>();
+        lines.add(new OrderLine("M0001", 1, 0.05));
+        lines.add(new OrderLine("S0005", 1, 0.05));
+        OrderRecord order = new OrderRecord("O_RULE_004", "2023-10-05 09:00:00", lines, 0.10);
+
+        main.java.pricing.PriceQuote quote = main.java.pricing.PricingEngine.defaults().price(order);
+
+        assertEquals(1, quote.getTaxSen(), "6% of 10 sen rounds to 1 sen, as the old single rate did");
+        assertEquals(11, quote.getFinalSen());
+        assertEquals(6.0, quote.getTaxPercent());
+    }
+
+    @Test
+    public void testRuleFileTiersTaxAndPromotions() throws IOException {
+        main.java.pricing.PricingEngine engine = loadRules(
+                "# tiers in any order\n" +
+                "DISCOUNT||50||2\n" +
+                "DISCOUNT||300.00||15\n" +
+                "TAX||MEDICINE||0\n" +
+                "TAX||SUPPLEMENT||8\n" +
+                "PROMO||S0005||50||2023-10-01||2023-10-31\n");
+        assertEquals(1500, engine.discountBasisPoints(100000));
+        assertEquals(200, engine.discountBasisPoints(29999));
+        assertEquals(0, engine.discountBasisPoints(4999));
+
+        List<OrderLine> lines = new ArrayList<>();
+        lines.add(new OrderLine("M0001", 10, 30.0));
+        lines.add(new OrderLine("S0005", 8, 40.0));
+        OrderRecord inPromo = new OrderRecord("O_RULE_002", "2023-10-05 09:00:00", lines, 70.0);
+        OrderRecord afterPromo = new OrderRecord("O_RULE_003", "2023-11-01 09:00:00", lines, 70.0);
+
+        List<main.java.pricing.PriceQuote> quotes = engine.price(List.of(inPromo, afterPromo));
+
+        main.java.pricing.PriceQuote first = quotes.get(0);
+        assertEquals(2000, first.getPromotionSen(), "Half off the supplement line");
+        assertEquals(100, first.getTierDiscountSen(), "2% of the RM50 left after the promotion");
+        assertEquals(4900, first.getNetSen());
+        assertEquals(157, first.getTaxSen(), "8% on the discounted supplement line only");
+        assertEquals(5057, first.getFinalSen());
+
+        main.java.pricing.PriceQuote second = quotes.get(1);
+        assertEquals(0, second.getPromotionSen(), "Promotion should end with its date range");
+        assertEquals(6860, second.getNetSen());
+        assertEquals(314, second.getTaxSen());
+    }
+
+    @Test
+    public void testMalformedRuleFileIsRejected() {
+        assertThrows(IOException.class, () -> loadRules("DISCOUNT||100||5\nDISCOUNT||100.00||7\n"));
+        assertThrows(IOException.class, () -> loadRules("TAX||VITAMIN||6\n"));
+        assertThrows(IOException.class, () -> loadRules("PROMO||S0005||10||2023-12-01||2023-01-01\n"));
+        assertThrows(IOException.class, () -> loadRules("DISCOUNT||100||150\n"));
+    }
 }
\ No newline at end of file
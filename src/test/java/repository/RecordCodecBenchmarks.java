@@ -0,0 +1,69 @@
+package main.java.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import main.java.model.ItemRecord;
+import main.java.model.OrderLine;
+import main.java.model.OrderRecord;
+import main.java.model.Staff;
+import main.java.model.TransactionRecord;
+import main.java.util.PasswordUtil;
+import main.java.util.RecordChecksum;
+import test.java.Microbench;
+
+/**
+ * Per-line cost of reading and writing each data file with its repository's
+ * line parser and writer, for lines with and without a checksum and for orders
+ * of different sizes. Part of {@code test.java.PrimitiveBenchmarks}; it sits in
+ * this package to reach the package-private {@code parse} and {@code toLine}.
+ */
+public final class RecordCodecBenchmarks {
+    private RecordCodecBenchmarks() {}
+
+    public static void run(Microbench bench) throws Exception {
+        String itemRecord = "M0001||Aspirin||3.0||12||Pain Relief||2";
+        ItemRecord item = ItemRepository.parse(itemRecord);
+        bench.measure("ItemRepository.parse", "checksum=no", () -> ItemRepository.parse(itemRecord));
+        String itemLine = ItemRepository.toLine(item);
+        bench.measure("ItemRepository.parse", "checksum=yes", () -> ItemRepository.parse(itemLine));
+        bench.measure("ItemRepository.toLine", "", () -> ItemRepository.toLine(item));
+
+        String staffRecord = "S1001||" + PasswordUtil.hashPassword("secret") + "||John||Doe||012-345-6789"
+                + "||Pharmacist||123 Main St||12345||Region1||State1";
+        Staff staff = StaffRepository.parseStaffLine(staffRecord);
+        bench.measure("StaffRepository.parseStaffLine", "checksum=no",
+                () -> StaffRepository.parseStaffLine(staffRecord));
+        String staffLine = StaffRepository.toLine(staff);
+        bench.measure("StaffRepository.parseStaffLine", "checksum=yes",
+                () -> StaffRepository.parseStaffLine(staffLine));
+        bench.measure("StaffRepository.toLine", "", () -> StaffRepository.toLine(staff));
+
+        for (int lines : new int[] {1, 5, 20}) {
+            List<OrderLine> orderLines = new ArrayList<>();
+            for (int i = 0; i < lines; i++) {
+                orderLines.add(OrderLine.ofSen(String.format("M%04d", i + 1), 1 + i % 3, 250L * (1 + i % 3)));
+            }
+            OrderRecord order = OrderRecord.ofSen("O12345", "2025-06-01 10:15:00", orderLines,
+                    OrderRecord.sumSen(orderLines));
+            String orderLine = OrderRepository.toLine(order);
+            String legacy = RecordChecksum.verify(orderLine);
+            bench.measure("OrderRepository.parse", "lines=" + lines + " checksum=no",
+                    () -> OrderRepository.parse(legacy));
+            bench.measure("OrderRepository.parse", "lines=" + lines + " checksum=yes",
+                    () -> OrderRepository.parse(orderLine));
+            bench.measure("OrderRepository.toLine", "lines=" + lines, () -> OrderRepository.toLine(order));
+        }
+
+        TransactionRecord cash = TransactionRecord.ofSen("O12345", 4050, 0.0, 0, 6.0, 4293,
+                TransactionRecord.Method.CASH, "50.00", "7.07");
+        TransactionRecord bank = TransactionRecord.ofSen("O12345", 4050, 5.0, 203, 6.0, 4078,
+                TransactionRecord.Method.BANK, "Maybank", "1234-5678-9012-3456");
+        for (TransactionRecord payment : new TransactionRecord[] {cash, bank}) {
+            String method = "method=" + payment.getMethod().name();
+            String line = TransactionRepository.toLine(payment);
+            bench.measure("TransactionRepository.parse", method, () -> TransactionRepository.parse(line));
+            bench.measure("TransactionRepository.toLine", method, () -> TransactionRepository.toLine(payment));
+        }
+    }
+}